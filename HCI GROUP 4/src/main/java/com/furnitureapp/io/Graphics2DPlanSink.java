@@ -0,0 +1,112 @@
+package com.furnitureapp.io;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/** Draws plan primitives on a Graphics2D whose transform already maps millimetres to pixels. */
+class Graphics2DPlanSink implements PlanSink {
+
+    private final Graphics2D g;
+    private final Path2D.Double path = new Path2D.Double();
+    private final Rectangle2D.Double rect = new Rectangle2D.Double();
+    private final Line2D.Double segment = new Line2D.Double();
+    private BasicStroke stroke;
+    private Font font;
+    private Color color;
+
+    Graphics2DPlanSink(Graphics2D g) {
+        this.g = g;
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h, int argb) {
+        rect.setRect(x, y, w, h);
+        setColor(argb);
+        g.fill(rect);
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h, double lineWidth, int argb) {
+        rect.setRect(x, y, w, h);
+        setColor(argb);
+        setStroke(lineWidth);
+        g.draw(rect);
+    }
+
+    @Override
+    public void quad(double[] c, int fillArgb, double lineWidth) {
+        path.reset();
+        path.moveTo(c[0], c[1]);
+        path.lineTo(c[2], c[3]);
+        path.lineTo(c[4], c[5]);
+        path.lineTo(c[6], c[7]);
+        path.closePath();
+        setColor(fillArgb);
+        g.fill(path);
+        setColor(0xFF000000);
+        setStroke(lineWidth);
+        g.draw(path);
+    }
+
+    @Override
+    public void fillPolygon(List<double[]> rings, int argb) {
+        setColor(argb);
+        g.fill(rings(rings));
+    }
+
+    @Override
+    public void strokePolygon(List<double[]> rings, double lineWidth, int argb) {
+        setColor(argb);
+        setStroke(lineWidth);
+        g.draw(rings(rings));
+    }
+
+    private Path2D.Double rings(List<double[]> rings) {
+        path.reset();
+        path.setWindingRule(Path2D.WIND_EVEN_ODD);
+        for (double[] ring : rings) {
+            path.moveTo(ring[0], ring[1]);
+            for (int i = 2; i < ring.length; i += 2) path.lineTo(ring[i], ring[i + 1]);
+            path.closePath();
+        }
+        return path;
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, double lineWidth, int argb) {
+        segment.setLine(x1, y1, x2, y2);
+        setColor(argb);
+        setStroke(lineWidth);
+        g.draw(segment);
+    }
+
+    @Override
+    public void text(String text, double x, double y, double size, int argb) {
+        if (font == null || font.getSize2D() != (float) size) {
+            font = new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont((float) size); // Size in mm (user units)
+            g.setFont(font);
+        }
+        setColor(argb);
+        g.drawString(text, (float) x, (float) y);
+    }
+
+    private void setColor(int argb) {
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+            g.setColor(color);
+        }
+    }
+
+    private void setStroke(double lineWidth) {
+        if (stroke == null || stroke.getLineWidth() != (float) lineWidth) {
+            stroke = new BasicStroke((float) lineWidth);
+            g.setStroke(stroke);
+        }
+    }
+}
@@ -5,6 +5,7 @@ package com.furnitureapp.io;
  * Does not store the Shape, as that will be reloaded from the model file.
  */
 public class ItemData {
+    public long id; // Stable item ID (0 in layouts saved before IDs existed)
     public String modelFilename;
     public String type;
     public ColorData color; // Use ColorData DTO
@@ -9,6 +9,8 @@ public class LayoutData {
     public double roomWidthMeters;
     public double roomDepthMeters;
     public double wallHeightMeters;
+    public List<double[]> doors; // Door centres on the room outline, x,y in meters. Null: none
+    public List<double[]> roomRings; // Polygonal room: outer ring, then holes; x,y pairs in meters. Null for a rectangle
     public List<ColorData> wallColors; // List of ColorData DTOs
     public List<ItemData> items; // List of ItemData DTOs
 
@@ -0,0 +1,248 @@
+package com.furnitureapp.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes plan primitives into a single-page PDF. The page content stream is deflated and written
+ * as the calls arrive; its length is stored in a separate object after the stream, so nothing
+ * has to be buffered. Text uses the standard Helvetica font (no embedding).
+ * <p>
+ * Item colours are written opaque; PDF transparency needs extended graphics states, which the
+ * plan does not use.
+ */
+class PdfPlanSink implements PlanSink {
+
+    private static final double POINTS_PER_MM = 72 / 25.4;
+
+    private final CountingStream file;
+    private final long[] offsets = new long[7]; // Object number -> byte offset, objects 1..6
+    private final long contentStart;
+    private final DeflaterOutputStream deflated;
+    private final Deflater deflater = new Deflater(6);
+    private final StringBuilder sb = new StringBuilder(256);
+    private int fillRgb = -1, strokeRgb = -1;
+    private double lineWidth = -1;
+
+    /** Writes the document header and page objects for a page of the given size (mm). */
+    PdfPlanSink(OutputStream out, double widthMm, double heightMm) throws IOException {
+        this.file = new CountingStream(out);
+        double widthPt = widthMm * POINTS_PER_MM, heightPt = heightMm * POINTS_PER_MM;
+        write("%PDF-1.4\n%\u00E2\u00E3\u00CF\u00D3\n"); // Binary marker for transfer tools
+        startObject(1);
+        write("<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        startObject(2);
+        write("<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        startObject(3);
+        sb.append("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 ");
+        number(widthPt).append(' ');
+        number(heightPt).append("] /Resources << /Font << /F1 5 0 R >> >> /Contents 4 0 R >>\nendobj\n");
+        write(sb);
+        sb.setLength(0);
+        startObject(5);
+        write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+        startObject(4);
+        write("<< /Length 6 0 R /Filter /FlateDecode >>\nstream\n");
+        contentStart = file.count;
+        deflated = new DeflaterOutputStream(file, deflater, 64 * 1024); // finish() leaves the file open
+        // Millimetres, y down, like the other sinks
+        sb.append("1 J 1 j ");
+        number(POINTS_PER_MM).append(" 0 0 ");
+        number(-POINTS_PER_MM).append(" 0 ");
+        number(heightPt).append(" cm\n");
+        flushContent();
+    }
+
+    /** Ends the content stream and writes the length object, cross-reference table and trailer. */
+    void finish() throws IOException {
+        deflated.finish();
+        deflated.flush();
+        deflater.end();
+        long length = file.count - contentStart;
+        write("\nendstream\nendobj\n");
+        startObject(6);
+        write(length + "\nendobj\n");
+        long xref = file.count;
+        StringBuilder table = new StringBuilder("xref\n0 7\n0000000000 65535 f \n");
+        for (int i = 1; i <= 6; i++) {
+            String offset = Long.toString(offsets[i]);
+            table.append("0000000000", 0, 10 - offset.length()).append(offset).append(" 00000 n \n");
+        }
+        table.append("trailer\n<< /Size 7 /Root 1 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        write(table);
+        file.flush();
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h, int argb) throws IOException {
+        setFill(argb);
+        rect(x, y, w, h).append("f\n");
+        flushContent();
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h, double width, int argb) throws IOException {
+        setStroke(argb, width);
+        rect(x, y, w, h).append("S\n");
+        flushContent();
+    }
+
+    @Override
+    public void quad(double[] c, int fillArgb, double width) throws IOException {
+        setFill(fillArgb);
+        setStroke(0xFF000000, width);
+        number(c[0]).append(' ');
+        number(c[1]).append(" m ");
+        for (int i = 2; i < 8; i += 2) {
+            number(c[i]).append(' ');
+            number(c[i + 1]).append(" l ");
+        }
+        sb.append("b\n"); // Close, fill and stroke
+        flushContent();
+    }
+
+    @Override
+    public void fillPolygon(List<double[]> rings, int argb) throws IOException {
+        setFill(argb);
+        path(rings).append("f*\n"); // Even-odd
+        flushContent();
+    }
+
+    @Override
+    public void strokePolygon(List<double[]> rings, double width, int argb) throws IOException {
+        setStroke(argb, width);
+        path(rings).append("S\n");
+        flushContent();
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, double width, int argb) throws IOException {
+        setStroke(argb, width);
+        number(x1).append(' ');
+        number(y1).append(" m ");
+        number(x2).append(' ');
+        number(y2).append(" l S\n");
+        flushContent();
+    }
+
+    @Override
+    public void text(String text, double x, double y, double size, int argb) throws IOException {
+        setFill(argb);
+        sb.append("BT /F1 ");
+        number(size).append(" Tf 1 0 0 -1 "); // Un-flip the y-down page transform for glyphs
+        number(x).append(' ');
+        number(y).append(" Tm (");
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '(' || ch == ')' || ch == '\\') sb.append('\\');
+            sb.append(ch <= 0xFF ? ch : '?'); // WinAnsi covers Latin-1
+        }
+        sb.append(") Tj ET\n");
+        flushContent();
+    }
+
+    private StringBuilder path(List<double[]> rings) {
+        for (double[] ring : rings) {
+            number(ring[0]).append(' ');
+            number(ring[1]).append(" m ");
+            for (int i = 2; i < ring.length; i += 2) {
+                number(ring[i]).append(' ');
+                number(ring[i + 1]).append(" l ");
+            }
+            sb.append("h ");
+        }
+        return sb;
+    }
+
+    private StringBuilder rect(double x, double y, double w, double h) {
+        number(x).append(' ');
+        number(y).append(' ');
+        number(w).append(' ');
+        return number(h).append(" re ");
+    }
+
+    private void setFill(int argb) {
+        int rgb = argb & 0xFFFFFF;
+        if (rgb == fillRgb) return;
+        fillRgb = rgb;
+        rgb(rgb).append("rg\n");
+    }
+
+    private void setStroke(int argb, double width) {
+        int rgb = argb & 0xFFFFFF;
+        if (rgb != strokeRgb) {
+            strokeRgb = rgb;
+            rgb(rgb).append("RG\n");
+        }
+        if (width != lineWidth) {
+            lineWidth = width;
+            number(width).append(" w\n");
+        }
+    }
+
+    private StringBuilder rgb(int rgb) {
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            number(((rgb >> shift) & 0xFF) / 255.0).append(' ');
+        }
+        return sb;
+    }
+
+    /** Appends a number with at most three decimals, without String.format. */
+    private StringBuilder number(double value) {
+        long thousandths = Math.round(value * 1000);
+        if (thousandths < 0) {
+            sb.append('-');
+            thousandths = -thousandths;
+        }
+        sb.append(thousandths / 1000);
+        int fraction = (int) (thousandths % 1000);
+        if (fraction != 0) {
+            sb.append('.');
+            if (fraction < 100) sb.append('0');
+            if (fraction < 10) sb.append('0');
+            while (fraction % 10 == 0) fraction /= 10;
+            sb.append(fraction);
+        }
+        return sb;
+    }
+
+    private void startObject(int number) throws IOException {
+        offsets[number] = file.count;
+        write(number + " 0 obj\n");
+    }
+
+    private void write(CharSequence text) throws IOException {
+        file.write(text.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void flushContent() throws IOException {
+        deflated.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        sb.setLength(0);
+    }
+
+    /** Counts bytes written, for object offsets and the stream length. */
+    private static final class CountingStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.furnitureapp.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+import com.furnitureapp.util.ModelHelper;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command-line plan export for batch jobs, without a display:
+ * <pre>
+ * java -cp ... com.furnitureapp.io.PlanExportTool layout.furn plan.png [dpi] [A0|A1|A2|A3|A4]
+ * </pre>
+ * The output format follows the file extension (png, svg or pdf). Models are read from the
+ * same assets folder as the application, relative to the working directory.
+ */
+public final class PlanExportTool {
+
+    private static final Logger LOGGER = Logger.getLogger(PlanExportTool.class.getName());
+    private static final double PIXELS_PER_METER = 50.0; // Same world units as the canvas default
+
+    private PlanExportTool() {}
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2) {
+            System.err.println("Usage: PlanExportTool <layout.furn> <output.png|svg|pdf> [dpi] [A0..A4]");
+            System.exit(2);
+        }
+        try {
+            PlanExporter.Options options = new PlanExporter.Options();
+            if (args.length > 2) options.dpi = Double.parseDouble(args[2]);
+            if (args.length > 3) applyPaper(options, args[3]);
+
+            LayoutData layout = new ObjectMapper().readValue(new File(args[0]), LayoutData.class);
+            FurnitureScene scene = new FurnitureScene();
+            scene.setAll(loadItems(layout, new HashMap<>()));
+            PlanExporter exporter = layout.roomRings != null
+                    ? new PlanExporter(scene, new RoomShape(layout.roomRings), PIXELS_PER_METER)
+                    : new PlanExporter(scene, layout.roomWidthMeters, layout.roomDepthMeters, PIXELS_PER_METER);
+
+            long start = System.nanoTime();
+            exporter.export(new File(args[1]), options, new PlanExporter.ProgressListener() {
+                private int lastPercent = -1;
+
+                @Override
+                public void progress(int done, int total) {
+                    int percent = total == 0 ? 100 : (int) (100L * done / total);
+                    if (percent / 10 != lastPercent / 10) System.out.println("  " + percent + "%");
+                    lastPercent = percent;
+                }
+
+                @Override
+                public boolean isCancelled() { return false; }
+            });
+            System.out.printf(Locale.ROOT, "Exported %d items to %s in %.1f s%n",
+                              scene.size(), args[1], (System.nanoTime() - start) / 1e9);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.SEVERE, "Plan export failed", e);
+            System.exit(1);
+        }
+    }
+
+    /** ISO A sizes, portrait. */
+    private static void applyPaper(PlanExporter.Options options, String name) {
+        int n = Integer.parseInt(name.toUpperCase(Locale.ROOT).replace("A", ""));
+        if (n < 0 || n > 4) throw new IllegalArgumentException("Unsupported paper size: " + name);
+        double width = 841, height = 1189;
+        for (int i = 0; i < n; i++) {
+            double half = Math.floor(height / 2);
+            height = width;
+            width = half;
+        }
+        options.paperWidthMm = width;
+        options.paperHeightMm = height;
+    }
+
+    /**
+     * Rebuilds the items the same way the workspace does when loading a layout.
+     * @param templates loaded models by file name, filled in as models are loaded
+     */
+    static List<FurnitureItem> loadItems(LayoutData layout, Map<String, ModelHelper.ModelLoadResult> templates) {
+        List<FurnitureItem> items = new ArrayList<>();
+        if (layout.items == null) return items;
+        for (ItemData itemData : layout.items) {
+            ModelHelper.ModelLoadResult template = templates.computeIfAbsent(
+                itemData.modelFilename, k -> ModelHelper.loadModelDataFromObj(k, Color.GRAY));
+            if (template == null || template.item == null) {
+                LOGGER.warning("Could not load model " + itemData.modelFilename + ", item skipped.");
+                continue;
+            }
+            items.add(template.item.withNewId()
+                .withColor(itemData.color.toAwtColor())
+                .setScale(itemData.scaleX, itemData.scaleY)
+                .setRotation(itemData.rotationRadians)
+                .translateTo(itemData.tx, itemData.ty));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,427 @@
+package com.furnitureapp.io;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exports the 2D plan (room, furniture footprints, optional dimensions and legend) to a page
+ * as PNG, SVG or PDF.
+ * <p>
+ * The constructor copies what it needs from the scene, so it must run on the thread that owns
+ * the scene (the EDT); {@link #export} can then run on any thread and never touches the scene.
+ * Output is streamed: PNG is rendered in horizontal strips that are compressed as they are
+ * finished, and SVG/PDF are written element by element. Memory use is bounded by the scene
+ * copy and one strip, not by the page size or resolution. Needs no display.
+ */
+public final class PlanExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(PlanExporter.class.getName());
+    private static final int MAX_STRIP_PIXELS = 4_000_000; // ~16 MB per PNG strip
+    private static final int VECTOR_PROGRESS_STEP = 1024;  // Items between progress reports
+    private static final int MAX_LEGEND_ENTRIES = 24;
+    private static final int BACKGROUND = 0xFFFFFFFF;
+    private static final int ROOM_FILL = 0xFFF0F0F0;       // Same as the canvas
+    private static final int INK = 0xFF333333;
+    private static final double ITEM_LINE_MM = 0.1;
+    private static final double ROOM_LINE_MM = 0.4;
+    private static final double DIMENSION_LINE_MM = 0.2;
+
+    /** Output formats, chosen from the file extension by {@link #export(File, Options, ProgressListener)}. */
+    public enum Format {
+        PNG("png"), SVG("svg"), PDF("pdf");
+
+        private final String extension;
+
+        Format(String extension) { this.extension = extension; }
+
+        public String extension() { return extension; }
+
+        /** Returns the format for a file name's extension, or null if it is not supported. */
+        public static Format forFileName(String name) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (lower.endsWith("." + format.extension)) return format;
+            }
+            return null;
+        }
+    }
+
+    /** Page and content settings. Defaults: A0 portrait, 300 DPI, dimensions and legend on. */
+    public static class Options {
+        public double paperWidthMm = 841;
+        public double paperHeightMm = 1189;
+        public double dpi = 300;         // PNG only
+        public double marginMm = 15;
+        public boolean showDimensions = true;
+        public boolean showLegend = true;
+        public String title;             // Null: a summary line is generated
+    }
+
+    /** Receives progress from the exporting thread and can cancel the export. */
+    public interface ProgressListener {
+        void progress(int done, int total);
+        boolean isCancelled();
+    }
+
+    // --- Scene copy ---
+    private final int itemCount;
+    private final double[] corners; // 8 world coordinates per item, draw order
+    private final int[] argb;
+    private final RoomShape room;                               // Outline in world px
+    private final double roomWidth, roomDepth, pixelsPerMeter; // Room extent in world px
+    private final double minX, minY, maxX, maxY;               // Room and items, world px
+    private final List<LegendEntry> legend = new ArrayList<>();
+
+    /**
+     * Copies the scene's items. Call on the thread that mutates the scene.
+     * @param pixelsPerMeter World pixels per meter, as used by the canvas.
+     */
+    public PlanExporter(FurnitureScene scene, double roomWidthMeters, double roomDepthMeters, double pixelsPerMeter) {
+        this(scene, RoomShape.rectangle(roomWidthMeters, roomDepthMeters), pixelsPerMeter);
+    }
+
+    /**
+     * Copies the scene's items for a room of any outline.
+     * @param roomMeters Room outline in meters; the dimension lines show its extent from the origin.
+     */
+    public PlanExporter(FurnitureScene scene, RoomShape roomMeters, double pixelsPerMeter) {
+        this.pixelsPerMeter = pixelsPerMeter;
+        this.room = roomMeters.scaled(pixelsPerMeter, pixelsPerMeter);
+        this.roomWidth = room.getMaxX();
+        this.roomDepth = room.getMaxY();
+        this.itemCount = scene.size();
+        this.corners = new double[itemCount * 8];
+        this.argb = new int[itemCount];
+        double[] c = new double[8];
+        double x0 = 0, y0 = 0, x1 = roomWidth, y1 = roomDepth;
+        Map<String, LegendEntry> byType = new LinkedHashMap<>();
+        int i = 0;
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            scene.corners(slot, c);
+            System.arraycopy(c, 0, corners, i * 8, 8);
+            argb[i] = scene.argbAt(slot);
+            for (int k = 0; k < 8; k += 2) {
+                x0 = Math.min(x0, c[k]);
+                x1 = Math.max(x1, c[k]);
+                y0 = Math.min(y0, c[k + 1]);
+                y1 = Math.max(y1, c[k + 1]);
+            }
+            String type = scene.typeAt(slot);
+            LegendEntry entry = byType.get(type);
+            if (entry == null) {
+                entry = new LegendEntry(type, argb[i]);
+                byType.put(type, entry);
+            }
+            entry.count++;
+            i++;
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        legend.addAll(byType.values());
+        legend.sort((a, b) -> Integer.compare(b.count, a.count)); // Most used first
+    }
+
+    /**
+     * Writes the plan to a file, choosing the format from its extension. A partial file is
+     * deleted if the export fails or is cancelled.
+     * @throws CancellationException if the listener cancelled the export.
+     */
+    public void export(File file, Options options, ProgressListener progress) throws IOException {
+        Format format = Format.forFileName(file.getName());
+        if (format == null) throw new IOException("Unsupported export format: " + file.getName());
+        boolean done = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 64 * 1024)) {
+            export(format, out, options, progress);
+            done = true;
+        } finally {
+            if (!done && !file.delete()) {
+                LOGGER.warning("Could not delete incomplete export " + file);
+            }
+        }
+        LOGGER.info("Plan exported to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Writes the plan to a stream (not closed).
+     * @throws CancellationException if the listener cancelled the export.
+     */
+    public void export(Format format, OutputStream out, Options options, ProgressListener progress) throws IOException {
+        PageLayout page = new PageLayout(options);
+        switch (format) {
+            case PNG:
+                exportPng(page, out, progress);
+                break;
+            case SVG: {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                SvgPlanSink sink = new SvgPlanSink(writer, options.paperWidthMm, options.paperHeightMm);
+                drawVector(page, sink, progress);
+                sink.finish();
+                break;
+            }
+            case PDF: {
+                PdfPlanSink sink = new PdfPlanSink(out, options.paperWidthMm, options.paperHeightMm);
+                drawVector(page, sink, progress);
+                sink.finish();
+                break;
+            }
+        }
+    }
+
+    /** Pixel size of the PNG for the given options. */
+    public static int[] pngSize(Options options) {
+        double pxPerMm = options.dpi / 25.4;
+        return new int[]{(int) Math.round(options.paperWidthMm * pxPerMm), (int) Math.round(options.paperHeightMm * pxPerMm)};
+    }
+
+    // --- Vector output: one pass over the items ---
+
+    private void drawVector(PageLayout page, PlanSink sink, ProgressListener progress) throws IOException {
+        sink.fillRect(0, 0, page.paperWidth, page.paperHeight, BACKGROUND);
+        sink.fillPolygon(page.roomRings, ROOM_FILL);
+        double[] c = new double[8];
+        for (int i = 0; i < itemCount; i++) {
+            if (i % VECTOR_PROGRESS_STEP == 0) report(progress, i, itemCount);
+            drawItem(page, sink, i, c);
+        }
+        drawDecorations(page, sink);
+        report(progress, itemCount, itemCount);
+    }
+
+    // --- PNG output: horizontal strips ---
+
+    private void exportPng(PageLayout page, OutputStream out, ProgressListener progress) throws IOException {
+        int[] size = pngSize(page.options);
+        int width = size[0], height = size[1];
+        double pxPerMm = page.options.dpi / 25.4;
+        int stripRows = Math.max(1, Math.min(height, MAX_STRIP_PIXELS / Math.max(1, width)));
+        int stripCount = (height + stripRows - 1) / stripRows;
+        LOGGER.fine(() -> String.format("[Export] PNG %dx%d in %d strips of %d rows", width, height, stripCount, stripRows));
+
+        // Bucket items by the first strip they touch; each strip draws the items overlapping it
+        int[] firstStrip = new int[itemCount], lastStrip = new int[itemCount];
+        int[] bucketStart = new int[stripCount + 1];
+        double pad = ITEM_LINE_MM + 1 / pxPerMm; // Outline and antialiasing
+        for (int i = 0; i < itemCount; i++) {
+            double top = Double.MAX_VALUE, bottom = -Double.MAX_VALUE;
+            for (int k = 1; k < 8; k += 2) {
+                double y = page.y(corners[i * 8 + k]);
+                top = Math.min(top, y);
+                bottom = Math.max(bottom, y);
+            }
+            firstStrip[i] = clamp((int) Math.floor((top - pad) * pxPerMm / stripRows), 0, stripCount - 1);
+            lastStrip[i] = clamp((int) Math.floor((bottom + pad) * pxPerMm / stripRows), 0, stripCount - 1);
+            bucketStart[firstStrip[i] + 1]++;
+        }
+        for (int s = 0; s < stripCount; s++) bucketStart[s + 1] += bucketStart[s];
+        int[] bucketItems = new int[itemCount];
+        int[] fill = Arrays.copyOf(bucketStart, stripCount);
+        for (int i = 0; i < itemCount; i++) bucketItems[fill[firstStrip[i]]++] = i; // Ascending within a bucket
+
+        BufferedImage strip = new BufferedImage(width, stripRows, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+        int[] active = new int[64];
+        int activeCount = 0;
+        double[] c = new double[8];
+        PngStripWriter png = new PngStripWriter(out, width, height);
+        for (int s = 0; s < stripCount; s++) {
+            report(progress, s, stripCount);
+            // Drop items that ended above this strip, add the ones starting in it
+            int kept = 0;
+            for (int a = 0; a < activeCount; a++) {
+                if (lastStrip[active[a]] >= s) active[kept++] = active[a];
+            }
+            activeCount = kept;
+            int added = bucketStart[s + 1] - bucketStart[s];
+            if (activeCount + added > active.length) active = Arrays.copyOf(active, Math.max(activeCount + added, active.length * 2));
+            System.arraycopy(bucketItems, bucketStart[s], active, activeCount, added);
+            activeCount += added;
+            Arrays.sort(active, 0, activeCount); // Item order is draw order
+
+            int y0 = s * stripRows;
+            int rows = Math.min(stripRows, height - y0);
+            Graphics2D g = strip.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE); // Strips must join seamlessly
+                g.translate(0, -y0);
+                g.scale(pxPerMm, pxPerMm);
+                g.clipRect(0, (int) Math.floor(y0 / pxPerMm), (int) Math.ceil(page.paperWidth), (int) Math.ceil(rows / pxPerMm) + 2);
+                PlanSink sink = new Graphics2DPlanSink(g);
+                sink.fillRect(0, y0 / pxPerMm - 1, page.paperWidth, rows / pxPerMm + 2, BACKGROUND);
+                sink.fillPolygon(page.roomRings, ROOM_FILL);
+                for (int a = 0; a < activeCount; a++) drawItem(page, sink, active[a], c);
+                drawDecorations(page, sink); // Clipped to the strip by Java2D
+            } finally {
+                g.dispose();
+            }
+            png.writeRows(pixels, 0, width, rows);
+        }
+        png.finish();
+        report(progress, stripCount, stripCount);
+    }
+
+    // --- Shared drawing ---
+
+    private void drawItem(PageLayout page, PlanSink sink, int i, double[] c) throws IOException {
+        int base = i * 8;
+        for (int k = 0; k < 8; k += 2) {
+            c[k] = page.x(corners[base + k]);
+            c[k + 1] = page.y(corners[base + k + 1]);
+        }
+        sink.quad(c, argb[i], ITEM_LINE_MM);
+    }
+
+    /** Room outline, dimension lines, legend and title (everything except the items). */
+    private void drawDecorations(PageLayout page, PlanSink sink) throws IOException {
+        double text = page.textSize;
+        double left = page.x(0), top = page.y(0);
+        double right = page.x(roomWidth), bottom = page.y(roomDepth);
+        sink.strokePolygon(page.roomRings, ROOM_LINE_MM, INK);
+
+        if (page.options.showDimensions) {
+            // Width above the room, depth to its left, with end ticks
+            double dimY = Math.min(top, page.y(minY)) - text * 1.2;
+            double tick = text * 0.4;
+            sink.line(left, dimY, right, dimY, DIMENSION_LINE_MM, INK);
+            sink.line(left, dimY - tick, left, dimY + tick, DIMENSION_LINE_MM, INK);
+            sink.line(right, dimY - tick, right, dimY + tick, DIMENSION_LINE_MM, INK);
+            String widthLabel = formatMeters(roomWidth / pixelsPerMeter);
+            sink.text(widthLabel, (left + right) / 2 - estimateWidth(widthLabel, text) / 2, dimY - tick - text * 0.2, text, INK);
+
+            double dimX = Math.min(left, page.x(minX)) - text * 1.2;
+            sink.line(dimX, top, dimX, bottom, DIMENSION_LINE_MM, INK);
+            sink.line(dimX - tick, top, dimX + tick, top, DIMENSION_LINE_MM, INK);
+            sink.line(dimX - tick, bottom, dimX + tick, bottom, DIMENSION_LINE_MM, INK);
+            String depthLabel = formatMeters(roomDepth / pixelsPerMeter);
+            sink.text(depthLabel, dimX - tick - estimateWidth(depthLabel, text) - text * 0.2, (top + bottom) / 2 + text / 3, text, INK);
+        }
+
+        String title = page.options.title != null ? page.options.title
+                : String.format(Locale.ROOT, "Floor plan %s x %s, %d items",
+                                formatMeters(roomWidth / pixelsPerMeter), formatMeters(roomDepth / pixelsPerMeter), itemCount);
+        sink.text(title, page.margin, page.margin + text * 1.2, text * 1.2, INK);
+
+        if (page.options.showLegend && !legend.isEmpty()) {
+            int shown = Math.min(legend.size(), MAX_LEGEND_ENTRIES);
+            double rowHeight = text * 1.6;
+            for (int e = 0; e < shown; e++) {
+                LegendEntry entry = legend.get(e);
+                double x = page.margin + (e % page.legendColumns) * page.legendColumnWidth;
+                double y = page.legendTop + (e / page.legendColumns) * rowHeight;
+                sink.fillRect(x, y, text, text, entry.argb);
+                sink.strokeRect(x, y, text, text, ITEM_LINE_MM, 0xFF000000);
+                sink.text(entry.type + " (" + entry.count + ")", x + text * 1.5, y + text * 0.85, text, INK);
+            }
+            if (legend.size() > shown) {
+                double y = page.legendTop + ((shown + page.legendColumns - 1) / page.legendColumns) * rowHeight;
+                sink.text("+ " + (legend.size() - shown) + " more types", page.margin, y + text * 0.85, text, INK);
+            }
+        }
+    }
+
+    private static String formatMeters(double meters) {
+        return String.format(Locale.ROOT, "%.2f m", meters);
+    }
+
+    /** Rough text width for centring: sans-serif glyphs average about half the font size. */
+    private static double estimateWidth(String text, double size) {
+        return text.length() * size * 0.52;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static void report(ProgressListener progress, int done, int total) {
+        if (progress == null) return;
+        if (progress.isCancelled()) {
+            LOGGER.log(Level.INFO, "Plan export cancelled at {0}/{1}", new Object[]{done, total});
+            throw new CancellationException("Export cancelled");
+        }
+        progress.progress(done, total);
+    }
+
+    /** Where everything goes on the page: plan area, scale, legend block. All in mm. */
+    private final class PageLayout {
+        final Options options;
+        final double paperWidth, paperHeight, margin, textSize;
+        final double scale;        // mm per world px
+        final double offsetX, offsetY;
+        final int legendColumns;
+        final double legendColumnWidth, legendTop;
+        final List<double[]> roomRings = new ArrayList<>(); // Room outline in page mm
+
+        PageLayout(Options options) {
+            this.options = options;
+            paperWidth = options.paperWidthMm;
+            paperHeight = options.paperHeightMm;
+            margin = options.marginMm;
+            textSize = Math.max(2.5, Math.min(10, Math.min(paperWidth, paperHeight) / 100)); // ~8 mm on A0, 2.5 on A4
+
+            double header = textSize * 2.5; // Title
+            double dimensionSpace = options.showDimensions ? textSize * 5 : 0;
+            legendColumnWidth = textSize * 20;
+            legendColumns = Math.max(1, (int) ((paperWidth - 2 * margin) / legendColumnWidth));
+            int legendRows = options.showLegend && !legend.isEmpty()
+                    ? (Math.min(legend.size(), MAX_LEGEND_ENTRIES) + legendColumns - 1) / legendColumns + 1 : 0;
+            double legendHeight = legendRows * textSize * 1.6;
+            legendTop = paperHeight - margin - legendHeight + textSize;
+
+            double areaX = margin + dimensionSpace, areaY = margin + header + dimensionSpace;
+            double areaW = Math.max(1, paperWidth - margin - areaX);
+            double areaH = Math.max(1, paperHeight - margin - legendHeight - areaY);
+            double extentW = Math.max(1e-9, maxX - minX), extentH = Math.max(1e-9, maxY - minY);
+            scale = Math.min(areaW / extentW, areaH / extentH);
+            offsetX = areaX + (areaW - extentW * scale) / 2 - minX * scale; // Centred horizontally
+            offsetY = areaY - minY * scale;
+            for (double[] ring : room.rings()) {
+                double[] onPage = new double[ring.length];
+                for (int k = 0; k < ring.length; k += 2) {
+                    onPage[k] = x(ring[k]);
+                    onPage[k + 1] = y(ring[k + 1]);
+                }
+                roomRings.add(onPage);
+            }
+        }
+
+        double x(double worldX) { return offsetX + worldX * scale; }
+        double y(double worldY) { return offsetY + worldY * scale; }
+    }
+
+    private static final class LegendEntry {
+        final String type;
+        final int argb; // Colour of the first item of this type
+        int count;
+
+        LegendEntry(String type, int argb) {
+            this.type = type;
+            this.argb = argb;
+        }
+    }
+}
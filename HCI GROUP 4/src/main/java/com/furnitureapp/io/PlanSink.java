@@ -0,0 +1,30 @@
+package com.furnitureapp.io;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Drawing primitives used by {@link PlanExporter}. Coordinates are millimetres on the paper,
+ * origin top-left, y down; colours are ARGB. Implementations draw to Java2D (raster strips)
+ * or write SVG / PDF markup as the calls arrive.
+ */
+interface PlanSink {
+
+    void fillRect(double x, double y, double w, double h, int argb) throws IOException;
+
+    void strokeRect(double x, double y, double w, double h, double lineWidth, int argb) throws IOException;
+
+    /** Fills a quad given as x0,y0,...,x3,y3 and outlines it in black. */
+    void quad(double[] corners, int fillArgb, double lineWidth) throws IOException;
+
+    /** Fills a polygon with holes (even-odd). Each ring is x0,y0,x1,y1,... and is closed implicitly. */
+    void fillPolygon(List<double[]> rings, int argb) throws IOException;
+
+    /** Outlines every ring of a polygon. */
+    void strokePolygon(List<double[]> rings, double lineWidth, int argb) throws IOException;
+
+    void line(double x1, double y1, double x2, double y2, double lineWidth, int argb) throws IOException;
+
+    /** Draws left-aligned text with its baseline at y. */
+    void text(String text, double x, double y, double size, int argb) throws IOException;
+}
@@ -0,0 +1,129 @@
+package com.furnitureapp.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal streaming PNG encoder (8-bit RGB, no interlacing). Rows are compressed and written as
+ * they arrive, so only the caller's current strip is ever held in memory, whatever the image size.
+ */
+public final class PngStripWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int width, height;
+    private final DeflaterOutputStream idat;
+    private final Deflater deflater = new Deflater(6);
+    private final byte[] row;
+    private int rowsWritten = 0;
+
+    /** Writes the PNG signature and header; rows follow with {@link #writeRows}. */
+    public PngStripWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + width * 3]; // Filter byte + RGB
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;  // Bit depth
+        header[9] = 2;  // Colour type: truecolour
+        header[10] = 0; // Deflate
+        header[11] = 0; // Adaptive filtering
+        header[12] = 0; // No interlace
+        writeChunk("IHDR", header, header.length);
+        idat = new DeflaterOutputStream(new IdatStream(), deflater, IDAT_CHUNK_SIZE);
+    }
+
+    /** Appends rows taken from packed RGB pixels (as in a TYPE_INT_RGB raster). */
+    public void writeRows(int[] pixels, int offset, int scanlineStride, int rows) throws IOException {
+        if (rowsWritten + rows > height) throw new IllegalStateException("More rows than the image height");
+        for (int y = 0; y < rows; y++) {
+            int p = offset + y * scanlineStride;
+            row[0] = 1; // "Sub" filter: stores the difference to the left pixel, compresses flat areas well
+            int previous = 0;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int rgb = pixels[p + x];
+                row[i] = (byte) ((rgb >> 16) - (previous >> 16));
+                row[i + 1] = (byte) ((rgb >> 8) - (previous >> 8));
+                row[i + 2] = (byte) (rgb - previous);
+                previous = rgb;
+            }
+            idat.write(row);
+        }
+        rowsWritten += rows;
+    }
+
+    /** Flushes the compressed data and writes the end chunk. Does not close the stream. */
+    public void finish() throws IOException {
+        if (rowsWritten != height) throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows written");
+        idat.finish();
+        idat.flush();
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] lengthBytes = new byte[4];
+        putInt(lengthBytes, 0, length);
+        out.write(lengthBytes);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] crcBytes = new byte[4];
+        putInt(crcBytes, 0, (int) crc.getValue());
+        out.write(crcBytes);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+    /** Collects compressed bytes and emits them as IDAT chunks of bounded size. */
+    private final class IdatStream extends OutputStream {
+        private final byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+        private int count = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) flushChunk();
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) flushChunk();
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            writeChunk("IDAT", buffer, count);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.furnitureapp.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.model.RoomShape;
+import com.furnitureapp.util.ModelHelper;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command-line 3D preview rendering for batch jobs, without a display or GPU:
+ * <pre>
+ * java -cp ... com.furnitureapp.io.PreviewRenderTool layout.furn preview.png [width] [height] [yaw]
+ * </pre>
+ * The image shows the room and furniture as the 3D view does with depth lighting, rotated by
+ * {@code yaw} degrees. Models are read from the same assets folder as the application, relative
+ * to the working directory.
+ */
+public final class PreviewRenderTool {
+
+    private static final Logger LOGGER = Logger.getLogger(PreviewRenderTool.class.getName());
+    private static final double PIXELS_PER_METER = 50.0; // Same world units as the canvas default
+    private static final double DEFAULT_WALL_HEIGHT = 2.5;
+
+    private PreviewRenderTool() {}
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 2) {
+            System.err.println("Usage: PreviewRenderTool <layout.furn> <output.png> [width] [height] [yaw]");
+            System.exit(2);
+        }
+        try (PreviewRenderer renderer = new PreviewRenderer(0)) {
+            PreviewRenderer.Options options = new PreviewRenderer.Options();
+            if (args.length > 2) options.width = Integer.parseInt(args[2]);
+            if (args.length > 3) options.height = Integer.parseInt(args[3]);
+            if (args.length > 4) options.yawDegrees = Double.parseDouble(args[4]);
+            if (options.width <= 0 || options.height <= 0) throw new IllegalArgumentException("Image size must be positive");
+
+            LayoutData layout = new ObjectMapper().readValue(new File(args[0]), LayoutData.class);
+            Map<String, ModelHelper.ModelLoadResult> templates = new HashMap<>();
+            List<FurnitureItem> items = PlanExportTool.loadItems(layout, templates);
+            Map<String, GeometryData> geometries = new HashMap<>();
+            templates.forEach((filename, template) -> {
+                if (template != null && template.geometry != null) geometries.put(filename, template.geometry);
+            });
+            RoomShape room = layout.roomRings != null
+                    ? new RoomShape(layout.roomRings)
+                    : RoomShape.rectangle(layout.roomWidthMeters, layout.roomDepthMeters);
+            double wallHeight = layout.wallHeightMeters > 0 ? layout.wallHeightMeters : DEFAULT_WALL_HEIGHT;
+            Color[] wallColors = new Color[4];
+            if (layout.wallColors != null) {
+                for (int side = 0; side < Math.min(4, layout.wallColors.size()); side++) {
+                    if (layout.wallColors.get(side) != null) wallColors[side] = layout.wallColors.get(side).toAwtColor();
+                }
+            }
+
+            long start = System.nanoTime();
+            PreviewRenderer.PreviewScene scene = renderer.prepare(room, wallHeight, wallColors, items, geometries, PIXELS_PER_METER);
+            BufferedImage image = renderer.render(scene, options);
+            if (!ImageIO.write(image, "png", new File(args[1]))) throw new IOException("No PNG writer available");
+            System.out.printf(Locale.ROOT, "Rendered %d items (%d triangles) to %s in %.2f s%n",
+                              items.size(), scene.triangleCount(), args[1], (System.nanoTime() - start) / 1e9);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.SEVERE, "Preview rendering failed", e);
+            System.exit(1);
+        }
+    }
+}
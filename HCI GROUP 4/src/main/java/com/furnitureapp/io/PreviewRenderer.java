@@ -0,0 +1,283 @@
+package com.furnitureapp.io;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.model.RoomShape;
+import com.furnitureapp.util.MeshBaker;
+import com.furnitureapp.util.SoftwareRasterizer;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Renders 3D preview images of a layout without JavaFX, for servers with no GPU or display.
+ * <p>
+ * The scene is built the way {@code Furniture3DView} builds it: the floor from the room outline's
+ * trapezoids, a wall box inside each outline edge coloured by the side it faces, and each item's
+ * model transformed by {@link MeshBaker#itemMatrix}. It is drawn by a {@link SoftwareRasterizer}
+ * with the view's materials and lights: the ambient light, or with depth lighting the point light
+ * above the room centre, and a grey specular highlight on items. The camera orbits the room
+ * centre like the view's auto-rotation, and the two walls nearest to it are cut away.
+ * <p>
+ * {@link #prepare} builds a layout's meshes once; {@link #render} can then be called for any
+ * number of views. One image is rendered at a time per renderer.
+ */
+public final class PreviewRenderer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(PreviewRenderer.class.getName());
+    // Same values as Furniture3DView and its SubScene
+    private static final double WALL_THICKNESS = 5.0;
+    private static final Color FLOOR_COLOR = new Color(242, 242, 242);
+    private static final Color DEFAULT_WALL_COLOR = Color.LIGHT_GRAY;
+    private static final int SKY = 0xFF87CEFA; // LIGHTSKYBLUE
+    private static final float AMBIENT = 200 / 255f;
+    private static final double ITEM_SPECULAR = 50 / 255.0;
+    private static final double SPECULAR_POWER = 32; // PhongMaterial default
+    private static final double FIELD_OF_VIEW = 60;
+    private static final double NEAR_CLIP = 1.0;
+
+    /** Image and camera settings. */
+    public static class Options {
+        public int width = 1280;
+        public int height = 800;
+        public double yawDegrees = 30;       // Scene rotation about the room centre, as the view's auto-rotation
+        public double tiltDegrees = 30;      // Camera looking down
+        public double distance;              // Camera to room centre in world px; 0 fits the room into the image
+        public boolean depthLighting = true; // Point light above the room; false: ambient light only (the view's default)
+        public boolean cutaway = true;       // Hide the walls nearest to the camera
+        public int supersample = 2;          // Samples per pixel along each axis, for anti-aliasing
+    }
+
+    /** A layout's room and furniture as meshes, ready to render from any camera. */
+    public static final class PreviewScene {
+        final SoftwareRasterizer.Scene scene;
+        final int[] wallMesh;                // Mesh index per side (0=N, 1=E, 2=S, 3=W), -1 if none
+        final double pivotX, pivotZ, wallHeight;
+        final double radius;                 // Of a sphere around the pivot holding the room
+
+        PreviewScene(SoftwareRasterizer.Scene scene, int[] wallMesh, double pivotX, double pivotZ, double wallHeight) {
+            this.scene = scene;
+            this.wallMesh = wallMesh;
+            this.pivotX = pivotX;
+            this.pivotZ = pivotZ;
+            this.wallHeight = wallHeight;
+            this.radius = Math.sqrt(pivotX * pivotX + wallHeight * wallHeight + pivotZ * pivotZ);
+        }
+
+        public int triangleCount() { return scene.triangleCount(); }
+    }
+
+    private final SoftwareRasterizer rasterizer;
+
+    /** @param threads rendering threads; 0 for one per core */
+    public PreviewRenderer(int threads) {
+        rasterizer = new SoftwareRasterizer(threads);
+    }
+
+    @Override
+    public void close() { rasterizer.close(); }
+
+    /**
+     * Builds the meshes for a layout.
+     * @param room          room outline in meters
+     * @param wallColors    N, E, S, W; null entries (or a null array) use the default grey
+     * @param geometries    model geometry by model file name; items without one are skipped
+     * @param pixelsPerMeter world px per meter, as the canvas uses
+     */
+    public PreviewScene prepare(RoomShape room, double wallHeightMeters, Color[] wallColors,
+                                Collection<FurnitureItem> items, Map<String, GeometryData> geometries, double pixelsPerMeter) {
+        RoomShape world = room.scaled(pixelsPerMeter, pixelsPerMeter); // 2D y becomes 3D z
+        double wallHeight = wallHeightMeters * pixelsPerMeter;
+        List<SoftwareRasterizer.Mesh> meshes = new ArrayList<>();
+        meshes.add(new SoftwareRasterizer.Mesh(floor(world), new SoftwareRasterizer.Material(FLOOR_COLOR, 0, SPECULAR_POWER, true), 0));
+
+        int[] wallMesh = {-1, -1, -1, -1};
+        List<List<double[]>> wallsBySide = new ArrayList<>();
+        for (int side = 0; side < 4; side++) wallsBySide.add(new ArrayList<>());
+        for (int i = 0; i < world.edgeCount(); i++) {
+            double[] edge = new double[4];
+            world.edge(i, edge);
+            double dx = edge[2] - edge[0], dz = edge[3] - edge[1];
+            double length = Math.hypot(dx, dz);
+            if (length < 1e-9) continue;
+            double nx = dz / length, nz = -dx / length; // Outward normal
+            wallsBySide.get(Math.abs(nx) > Math.abs(nz) ? (nx > 0 ? 1 : 3) : (nz < 0 ? 0 : 2)).add(edge);
+        }
+        for (int side = 0; side < 4; side++) {
+            if (wallsBySide.get(side).isEmpty()) continue;
+            Color color = wallColors != null && wallColors[side] != null ? wallColors[side] : DEFAULT_WALL_COLOR;
+            wallMesh[side] = meshes.size();
+            meshes.add(new SoftwareRasterizer.Mesh(walls(wallsBySide.get(side), wallHeight),
+                                                   new SoftwareRasterizer.Material(color, 0, SPECULAR_POWER, false), 1));
+        }
+
+        // Items merged per colour and winding, with their transforms baked in
+        Map<GeometryData, Integer> orientations = new LinkedHashMap<>();
+        Map<List<Integer>, List<FurnitureItem>> groups = new LinkedHashMap<>();
+        Map<FurnitureItem, GeometryData> itemGeometry = new LinkedHashMap<>();
+        int skipped = 0;
+        for (FurnitureItem item : items) {
+            GeometryData geometry = geometries.get(item.getModelFilename());
+            if (!MeshBaker.isValid(geometry)) {
+                skipped++;
+                continue;
+            }
+            int orientation = orientations.computeIfAbsent(geometry, SoftwareRasterizer::orientation);
+            itemGeometry.put(item, geometry);
+            groups.computeIfAbsent(List.of(item.color().getRGB(), orientation), k -> new ArrayList<>()).add(item);
+        }
+        for (Map.Entry<List<Integer>, List<FurnitureItem>> group : groups.entrySet()) {
+            List<FurnitureItem> members = group.getValue();
+            GeometryData[] parts = new GeometryData[members.size()];
+            double[] matrices = new double[members.size() * 12];
+            double[] matrix = new double[12];
+            for (int i = 0; i < members.size(); i++) {
+                parts[i] = itemGeometry.get(members.get(i));
+                MeshBaker.itemMatrix(members.get(i), pixelsPerMeter, matrix);
+                System.arraycopy(matrix, 0, matrices, i * 12, 12);
+            }
+            Color color = new Color(group.getKey().get(0), true);
+            meshes.add(new SoftwareRasterizer.Mesh(MeshBaker.bake(parts, matrices, parts.length),
+                                                   new SoftwareRasterizer.Material(color, ITEM_SPECULAR, SPECULAR_POWER, false),
+                                                   group.getKey().get(1)));
+        }
+        if (skipped > 0) LOGGER.warning(skipped + " items without usable model geometry are left out of the preview.");
+
+        // The view's room extent (and so its rotation pivot) is the outline's maximum
+        return new PreviewScene(new SoftwareRasterizer.Scene(meshes), wallMesh,
+                                room.getMaxX() * pixelsPerMeter / 2.0, room.getMaxY() * pixelsPerMeter / 2.0, wallHeight);
+    }
+
+    /** Renders a view of a prepared layout into a new RGB image. */
+    public BufferedImage render(PreviewScene preview, Options options) {
+        BufferedImage image = new BufferedImage(options.width, options.height, BufferedImage.TYPE_INT_RGB);
+        render(preview, options, image);
+        return image;
+    }
+
+    /** Renders into an existing TYPE_INT_RGB or TYPE_INT_ARGB image of the options' size. */
+    public void render(PreviewScene preview, Options options, BufferedImage target) {
+        int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        double aspect = (double) options.width / options.height;
+        double halfFov = Math.toRadians(FIELD_OF_VIEW / 2.0);
+        double horizontalHalfFov = Math.atan(Math.tan(halfFov) * aspect);
+        double distance = options.distance > 0 ? options.distance
+                : preview.radius / Math.sin(Math.min(halfFov, horizontalHalfFov)) + NEAR_CLIP; // Whole room in view, camera outside it
+
+        // World to camera: c = Rx(tilt) * Ry(yaw) * (p - pivot) + (0, 0, distance), as the view's
+        // content rotation about the pivot followed by the inverse of the camera's transforms
+        double yaw = Math.toRadians(options.yawDegrees), tilt = Math.toRadians(options.tiltDegrees);
+        double cy = Math.cos(yaw), sy = Math.sin(yaw), ct = Math.cos(tilt), st = Math.sin(tilt);
+        double[] r = {
+            cy, 0, sy,
+            st * sy, ct, -st * cy,
+            -ct * sy, st, ct * cy
+        };
+        double[] view = new double[12];
+        for (int row = 0; row < 3; row++) {
+            view[row * 4] = r[row * 3];
+            view[row * 4 + 1] = r[row * 3 + 1];
+            view[row * 4 + 2] = r[row * 3 + 2];
+            view[row * 4 + 3] = -(r[row * 3] * preview.pivotX + r[row * 3 + 2] * preview.pivotZ) + (row == 2 ? distance : 0);
+        }
+
+        SoftwareRasterizer.Lighting lighting = new SoftwareRasterizer.Lighting();
+        if (options.depthLighting) {
+            lighting.pointLight = true; // The view swaps the ambient light for the point light
+            lighting.lightX = preview.pivotX;
+            lighting.lightY = -preview.wallHeight * 1.5;
+            lighting.lightZ = preview.pivotZ;
+        } else {
+            lighting.ambientRed = lighting.ambientGreen = lighting.ambientBlue = AMBIENT;
+        }
+
+        boolean[] visible = new boolean[preview.scene.meshCount()];
+        java.util.Arrays.fill(visible, true);
+        if (options.cutaway) {
+            int quadrant = wallQuadrant(options.yawDegrees);
+            for (int side = 0; side < 4; side++) {
+                if (preview.wallMesh[side] >= 0 && (side == quadrant || side == (quadrant + 1) % 4)) visible[preview.wallMesh[side]] = false;
+            }
+        }
+        rasterizer.render(preview.scene, view, FIELD_OF_VIEW, NEAR_CLIP, lighting, visible, SKY,
+                          pixels, options.width, options.height, options.supersample);
+    }
+
+    // Furniture3DView's cutaway: wall side i (0=N, 1=E, 2=S, 3=W) is hidden in quadrants i and i - 1
+    private static int wallQuadrant(double angle) {
+        double normalized = (angle % 360 + 360) % 360;
+        if (normalized >= 5 && normalized < 95) return 0;
+        if (normalized >= 95 && normalized < 185) return 1;
+        if (normalized >= 185 && normalized < 275) return 2;
+        return 3;
+    }
+
+    // The outline's trapezoids at y = 0, facing up
+    private static GeometryData floor(RoomShape world) {
+        List<float[]> quads = new ArrayList<>();
+        world.forEachTrapezoid((yTop, yBottom, xTopLeft, xTopRight, xBottomLeft, xBottomRight) -> quads.add(new float[]{
+            (float) xTopLeft, 0, (float) yTop, (float) xTopRight, 0, (float) yTop,
+            (float) xBottomRight, 0, (float) yBottom, (float) xBottomLeft, 0, (float) yBottom}));
+        float[] points = new float[quads.size() * 12];
+        float[] normals = new float[points.length];
+        int[] faces = new int[quads.size() * 18];
+        for (int q = 0; q < quads.size(); q++) {
+            System.arraycopy(quads.get(q), 0, points, q * 12, 12);
+            for (int v = 0; v < 4; v++) normals[q * 12 + v * 3 + 1] = -1; // Up is -y
+            int v = q * 4;
+            int[] corners = {v, v + 1, v + 2, v, v + 2, v + 3};
+            for (int k = 0; k < 6; k++) faces[q * 18 + k * 3] = faces[q * 18 + k * 3 + 1] = corners[k];
+        }
+        return new GeometryData(points, normals, new float[points.length / 3 * 2], faces);
+    }
+
+    // A box per edge, inside the outline: length x height x WALL_THICKNESS, wound outwards
+    private static GeometryData walls(List<double[]> edges, double height) {
+        float[] points = new float[edges.size() * 24 * 3];
+        float[] normals = new float[points.length];
+        int[] faces = new int[edges.size() * 12 * 9];
+        int p = 0, f = 0;
+        for (double[] edge : edges) {
+            double dx = edge[2] - edge[0], dz = edge[3] - edge[1];
+            double length = Math.hypot(dx, dz);
+            double ux = dx / length, uz = dz / length, nx = uz, nz = -ux; // Along the edge, outward normal
+            double cx = (edge[0] + edge[2]) / 2.0 - nx * WALL_THICKNESS / 2.0, cz = (edge[1] + edge[3]) / 2.0 - nz * WALL_THICKNESS / 2.0;
+            double[][] axes = {{ux, 0, uz}, {0, 1, 0}, {nx, 0, nz}}; // Box axes (y pointing down)
+            double[] half = {length / 2.0, height / 2.0, WALL_THICKNESS / 2.0};
+            double[] centre = {cx, -height / 2.0, cz};
+            for (int axis = 0; axis < 3; axis++) {
+                for (int sign = -1; sign <= 1; sign += 2) {
+                    double[] normal = {axes[axis][0] * sign, axes[axis][1] * sign, axes[axis][2] * sign};
+                    double[] s = axes[(axis + 1) % 3], t = axes[(axis + 2) % 3];
+                    double hs = half[(axis + 1) % 3], ht = half[(axis + 2) % 3];
+                    int base = p;
+                    for (int corner = 0; corner < 4; corner++) {
+                        double a = corner == 0 || corner == 3 ? -hs : hs, b = corner < 2 ? -ht : ht;
+                        for (int k = 0; k < 3; k++) {
+                            points[p * 3 + k] = (float) (centre[k] + normal[k] * half[axis] + s[k] * a + t[k] * b);
+                            normals[p * 3 + k] = (float) normal[k];
+                        }
+                        p++;
+                    }
+                    // Wind so (b - a) x (c - a) points along the face normal
+                    double ex = s[1] * t[2] - s[2] * t[1], ey = s[2] * t[0] - s[0] * t[2], ez = s[0] * t[1] - s[1] * t[0];
+                    boolean flip = ex * normal[0] + ey * normal[1] + ez * normal[2] < 0;
+                    int[] corners = flip ? new int[]{0, 2, 1, 0, 3, 2} : new int[]{0, 1, 2, 0, 2, 3};
+                    for (int corner : corners) {
+                        faces[f++] = base + corner;
+                        faces[f++] = base + corner;
+                        faces[f++] = 0;
+                    }
+                }
+            }
+        }
+        return new GeometryData(points, normals, new float[2], faces);
+    }
+}
@@ -0,0 +1,178 @@
+package com.furnitureapp.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes plan primitives as SVG elements straight to a Writer, in millimetre user units.
+ * Nothing is buffered beyond one element.
+ */
+class SvgPlanSink implements PlanSink {
+
+    private final Writer out;
+    private final StringBuilder sb = new StringBuilder(256);
+
+    /** Writes the SVG header for a page of the given size (mm). */
+    SvgPlanSink(Writer out, double widthMm, double heightMm) throws IOException {
+        this.out = out;
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        number(widthMm).append("mm\" height=\"");
+        number(heightMm).append("mm\" viewBox=\"0 0 ");
+        number(widthMm).append(' ');
+        number(heightMm).append("\">\n");
+        flush();
+    }
+
+    /** Closes the root element. Does not close the writer. */
+    void finish() throws IOException {
+        out.write("</svg>\n");
+        out.flush();
+    }
+
+    @Override
+    public void fillRect(double x, double y, double w, double h, int argb) throws IOException {
+        rect(x, y, w, h);
+        fill(argb).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h, double lineWidth, int argb) throws IOException {
+        rect(x, y, w, h);
+        sb.append(" fill=\"none\"");
+        stroke(argb, lineWidth).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void quad(double[] c, int fillArgb, double lineWidth) throws IOException {
+        sb.append("<polygon points=\"");
+        for (int i = 0; i < 8; i += 2) {
+            if (i > 0) sb.append(' ');
+            number(c[i]).append(',');
+            number(c[i + 1]);
+        }
+        sb.append('"');
+        fill(fillArgb);
+        stroke(0xFF000000, lineWidth).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void fillPolygon(List<double[]> rings, int argb) throws IOException {
+        path(rings);
+        fill(argb).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void strokePolygon(List<double[]> rings, double lineWidth, int argb) throws IOException {
+        path(rings);
+        sb.append(" fill=\"none\"");
+        stroke(argb, lineWidth).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, double lineWidth, int argb) throws IOException {
+        sb.append("<line x1=\"");
+        number(x1).append("\" y1=\"");
+        number(y1).append("\" x2=\"");
+        number(x2).append("\" y2=\"");
+        number(y2).append('"');
+        stroke(argb, lineWidth).append("/>\n");
+        flush();
+    }
+
+    @Override
+    public void text(String text, double x, double y, double size, int argb) throws IOException {
+        sb.append("<text x=\"");
+        number(x).append("\" y=\"");
+        number(y).append("\" font-family=\"sans-serif\" font-size=\"");
+        number(size).append('"');
+        fill(argb).append('>');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '&': sb.append("&amp;"); break;
+                default: sb.append(ch);
+            }
+        }
+        sb.append("</text>\n");
+        flush();
+    }
+
+    private void rect(double x, double y, double w, double h) {
+        sb.append("<rect x=\"");
+        number(x).append("\" y=\"");
+        number(y).append("\" width=\"");
+        number(w).append("\" height=\"");
+        number(h).append('"');
+    }
+
+    private void path(List<double[]> rings) {
+        sb.append("<path fill-rule=\"evenodd\" d=\"");
+        for (double[] ring : rings) {
+            for (int i = 0; i < ring.length; i += 2) {
+                sb.append(i == 0 ? 'M' : 'L');
+                number(ring[i]).append(',');
+                number(ring[i + 1]).append(' ');
+            }
+            sb.append("Z ");
+        }
+        sb.setLength(sb.length() - 1);
+        sb.append('"');
+    }
+
+    private StringBuilder fill(int argb) {
+        sb.append(" fill=\"");
+        hexColor(argb).append('"');
+        int alpha = argb >>> 24;
+        if (alpha != 255) {
+            sb.append(" fill-opacity=\"");
+            number(alpha / 255.0).append('"');
+        }
+        return sb;
+    }
+
+    private StringBuilder stroke(int argb, double lineWidth) {
+        sb.append(" stroke=\"");
+        hexColor(argb).append("\" stroke-width=\"");
+        return number(lineWidth).append('"');
+    }
+
+    private StringBuilder hexColor(int argb) {
+        sb.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            sb.append(Character.forDigit((argb >> shift) & 0xF, 16));
+        }
+        return sb;
+    }
+
+    /** Appends a number with at most three decimals (micrometre precision), without String.format. */
+    private StringBuilder number(double value) {
+        long thousandths = Math.round(value * 1000);
+        if (thousandths < 0) {
+            sb.append('-');
+            thousandths = -thousandths;
+        }
+        sb.append(thousandths / 1000);
+        int fraction = (int) (thousandths % 1000);
+        if (fraction != 0) {
+            sb.append('.');
+            if (fraction < 100) sb.append('0');
+            if (fraction < 10) sb.append('0');
+            while (fraction % 10 == 0) fraction /= 10; // Trim trailing zeros
+            sb.append(fraction);
+        }
+        return sb;
+    }
+
+    private void flush() throws IOException {
+        out.append(sb);
+        sb.setLength(0);
+    }
+}
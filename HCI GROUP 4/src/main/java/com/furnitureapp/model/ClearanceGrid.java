@@ -0,0 +1,618 @@
+package com.furnitureapp.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Occupancy grid over the room for accessibility checks: clearance (distance from each free cell
+ * to the nearest wall or footprint) and which free floor can be reached from the doors along a
+ * walkway of a given width.
+ * <p>
+ * Cells are blocked when their centre lies outside the room (doors open the wall around them) or
+ * inside an item footprint. Footprints are counted per cell, so a moved item only has its old
+ * cells decremented and its new ones incremented. Clearance is an exact Euclidean distance
+ * transform (a column pass, then the lower envelope of parabolas per row), capped just above
+ * the turning radius. Because of the cap, a change only affects cells within the cap distance of
+ * it, so {@link #update()} recomputes a window around the changed cells rather than the room;
+ * large windows are split across threads by columns and then rows. Reachability is a BFS over
+ * cells wide enough for the walkway, rerun only when some cell's passability changed.
+ * <p>
+ * All lengths are in the scene's world units. Scene changes are collected and applied by
+ * {@link #update()}, so a drag costs one windowed update per frame. Not thread-safe; used from
+ * the thread that mutates the scene (the EDT).
+ */
+public final class ClearanceGrid implements FurnitureScene.ChangeListener {
+
+    private static final int MAX_CELLS = 2_000_000;      // Cell size grows to stay below this
+    private static final int PARALLEL_THRESHOLD = 40_000; // Window cells before the passes are split across threads
+    private static final double FAR = 1e20;               // Squared distance standing for "no obstacle"
+    // Summary categories of a cell
+    private static final byte NOT_FLOOR = 0, NARROW = 1, UNREACHABLE = 2, REACHABLE = 3, TURNING = 4;
+
+    private final FurnitureScene scene;
+    private final RoomShape room;
+    private final double cellSize, originX, originY;
+    private final int cols, rows;
+    private final double walkwayWidth, turningDiameter, doorWidth;
+    private final double passableClearance; // walkwayWidth / 2, less half a cell of raster error
+    private final double maxClearance;      // Clearance values are capped here
+    private final int capCells;             // maxClearance in cells, rounded up, plus one
+
+    // --- Per cell (row-major) ---
+    private final boolean[] outside;  // Centre outside the room
+    private final boolean[] wall;     // Outside and not in a door opening
+    private final short[] cover;      // Footprints covering the centre
+    private final float[] clearance;  // Distance to the nearest blocked cell's edge, capped; 0 if blocked
+    private final boolean[] passable; // Free and clearance >= passableClearance
+    private final boolean[] reachable;
+    private int[] queue;              // BFS queue, allocated on first use
+    private int[] border = new int[0];               // Re-flood window border cells
+    private boolean[] borderReachable = new boolean[0];
+
+    // --- Per slot: the quad last rasterized ---
+    private double[] slotCorners = new double[64 * 8];
+    private boolean[] rasterized = new boolean[64];
+    private final double[] cornerScratch = new double[8];
+
+    // --- Doors, world x, y pairs ---
+    private double[] doors = new double[0];
+
+    // --- Pending work ---
+    private int dirtyX0 = Integer.MAX_VALUE, dirtyY0 = Integer.MAX_VALUE, dirtyX1 = -1, dirtyY1 = -1; // Cells, inclusive
+    private boolean reachabilityStale = true;
+    private final int[] changed = new int[4]; // Cells whose values changed in the last update: x0, y0, x1, y1 inclusive
+
+    // --- Distance transform scratch ---
+    private double[] columnPass = new double[0];
+    private final ThreadLocal<RowScratch> rowScratch = ThreadLocal.withInitial(RowScratch::new);
+    private final int[] rowChangeX0, rowChangeX1; // Per row: columns whose passability changed, x1 < x0 if none
+
+    // --- Statistics ---
+    private long lastUpdateNanos;
+    private int lastUpdateCells;
+    private final byte[] counted;   // Category each cell is counted under
+    private final int[] categoryCounts = new int[5];
+
+    /**
+     * Creates a grid over the room, rasterizes every item and computes clearance, then starts
+     * tracking scene changes.
+     * @param cellSize        requested cell edge; grown if the room would need more than two million cells
+     * @param walkwayWidth    minimum width of a path from a door (e.g. 0.9 m)
+     * @param turningDiameter diameter of a wheelchair turning circle (e.g. 1.5 m)
+     * @param doorWidth       clear width of each door opening
+     */
+    public ClearanceGrid(FurnitureScene scene, RoomShape room, double cellSize,
+                         double walkwayWidth, double turningDiameter, double doorWidth) {
+        this.scene = scene;
+        this.room = room;
+        double width = room.getMaxX() - room.getMinX(), depth = room.getMaxY() - room.getMinY();
+        double size = Math.max(cellSize, Math.sqrt(width * depth / MAX_CELLS));
+        this.cellSize = size;
+        // One cell of padding around the room, so the outer walls are blocked cells too
+        this.originX = room.getMinX() - size;
+        this.originY = room.getMinY() - size;
+        this.cols = (int) Math.ceil(width / size) + 2;
+        this.rows = (int) Math.ceil(depth / size) + 2;
+        this.walkwayWidth = walkwayWidth;
+        this.turningDiameter = turningDiameter;
+        this.doorWidth = doorWidth;
+        this.passableClearance = walkwayWidth / 2 - size / 2;
+        this.maxClearance = Math.max(walkwayWidth, turningDiameter) / 2 + 2 * size;
+        this.capCells = (int) Math.ceil(maxClearance / size) + 1;
+
+        int cells = cols * rows;
+        outside = new boolean[cells];
+        wall = new boolean[cells];
+        cover = new short[cells];
+        clearance = new float[cells];
+        passable = new boolean[cells];
+        reachable = new boolean[cells];
+        counted = new byte[cells];
+        rowChangeX0 = new int[rows];
+        rowChangeX1 = new int[rows];
+        categoryCounts[NOT_FLOOR] = cells;
+        for (int y = 0; y < rows; y++) {
+            double cy = originY + (y + 0.5) * size;
+            for (int x = 0; x < cols; x++) {
+                outside[y * cols + x] = !room.contains(originX + (x + 0.5) * size, cy);
+            }
+        }
+        updateWalls();
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (scene.isLive(slot)) rasterize(slot);
+        }
+        markAllDirty();
+        update();
+        scene.addChangeListener(this);
+    }
+
+    /** Stops tracking the scene. */
+    public void dispose() {
+        scene.removeChangeListener(this);
+    }
+
+    /**
+     * Sets the door positions (x, y pairs on or near the room outline). The wall is opened for
+     * {@code doorWidth} around each, and reachability is measured from them. With no doors,
+     * all passable floor counts as reachable.
+     */
+    public void setDoors(double[] doorPoints) {
+        doors = doorPoints.clone();
+        updateWalls();
+        markAllDirty();
+    }
+
+    // --- Geometry ---
+
+    public double getCellSize() { return cellSize; }
+    public double getOriginX() { return originX; }
+    public double getOriginY() { return originY; }
+    public int getColumns() { return cols; }
+    public int getRows() { return rows; }
+    public double getWalkwayWidth() { return walkwayWidth; }
+    public double getTurningDiameter() { return turningDiameter; }
+    public RoomShape getRoom() { return room; }
+
+    // --- Cell values (after update()) ---
+
+    public boolean isBlocked(int x, int y) {
+        int cell = y * cols + x;
+        return wall[cell] || cover[cell] > 0;
+    }
+
+    /** Distance from the cell centre to the nearest wall or footprint, capped a little above the turning radius. */
+    public double clearance(int x, int y) { return clearance[y * cols + x]; }
+
+    /** Free, and wide enough for the walkway to pass through. */
+    public boolean isPassable(int x, int y) { return passable[y * cols + x]; }
+
+    /** Passable and connected to a door through passable cells (or passable, when there are no doors). */
+    public boolean isReachable(int x, int y) { return reachable[y * cols + x]; }
+
+    /** Reachable with room for a full turning circle centred on the cell. */
+    public boolean isTurningSpot(int x, int y) {
+        int cell = y * cols + x;
+        return reachable[cell] && clearance[cell] >= turningDiameter / 2 - cellSize / 2;
+    }
+
+    // --- Summary (after update()) ---
+
+    /** Cells inside the room not covered by furniture. */
+    public int freeCellCount() { return counted.length - categoryCounts[NOT_FLOOR]; }
+
+    public int reachableCellCount() { return categoryCounts[REACHABLE] + categoryCounts[TURNING]; }
+
+    /** Reachable cells where a full turning circle fits. */
+    public int turningCellCount() { return categoryCounts[TURNING]; }
+
+    /** Free cells too tight for the walkway. */
+    public int narrowCellCount() { return categoryCounts[NARROW]; }
+
+    public boolean hasPendingChanges() { return dirtyX1 >= 0 || reachabilityStale; }
+
+    /** Cell range whose values changed in the last {@link #update()}, as x0, y0, x1, y1 inclusive; x1 &lt; x0 if none. */
+    public void changedRegion(int[] out) { System.arraycopy(changed, 0, out, 0, 4); }
+
+    public long lastUpdateNanos() { return lastUpdateNanos; }
+
+    /** Cells whose clearance was recomputed by the last {@link #update()}. */
+    public int lastUpdateCells() { return lastUpdateCells; }
+
+    /**
+     * Applies the scene changes since the last call: recomputes clearance in a window around the
+     * changed cells, then reachability around the cells whose passability changed (from the doors
+     * if that can't be done locally). Returns false if there was nothing to do.
+     */
+    public boolean update() {
+        if (!hasPendingChanges()) {
+            changed[2] = -1;
+            changed[0] = 0;
+            return false;
+        }
+        long start = System.nanoTime();
+        lastUpdateCells = 0;
+        boolean passabilityChanged = false;
+        if (dirtyX1 >= 0) {
+            // Output: cells within the cap of a change. Input: obstacles within the cap of those.
+            int ox0 = Math.max(0, dirtyX0 - capCells), oy0 = Math.max(0, dirtyY0 - capCells);
+            int ox1 = Math.min(cols - 1, dirtyX1 + capCells), oy1 = Math.min(rows - 1, dirtyY1 + capCells);
+            int ix0 = Math.max(0, ox0 - capCells), iy0 = Math.max(0, oy0 - capCells);
+            int ix1 = Math.min(cols - 1, ox1 + capCells), iy1 = Math.min(rows - 1, oy1 + capCells);
+            passabilityChanged |= distanceTransform(ix0, iy0, ix1, iy1, ox0, oy0, ox1, oy1);
+            lastUpdateCells = (ox1 - ox0 + 1) * (oy1 - oy0 + 1);
+            changed[0] = ox0;
+            changed[1] = oy0;
+            changed[2] = ox1;
+            changed[3] = oy1;
+        } else {
+            changed[2] = -1;
+        }
+        if (reachabilityStale || passabilityChanged && !refloodWindow()) {
+            floodFromDoors();
+            changed[0] = 0;
+            changed[1] = 0;
+            changed[2] = cols - 1;
+            changed[3] = rows - 1;
+        }
+        if (changed[2] >= changed[0]) recount(changed[0], changed[1], changed[2], changed[3]);
+        dirtyX0 = dirtyY0 = Integer.MAX_VALUE;
+        dirtyX1 = dirtyY1 = -1;
+        reachabilityStale = false;
+        lastUpdateNanos = System.nanoTime() - start;
+        return true;
+    }
+
+    // --- FurnitureScene.ChangeListener ---
+
+    @Override
+    public void slotAdded(int slot) {
+        rasterize(slot);
+    }
+
+    @Override
+    public void slotChanged(int slot) {
+        unrasterize(slot);
+        rasterize(slot);
+    }
+
+    @Override
+    public void slotRemoved(int slot) {
+        unrasterize(slot);
+    }
+
+    @Override
+    public void cleared() {
+        Arrays.fill(cover, (short) 0);
+        Arrays.fill(rasterized, false);
+        markAllDirty();
+    }
+
+    // --- Occupancy ---
+
+    private void rasterize(int slot) {
+        ensureCapacity(slot + 1);
+        scene.corners(slot, cornerScratch);
+        System.arraycopy(cornerScratch, 0, slotCorners, slot * 8, 8);
+        rasterized[slot] = true;
+        coverQuad(slot * 8, 1);
+    }
+
+    private void unrasterize(int slot) {
+        if (slot >= rasterized.length || !rasterized[slot]) return;
+        rasterized[slot] = false;
+        coverQuad(slot * 8, -1);
+    }
+
+    /** Adds delta to the cover count of every cell whose centre is inside the convex quad at slotCorners[base]. */
+    private void coverQuad(int base, int delta) {
+        double[] c = slotCorners;
+        double minY = Math.min(Math.min(c[base + 1], c[base + 3]), Math.min(c[base + 5], c[base + 7]));
+        double maxY = Math.max(Math.max(c[base + 1], c[base + 3]), Math.max(c[base + 5], c[base + 7]));
+        int y0 = Math.max(0, (int) Math.ceil((minY - originY) / cellSize - 0.5));
+        int y1 = Math.min(rows - 1, (int) Math.floor((maxY - originY) / cellSize - 0.5));
+        int touchedX0 = Integer.MAX_VALUE, touchedX1 = -1;
+        for (int y = y0; y <= y1; y++) {
+            double cy = originY + (y + 0.5) * cellSize;
+            double left = Double.MAX_VALUE, right = -Double.MAX_VALUE;
+            for (int k = 0; k < 8; k += 2) {
+                double ax = c[base + k], ay = c[base + k + 1];
+                double bx = c[base + (k + 2) % 8], by = c[base + (k + 3) % 8];
+                if ((ay <= cy && by >= cy) || (by <= cy && ay >= cy)) {
+                    double x = ay == by ? Math.min(ax, bx) : ax + (cy - ay) / (by - ay) * (bx - ax);
+                    double x2 = ay == by ? Math.max(ax, bx) : x;
+                    left = Math.min(left, x);
+                    right = Math.max(right, x2);
+                }
+            }
+            if (left > right) continue;
+            int x0 = Math.max(0, (int) Math.ceil((left - originX) / cellSize - 0.5));
+            int x1 = Math.min(cols - 1, (int) Math.floor((right - originX) / cellSize - 0.5));
+            for (int x = x0, cell = y * cols + x0; x <= x1; x++, cell++) cover[cell] += delta;
+            if (x0 <= x1) {
+                touchedX0 = Math.min(touchedX0, x0);
+                touchedX1 = Math.max(touchedX1, x1);
+            }
+        }
+        if (touchedX1 >= 0) markDirty(touchedX0, y0, touchedX1, y1);
+    }
+
+    private void updateWalls() {
+        double open = doorWidth / 2;
+        for (int y = 0; y < rows; y++) {
+            double cy = originY + (y + 0.5) * cellSize;
+            for (int x = 0; x < cols; x++) {
+                int cell = y * cols + x;
+                boolean blocked = outside[cell];
+                if (blocked) {
+                    double cx = originX + (x + 0.5) * cellSize;
+                    for (int d = 0; d < doors.length && blocked; d += 2) {
+                        double dx = cx - doors[d], dy = cy - doors[d + 1];
+                        blocked = dx * dx + dy * dy > open * open;
+                    }
+                }
+                wall[cell] = blocked;
+            }
+        }
+    }
+
+    private void markDirty(int x0, int y0, int x1, int y1) {
+        dirtyX0 = Math.min(dirtyX0, x0);
+        dirtyY0 = Math.min(dirtyY0, y0);
+        dirtyX1 = Math.max(dirtyX1, x1);
+        dirtyY1 = Math.max(dirtyY1, y1);
+    }
+
+    private void markAllDirty() {
+        markDirty(0, 0, cols - 1, rows - 1);
+        reachabilityStale = true;
+    }
+
+    // --- Distance transform ---
+
+    /**
+     * Exact Euclidean distance transform of the input window, written back for the output
+     * window only. Returns true if any output cell changed passability.
+     */
+    private boolean distanceTransform(int ix0, int iy0, int ix1, int iy1, int ox0, int oy0, int ox1, int oy1) {
+        int width = ix1 - ix0 + 1, height = iy1 - iy0 + 1;
+        if (columnPass.length < width * height) columnPass = new double[width * height];
+        boolean parallel = width * height >= PARALLEL_THRESHOLD;
+
+        // Pass 1, per column: squared distance to the nearest blocked cell in the column
+        IntStream columns = IntStream.rangeClosed(ix0, ix1);
+        (parallel ? columns.parallel() : columns).forEach(x -> columnDistances(x, ix0, iy0, iy1, width));
+
+        // Pass 2, per row: lower envelope of the parabolas through the column distances
+        IntStream outputRows = IntStream.rangeClosed(oy0, oy1);
+        int changedRows = (parallel ? outputRows.parallel() : outputRows)
+                .map(y -> rowDistances(y, ix0, iy0, width, ox0, ox1)).sum();
+        return changedRows > 0;
+    }
+
+    private void columnDistances(int x, int ix0, int iy0, int iy1, int width) {
+        int column = x - ix0;
+        double run = FAR;
+        for (int y = iy0; y <= iy1; y++) { // Downwards
+            int cell = y * cols + x;
+            run = wall[cell] || cover[cell] > 0 ? 0 : run + 1;
+            columnPass[(y - iy0) * width + column] = run;
+        }
+        run = FAR;
+        for (int y = iy1; y >= iy0; y--) { // Upwards, keeping the nearer
+            int i = (y - iy0) * width + column;
+            run = columnPass[i] == 0 ? 0 : run + 1;
+            double nearest = Math.min(run, columnPass[i]);
+            columnPass[i] = nearest >= FAR ? FAR : nearest * nearest;
+        }
+    }
+
+    /** Returns 1 if a cell of the row changed passability, else 0. */
+    private int rowDistances(int y, int ix0, int iy0, int width, int ox0, int ox1) {
+        RowScratch scratch = rowScratch.get();
+        scratch.ensure(width);
+        double[] f = scratch.f, z = scratch.z;
+        int[] v = scratch.v;
+        System.arraycopy(columnPass, (y - iy0) * width, f, 0, width);
+
+        // Felzenszwalb-Huttenlocher lower envelope: v = parabola apexes, z = where each takes over
+        int k = 0;
+        v[0] = 0;
+        z[0] = -Double.MAX_VALUE;
+        z[1] = Double.MAX_VALUE;
+        for (int q = 1; q < width; q++) {
+            double s = intersection(f, q, v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = intersection(f, q, v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.MAX_VALUE;
+        }
+
+        int changedPassability = 0, changeX0 = Integer.MAX_VALUE, changeX1 = -1;
+        k = 0;
+        for (int q = 0; q < width; q++) {
+            while (z[k + 1] < q) k++;
+            int x = ix0 + q;
+            if (x < ox0 || x > ox1) continue;
+            int p = v[k];
+            double squared = (double) (q - p) * (q - p) + f[p];
+            int cell = y * cols + x;
+            float value = squared == 0 ? 0f
+                    : (float) Math.min(maxClearance, (Math.sqrt(squared) - 0.5) * cellSize);
+            clearance[cell] = value;
+            boolean isPassable = squared != 0 && value >= passableClearance;
+            if (isPassable != passable[cell]) {
+                passable[cell] = isPassable;
+                changedPassability = 1;
+                changeX0 = Math.min(changeX0, x);
+                changeX1 = x;
+            }
+        }
+        rowChangeX0[y] = changeX0;
+        rowChangeX1[y] = changeX1;
+        return changedPassability;
+    }
+
+    /** Position where the parabola at q drops below the one at p (p &lt; q). */
+    private static double intersection(double[] f, int q, int p) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * (q - p));
+    }
+
+    /** Per-thread buffers for the row pass. */
+    private static final class RowScratch {
+        double[] f = new double[0], z = new double[1];
+        int[] v = new int[0];
+
+        void ensure(int width) {
+            if (f.length >= width) return;
+            f = new double[width];
+            z = new double[width + 1];
+            v = new int[width];
+        }
+    }
+
+    // --- Reachability ---
+
+    /**
+     * Updates reachability after the last distance transform, re-flooding only a window one cell
+     * wider than the cells whose passability changed. Cells outside the window keep their
+     * reachability when the reachable cells on its border are still connected to each other
+     * through it, since any old path across the window can then be rerouted. If that fails, or a
+     * door opening lies in the window, returns false and the caller floods from the doors instead.
+     * Newly reachable border cells are flooded onwards.
+     */
+    private boolean refloodWindow() {
+        int x0 = Integer.MAX_VALUE, y0 = -1, x1 = -1, y1 = -1;
+        for (int y = changed[1]; y <= changed[3]; y++) {
+            if (rowChangeX1[y] < rowChangeX0[y]) continue;
+            if (y0 < 0) y0 = y;
+            y1 = y;
+            x0 = Math.min(x0, rowChangeX0[y]);
+            x1 = Math.max(x1, rowChangeX1[y]);
+        }
+        if (y0 < 0) return true;
+        x0 = Math.max(0, x0 - 1);
+        y0 = Math.max(0, y0 - 1);
+        x1 = Math.min(cols - 1, x1 + 1);
+        y1 = Math.min(rows - 1, y1 + 1);
+        if (doors.length == 0) {
+            for (int y = y0; y <= y1; y++) System.arraycopy(passable, y * cols + x0, reachable, y * cols + x0, x1 - x0 + 1);
+            includeChanged(x0, y0, x1, y1);
+            return true;
+        }
+        double seedRadius = doorWidth / 2;
+        for (int d = 0; d < doors.length; d += 2) {
+            if (Math.floor((doors[d] + seedRadius - originX) / cellSize) >= x0
+                    && Math.floor((doors[d] - seedRadius - originX) / cellSize) <= x1
+                    && Math.floor((doors[d + 1] + seedRadius - originY) / cellSize) >= y0
+                    && Math.floor((doors[d + 1] - seedRadius - originY) / cellSize) <= y1) return false;
+        }
+
+        // Border cells lie outside the changed cells, so their passability is unchanged
+        int borderCount = 0;
+        int capacity = 2 * (x1 - x0 + y1 - y0 + 2);
+        if (border.length < capacity) {
+            border = new int[capacity];
+            borderReachable = new boolean[capacity];
+        }
+        for (int x = x0; x <= x1; x++) {
+            border[borderCount++] = y0 * cols + x;
+            if (y1 > y0) border[borderCount++] = y1 * cols + x;
+        }
+        for (int y = y0 + 1; y < y1; y++) {
+            border[borderCount++] = y * cols + x0;
+            if (x1 > x0) border[borderCount++] = y * cols + x1;
+        }
+        int firstSeed = -1;
+        for (int i = 0; i < borderCount; i++) {
+            borderReachable[i] = reachable[border[i]];
+            if (borderReachable[i] && firstSeed < 0) firstSeed = border[i];
+        }
+        for (int y = y0; y <= y1; y++) Arrays.fill(reachable, y * cols + x0, y * cols + x1 + 1, false);
+        includeChanged(x0, y0, x1, y1);
+        if (firstSeed < 0) return true; // Nothing reachable leads into the window
+
+        if (queue == null) queue = new int[cols * rows];
+        int head = 0, tail = 0;
+        reachable[firstSeed] = true;
+        queue[tail++] = firstSeed;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % cols, y = cell / cols;
+            if (x > x0 && passable[cell - 1] && !reachable[cell - 1]) { reachable[cell - 1] = true; queue[tail++] = cell - 1; }
+            if (x < x1 && passable[cell + 1] && !reachable[cell + 1]) { reachable[cell + 1] = true; queue[tail++] = cell + 1; }
+            if (y > y0 && passable[cell - cols] && !reachable[cell - cols]) { reachable[cell - cols] = true; queue[tail++] = cell - cols; }
+            if (y < y1 && passable[cell + cols] && !reachable[cell + cols]) { reachable[cell + cols] = true; queue[tail++] = cell + cols; }
+        }
+        head = tail = 0;
+        for (int i = 0; i < borderCount; i++) {
+            boolean now = reachable[border[i]];
+            if (borderReachable[i] && !now) return false; // The window split the reachable area
+            if (now && !borderReachable[i]) queue[tail++] = border[i];
+        }
+        if (tail == 0) return true;
+
+        // The window opened a way into an area that was cut off: flood it
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % cols;
+            if (x > 0 && passable[cell - 1] && !reachable[cell - 1]) { reachable[cell - 1] = true; queue[tail++] = cell - 1; }
+            if (x < cols - 1 && passable[cell + 1] && !reachable[cell + 1]) { reachable[cell + 1] = true; queue[tail++] = cell + 1; }
+            if (cell >= cols && passable[cell - cols] && !reachable[cell - cols]) { reachable[cell - cols] = true; queue[tail++] = cell - cols; }
+            if (cell + cols < reachable.length && passable[cell + cols] && !reachable[cell + cols]) { reachable[cell + cols] = true; queue[tail++] = cell + cols; }
+        }
+        includeChanged(0, 0, cols - 1, rows - 1);
+        return true;
+    }
+
+    private void includeChanged(int x0, int y0, int x1, int y1) {
+        changed[0] = Math.min(changed[0], x0);
+        changed[1] = Math.min(changed[1], y0);
+        changed[2] = Math.max(changed[2], x1);
+        changed[3] = Math.max(changed[3], y1);
+    }
+
+    private void floodFromDoors() {
+        Arrays.fill(reachable, false);
+        if (doors.length == 0) {
+            System.arraycopy(passable, 0, reachable, 0, passable.length);
+            return;
+        }
+        if (queue == null) queue = new int[cols * rows];
+        int head = 0, tail = 0;
+        double seedRadius = doorWidth / 2;
+        for (int d = 0; d < doors.length; d += 2) {
+            int x0 = Math.max(0, (int) Math.floor((doors[d] - seedRadius - originX) / cellSize));
+            int x1 = Math.min(cols - 1, (int) Math.floor((doors[d] + seedRadius - originX) / cellSize));
+            int y0 = Math.max(0, (int) Math.floor((doors[d + 1] - seedRadius - originY) / cellSize));
+            int y1 = Math.min(rows - 1, (int) Math.floor((doors[d + 1] + seedRadius - originY) / cellSize));
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int cell = y * cols + x;
+                    double dx = originX + (x + 0.5) * cellSize - doors[d], dy = originY + (y + 0.5) * cellSize - doors[d + 1];
+                    if (passable[cell] && !reachable[cell] && dx * dx + dy * dy <= seedRadius * seedRadius) {
+                        reachable[cell] = true;
+                        queue[tail++] = cell;
+                    }
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % cols;
+            if (x > 0 && passable[cell - 1] && !reachable[cell - 1]) { reachable[cell - 1] = true; queue[tail++] = cell - 1; }
+            if (x < cols - 1 && passable[cell + 1] && !reachable[cell + 1]) { reachable[cell + 1] = true; queue[tail++] = cell + 1; }
+            if (cell >= cols && passable[cell - cols] && !reachable[cell - cols]) { reachable[cell - cols] = true; queue[tail++] = cell - cols; }
+            if (cell + cols < reachable.length && passable[cell + cols] && !reachable[cell + cols]) { reachable[cell + cols] = true; queue[tail++] = cell + cols; }
+        }
+    }
+
+    /** Re-classifies the cells of a region and adjusts the summary counts by the difference. */
+    private void recount(int x0, int y0, int x1, int y1) {
+        double turning = turningDiameter / 2 - cellSize / 2;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0, cell = y * cols + x0; x <= x1; x++, cell++) {
+                byte category;
+                if (outside[cell] || cover[cell] > 0) category = NOT_FLOOR;
+                else if (!passable[cell]) category = NARROW;
+                else if (!reachable[cell]) category = UNREACHABLE;
+                else category = clearance[cell] >= turning ? TURNING : REACHABLE;
+                if (category != counted[cell]) {
+                    categoryCounts[counted[cell]]--;
+                    categoryCounts[category]++;
+                    counted[cell] = category;
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= rasterized.length) return;
+        int capacity = Math.max(slots, rasterized.length * 2);
+        rasterized = Arrays.copyOf(rasterized, capacity);
+        slotCorners = Arrays.copyOf(slotCorners, capacity * 8);
+    }
+}
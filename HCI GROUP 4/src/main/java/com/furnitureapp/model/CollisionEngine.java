@@ -0,0 +1,267 @@
+package com.furnitureapp.model;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which furniture footprints in a {@link FurnitureScene} overlap each other.
+ * <p>
+ * Broad phase: the scene's spatial grid, which the scene keeps up to date on every transform.
+ * Narrow phase: a separating-axis test on the two rotated footprint rectangles.
+ * The engine listens to scene changes and re-tests only the slot that changed against its
+ * grid candidates, so dragging one item costs a handful of tests regardless of scene size.
+ * Footprints that merely touch (flush against each other) do not count as overlapping.
+ * <p>
+ * Not thread-safe; used from the thread that mutates the scene (the EDT).
+ */
+public final class CollisionEngine implements FurnitureScene.ChangeListener {
+
+    private static final double TOUCH_TOLERANCE = 1e-6; // World px of overlap ignored as "touching"
+
+    private final FurnitureScene scene;
+
+    // --- Overlapping slots per slot (symmetric adjacency lists) ---
+    private int[][] overlaps = new int[64][];
+    private int[] overlapCount = new int[64];
+    private int collidingSlotCount = 0; // Slots with at least one overlap
+    private int pairCount = 0;
+
+    // --- Scratch for the narrow phase ---
+    private final double[] cornersA = new double[8];
+    private final double[] cornersB = new double[8];
+    private final double[] boundsScratch = new double[4];
+    private int testSlot;
+    private int[] oldPartners = new int[16]; // Partners before a re-test, to report status changes
+    private FurnitureScene.SlotVisitor stateListener;
+    private final FurnitureScene.SlotVisitor candidateTester = this::testCandidate;
+
+    /** Creates an engine for the scene, computes the current overlaps and starts tracking changes. */
+    public CollisionEngine(FurnitureScene scene) {
+        this.scene = scene;
+        rebuild();
+        scene.addChangeListener(this);
+    }
+
+    /** Stops tracking the scene. */
+    public void dispose() {
+        scene.removeChangeListener(this);
+    }
+
+    /**
+     * Sets a listener called with each slot that starts or stops overlapping anything after a
+     * scene change (not after {@link #rebuild()}), e.g. to redraw cached pictures of it. May be null.
+     */
+    public void setStateListener(FurnitureScene.SlotVisitor listener) {
+        this.stateListener = listener;
+    }
+
+    /** Recomputes all overlaps from scratch. */
+    public void rebuild() {
+        resetState();
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (scene.isLive(slot)) retest(slot);
+        }
+    }
+
+    public boolean isColliding(int slot) {
+        return slot < overlapCount.length && overlapCount[slot] > 0;
+    }
+
+    /** Number of items the slot overlaps. */
+    public int overlapCount(int slot) {
+        return slot < overlapCount.length ? overlapCount[slot] : 0;
+    }
+
+    /** Number of items that overlap at least one other item. */
+    public int collidingSlotCount() { return collidingSlotCount; }
+
+    /** Number of overlapping pairs. */
+    public int pairCount() { return pairCount; }
+
+    /** Calls the visitor for each slot overlapping the given slot. */
+    public void forEachOverlap(int slot, FurnitureScene.SlotVisitor visitor) {
+        if (slot >= overlapCount.length) return;
+        int[] list = overlaps[slot];
+        for (int i = 0; i < overlapCount[slot]; i++) visitor.visit(list[i]);
+    }
+
+    /**
+     * Separating-axis test for two convex quads given as x0,y0,...,x3,y3 (as produced by
+     * {@link FurnitureScene#corners}). Returns true if they overlap by more than a touch.
+     */
+    public static boolean quadsOverlap(double[] a, double[] b) {
+        return !hasSeparatingAxis(a, a, b) && !hasSeparatingAxis(b, a, b);
+    }
+
+    // --- FurnitureScene.ChangeListener ---
+
+    @Override
+    public void slotAdded(int slot) {
+        ensureCapacity(slot + 1);
+        retestAndNotify(slot);
+    }
+
+    @Override
+    public void slotChanged(int slot) {
+        ensureCapacity(slot + 1);
+        retestAndNotify(slot);
+    }
+
+    @Override
+    public void slotRemoved(int slot) {
+        if (slot >= overlapCount.length) return;
+        int oldCount = saveOldPartners(slot);
+        clearSlot(slot);
+        if (stateListener == null) return;
+        for (int i = 0; i < oldCount; i++) {
+            if (overlapCount[oldPartners[i]] == 0) stateListener.visit(oldPartners[i]); // Its only overlap is gone
+        }
+    }
+
+    @Override
+    public void cleared() {
+        resetState();
+    }
+
+    // --- Internals ---
+
+    /** Re-tests the slot and reports every slot whose colliding status changed as a result. */
+    private void retestAndNotify(int slot) {
+        if (stateListener == null) {
+            retest(slot);
+            return;
+        }
+        int oldCount = saveOldPartners(slot);
+        retest(slot);
+        int newCount = overlapCount[slot];
+        if ((oldCount > 0) != (newCount > 0)) stateListener.visit(slot);
+        for (int i = 0; i < oldCount; i++) {
+            if (overlapCount[oldPartners[i]] == 0) stateListener.visit(oldPartners[i]);
+        }
+        int[] list = overlaps[slot];
+        for (int i = 0; i < newCount; i++) {
+            int partner = list[i];
+            // Colliding only with this slot now, and not before: it just started colliding
+            if (overlapCount[partner] == 1 && !containsOldPartner(partner, oldCount)) stateListener.visit(partner);
+        }
+    }
+
+    private int saveOldPartners(int slot) {
+        int n = overlapCount[slot];
+        if (n > oldPartners.length) oldPartners = new int[Math.max(n, oldPartners.length * 2)];
+        if (n > 0) System.arraycopy(overlaps[slot], 0, oldPartners, 0, n);
+        return n;
+    }
+
+    private boolean containsOldPartner(int partner, int oldCount) {
+        for (int i = 0; i < oldCount; i++) {
+            if (oldPartners[i] == partner) return true;
+        }
+        return false;
+    }
+
+    /** Drops the slot's pairs and tests it against its broad-phase candidates again. */
+    private void retest(int slot) {
+        ensureCapacity(slot + 1);
+        clearSlot(slot);
+        scene.corners(slot, cornersA);
+        scene.bounds(slot, boundsScratch);
+        testSlot = slot;
+        scene.forEachInBounds(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3], candidateTester);
+    }
+
+    private void testCandidate(int other) {
+        if (other == testSlot) return;
+        scene.corners(other, cornersB);
+        if (quadsOverlap(cornersA, cornersB)) {
+            addPair(testSlot, other);
+        }
+    }
+
+    /** True if one of the edge normals of {@code edges} separates quads a and b. */
+    private static boolean hasSeparatingAxis(double[] edges, double[] a, double[] b) {
+        // Footprints are rectangles, so two perpendicular edge normals cover all four edges
+        for (int e = 0; e < 2; e++) {
+            double ax = -(edges[2 * e + 3] - edges[2 * e + 1]);
+            double ay = edges[2 * e + 2] - edges[2 * e];
+            double length = Math.sqrt(ax * ax + ay * ay);
+            if (length < 1e-12) continue; // Degenerate edge
+            ax /= length;
+            ay /= length;
+            double minA = Double.MAX_VALUE, maxA = -Double.MAX_VALUE;
+            double minB = Double.MAX_VALUE, maxB = -Double.MAX_VALUE;
+            for (int i = 0; i < 8; i += 2) {
+                double pa = a[i] * ax + a[i + 1] * ay;
+                double pb = b[i] * ax + b[i + 1] * ay;
+                if (pa < minA) minA = pa;
+                if (pa > maxA) maxA = pa;
+                if (pb < minB) minB = pb;
+                if (pb > maxB) maxB = pb;
+            }
+            if (maxA - minB <= TOUCH_TOLERANCE || maxB - minA <= TOUCH_TOLERANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addPair(int a, int b) {
+        append(a, b);
+        append(b, a);
+        pairCount++;
+    }
+
+    private void append(int slot, int other) {
+        int n = overlapCount[slot];
+        int[] list = overlaps[slot];
+        if (list == null) {
+            list = new int[4];
+            overlaps[slot] = list;
+        } else if (n == list.length) {
+            list = Arrays.copyOf(list, n * 2);
+            overlaps[slot] = list;
+        }
+        list[n] = other;
+        overlapCount[slot] = n + 1;
+        if (n == 0) collidingSlotCount++;
+    }
+
+    /** Removes every pair involving the slot. */
+    private void clearSlot(int slot) {
+        int n = overlapCount[slot];
+        if (n == 0) return;
+        int[] list = overlaps[slot];
+        for (int i = 0; i < n; i++) {
+            removeFromList(list[i], slot);
+        }
+        overlapCount[slot] = 0;
+        collidingSlotCount--;
+        pairCount -= n;
+    }
+
+    private void removeFromList(int slot, int other) {
+        int[] list = overlaps[slot];
+        int n = overlapCount[slot];
+        for (int i = 0; i < n; i++) {
+            if (list[i] == other) {
+                list[i] = list[n - 1];
+                overlapCount[slot] = n - 1;
+                if (n == 1) collidingSlotCount--;
+                return;
+            }
+        }
+    }
+
+    private void resetState() {
+        Arrays.fill(overlapCount, 0);
+        collidingSlotCount = 0;
+        pairCount = 0;
+        ensureCapacity(scene.slotCount());
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= overlapCount.length) return;
+        int newCapacity = Math.max(required, overlapCount.length * 2);
+        overlaps = Arrays.copyOf(overlaps, newCapacity);
+        overlapCount = Arrays.copyOf(overlapCount, newCapacity);
+    }
+}
@@ -6,6 +6,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a single piece of furniture on the 2D canvas.
@@ -13,6 +14,12 @@ import java.util.Objects;
  * its base largest dimension for normalization, and its current transformation state.
  */
 public final class FurnitureItem {
+    // Source of unique item IDs (shared by all items created in this JVM)
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    // Stable identity, kept across all transform/color copies
+    private final long id;
+
     // Base shape (untransformed) centered around (0,0)
     private final Shape baseFootprint;
     private final Color color;
@@ -29,17 +36,20 @@ public final class FurnitureItem {
 
     /**
      * Primary constructor. Assumes baseFootprint is centered around (0,0).
-     * Initializes transform components to default (no translation, scale 1, no rotation).
+     * Initializes transform components to default (no translation, scale 1, no rotation)
+     * and allocates a new unique ID.
      */
     public FurnitureItem(Shape baseFootprint, Color color, String modelFilename, String type, double baseLargestDimension) {
-        this(baseFootprint, color, modelFilename, type, baseLargestDimension, 0.0, 0.0, 1.0, 1.0, 0.0);
+        this(NEXT_ID.getAndIncrement(), baseFootprint, color, modelFilename, type, baseLargestDimension, 0.0, 0.0, 1.0, 1.0, 0.0);
     }
 
     /**
-     * Private constructor for creating instances with updated transformation components.
+     * Full constructor for creating instances with updated transformation components.
+     * Package-private so FurnitureScene can build views of its stored items.
      */
-    private FurnitureItem(Shape baseFootprint, Color color, String modelFilename, String type, double baseLargestDimension,
+    FurnitureItem(long id, Shape baseFootprint, Color color, String modelFilename, String type, double baseLargestDimension,
                           double tx, double ty, double scaleX, double scaleY, double rotationRadians) {
+        this.id = id;
         this.baseFootprint = Objects.requireNonNull(baseFootprint, "baseFootprint cannot be null");
         this.color = Objects.requireNonNull(color, "color cannot be null");
         this.modelFilename = Objects.requireNonNull(modelFilename, "modelFilename cannot be null");
@@ -64,6 +74,21 @@ public final class FurnitureItem {
         return at.createTransformedShape(baseFootprint);
     }
 
+    /**
+     * Writes the four corners of the transformed footprint bounds into {@code out} as x, y pairs,
+     * in the same order as {@link FurnitureScene#corners}.
+     */
+    public void corners(double[] out) {
+        Rectangle2D base = baseFootprint.getBounds2D();
+        double c = Math.cos(rotationRadians), s = Math.sin(rotationRadians);
+        double x0 = base.getMinX() * scaleX, x1 = base.getMaxX() * scaleX;
+        double y0 = base.getMinY() * scaleY, y1 = base.getMaxY() * scaleY;
+        out[0] = tx + x0 * c - y0 * s; out[1] = ty + x0 * s + y0 * c;
+        out[2] = tx + x1 * c - y0 * s; out[3] = ty + x1 * s + y0 * c;
+        out[4] = tx + x1 * c - y1 * s; out[5] = ty + x1 * s + y1 * c;
+        out[6] = tx + x0 * c - y1 * s; out[7] = ty + x0 * s + y1 * c;
+    }
+
     /**
      * Returns the original, untransformed base footprint shape (centered at origin).
      */
@@ -79,6 +104,7 @@ public final class FurnitureItem {
     public double getRotationRadians() { return rotationRadians; }
 
     // Getters for identity/base properties
+    public long getId() { return id; }
     public Color color() { return color; }
     public String getModelFilename() { return modelFilename; } // Renamed getter
     public String type() { return type; }
@@ -89,7 +115,7 @@ public final class FurnitureItem {
      */
     public FurnitureItem translateTo(double newTx, double newTy) {
         // Pass all other fields unchanged
-        return new FurnitureItem(this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
+        return new FurnitureItem(this.id, this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
                                  newTx, newTy, this.scaleX, this.scaleY, this.rotationRadians);
     }
 
@@ -112,7 +138,7 @@ public final class FurnitureItem {
      */
     public FurnitureItem setScale(double newScaleX, double newScaleY) {
          // Pass all other fields unchanged
-         return new FurnitureItem(this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
+         return new FurnitureItem(this.id, this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
                                  this.tx, this.ty, newScaleX, newScaleY, this.rotationRadians);
     }
 
@@ -121,12 +147,38 @@ public final class FurnitureItem {
      */
     public FurnitureItem setRotation(double newRotationRadians) {
          // Pass all other fields unchanged
-         return new FurnitureItem(this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
+         return new FurnitureItem(this.id, this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
                                  this.tx, this.ty, this.scaleX, this.scaleY, newRotationRadians);
     }
 
+    /**
+     * Creates a new FurnitureItem instance with the whole transform replaced (used by group transforms).
+     */
+    public FurnitureItem withTransform(double newTx, double newTy, double newScaleX, double newScaleY, double newRotationRadians) {
+        return new FurnitureItem(this.id, this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
+                                 newTx, newTy, newScaleX, newScaleY, newRotationRadians);
+    }
+
+    /**
+     * Creates a copy of this item with a freshly allocated ID.
+     * Used when placing a cached model template, so every placed piece is distinct.
+     */
+    public FurnitureItem withNewId() {
+        return withId(NEXT_ID.getAndIncrement());
+    }
+
+    /**
+     * Creates a copy of this item carrying the given ID (e.g. restored from a saved layout).
+     * The ID sequence is advanced past it so later allocations cannot collide.
+     */
+    public FurnitureItem withId(long newId) {
+        NEXT_ID.accumulateAndGet(newId + 1, Math::max);
+        return new FurnitureItem(newId, this.baseFootprint, this.color, this.modelFilename, this.type, this.baseLargestDimension,
+                                 this.tx, this.ty, this.scaleX, this.scaleY, this.rotationRadians);
+    }
+
     public FurnitureItem withColor(java.awt.Color newColor) {
-        return new FurnitureItem(this.baseFootprint, newColor, this.modelFilename, this.type, this.baseLargestDimension,
+        return new FurnitureItem(this.id, this.baseFootprint, newColor, this.modelFilename, this.type, this.baseLargestDimension,
                                  this.tx, this.ty, this.scaleX, this.scaleY, this.rotationRadians);
     }
 
@@ -135,25 +187,21 @@ public final class FurnitureItem {
         if (obj == this) return true;
         if (obj == null || obj.getClass() != this.getClass()) return false;
         var that = (FurnitureItem) obj;
-        // Equality based *only* on identifying source information (filename, maybe base shape/type)
-        // DO NOT include tx, ty, scaleX, scaleY, rotationRadians
-        return Objects.equals(this.modelFilename, that.modelFilename) &&
-               Objects.equals(this.type, that.type) && // Added type for better distinction if needed
-               Objects.equals(this.baseFootprint, that.baseFootprint); // Optional: Compare base shapes if filename isn't unique enough
-               // Objects.equals(this.color, that.color); // Color probably shouldn't determine equality
+        // Equality is identity: two copies of the same placed piece share an ID,
+        // two pieces loaded from the same model file do not.
+        return this.id == that.id;
     }
 
     @Override
     public int hashCode() {
-        // Hashing based *only* on identifying source information
-        // DO NOT include tx, ty, scaleX, scaleY, rotationRadians
-        return Objects.hash(modelFilename, type, baseFootprint); // Match fields used in equals()
+        return Long.hashCode(id);
     }
 
     @Override
     public String toString() {
         // Include new fields
         return "FurnitureItem[" +
+               "id=" + id + ", " +
                "modelFilename=" + modelFilename + ", " +
                "type=" + type + ", " +
                "baseLargestDimension=" + String.format("%.3f", baseLargestDimension) + ", " +
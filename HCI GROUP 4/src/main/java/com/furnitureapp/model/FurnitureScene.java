@@ -0,0 +1,391 @@
+package com.furnitureapp.model;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Store for the furniture items placed in the room, laid out as parallel primitive arrays
+ * (struct-of-arrays) so that layouts with tens of thousands of items can be painted,
+ * hit-tested and dragged without allocating per item.
+ * <p>
+ * Each item occupies a slot. Slot order is draw order (higher slots are on top), and new items
+ * are always appended, so they are drawn over every older item. Deleted slots stay as holes
+ * until they make up half of the slots; the next addition then compacts the live slots,
+ * keeping their order, and listeners see {@link ChangeListener#cleared} followed by
+ * {@link ChangeListener#slotAdded} for every item in its new slot. Per-model data (base
+ * footprint, file name, type) is stored once in a model table and referenced by model index.
+ * Items are addressed by their stable ID through an ID-to-slot map.
+ * <p>
+ * {@link FurnitureItem} instances are only created as views at API boundaries
+ * ({@link #getById}, {@link #itemAt}, {@link #asList}). Hot paths such as painting should use the
+ * slot accessors. Footprints are treated as the base footprint's bounding rectangle,
+ * which is exact for the rectangular footprints produced by ModelHelper.
+ */
+public final class FurnitureScene {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double GRID_CELL_SIZE = 64.0; // World px (~1.3 m at the default scale)
+
+    /** Receives slots from spatial queries. */
+    @FunctionalInterface
+    public interface SlotVisitor {
+        void visit(int slot);
+    }
+
+    /**
+     * Notified synchronously after each mutation, so derived structures (collision pairs,
+     * caches) can update only the slots that changed.
+     */
+    public interface ChangeListener {
+        /** An item was stored in the slot. */
+        void slotAdded(int slot);
+        /** The slot's transform or colour changed. */
+        void slotChanged(int slot);
+        /** The item in the slot was removed; the slot is no longer live. */
+        void slotRemoved(int slot);
+        /** All items were removed. */
+        void cleared();
+    }
+
+    // --- Model table (one entry per distinct base footprint) ---
+    private final List<ModelEntry> models = new ArrayList<>();
+    private final Map<Shape, Integer> modelIndexByFootprint = new IdentityHashMap<>();
+
+    // --- Per-slot state ---
+    private long[] ids = new long[INITIAL_CAPACITY]; // 0 = free slot
+    private double[] tx = new double[INITIAL_CAPACITY];
+    private double[] ty = new double[INITIAL_CAPACITY];
+    private double[] scaleX = new double[INITIAL_CAPACITY];
+    private double[] scaleY = new double[INITIAL_CAPACITY];
+    private double[] rotation = new double[INITIAL_CAPACITY];
+    private double[] cos = new double[INITIAL_CAPACITY]; // Cached cos(rotation)
+    private double[] sin = new double[INITIAL_CAPACITY]; // Cached sin(rotation)
+    private int[] argb = new int[INITIAL_CAPACITY];
+    private int[] modelIndex = new int[INITIAL_CAPACITY];
+    private double[] slotBounds = new double[INITIAL_CAPACITY * 4]; // Cached world AABB: minX, minY, maxX, maxY
+
+    private int slotCount = 0;   // High-water mark: slots [0, slotCount) have been used
+    private int holeCount = 0;   // Removed slots below slotCount, dropped by compact()
+    private int size = 0;
+    private final LongIntMap slotById = new LongIntMap(INITIAL_CAPACITY);
+    private final SpatialGrid grid = new SpatialGrid(GRID_CELL_SIZE);
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+
+    public FurnitureScene() {
+        grid.ensureCapacity(INITIAL_CAPACITY);
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(Objects.requireNonNull(listener, "listener cannot be null"));
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /** Model data shared by all items created from the same base footprint. */
+    private static final class ModelEntry {
+        final Shape baseFootprint;
+        final String modelFilename;
+        final String type;
+        final double baseLargestDimension;
+        final double minX, minY, maxX, maxY; // Base footprint bounds
+
+        ModelEntry(FurnitureItem template) {
+            this.baseFootprint = template.getBaseFootprint();
+            this.modelFilename = template.getModelFilename();
+            this.type = template.type();
+            this.baseLargestDimension = template.getBaseLargestDimension();
+            Rectangle2D b = baseFootprint.getBounds2D();
+            this.minX = b.getMinX();
+            this.minY = b.getMinY();
+            this.maxX = b.getMaxX();
+            this.maxY = b.getMaxY();
+        }
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** Upper bound (exclusive) for slot iteration; check {@link #isLive(int)} for each slot. */
+    public int slotCount() { return slotCount; }
+
+    public boolean isLive(int slot) { return ids[slot] != 0; }
+
+    // --- ID lookups ---
+
+    /** Returns the slot holding the item with this ID, or -1. */
+    public int slotOf(long id) {
+        return slotById.get(id);
+    }
+
+    public boolean contains(long id) {
+        return slotById.get(id) >= 0;
+    }
+
+    /** Returns a view of the current state of the item with this ID, or null if it is not in the scene. */
+    public FurnitureItem getById(long id) {
+        int slot = slotById.get(id);
+        return slot >= 0 ? itemAt(slot) : null;
+    }
+
+    /** Creates a FurnitureItem view of a live slot. */
+    public FurnitureItem itemAt(int slot) {
+        ModelEntry m = models.get(modelIndex[slot]);
+        return new FurnitureItem(ids[slot], m.baseFootprint, new Color(argb[slot], true), m.modelFilename, m.type,
+                                 m.baseLargestDimension, tx[slot], ty[slot], scaleX[slot], scaleY[slot], rotation[slot]);
+    }
+
+    // --- Primitive slot accessors (no allocation) ---
+    public long idAt(int slot) { return ids[slot]; }
+    public double txAt(int slot) { return tx[slot]; }
+    public double tyAt(int slot) { return ty[slot]; }
+    public double scaleXAt(int slot) { return scaleX[slot]; }
+    public double scaleYAt(int slot) { return scaleY[slot]; }
+    public double rotationAt(int slot) { return rotation[slot]; }
+    public int argbAt(int slot) { return argb[slot]; }
+    public int modelIndexAt(int slot) { return modelIndex[slot]; }
+    public String typeAt(int slot) { return models.get(modelIndex[slot]).type; }
+
+    /**
+     * Writes the four world-space corners of the slot's footprint into {@code out}
+     * as x0,y0,x1,y1,x2,y2,x3,y3 (base TL, TR, BR, BL).
+     */
+    public void corners(int slot, double[] out) {
+        ModelEntry m = models.get(modelIndex[slot]);
+        double c = cos[slot], s = sin[slot];
+        double sx = scaleX[slot], sy = scaleY[slot];
+        double x0 = m.minX * sx, x1 = m.maxX * sx;
+        double y0 = m.minY * sy, y1 = m.maxY * sy;
+        double cx = tx[slot], cy = ty[slot];
+        out[0] = cx + x0 * c - y0 * s; out[1] = cy + x0 * s + y0 * c;
+        out[2] = cx + x1 * c - y0 * s; out[3] = cy + x1 * s + y0 * c;
+        out[4] = cx + x1 * c - y1 * s; out[5] = cy + x1 * s + y1 * c;
+        out[6] = cx + x0 * c - y1 * s; out[7] = cy + x0 * s + y1 * c;
+    }
+
+    /** Writes the slot's axis-aligned world bounds into {@code out} as minX, minY, maxX, maxY. */
+    public void bounds(int slot, double[] out) {
+        System.arraycopy(slotBounds, slot * 4, out, 0, 4);
+    }
+
+    /**
+     * Calls the visitor for every live slot whose bounds overlap the given world rectangle,
+     * using the scene's spatial grid. Slots are visited in no particular order.
+     * The scene must not be modified from inside the visitor.
+     */
+    public void forEachInBounds(double minX, double minY, double maxX, double maxY, SlotVisitor visitor) {
+        grid.forEach(minX, minY, maxX, maxY, slotBounds, visitor);
+    }
+
+    /** Recomputes the cached bounds of a slot from its transform. */
+    private void computeBounds(int slot) {
+        ModelEntry m = models.get(modelIndex[slot]);
+        double ac = Math.abs(cos[slot]), as = Math.abs(sin[slot]);
+        double sx = scaleX[slot], sy = scaleY[slot];
+        // Offset of the footprint centre from the item origin, and its rotated half extents
+        double lx = (m.minX + m.maxX) * 0.5 * sx, ly = (m.minY + m.maxY) * 0.5 * sy;
+        double hx = (m.maxX - m.minX) * 0.5 * sx, hy = (m.maxY - m.minY) * 0.5 * sy;
+        double cx = tx[slot] + lx * cos[slot] - ly * sin[slot];
+        double cy = ty[slot] + lx * sin[slot] + ly * cos[slot];
+        double ex = hx * ac + hy * as;
+        double ey = hx * as + hy * ac;
+        int b = slot * 4;
+        slotBounds[b] = cx - ex; slotBounds[b + 1] = cy - ey;
+        slotBounds[b + 2] = cx + ex; slotBounds[b + 3] = cy + ey;
+    }
+
+    /** Returns true if the world point lies inside the slot's footprint. */
+    public boolean containsPoint(int slot, double x, double y) {
+        ModelEntry m = models.get(modelIndex[slot]);
+        double dx = x - tx[slot], dy = y - ty[slot];
+        double c = cos[slot], s = sin[slot];
+        // Rotate into the item frame, then undo the scale
+        double lx = (dx * c + dy * s) / scaleX[slot];
+        double ly = (-dx * s + dy * c) / scaleY[slot];
+        return lx >= m.minX && lx <= m.maxX && ly >= m.minY && ly <= m.maxY;
+    }
+
+    // --- Mutation ---
+
+    /**
+     * Adds an item on top of the draw order. May compact the slots first (see the class comment),
+     * which moves other items to lower slots.
+     * @return the slot the item was stored in.
+     * @throws IllegalArgumentException if an item with the same ID is already present.
+     */
+    public int add(FurnitureItem item) {
+        Objects.requireNonNull(item, "item cannot be null");
+        if (slotById.get(item.getId()) >= 0) {
+            throw new IllegalArgumentException("Duplicate item id " + item.getId());
+        }
+        if (holeCount > 0 && holeCount * 2 >= slotCount) compact();
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount++;
+        ids[slot] = item.getId();
+        modelIndex[slot] = modelIndexFor(item);
+        write(slot, item);
+        slotById.put(item.getId(), slot);
+        size++;
+        for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).slotAdded(slot);
+        return slot;
+    }
+
+    /**
+     * Copies the transform and colour of the given item into its slot.
+     * @return false if no item with that ID exists (nothing is changed).
+     */
+    public boolean replace(FurnitureItem updated) {
+        int slot = slotById.get(updated.getId());
+        if (slot < 0) return false;
+        write(slot, updated);
+        fireSlotChanged(slot);
+        return true;
+    }
+
+    /** Sets a slot's transform directly, without creating FurnitureItem instances. */
+    public void setTransform(int slot, double newTx, double newTy, double newScaleX, double newScaleY, double newRotation) {
+        applyTransform(slot, newTx, newTy, newScaleX, newScaleY, newRotation);
+        fireSlotChanged(slot);
+    }
+
+    private void applyTransform(int slot, double newTx, double newTy, double newScaleX, double newScaleY, double newRotation) {
+        tx[slot] = newTx;
+        ty[slot] = newTy;
+        scaleX[slot] = Math.max(0.01, newScaleX); // Same minimum as FurnitureItem
+        scaleY[slot] = Math.max(0.01, newScaleY);
+        rotation[slot] = newRotation;
+        cos[slot] = Math.cos(newRotation);
+        sin[slot] = Math.sin(newRotation);
+        computeBounds(slot);
+        int b = slot * 4;
+        grid.update(slot, slotBounds[b], slotBounds[b + 1], slotBounds[b + 2], slotBounds[b + 3]);
+    }
+
+    /**
+     * Removes the item with the given ID, leaving a hole in the draw order.
+     * @return false if it was not present.
+     */
+    public boolean remove(long id) {
+        int slot = slotById.remove(id);
+        if (slot < 0) return false;
+        ids[slot] = 0;
+        grid.remove(slot);
+        for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).slotRemoved(slot);
+        holeCount++;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(ids, 0, slotCount, 0L);
+        slotCount = 0;
+        holeCount = 0;
+        size = 0;
+        slotById.clear();
+        grid.clear();
+        models.clear();
+        modelIndexByFootprint.clear();
+        for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).cleared();
+    }
+
+    /** Replaces the whole content, keeping the given order. */
+    public void setAll(Collection<FurnitureItem> newItems) {
+        clear();
+        ensureCapacity(newItems.size());
+        for (FurnitureItem item : newItems) {
+            add(item);
+        }
+    }
+
+    /** Snapshot of the items in draw order, as FurnitureItem views. */
+    public List<FurnitureItem> asList() {
+        List<FurnitureItem> result = new ArrayList<>(size);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != 0) result.add(itemAt(slot));
+        }
+        return result;
+    }
+
+    // --- Internals ---
+
+    /** Moves the live slots down over the holes, keeping their order, and re-announces them. */
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] == 0) continue;
+            if (slot != live) {
+                ids[live] = ids[slot];
+                tx[live] = tx[slot];
+                ty[live] = ty[slot];
+                scaleX[live] = scaleX[slot];
+                scaleY[live] = scaleY[slot];
+                rotation[live] = rotation[slot];
+                cos[live] = cos[slot];
+                sin[live] = sin[slot];
+                argb[live] = argb[slot];
+                modelIndex[live] = modelIndex[slot];
+                System.arraycopy(slotBounds, slot * 4, slotBounds, live * 4, 4);
+            }
+            live++;
+        }
+        Arrays.fill(ids, live, slotCount, 0L);
+        slotCount = live;
+        holeCount = 0;
+        slotById.clear();
+        grid.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotById.put(ids[slot], slot);
+            int b = slot * 4;
+            grid.update(slot, slotBounds[b], slotBounds[b + 1], slotBounds[b + 2], slotBounds[b + 3]);
+        }
+        for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).cleared();
+        for (int slot = 0; slot < slotCount; slot++) {
+            for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).slotAdded(slot);
+        }
+    }
+
+    private void fireSlotChanged(int slot) {
+        for (int i = 0; i < changeListeners.size(); i++) changeListeners.get(i).slotChanged(slot);
+    }
+
+    private void write(int slot, FurnitureItem item) {
+        applyTransform(slot, item.getTx(), item.getTy(), item.getScaleX(), item.getScaleY(), item.getRotationRadians());
+        argb[slot] = item.color().getRGB();
+    }
+
+    private int modelIndexFor(FurnitureItem item) {
+        Integer index = modelIndexByFootprint.get(item.getBaseFootprint());
+        if (index == null) {
+            index = models.size();
+            models.add(new ModelEntry(item));
+            modelIndexByFootprint.put(item.getBaseFootprint(), index);
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) return;
+        int newCapacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        tx = Arrays.copyOf(tx, newCapacity);
+        ty = Arrays.copyOf(ty, newCapacity);
+        scaleX = Arrays.copyOf(scaleX, newCapacity);
+        scaleY = Arrays.copyOf(scaleY, newCapacity);
+        rotation = Arrays.copyOf(rotation, newCapacity);
+        cos = Arrays.copyOf(cos, newCapacity);
+        sin = Arrays.copyOf(sin, newCapacity);
+        argb = Arrays.copyOf(argb, newCapacity);
+        modelIndex = Arrays.copyOf(modelIndex, newCapacity);
+        slotBounds = Arrays.copyOf(slotBounds, newCapacity * 4);
+        grid.ensureCapacity(newCapacity);
+    }
+}
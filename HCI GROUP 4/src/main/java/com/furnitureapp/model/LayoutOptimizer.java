@@ -0,0 +1,641 @@
+package com.furnitureapp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Searches for a furniture arrangement inside a room by simulated annealing.
+ * <p>
+ * The cost of a layout is a sum of per-item terms (footprint outside the room or closer to a wall
+ * than the wall clearance, front not pointing in the wanted direction) and per-pair terms
+ * (footprints overlapping or closer than the walkway width, measured as the separating-axis gap of
+ * the two rectangles). A step moves, turns or swaps items and is accepted by the Metropolis rule.
+ * Each chain keeps its items in a uniform hash grid whose cells are wider than any pair's reach,
+ * so a step re-scores only the moved items against the items in the neighbouring cells.
+ * <p>
+ * Several independent chains, seeded differently (the first from the current layout, the others
+ * from random placements), run on a private {@link ForkJoinPool}. Whenever a chain beats the best
+ * layout found so far, that layout is handed to the {@link ProgressListener}, at most ten times a
+ * second. The scene is copied in the constructor (on the EDT); the chains never touch it.
+ */
+public final class LayoutOptimizer {
+
+    private static final double OVERLAP_WEIGHT = 20;   // Per squared unit of overlap; a walkway shortfall weighs 1
+    private static final double OVERLAP_PENALTY = 2;   // Flat cost of an overlapping pair
+    private static final double OUTSIDE_WEIGHT = 20;   // Per squared unit a corner lies outside the room
+    private static final double OUTSIDE_PENALTY = 4;   // Flat cost of a footprint crossing the outline
+    private static final double FACING_WEIGHT = 1;     // Cost of facing the opposite way
+    private static final int MAX_GRID_CELLS = 1 << 20;
+    private static final int CHECK_INTERVAL = 1024;    // Steps between time, cancellation and best-layout checks
+    private static final long PUBLISH_INTERVAL_NANOS = 100_000_000L;
+
+    /** Search settings; lengths in world px. */
+    public static class Options {
+        public double walkwayWidth;             // Gap wanted between footprints; 0: only forbid overlap
+        public double wallClearance;            // Gap wanted between footprints and walls
+        public double facingX, facingY;         // Direction the item fronts (local -y) should point; 0, 0: any
+        public boolean quarterTurns = true;     // Keep rotations at multiples of 90 degrees
+        public int chains;                      // Independent annealing chains; 0: one per core
+        public long stepsPerChain = 5_000_000;
+        public long timeLimitMillis = 15_000;   // 0: no limit
+        public long seed = System.nanoTime();
+    }
+
+    /** Receives each new best layout, on a search thread. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void improved(Result best);
+    }
+
+    /** Transforms found for the movable items, with the cost they scored. */
+    public static final class Result {
+        private final long[] ids;
+        private final double[] tx, ty, rotation;
+        private final double[] start; // Shared: tx, ty, scaleX, scaleY, rotation per item when the search started
+        private final double cost;
+        private final int overlappingPairs, itemsOutside;
+
+        private Result(long[] ids, double[] tx, double[] ty, double[] rotation, double[] start,
+                       double cost, int overlappingPairs, int itemsOutside) {
+            this.ids = ids;
+            this.start = start;
+            this.tx = tx;
+            this.ty = ty;
+            this.rotation = rotation;
+            this.cost = cost;
+            this.overlappingPairs = overlappingPairs;
+            this.itemsOutside = itemsOutside;
+        }
+
+        public int size() { return ids.length; }
+        public long idAt(int index) { return ids[index]; }
+        public double txAt(int index) { return tx[index]; }
+        public double tyAt(int index) { return ty[index]; }
+        public double rotationAt(int index) { return rotation[index]; }
+        public double getCost() { return cost; }
+        public int getOverlappingPairs() { return overlappingPairs; }
+        public int getItemsOutside() { return itemsOutside; }
+
+        /**
+         * The scene's current versions of the items, moved to the result. Items no longer in the
+         * scene are left out, and so are items the user moved, scaled or turned during the search:
+         * those no longer have the transform of {@code applied} (the result last applied to the
+         * scene, null if none yet) or, failing that, the one they had when the search started.
+         */
+        public List<FurnitureItem> toItems(FurnitureScene scene, Result applied) {
+            List<FurnitureItem> items = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                int slot = scene.slotOf(ids[i]);
+                if (slot < 0) continue;
+                int s = i * 5;
+                if (scene.scaleXAt(slot) != start[s + 2] || scene.scaleYAt(slot) != start[s + 3]) continue;
+                boolean atApplied = applied != null && scene.txAt(slot) == applied.tx[i]
+                        && scene.tyAt(slot) == applied.ty[i] && scene.rotationAt(slot) == applied.rotation[i];
+                boolean atStart = scene.txAt(slot) == start[s] && scene.tyAt(slot) == start[s + 1]
+                        && scene.rotationAt(slot) == start[s + 4];
+                if (!atApplied && !atStart) continue;
+                items.add(scene.itemAt(slot).withTransform(tx[i], ty[i], start[s + 2], start[s + 3], rotation[i]));
+            }
+            return items;
+        }
+    }
+
+    // --- Problem copy (read-only once constructed) ---
+    private final int n;
+    private final long[] ids;
+    private final int[] movers;              // Indices of the movable items
+    private final double[] hx, hy;           // Footprint half extents
+    private final double[] lx, ly;           // Footprint centre relative to the item origin, unrotated
+    private final double[] radius;           // Half diagonal
+    private final double[] startX, startY, startRotation; // Footprint centres and rotations
+    private final double[] moverStart;       // Scene transform of each movable item: tx, ty, scaleX, scaleY, rotation
+    private final RoomShape room;
+    private final double[] edges;            // Room outline segments x0, y0, x1, y1
+    private final Options options;
+    private final double walkway, wallClearance, invUnit2, facingX, facingY;
+    private final boolean facing;
+    private final double gridX, gridY, gridCell;
+    private final int gridCols, gridRows;
+
+    // --- Search state shared by the chains ---
+    private final AtomicReference<Result> best = new AtomicReference<>();
+    private final AtomicLong lastPublish = new AtomicLong();
+    private final AtomicLong totalSteps = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile double progress;
+    private volatile ProgressListener listener;
+    private long deadline;
+
+    /**
+     * Copies the scene's items and the room.
+     * @param movableIds items the search may move; null for all. The others still count as obstacles.
+     */
+    public LayoutOptimizer(FurnitureScene scene, RoomShape room, Set<Long> movableIds, Options options) {
+        this.room = room;
+        this.options = options;
+        this.n = scene.size();
+        ids = new long[n];
+        hx = new double[n];
+        hy = new double[n];
+        lx = new double[n];
+        ly = new double[n];
+        radius = new double[n];
+        startX = new double[n];
+        startY = new double[n];
+        startRotation = new double[n];
+        int[] movable = new int[n];
+        int moverCount = 0;
+        double[] corners = new double[8];
+        double maxRadius = 0, radiusSum = 0;
+        int i = 0;
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            scene.corners(slot, corners);
+            double rot = scene.rotationAt(slot), c = Math.cos(rot), s = Math.sin(rot);
+            double cx = (corners[0] + corners[4]) / 2, cy = (corners[1] + corners[5]) / 2;
+            double ox = cx - scene.txAt(slot), oy = cy - scene.tyAt(slot);
+            ids[i] = scene.idAt(slot);
+            hx[i] = Math.hypot(corners[2] - corners[0], corners[3] - corners[1]) / 2;
+            hy[i] = Math.hypot(corners[6] - corners[0], corners[7] - corners[1]) / 2;
+            lx[i] = ox * c + oy * s;
+            ly[i] = -ox * s + oy * c;
+            radius[i] = Math.hypot(hx[i], hy[i]);
+            startX[i] = cx;
+            startY[i] = cy;
+            startRotation[i] = rot;
+            maxRadius = Math.max(maxRadius, radius[i]);
+            radiusSum += radius[i];
+            if (movableIds == null || movableIds.contains(ids[i])) movable[moverCount++] = i;
+            i++;
+        }
+        movers = java.util.Arrays.copyOf(movable, moverCount);
+        moverStart = new double[moverCount * 5];
+        for (int k = 0; k < moverCount; k++) {
+            int slot = scene.slotOf(ids[movers[k]]);
+            moverStart[k * 5] = scene.txAt(slot);
+            moverStart[k * 5 + 1] = scene.tyAt(slot);
+            moverStart[k * 5 + 2] = scene.scaleXAt(slot);
+            moverStart[k * 5 + 3] = scene.scaleYAt(slot);
+            moverStart[k * 5 + 4] = scene.rotationAt(slot);
+        }
+
+        edges = new double[room.edgeCount() * 4];
+        double[] edge = new double[4];
+        for (int e = 0; e < room.edgeCount(); e++) {
+            room.edge(e, edge);
+            System.arraycopy(edge, 0, edges, e * 4, 4);
+        }
+        walkway = Math.max(0, options.walkwayWidth);
+        wallClearance = Math.max(0, options.wallClearance);
+        // Lengths are scored in units of the wanted gaps (or of a typical item), so the weights are scale-free
+        double unit = Math.max(Math.max(walkway, wallClearance), n > 0 ? radiusSum / n / 2 : 1);
+        invUnit2 = 1 / (unit * unit);
+        double facingLength = Math.hypot(options.facingX, options.facingY);
+        facing = facingLength > 0;
+        facingX = facing ? options.facingX / facingLength : 0;
+        facingY = facing ? options.facingY / facingLength : 0;
+
+        // Pairs can only score when their centres are closer than two radii plus the walkway: one cell
+        double cell = Math.max(1e-6, 2 * maxRadius + walkway);
+        double width = room.getMaxX() - room.getMinX(), depth = room.getMaxY() - room.getMinY();
+        cell = Math.max(cell, Math.sqrt(width * depth / MAX_GRID_CELLS));
+        gridCell = cell;
+        gridX = room.getMinX() - cell;
+        gridY = room.getMinY() - cell;
+        gridCols = (int) Math.ceil(width / cell) + 2;
+        gridRows = (int) Math.ceil(depth / cell) + 2;
+    }
+
+    /** Stops the search; {@link #run} returns the best layout found so far. */
+    public void cancel() { cancelled = true; }
+
+    public boolean isCancelled() { return cancelled; }
+
+    /** Fraction of the search done, 0 to 1. */
+    public double progress() { return progress; }
+
+    /** Steps taken by all chains so far. */
+    public long totalSteps() { return totalSteps.get(); }
+
+    /** Number of items the search may move. */
+    public int movableCount() { return movers.length; }
+
+    /**
+     * Runs the chains until their step budget or the time limit is used up, or {@link #cancel} is
+     * called, and returns the best layout. Blocks; call it off the EDT. Can be called once.
+     */
+    public Result run(ProgressListener listener) {
+        if (!started.compareAndSet(false, true)) throw new IllegalStateException("LayoutOptimizer already run");
+        this.listener = listener;
+        int chainCount = options.chains > 0 ? options.chains : Runtime.getRuntime().availableProcessors();
+        Chain[] chains = new Chain[chainCount];
+        SplittableRandom seeds = new SplittableRandom(options.seed);
+        for (int c = 0; c < chainCount; c++) chains[c] = new Chain(c, seeds.split());
+        deadline = options.timeLimitMillis > 0 ? System.nanoTime() + options.timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        if (movers.length == 0) {
+            best.set(chains[0].snapshot(false));
+            return best.get();
+        }
+        ForkJoinPool pool = new ForkJoinPool(chainCount);
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(chains);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        progress = 1;
+        return best.get();
+    }
+
+    /** Offers a chain's best layout as the overall best, and passes it on if it is. */
+    private void offer(Chain chain) {
+        Result current = best.get();
+        if (current != null && chain.bestCost >= current.cost) return;
+        Result result = chain.snapshot(true);
+        while (true) {
+            current = best.get();
+            if (current != null && current.cost <= result.cost) return;
+            if (best.compareAndSet(current, result)) break;
+        }
+        ProgressListener l = listener;
+        long now = System.nanoTime(), last = lastPublish.get();
+        if (l != null && now - last >= PUBLISH_INTERVAL_NANOS && lastPublish.compareAndSet(last, now)) l.improved(result);
+    }
+
+    // --- Cost terms ---
+
+    /** Cost of item i alone with its footprint centred at x, y and rotated by (c, s); quad receives the footprint. */
+    private double unaryCost(int i, double x, double y, double c, double s, double[] quad, double[] scratch) {
+        double cost = 0;
+        if (facing) cost += FACING_WEIGHT * (1 - (s * facingX - c * facingY)) / 2; // Front = local -y = (sin, -cos)
+        double ax = hx[i] * c, ay = hx[i] * s, bx = -hy[i] * s, by = hy[i] * c;
+        quad[0] = x - ax - bx; quad[1] = y - ay - by;
+        quad[2] = x + ax - bx; quad[3] = y + ay - by;
+        quad[4] = x + ax + bx; quad[5] = y + ay + by;
+        quad[6] = x - ax + bx; quad[7] = y - ay + by;
+        boolean inside = room.containsQuad(quad, scratch);
+        if (!inside) cost += OUTSIDE_PENALTY;
+        for (int k = 0; k < 8; k += 2) {
+            double d = distanceToOutline(quad[k], quad[k + 1]);
+            if (inside || room.contains(quad[k], quad[k + 1])) {
+                if (d < wallClearance) cost += (wallClearance - d) * (wallClearance - d) * invUnit2;
+            } else {
+                cost += OUTSIDE_WEIGHT * (d + wallClearance) * (d + wallClearance) * invUnit2;
+            }
+        }
+        return cost;
+    }
+
+    private double distanceToOutline(double px, double py) {
+        double best = Double.MAX_VALUE;
+        for (int e = 0; e < edges.length; e += 4) {
+            double x0 = edges[e], y0 = edges[e + 1], dx = edges[e + 2] - x0, dy = edges[e + 3] - y0;
+            double length2 = dx * dx + dy * dy;
+            double t = length2 > 0 ? Math.max(0, Math.min(1, ((px - x0) * dx + (py - y0) * dy) / length2)) : 0;
+            double ex = x0 + t * dx - px, ey = y0 + t * dy - py;
+            best = Math.min(best, ex * ex + ey * ey);
+        }
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Largest gap between the two footprints along the four face normals (negative: overlapping).
+     * This is the separating-axis distance, exact for parallel faces and a lower bound otherwise.
+     */
+    private double separation(int i, double xi, double yi, double ci, double si, int j, double xj, double yj, double cj, double sj) {
+        double dx = xj - xi, dy = yj - yi;
+        double gap = axisGap(dx, dy, ci, si, i, ci, si, j, cj, sj);
+        gap = Math.max(gap, axisGap(dx, dy, -si, ci, i, ci, si, j, cj, sj));
+        gap = Math.max(gap, axisGap(dx, dy, cj, sj, i, ci, si, j, cj, sj));
+        return Math.max(gap, axisGap(dx, dy, -sj, cj, i, ci, si, j, cj, sj));
+    }
+
+    private double axisGap(double dx, double dy, double ax, double ay, int i, double ci, double si, int j, double cj, double sj) {
+        double ri = hx[i] * Math.abs(ci * ax + si * ay) + hy[i] * Math.abs(-si * ax + ci * ay);
+        double rj = hx[j] * Math.abs(cj * ax + sj * ay) + hy[j] * Math.abs(-sj * ax + cj * ay);
+        return Math.abs(dx * ax + dy * ay) - ri - rj;
+    }
+
+    /** Cost of the pair i, j at the given centres and rotations; 0 when they are a walkway apart. */
+    private double pairCost(int i, double xi, double yi, double ci, double si, int j, double xj, double yj, double cj, double sj) {
+        double dx = xj - xi, dy = yj - yi, reach = radius[i] + radius[j] + walkway;
+        if (dx * dx + dy * dy >= reach * reach) return 0;
+        double gap = separation(i, xi, yi, ci, si, j, xj, yj, cj, sj);
+        if (gap >= walkway) return 0;
+        double cost = (walkway - gap) * (walkway - gap) * invUnit2;
+        if (gap < 0) cost += OVERLAP_WEIGHT * gap * gap * invUnit2 + OVERLAP_PENALTY;
+        return cost;
+    }
+
+    private int cellOf(double x, double y) {
+        int col = Math.max(0, Math.min(gridCols - 1, (int) Math.floor((x - gridX) / gridCell)));
+        int row = Math.max(0, Math.min(gridRows - 1, (int) Math.floor((y - gridY) / gridCell)));
+        return row * gridCols + col;
+    }
+
+    /** One annealing chain with its own copy of the layout and hash grid. */
+    private final class Chain extends RecursiveAction {
+        private final int index;
+        private final SplittableRandom random;
+        private final double[] x = new double[n], y = new double[n], rot = new double[n], cos = new double[n], sin = new double[n];
+        private final double[] unary = new double[n];
+        private final double[] quad = new double[8], quadScratch = new double[8]; // Footprint; containsQuad's scratch
+        private double cost;
+
+        // Hash grid: per cell a doubly linked list of items
+        private final int[] head = new int[gridCols * gridRows];
+        private final int[] next = new int[n], prev = new int[n], cell = new int[n];
+        private final int[] stamp = new int[n];
+        private int stampGeneration;
+
+        // Best layout of this chain
+        private final double[] bestX = new double[n], bestY = new double[n], bestRot = new double[n];
+        private double bestCost = Double.MAX_VALUE;
+        private boolean bestOffered = true;
+
+        // Proposed step: one or two items and their new state
+        private int movedCount;
+        private final int[] moved = new int[2];
+        private final double[] newX = new double[2], newY = new double[2], newRot = new double[2], newCos = new double[2], newSin = new double[2];
+
+        Chain(int index, SplittableRandom random) {
+            this.index = index;
+            this.random = random;
+            java.util.Arrays.fill(head, -1);
+            for (int i = 0; i < n; i++) {
+                x[i] = startX[i];
+                y[i] = startY[i];
+                setRotation(i, startRotation[i]);
+            }
+            if (index > 0) scatter();
+            for (int i = 0; i < n; i++) link(i, cellOf(x[i], y[i]));
+            cost = fullCost(x, y, cos, sin, null);
+            for (int i = 0; i < n; i++) unary[i] = unaryCost(i, x[i], y[i], cos[i], sin[i], quad, quadScratch);
+            keepBest();
+        }
+
+        @Override
+        protected void compute() {
+            double t0 = initialTemperature(), t1 = t0 * 1e-5;
+            double diagonal = Math.hypot(room.getMaxX() - room.getMinX(), room.getMaxY() - room.getMinY());
+            double stepMax = diagonal / 4, stepMin = Math.sqrt(1 / invUnit2) / 50;
+            long steps = options.stepsPerChain, start = System.nanoTime(), span = deadline - start;
+            double temperature = t0, step = stepMax;
+            long done = 0;
+            for (; done < steps; done++) {
+                if (done % CHECK_INTERVAL == 0) {
+                    if (cancelled) break;
+                    long now = System.nanoTime();
+                    if (now >= deadline) break;
+                    double fraction = Math.max((double) done / steps, deadline == Long.MAX_VALUE ? 0 : (double) (now - start) / span);
+                    temperature = t0 * Math.pow(t1 / t0, fraction);
+                    step = Math.max(stepMin, stepMax * Math.sqrt(temperature / t0));
+                    if (index == 0) progress = fraction;
+                    if (cost < bestCost) keepBest();
+                    if (!bestOffered) {
+                        bestOffered = true;
+                        offer(this);
+                    }
+                    Result overall = best.get();
+                    if (overall != null && overall.cost <= 1e-9) break; // Nothing left to improve
+                }
+                propose(step);
+                double delta = delta();
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    accept(delta);
+                    // Copy only clear improvements; the check above catches the rest within an interval
+                    if (cost < bestCost - Math.max(1e-9, bestCost * 1e-4)) keepBest();
+                }
+            }
+            totalSteps.addAndGet(done);
+            if (cost < bestCost) keepBest();
+            offer(this);
+        }
+
+        /** Temperature at which half of the typical uphill steps are accepted. */
+        private double initialTemperature() {
+            double diagonal = Math.hypot(room.getMaxX() - room.getMinX(), room.getMaxY() - room.getMinY());
+            double uphill = 0;
+            int count = 0;
+            for (int k = 0; k < 200; k++) {
+                propose(diagonal / 4);
+                double delta = delta();
+                if (delta > 0) {
+                    uphill += delta;
+                    count++;
+                }
+            }
+            return count > 0 ? uphill / count / Math.log(2) : 1;
+        }
+
+        /** Random placements inside the room for the movable items. */
+        private void scatter() {
+            double w = room.getMaxX() - room.getMinX(), d = room.getMaxY() - room.getMinY();
+            for (int i : movers) {
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    x[i] = room.getMinX() + random.nextDouble() * w;
+                    y[i] = room.getMinY() + random.nextDouble() * d;
+                    if (room.contains(x[i], y[i])) break;
+                }
+                setRotation(i, options.quarterTurns ? random.nextInt(4) * Math.PI / 2 : random.nextDouble() * 2 * Math.PI);
+            }
+        }
+
+        private void propose(double step) {
+            int a = movers[random.nextInt(movers.length)];
+            double kind = random.nextDouble();
+            moved[0] = a;
+            if (kind < 0.15 && movers.length > 1) { // Swap places with another movable item
+                int b = movers[random.nextInt(movers.length)];
+                if (b != a) {
+                    movedCount = 2;
+                    moved[1] = b;
+                    setProposal(0, x[b], y[b], rot[a]);
+                    setProposal(1, x[a], y[a], rot[b]);
+                    return;
+                }
+            }
+            movedCount = 1;
+            if (kind < 0.35) { // Turn
+                double r = options.quarterTurns
+                        ? Math.rint(rot[a] / (Math.PI / 2)) * (Math.PI / 2) + (random.nextBoolean() ? 1 : random.nextBoolean() ? -1 : 2) * (Math.PI / 2)
+                        : rot[a] + random.nextGaussian() * Math.PI / 4;
+                setProposal(0, x[a], y[a], r);
+            } else {
+                setProposal(0, x[a] + random.nextGaussian() * step, y[a] + random.nextGaussian() * step, rot[a]);
+            }
+        }
+
+        private void setProposal(int k, double px, double py, double r) {
+            r = Math.IEEEremainder(r, 2 * Math.PI);
+            newX[k] = px;
+            newY[k] = py;
+            newRot[k] = r;
+            newCos[k] = Math.cos(r);
+            newSin[k] = Math.sin(r);
+        }
+
+        /** Cost change of the proposed step: the moved items' own terms and their pairs with neighbours. */
+        private double delta() {
+            double delta = 0;
+            int generation = ++stampGeneration;
+            for (int k = 0; k < movedCount; k++) {
+                int i = moved[k];
+                delta += unaryCost(i, newX[k], newY[k], newCos[k], newSin[k], quad, quadScratch) - unary[i];
+                stamp[i] = generation;
+            }
+            for (int k = 0; k < movedCount; k++) {
+                delta += neighbourDelta(cell[moved[k]], generation);
+                delta += neighbourDelta(cellOf(newX[k], newY[k]), generation);
+            }
+            if (movedCount == 2) {
+                int a = moved[0], b = moved[1];
+                delta += pairCost(a, newX[0], newY[0], newCos[0], newSin[0], b, newX[1], newY[1], newCos[1], newSin[1])
+                       - pairCost(a, x[a], y[a], cos[a], sin[a], b, x[b], y[b], cos[b], sin[b]);
+            }
+            return delta;
+        }
+
+        /** Pair cost changes against the not yet visited items in the 3 x 3 cells around a cell. */
+        private double neighbourDelta(int centre, int generation) {
+            double delta = 0;
+            int col = centre % gridCols, row = centre / gridCols;
+            for (int r = Math.max(0, row - 1); r <= Math.min(gridRows - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(gridCols - 1, col + 1); c++) {
+                    for (int j = head[r * gridCols + c]; j >= 0; j = next[j]) {
+                        if (stamp[j] == generation) continue;
+                        stamp[j] = generation;
+                        for (int k = 0; k < movedCount; k++) {
+                            int i = moved[k];
+                            delta += pairCost(i, newX[k], newY[k], newCos[k], newSin[k], j, x[j], y[j], cos[j], sin[j])
+                                   - pairCost(i, x[i], y[i], cos[i], sin[i], j, x[j], y[j], cos[j], sin[j]);
+                        }
+                    }
+                }
+            }
+            return delta;
+        }
+
+        private void accept(double delta) {
+            for (int k = 0; k < movedCount; k++) {
+                int i = moved[k];
+                x[i] = newX[k];
+                y[i] = newY[k];
+                rot[i] = newRot[k];
+                cos[i] = newCos[k];
+                sin[i] = newSin[k];
+                unary[i] = unaryCost(i, x[i], y[i], cos[i], sin[i], quad, quadScratch);
+                int target = cellOf(x[i], y[i]);
+                if (target != cell[i]) {
+                    unlink(i);
+                    link(i, target);
+                }
+            }
+            cost += delta;
+        }
+
+        private void setRotation(int i, double r) {
+            rot[i] = r;
+            cos[i] = Math.cos(r);
+            sin[i] = Math.sin(r);
+        }
+
+        private void link(int i, int target) {
+            cell[i] = target;
+            prev[i] = -1;
+            next[i] = head[target];
+            if (head[target] >= 0) prev[head[target]] = i;
+            head[target] = i;
+        }
+
+        private void unlink(int i) {
+            if (prev[i] >= 0) next[prev[i]] = next[i];
+            else head[cell[i]] = next[i];
+            if (next[i] >= 0) prev[next[i]] = prev[i];
+        }
+
+        private void keepBest() {
+            System.arraycopy(x, 0, bestX, 0, n);
+            System.arraycopy(y, 0, bestY, 0, n);
+            System.arraycopy(rot, 0, bestRot, 0, n);
+            bestCost = cost;
+            bestOffered = false;
+        }
+
+        /**
+         * Scores the layout from scratch, each pair once through the hash grid (whose lists
+         * reflect the current layout, so it is only used for it or, via {@code counts}, for the best).
+         * @param counts if not null, receives the overlapping pairs and the items outside the room
+         */
+        private double fullCost(double[] px, double[] py, double[] pc, double[] ps, int[] counts) {
+            double total = 0;
+            int overlaps = 0, outside = 0;
+            for (int i = 0; i < n; i++) {
+                total += unaryCost(i, px[i], py[i], pc[i], ps[i], quad, quadScratch);
+                if (counts != null && !room.containsQuad(quad, quadScratch)) outside++;
+            }
+            for (int i = 0; i < n; i++) {
+                int centre = cellOf(px[i], py[i]), col = centre % gridCols, row = centre / gridCols;
+                for (int r = Math.max(0, row - 1); r <= Math.min(gridRows - 1, row + 1); r++) {
+                    for (int c = Math.max(0, col - 1); c <= Math.min(gridCols - 1, col + 1); c++) {
+                        for (int j = head[r * gridCols + c]; j >= 0; j = next[j]) {
+                            if (j <= i) continue;
+                            total += pairCost(i, px[i], py[i], pc[i], ps[i], j, px[j], py[j], pc[j], ps[j]);
+                            if (counts != null && separation(i, px[i], py[i], pc[i], ps[i], j, px[j], py[j], pc[j], ps[j]) < 0) overlaps++;
+                        }
+                    }
+                }
+            }
+            if (counts != null) {
+                counts[0] = overlaps;
+                counts[1] = outside;
+            }
+            return total;
+        }
+
+        /** The chain's best layout (or current one) as a result, rescored exactly. */
+        Result snapshot(boolean fromBest) {
+            double[] px = fromBest ? bestX : x, py = fromBest ? bestY : y, pr = fromBest ? bestRot : rot;
+            double[] pc = new double[n], ps = new double[n];
+            for (int i = 0; i < n; i++) {
+                pc[i] = Math.cos(pr[i]);
+                ps[i] = Math.sin(pr[i]);
+            }
+            // Rebuild the grid for the scored layout, then restore it for the chain
+            relinkAll(px, py);
+            int[] counts = new int[2];
+            double exact = fullCost(px, py, pc, ps, counts);
+            relinkAll(x, y);
+
+            int m = movers.length;
+            long[] resultIds = new long[m];
+            double[] tx = new double[m], ty = new double[m], rotation = new double[m];
+            for (int k = 0; k < m; k++) {
+                int i = movers[k];
+                resultIds[k] = ids[i];
+                tx[k] = px[i] - (lx[i] * pc[i] - ly[i] * ps[i]);
+                ty[k] = py[i] - (lx[i] * ps[i] + ly[i] * pc[i]);
+                rotation[k] = pr[i];
+            }
+            return new Result(resultIds, tx, ty, rotation, moverStart, exact, counts[0], counts[1]);
+        }
+
+        private void relinkAll(double[] px, double[] py) {
+            java.util.Arrays.fill(head, -1);
+            for (int i = n - 1; i >= 0; i--) link(i, cellOf(px[i], py[i]));
+        }
+    }
+}
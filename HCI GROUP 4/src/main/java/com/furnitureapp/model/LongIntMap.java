@@ -0,0 +1,108 @@
+package com.furnitureapp.model;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing hash map from long keys to int values.
+ * Avoids the Long/Integer boxing of a HashMap on hot lookup paths (item ID to slot).
+ * Not thread-safe.
+ */
+final class LongIntMap {
+
+    private static final long EMPTY_KEY = 0L; // Item IDs start at 1, so 0 marks a free bucket
+    private static final float MAX_LOAD = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() { return size; }
+
+    /** Returns the value for the key, or -1 if absent (always for the reserved key 0). */
+    int get(long key) {
+        if (key == EMPTY_KEY) return -1; // A free bucket would match it and return a stale value
+        int i = bucket(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) return values[i];
+            if (k == EMPTY_KEY) return -1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY_KEY) throw new IllegalArgumentException("key 0 is reserved");
+        int i = bucket(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == EMPTY_KEY) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > keys.length * MAX_LOAD) rehash(keys.length << 1);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /** Removes the key, returning its value or -1 if it was absent. */
+    int remove(long key) {
+        int i = bucket(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY_KEY) return -1;
+            if (k == key) break;
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY_KEY) {
+            int home = bucket(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY_KEY;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    private int bucket(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new int[newCapacity];
+        mask = newCapacity - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.furnitureapp.model;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable room floor plan: an outer polygon and any number of holes (columns, shafts),
+ * in the caller's units (meters in the layout, world pixels in the canvas).
+ * <p>
+ * Rings are stored with the room interior on their left (outer ring counter-clockwise, holes
+ * clockwise, in x-right/y-up terms), so every edge's outward normal is (dy, -dx).
+ * <p>
+ * Containment uses a slab decomposition built once per shape: the distinct vertex y values cut
+ * the plane into horizontal slabs, and each slab lists the (non-crossing) edges spanning it,
+ * sorted by x. A point query is two binary searches (slab, then edges left of the point), so
+ * O(log n) in the number of edges. Consecutive edge pairs in a slab bound the trapezoids that
+ * make up the floor.
+ */
+public final class RoomShape {
+
+    /** Receives the floor as trapezoids with horizontal top and bottom sides. */
+    public interface TrapezoidVisitor {
+        void trapezoid(double yTop, double yBottom, double xTopLeft, double xTopRight,
+                       double xBottomLeft, double xBottomRight);
+    }
+
+    private final double[][] rings; // x0, y0, x1, y1, ... per ring; ring 0 is the outer boundary
+    private final double minX, minY, maxX, maxY;
+
+    // --- Edges of all rings ---
+    private final int edgeCount;
+    private final double[] ex1, ey1, ex2, ey2;
+    private final double[] slope; // dx/dy, for non-horizontal edges
+
+    // --- Slabs ---
+    private final double[] slabY;     // Sorted distinct vertex y values; slab k is [slabY[k], slabY[k+1])
+    private final int[] slabStart;    // Edges of slab k: slabEdges[slabStart[k] .. slabStart[k+1])
+    private final int[] slabEdges;    // Sorted by x within each slab
+    private final int[] horizontalEdges; // Sorted by y; not part of any slab
+    private final double tolerance;   // Containment slack for items touching a wall
+
+    /** An axis-aligned rectangular room with its corner at the origin. */
+    public static RoomShape rectangle(double width, double depth) {
+        return new RoomShape(List.of(new double[]{0, 0, width, 0, width, depth, 0, depth}));
+    }
+
+    /**
+     * Creates a shape from rings of x, y pairs: the outer boundary first, then holes.
+     * @throws IllegalArgumentException if a ring has fewer than three vertices or there is no ring.
+     */
+    public RoomShape(List<double[]> rings) {
+        if (rings.isEmpty()) throw new IllegalArgumentException("A room needs an outer boundary");
+        this.rings = new double[rings.size()][];
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        int edges = 0;
+        for (int r = 0; r < rings.size(); r++) {
+            double[] ring = rings.get(r);
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("Ring " + r + " needs at least three x, y pairs");
+            }
+            double[] copy = ring.clone();
+            boolean counterClockwise = signedArea(copy) > 0;
+            if (counterClockwise != (r == 0)) reverse(copy); // Interior on the left of every edge
+            this.rings[r] = copy;
+            for (int i = 0; i < copy.length; i += 2) {
+                x0 = Math.min(x0, copy[i]);
+                x1 = Math.max(x1, copy[i]);
+                y0 = Math.min(y0, copy[i + 1]);
+                y1 = Math.max(y1, copy[i + 1]);
+            }
+            edges += copy.length / 2;
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        tolerance = 1e-6 * Math.max(maxX - minX, maxY - minY);
+
+        edgeCount = edges;
+        ex1 = new double[edges];
+        ey1 = new double[edges];
+        ex2 = new double[edges];
+        ey2 = new double[edges];
+        slope = new double[edges];
+        int e = 0;
+        for (double[] ring : this.rings) {
+            int n = ring.length / 2;
+            for (int i = 0; i < n; i++, e++) {
+                int j = (i + 1) % n;
+                ex1[e] = ring[2 * i];
+                ey1[e] = ring[2 * i + 1];
+                ex2[e] = ring[2 * j];
+                ey2[e] = ring[2 * j + 1];
+                slope[e] = ey1[e] != ey2[e] ? (ex2[e] - ex1[e]) / (ey2[e] - ey1[e]) : 0;
+            }
+        }
+
+        // Slab boundaries: distinct vertex y values
+        double[] ys = new double[edges];
+        for (int i = 0; i < edges; i++) ys[i] = ey1[i];
+        Arrays.sort(ys);
+        int distinct = 0;
+        for (int i = 0; i < ys.length; i++) {
+            if (i == 0 || ys[i] != ys[distinct - 1]) ys[distinct++] = ys[i];
+        }
+        slabY = Arrays.copyOf(ys, distinct);
+        int slabs = Math.max(0, distinct - 1);
+
+        // Bucket each non-horizontal edge into the slabs it spans (count, then fill)
+        slabStart = new int[slabs + 1];
+        int horizontals = 0;
+        for (int i = 0; i < edges; i++) {
+            if (ey1[i] == ey2[i]) {
+                horizontals++;
+                continue;
+            }
+            int from = Arrays.binarySearch(slabY, Math.min(ey1[i], ey2[i]));
+            int to = Arrays.binarySearch(slabY, Math.max(ey1[i], ey2[i]));
+            for (int k = from; k < to; k++) slabStart[k + 1]++;
+        }
+        for (int k = 0; k < slabs; k++) slabStart[k + 1] += slabStart[k];
+        slabEdges = new int[slabStart[slabs]];
+        horizontalEdges = new int[horizontals];
+        int[] fill = Arrays.copyOf(slabStart, Math.max(1, slabs));
+        int h = 0;
+        for (int i = 0; i < edges; i++) {
+            if (ey1[i] == ey2[i]) {
+                horizontalEdges[h++] = i;
+                continue;
+            }
+            int from = Arrays.binarySearch(slabY, Math.min(ey1[i], ey2[i]));
+            int to = Arrays.binarySearch(slabY, Math.max(ey1[i], ey2[i]));
+            for (int k = from; k < to; k++) slabEdges[fill[k]++] = i;
+        }
+        for (int k = 0; k < slabs; k++) { // Rooms have few edges per slab: insertion sort by x at mid-slab
+            double mid = (slabY[k] + slabY[k + 1]) * 0.5;
+            for (int a = slabStart[k] + 1; a < slabStart[k + 1]; a++) {
+                int edge = slabEdges[a];
+                double x = xAt(edge, mid);
+                int b = a - 1;
+                while (b >= slabStart[k] && xAt(slabEdges[b], mid) > x) {
+                    slabEdges[b + 1] = slabEdges[b];
+                    b--;
+                }
+                slabEdges[b + 1] = edge;
+            }
+        }
+        for (int a = 1; a < horizontalEdges.length; a++) { // Sort horizontals by y
+            int edge = horizontalEdges[a];
+            int b = a - 1;
+            while (b >= 0 && ey1[horizontalEdges[b]] > ey1[edge]) {
+                horizontalEdges[b + 1] = horizontalEdges[b];
+                b--;
+            }
+            horizontalEdges[b + 1] = edge;
+        }
+    }
+
+    // --- Geometry access ---
+
+    public int ringCount() { return rings.length; }
+
+    /** The vertices of a ring as x, y pairs (a copy). Ring 0 is the outer boundary. */
+    public double[] ring(int index) { return rings[index].clone(); }
+
+    /** All rings, copied, outer boundary first. */
+    public List<double[]> rings() {
+        List<double[]> copy = new ArrayList<>(rings.length);
+        for (double[] ring : rings) copy.add(ring.clone());
+        return copy;
+    }
+
+    public int vertexCount(int ring) { return rings[ring].length / 2; }
+    public double vertexX(int ring, int index) { return rings[ring][2 * index]; }
+    public double vertexY(int ring, int index) { return rings[ring][2 * index + 1]; }
+
+    /** Number of edges over all rings. */
+    public int edgeCount() { return edgeCount; }
+
+    /** Loads edge {@code index} as x1, y1, x2, y2 (interior on the left when walking from 1 to 2). */
+    public void edge(int index, double[] out) {
+        out[0] = ex1[index];
+        out[1] = ey1[index];
+        out[2] = ex2[index];
+        out[3] = ey2[index];
+    }
+
+    public double getMinX() { return minX; }
+    public double getMinY() { return minY; }
+    public double getMaxX() { return maxX; }
+    public double getMaxY() { return maxY; }
+
+    public Rectangle2D getBounds() {
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /** True for a single axis-aligned rectangle without holes. */
+    public boolean isRectangle() {
+        if (rings.length != 1 || rings[0].length != 8) return false;
+        double[] r = rings[0];
+        for (int i = 0; i < 8; i += 2) {
+            double x = r[i], y = r[i + 1];
+            if ((x != minX && x != maxX) || (y != minY && y != maxY)) return false;
+        }
+        return slabEdges.length == 2 && horizontalEdges.length == 2;
+    }
+
+    /** Floor area (outer boundary minus holes). */
+    public double area() {
+        double area = 0;
+        for (double[] ring : rings) area += signedArea(ring);
+        return area; // Holes are stored clockwise, so they subtract
+    }
+
+    /** The outline as a path; holes stay empty under the even-odd rule. */
+    public Path2D.Double toPath() {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD, edgeCount + rings.length);
+        for (double[] ring : rings) {
+            path.moveTo(ring[0], ring[1]);
+            for (int i = 2; i < ring.length; i += 2) path.lineTo(ring[i], ring[i + 1]);
+            path.closePath();
+        }
+        return path;
+    }
+
+    /** Visits the floor as trapezoids, slab by slab, left to right. */
+    public void forEachTrapezoid(TrapezoidVisitor visitor) {
+        for (int k = 0; k + 1 < slabY.length; k++) {
+            double top = slabY[k], bottom = slabY[k + 1];
+            for (int a = slabStart[k]; a + 1 < slabStart[k + 1]; a += 2) { // Inside between pairs
+                int left = slabEdges[a], right = slabEdges[a + 1];
+                visitor.trapezoid(top, bottom, xAt(left, top), xAt(right, top), xAt(left, bottom), xAt(right, bottom));
+            }
+        }
+    }
+
+    // --- Derived shapes (for editing) ---
+
+    /** This shape with x and y scaled about the origin. */
+    public RoomShape scaled(double sx, double sy) {
+        List<double[]> scaled = rings();
+        for (double[] ring : scaled) {
+            for (int i = 0; i < ring.length; i += 2) {
+                ring[i] *= sx;
+                ring[i + 1] *= sy;
+            }
+        }
+        return new RoomShape(scaled);
+    }
+
+    public RoomShape withVertexMoved(int ring, int index, double x, double y) {
+        List<double[]> copy = rings();
+        copy.get(ring)[2 * index] = x;
+        copy.get(ring)[2 * index + 1] = y;
+        return new RoomShape(copy);
+    }
+
+    /** Inserts a vertex before position {@code index} of the ring (so it splits edge index-1 to index). */
+    public RoomShape withVertexInserted(int ring, int index, double x, double y) {
+        List<double[]> copy = rings();
+        double[] old = copy.get(ring);
+        double[] grown = new double[old.length + 2];
+        System.arraycopy(old, 0, grown, 0, 2 * index);
+        grown[2 * index] = x;
+        grown[2 * index + 1] = y;
+        System.arraycopy(old, 2 * index, grown, 2 * index + 2, old.length - 2 * index);
+        copy.set(ring, grown);
+        return new RoomShape(copy);
+    }
+
+    /** Removes a vertex; a hole reduced below three vertices is removed entirely. Returns this if not possible. */
+    public RoomShape withVertexRemoved(int ring, int index) {
+        List<double[]> copy = rings();
+        double[] old = copy.get(ring);
+        if (old.length <= 6) {
+            if (ring == 0) return this; // The outer boundary stays a polygon
+            copy.remove(ring);
+            return new RoomShape(copy);
+        }
+        double[] shrunk = new double[old.length - 2];
+        System.arraycopy(old, 0, shrunk, 0, 2 * index);
+        System.arraycopy(old, 2 * index + 2, shrunk, 2 * index, old.length - 2 * index - 2);
+        copy.set(ring, shrunk);
+        return new RoomShape(copy);
+    }
+
+    public RoomShape withHole(double[] hole) {
+        List<double[]> copy = rings();
+        copy.add(hole.clone());
+        return new RoomShape(copy);
+    }
+
+    /**
+     * True if no two edges cross or touch (except neighbours sharing their vertex), no edge has
+     * zero length and every hole lies inside the outer boundary and outside every other hole.
+     * Quadratic; meant for edits.
+     */
+    public boolean isValid() {
+        int[] ringOf = new int[edgeCount], ringStart = new int[rings.length];
+        int e = 0;
+        for (int r = 0; r < rings.length; r++) {
+            ringStart[r] = e;
+            for (int i = 0; i < rings[r].length / 2; i++) ringOf[e++] = r;
+        }
+        for (int a = 0; a < edgeCount; a++) { // Every pair: within a ring, hole against outer, hole against hole
+            if (ex1[a] == ex2[a] && ey1[a] == ey2[a]) return false;
+            int size = rings[ringOf[a]].length / 2;
+            for (int b = a + 1; b < edgeCount; b++) {
+                if (ringOf[a] == ringOf[b]) {
+                    int ia = a - ringStart[ringOf[a]], ib = b - ringStart[ringOf[b]];
+                    if (ib == ia + 1 || (ia == 0 && ib == size - 1)) continue; // Neighbours
+                }
+                if (Line2D.linesIntersect(ex1[a], ey1[a], ex2[a], ey2[a], ex1[b], ey1[b], ex2[b], ey2[b])) return false;
+            }
+        }
+        // No edges cross, but a hole may still lie wholly outside the room or inside another hole
+        for (int r = 1; r < rings.length; r++) {
+            double[] hole = rings[r];
+            for (int i = 0; i < hole.length; i += 2) {
+                if (!ringContains(rings[0], hole[i], hole[i + 1])) return false;
+                for (int other = 1; other < rings.length; other++) {
+                    if (other != r && ringContains(rings[other], hole[i], hole[i + 1])) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // --- Containment ---
+
+    /** True if the point is inside the room (not in a hole). O(log n) in the number of edges. */
+    public boolean contains(double x, double y) {
+        int last = slabY.length - 1;
+        if (last < 1 || y < slabY[0] || y >= slabY[last] || x < minX || x > maxX) return false;
+        int k = slabOf(y);
+        // Edges in a slab do not cross, so "x at y" is sorted too: count edges left of the point
+        int lo = slabStart[k], hi = slabStart[k + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (xAt(slabEdges[mid], y) < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return ((lo - slabStart[k]) & 1) == 1;
+    }
+
+    /**
+     * True if a convex quad (x, y pairs, e.g. a furniture footprint) lies inside the room.
+     * Touching a wall counts as inside. One corner is located with {@link #contains}; then only
+     * the edges found by binary search in the slabs the quad spans are tested against it.
+     */
+    public boolean containsQuad(double[] corners) {
+        return containsQuad(corners, new double[8]);
+    }
+
+    /**
+     * {@link #containsQuad(double[])} without allocating: {@code scratch} (8 values) receives the
+     * corners pulled in by the tolerance. Shapes are shared between threads (the layout search
+     * chains and the EDT), so the scratch array is the caller's.
+     */
+    public boolean containsQuad(double[] corners, double[] scratch) {
+        double cx = (corners[0] + corners[2] + corners[4] + corners[6]) * 0.25;
+        double cy = (corners[1] + corners[3] + corners[5] + corners[7]) * 0.25;
+        double[] q = scratch;
+        double qMinX = Double.MAX_VALUE, qMinY = Double.MAX_VALUE, qMaxX = -Double.MAX_VALUE, qMaxY = -Double.MAX_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            // Pull the corners in slightly so a footprint lying on a wall does not count as crossing it
+            double dx = corners[i] - cx, dy = corners[i + 1] - cy;
+            double length = Math.hypot(dx, dy);
+            double shrink = length > tolerance ? (length - tolerance) / length : 0;
+            q[i] = cx + dx * shrink;
+            q[i + 1] = cy + dy * shrink;
+            qMinX = Math.min(qMinX, q[i]);
+            qMaxX = Math.max(qMaxX, q[i]);
+            qMinY = Math.min(qMinY, q[i + 1]);
+            qMaxY = Math.max(qMaxY, q[i + 1]);
+        }
+        if (qMinX < minX || qMaxX > maxX || qMinY < minY || qMaxY > maxY) return false;
+        if (!contains(q[0], q[1])) return false;
+
+        // No edge may enter the quad: candidates per slab are a contiguous run found by binary search
+        int firstSlab = slabOf(qMinY), lastSlab = slabOf(qMaxY);
+        for (int k = firstSlab; k <= lastSlab; k++) {
+            double ya = Math.max(qMinY, slabY[k]), yb = Math.min(qMaxY, slabY[k + 1]);
+            int lo = slabStart[k], hi = slabStart[k + 1];
+            while (lo < hi) { // First edge whose x range over [ya, yb] reaches qMinX
+                int mid = (lo + hi) >>> 1;
+                int edge = slabEdges[mid];
+                if (Math.max(xAt(edge, ya), xAt(edge, yb)) < qMinX) lo = mid + 1;
+                else hi = mid;
+            }
+            for (int a = lo; a < slabStart[k + 1]; a++) {
+                int edge = slabEdges[a];
+                if (Math.min(xAt(edge, ya), xAt(edge, yb)) > qMaxX) break; // Later edges are further right
+                if (segmentHitsQuad(edge, q)) return false;
+            }
+        }
+        int lo = 0, hi = horizontalEdges.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ey1[horizontalEdges[mid]] < qMinY) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int a = lo; a < horizontalEdges.length && ey1[horizontalEdges[a]] <= qMaxY; a++) {
+            int edge = horizontalEdges[a];
+            if (Math.max(ex1[edge], ex2[edge]) >= qMinX && Math.min(ex1[edge], ex2[edge]) <= qMaxX
+                    && segmentHitsQuad(edge, q)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Internals ---
+
+    /** Slab index for y, clamped to the valid range. */
+    private int slabOf(double y) {
+        int lo = 0, hi = slabY.length - 2; // Largest k with slabY[k] <= y
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (slabY[mid] <= y) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private double xAt(int edge, double y) {
+        return ex1[edge] + (y - ey1[edge]) * slope[edge];
+    }
+
+    private boolean segmentHitsQuad(int edge, double[] q) {
+        if (quadContains(q, ex1[edge], ey1[edge]) || quadContains(q, ex2[edge], ey2[edge])) return true;
+        for (int i = 0; i < 8; i += 2) {
+            int j = (i + 2) & 7;
+            if (Line2D.linesIntersect(ex1[edge], ey1[edge], ex2[edge], ey2[edge], q[i], q[i + 1], q[j], q[j + 1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Point in a convex quad of either orientation. */
+    private static boolean quadContains(double[] q, double x, double y) {
+        boolean positive = false, negative = false;
+        for (int i = 0; i < 8; i += 2) {
+            int j = (i + 2) & 7;
+            double cross = (q[j] - q[i]) * (y - q[i + 1]) - (q[j + 1] - q[i + 1]) * (x - q[i]);
+            if (cross > 0) positive = true;
+            else if (cross < 0) negative = true;
+        }
+        return !(positive && negative);
+    }
+
+    /** Even-odd test against one ring; used for validation only. */
+    private static boolean ringContains(double[] ring, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+            if ((ring[i + 1] > y) != (ring[j + 1] > y)
+                    && x < (ring[j] - ring[i]) * (y - ring[i + 1]) / (ring[j + 1] - ring[i + 1]) + ring[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static double signedArea(double[] ring) {
+        double sum = 0;
+        for (int i = 0, j = ring.length - 2; i < ring.length; j = i, i += 2) {
+            sum += ring[j] * ring[i + 1] - ring[i] * ring[j + 1];
+        }
+        return sum / 2;
+    }
+
+    private static void reverse(double[] ring) {
+        for (int i = 0, j = ring.length - 2; i < j; i += 2, j -= 2) {
+            double x = ring[i], y = ring[i + 1];
+            ring[i] = ring[j];
+            ring[i + 1] = ring[j + 1];
+            ring[j] = x;
+            ring[j + 1] = y;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.furnitureapp.model;
+
+import java.util.Arrays;
+
+/**
+ * Uniform hash grid over slot bounds, kept up to date incrementally by {@link FurnitureScene}.
+ * Each slot is listed in every cell its axis-aligned bounds touch. Moving a slot only
+ * touches the cell lists when its cell range changes, which for small drags is rare.
+ * Not thread-safe.
+ */
+final class SpatialGrid {
+
+    private final double cellSize;
+
+    // --- Cells: key -> cell index, each cell holding a small unordered slot list ---
+    private final LongIntMap cellIndexByKey = new LongIntMap(256);
+    private int[][] cellSlots = new int[256][];
+    private int[] cellSizes = new int[256];
+    private int cellCount = 0;
+
+    // --- Per-slot cell range (inclusive); cx0 > cx1 means not indexed ---
+    private int[] cx0 = new int[64], cy0 = new int[64], cx1 = new int[64], cy1 = new int[64];
+
+    // --- Query de-duplication (a slot spanning several cells is reported once) ---
+    private int[] visitStamp = new int[64];
+    private int stamp = 0;
+
+    SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /** Makes sure per-slot arrays can hold {@code slotCapacity} slots. */
+    void ensureCapacity(int slotCapacity) {
+        if (slotCapacity <= cx0.length) return;
+        int oldLength = cx0.length;
+        int newCapacity = Math.max(slotCapacity, oldLength * 2);
+        cx0 = Arrays.copyOf(cx0, newCapacity);
+        cy0 = Arrays.copyOf(cy0, newCapacity);
+        cx1 = Arrays.copyOf(cx1, newCapacity);
+        cy1 = Arrays.copyOf(cy1, newCapacity);
+        visitStamp = Arrays.copyOf(visitStamp, newCapacity);
+        for (int slot = oldLength; slot < newCapacity; slot++) {
+            cx0[slot] = 1; cx1[slot] = 0; // Not indexed
+        }
+    }
+
+    /** Indexes or re-indexes a slot under new bounds. */
+    void update(int slot, double minX, double minY, double maxX, double maxY) {
+        int nx0 = cell(minX), ny0 = cell(minY), nx1 = cell(maxX), ny1 = cell(maxY);
+        if (nx0 == cx0[slot] && ny0 == cy0[slot] && nx1 == cx1[slot] && ny1 == cy1[slot]) {
+            return; // Same cells as before
+        }
+        remove(slot);
+        cx0[slot] = nx0; cy0[slot] = ny0; cx1[slot] = nx1; cy1[slot] = ny1;
+        for (int cy = ny0; cy <= ny1; cy++) {
+            for (int cx = nx0; cx <= nx1; cx++) {
+                addToCell(cellFor(key(cx, cy), true), slot);
+            }
+        }
+    }
+
+    /** Removes a slot from all cells it is listed in. */
+    void remove(int slot) {
+        if (cx0[slot] > cx1[slot]) return; // Not indexed
+        for (int cy = cy0[slot]; cy <= cy1[slot]; cy++) {
+            for (int cx = cx0[slot]; cx <= cx1[slot]; cx++) {
+                int cell = cellFor(key(cx, cy), false);
+                if (cell >= 0) removeFromCell(cell, slot);
+            }
+        }
+        cx0[slot] = 1; cx1[slot] = 0;
+    }
+
+    void clear() {
+        cellIndexByKey.clear();
+        Arrays.fill(cellSizes, 0, cellCount, 0);
+        cellCount = 0;
+        for (int slot = 0; slot < cx0.length; slot++) {
+            cx0[slot] = 1; cx1[slot] = 0;
+        }
+    }
+
+    /**
+     * Calls the visitor once for every indexed slot whose bounds overlap the query rectangle.
+     * @param slotBounds per-slot bounds, 4 values per slot (minX, minY, maxX, maxY).
+     */
+    void forEach(double minX, double minY, double maxX, double maxY, double[] slotBounds, FurnitureScene.SlotVisitor visitor) {
+        if (++stamp == 0) { // Wrapped around: reset stamps so old marks are not mistaken for this query
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+        int qx0 = cell(minX), qy0 = cell(minY), qx1 = cell(maxX), qy1 = cell(maxY);
+        long cellsInQuery = (long) (qx1 - qx0 + 1) * (qy1 - qy0 + 1);
+        if (cellsInQuery > cellCount) {
+            // Query larger than the populated area: walk the populated cells instead of the empty ones
+            for (int cell = 0; cell < cellCount; cell++) {
+                visitCell(cell, minX, minY, maxX, maxY, slotBounds, visitor);
+            }
+            return;
+        }
+        for (int cy = qy0; cy <= qy1; cy++) {
+            for (int cx = qx0; cx <= qx1; cx++) {
+                int cell = cellFor(key(cx, cy), false);
+                if (cell >= 0) visitCell(cell, minX, minY, maxX, maxY, slotBounds, visitor);
+            }
+        }
+    }
+
+    // --- Internals ---
+
+    private void visitCell(int cell, double minX, double minY, double maxX, double maxY,
+                           double[] slotBounds, FurnitureScene.SlotVisitor visitor) {
+        int[] slots = cellSlots[cell];
+        for (int i = 0, n = cellSizes[cell]; i < n; i++) {
+            int slot = slots[i];
+            if (visitStamp[slot] == stamp) continue;
+            visitStamp[slot] = stamp;
+            int b = slot * 4;
+            if (slotBounds[b] <= maxX && slotBounds[b + 2] >= minX
+                    && slotBounds[b + 1] <= maxY && slotBounds[b + 3] >= minY) {
+                visitor.visit(slot);
+            }
+        }
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        // Offset so that no valid cell maps to the reserved key 0
+        return ((long) cx << 32) ^ (cy & 0xFFFFFFFFL) ^ 0x4000_0000_4000_0000L;
+    }
+
+    private int cellFor(long key, boolean create) {
+        int cell = cellIndexByKey.get(key);
+        if (cell >= 0 || !create) return cell;
+        if (cellCount == cellSlots.length) {
+            cellSlots = Arrays.copyOf(cellSlots, cellCount * 2);
+            cellSizes = Arrays.copyOf(cellSizes, cellCount * 2);
+        }
+        cell = cellCount++;
+        if (cellSlots[cell] == null) cellSlots[cell] = new int[4];
+        cellIndexByKey.put(key, cell);
+        return cell;
+    }
+
+    private void addToCell(int cell, int slot) {
+        int[] slots = cellSlots[cell];
+        int n = cellSizes[cell];
+        if (n == slots.length) {
+            slots = Arrays.copyOf(slots, n * 2);
+            cellSlots[cell] = slots;
+        }
+        slots[n] = slot;
+        cellSizes[cell] = n + 1;
+    }
+
+    private void removeFromCell(int cell, int slot) {
+        int[] slots = cellSlots[cell];
+        int n = cellSizes[cell];
+        for (int i = 0; i < n; i++) {
+            if (slots[i] == slot) {
+                slots[i] = slots[n - 1]; // Order inside a cell does not matter
+                cellSizes[cell] = n - 1;
+                return;
+            }
+        }
+    }
+}
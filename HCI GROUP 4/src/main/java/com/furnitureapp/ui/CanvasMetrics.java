@@ -0,0 +1,128 @@
+package com.furnitureapp.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Rolling frame metrics for the {@link DrawingCanvas}: paint time, items drawn and culled,
+ * hit-test time, {@code itemUpdated} dispatch time, dimension-line search time and bytes
+ * allocated per paint. Each metric
+ * keeps percentiles over its last {@value #WINDOW} samples.
+ * <p>
+ * The canvas only creates this object while metrics are enabled, so a disabled canvas pays
+ * one null check per measured call. All methods are for the EDT.
+ */
+public final class CanvasMetrics {
+
+    /** Number of recent samples each percentile is computed over. */
+    public static final int WINDOW = 512;
+
+    public enum Metric {
+        PAINT_NANOS("Paint", true),
+        ITEMS_DRAWN("Items drawn", false),
+        ITEMS_CULLED("Items culled", false),
+        HIT_TEST_NANOS("Hit test", true),
+        UPDATE_DISPATCH_NANOS("itemUpdated", true),
+        DIMENSION_NANOS("Dimensions", true),
+        PAINT_ALLOCATED_BYTES("Alloc/paint", false);
+
+        private final String label;
+        private final boolean nanos;
+
+        Metric(String label, boolean nanos) {
+            this.label = label;
+            this.nanos = nanos;
+        }
+
+        public String label() { return label; }
+
+        /** True if values are durations in nanoseconds. */
+        public boolean isDuration() { return nanos; }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final Color HUD_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Font HUD_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    private final RollingHistogram[] byOrdinal = new RollingHistogram[Metric.values().length];
+    private final boolean allocationSupported;
+
+    CanvasMetrics() {
+        for (Metric metric : Metric.values()) {
+            byOrdinal[metric.ordinal()] = new RollingHistogram(WINDOW);
+        }
+        allocationSupported = THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemoryEnabled();
+    }
+
+    /** Value at a percentile (0-100) of the recent samples, within about 12%. 0 if none yet. */
+    public long percentile(Metric metric, double percent) {
+        return byOrdinal[metric.ordinal()].percentile(percent);
+    }
+
+    /** The most recent sample. */
+    public long last(Metric metric) {
+        return byOrdinal[metric.ordinal()].last();
+    }
+
+    /** Samples recorded since the metrics were enabled or reset. */
+    public long count(Metric metric) {
+        return byOrdinal[metric.ordinal()].total();
+    }
+
+    /** False if this JVM cannot report per-thread allocation; the allocation metric then stays empty. */
+    public boolean isAllocationSupported() { return allocationSupported; }
+
+    public void reset() {
+        for (RollingHistogram histogram : byOrdinal) histogram.clear();
+    }
+
+    void record(Metric metric, long value) {
+        byOrdinal[metric.ordinal()].record(value);
+    }
+
+    /** Bytes allocated so far by the calling thread, or -1 if unsupported. */
+    long allocatedBytes() {
+        if (!allocationSupported) return -1;
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Draws the metrics table at (x, y) in screen coordinates. */
+    void paintHud(Graphics2D g, int x, int y) {
+        g.setFont(HUD_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int lineHeight = fm.getHeight();
+        String[] lines = new String[byOrdinal.length + 1];
+        lines[0] = String.format(Locale.ROOT, "%-12s %9s %9s %9s %9s", "", "last", "p50", "p95", "p99");
+        int width = fm.stringWidth(lines[0]);
+        for (Metric metric : Metric.values()) {
+            RollingHistogram h = byOrdinal[metric.ordinal()];
+            String line = String.format(Locale.ROOT, "%-12s %9s %9s %9s %9s", metric.label,
+                    format(metric, h.last()), format(metric, h.percentile(50)),
+                    format(metric, h.percentile(95)), format(metric, h.percentile(99)));
+            lines[metric.ordinal() + 1] = line;
+            width = Math.max(width, fm.stringWidth(line));
+        }
+        g.setColor(HUD_BACKGROUND);
+        g.fillRect(x, y, width + 12, lines.length * lineHeight + 8);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], x + 6, y + 4 + fm.getAscent() + i * lineHeight);
+        }
+    }
+
+    private String format(Metric metric, long value) {
+        if (metric.nanos) return String.format(Locale.ROOT, "%.2fms", value / 1e6);
+        if (metric == Metric.PAINT_ALLOCATED_BYTES) {
+            if (!allocationSupported) return "n/a";
+            return value < 10_000 ? value + "B" : (value / 1024) + "KB";
+        }
+        return Long.toString(value);
+    }
+}
@@ -0,0 +1,85 @@
+package com.furnitureapp.ui;
+
+import java.awt.BasicStroke;
+import java.awt.Stroke;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Per-canvas cache of the zoom-dependent strokes and the selection handle geometry used by
+ * DrawingCanvas. Strokes are rebuilt only when the zoom level changes; handle shapes are
+ * preallocated and re-laid out in place, so steady-state painting and handle hit-testing
+ * do not allocate.
+ */
+class CanvasRenderContext {
+
+    static final Stroke UNIT_STROKE = new BasicStroke(1); // Default stroke, restored after scaled drawing
+
+    private static final float BASE_DASH = 5.0f;
+    private static final float BASE_SELECTION_WIDTH = 2.0f;
+    private static final float BASE_DOOR_WIDTH = 4.0f;
+
+    private final int handleSize;
+    private final int rotationHandleOffset;
+
+    // --- Zoom-dependent strokes ---
+    private double cachedScale = Double.NaN;
+    private Stroke hairlineStroke;  // 1 screen pixel wide: room border and item outlines
+    private Stroke selectionStroke; // Dashed selection outline
+    private Stroke doorStroke;      // 4 screen pixels wide: door openings on the room outline
+
+    // --- Handle geometry (world coordinates), updated in place ---
+    private final Rectangle2D.Double[] cornerHandles = new Rectangle2D.Double[4]; // TL, TR, BR, BL
+    private final Ellipse2D.Double rotationHandle = new Ellipse2D.Double();
+    private final Point2D.Double rotationHandleCenter = new Point2D.Double();
+    private final Rectangle2D.Double selectionBounds = new Rectangle2D.Double();
+
+    CanvasRenderContext(int handleSize, int rotationHandleOffset) {
+        this.handleSize = handleSize;
+        this.rotationHandleOffset = rotationHandleOffset;
+        for (int i = 0; i < cornerHandles.length; i++) {
+            cornerHandles[i] = new Rectangle2D.Double();
+        }
+    }
+
+    /** Makes the cached strokes match the given view scale, rebuilding them only if it changed. */
+    void updateScale(double scale) {
+        if (scale == cachedScale) return;
+        cachedScale = scale;
+        float inv = (float) (1.0 / scale);
+        hairlineStroke = new BasicStroke(inv);
+        selectionStroke = new BasicStroke(BASE_SELECTION_WIDTH * inv, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                                          10.0f, new float[]{BASE_DASH * inv}, 0.0f);
+        doorStroke = new BasicStroke(BASE_DOOR_WIDTH * inv);
+    }
+
+    Stroke hairlineStroke() { return hairlineStroke; }
+    Stroke selectionStroke() { return selectionStroke; }
+    Stroke doorStroke() { return doorStroke; }
+
+    /** Scratch rectangle for the selected item's bounds. */
+    Rectangle2D.Double selectionBounds() { return selectionBounds; }
+
+    /** Positions the corner and rotation handles around the given bounds. */
+    void layoutHandles(Rectangle2D bounds) {
+        double x = bounds.getX();
+        double y = bounds.getY();
+        double w = bounds.getWidth();
+        double h = bounds.getHeight();
+        double halfHandle = handleSize / 2.0;
+        cornerHandles[0].setRect(x - halfHandle, y - halfHandle, handleSize, handleSize);         // TL
+        cornerHandles[1].setRect(x + w - halfHandle, y - halfHandle, handleSize, handleSize);     // TR
+        cornerHandles[2].setRect(x + w - halfHandle, y + h - halfHandle, handleSize, handleSize); // BR
+        cornerHandles[3].setRect(x - halfHandle, y + h - halfHandle, handleSize, handleSize);     // BL
+        // Rotation handle sits above the Top-Right corner
+        rotationHandleCenter.setLocation(bounds.getMaxX(), bounds.getMinY() - rotationHandleOffset);
+        rotationHandle.setFrame(rotationHandleCenter.x - halfHandle, rotationHandleCenter.y - halfHandle,
+                                handleSize, handleSize);
+    }
+
+    /** Corner handles as last laid out; the array and its rectangles are reused. */
+    Rectangle2D.Double[] cornerHandles() { return cornerHandles; }
+    Ellipse2D.Double rotationHandle() { return rotationHandle; }
+    Point2D.Double rotationHandleCenter() { return rotationHandleCenter; }
+}
@@ -0,0 +1,116 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.ClearanceGrid;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Locale;
+
+/**
+ * Heat map of a {@link ClearanceGrid} for the {@link DrawingCanvas}: one image pixel per grid
+ * cell, drawn scaled over the floor. Only the cells the grid reports as changed are recoloured,
+ * so a drag recolours the window around the moved item (or the whole image when reachability
+ * changed). EDT only.
+ */
+final class ClearanceOverlay {
+
+    private static final int NARROW = 0x90E04040;      // Free but too tight for the walkway
+    private static final int UNREACHABLE = 0x805060D0; // Wide enough, but cut off from the doors
+    private static final int REACHABLE = 0x70E8C840;   // On a walkway from a door
+    private static final int TURNING = 0x6040B050;     // Reachable, with room for a turning circle
+    private static final Color SUMMARY_BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Font SUMMARY_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+
+    private final ClearanceGrid grid;
+    private final FurnitureScene scene;
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final AffineTransform imageToWorld;
+    private final int[] region = new int[4];
+    private final double pixelsPerMeter;
+    private boolean hasDoors;
+
+    ClearanceOverlay(FurnitureScene scene, RoomShape roomWorld, double pixelsPerMeter, double cellMeters,
+                     double walkwayMeters, double turningMeters, double doorWidthMeters) {
+        this.scene = scene;
+        this.pixelsPerMeter = pixelsPerMeter;
+        this.grid = new ClearanceGrid(scene, roomWorld, cellMeters * pixelsPerMeter, walkwayMeters * pixelsPerMeter,
+                                      turningMeters * pixelsPerMeter, doorWidthMeters * pixelsPerMeter);
+        this.image = new BufferedImage(grid.getColumns(), grid.getRows(), BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.imageToWorld = new AffineTransform(grid.getCellSize(), 0, 0, grid.getCellSize(), grid.getOriginX(), grid.getOriginY());
+        recolor(0, 0, grid.getColumns() - 1, grid.getRows() - 1);
+    }
+
+    ClearanceGrid grid() { return grid; }
+
+    boolean isFor(FurnitureScene scene, RoomShape roomWorld) {
+        return this.scene == scene && grid.getRoom() == roomWorld;
+    }
+
+    void dispose() {
+        grid.dispose();
+    }
+
+    /** Sets the doors (world px x, y pairs). */
+    void setDoors(double[] doorsWorld) {
+        hasDoors = doorsWorld.length > 0;
+        grid.setDoors(doorsWorld);
+    }
+
+    /** Applies pending scene changes to the grid and the image, then draws it; g is in world coordinates. */
+    void paint(Graphics2D g) {
+        if (grid.update()) {
+            grid.changedRegion(region);
+            if (region[2] >= region[0]) recolor(region[0], region[1], region[2], region[3]);
+        }
+        Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, imageToWorld, null);
+        if (interpolation != null) g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+    }
+
+    /** Draws the legend and totals at (x, y) in screen coordinates, growing upwards. */
+    void paintSummary(Graphics2D g, int x, int y) {
+        int free = Math.max(1, grid.freeCellCount());
+        String[] lines = {
+                String.format(Locale.ROOT, "Walkway %.2f m: %d%% of free floor reachable%s", grid.getWalkwayWidth() / pixelsPerMeter,
+                              Math.round(100.0 * grid.reachableCellCount() / free), hasDoors ? "" : " (no doors set)"),
+                String.format(Locale.ROOT, "Too narrow: %d%%   Turning circle %.2f m: %s", Math.round(100.0 * grid.narrowCellCount() / free),
+                              grid.getTurningDiameter() / pixelsPerMeter, grid.turningCellCount() > 0 ? "fits" : "nowhere"),
+        };
+        g.setFont(SUMMARY_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int lineHeight = fm.getHeight(), width = 0;
+        for (String line : lines) width = Math.max(width, fm.stringWidth(line));
+        int height = lines.length * lineHeight + 8;
+        g.setColor(SUMMARY_BACKGROUND);
+        g.fillRect(x, y - height, width + 12, height);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], x + 6, y - height + 4 + fm.getAscent() + i * lineHeight);
+        }
+    }
+
+    private void recolor(int x0, int y0, int x1, int y1) {
+        int cols = grid.getColumns();
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0, i = y * cols + x0; x <= x1; x++, i++) {
+                int argb;
+                if (grid.isBlocked(x, y)) argb = 0;
+                else if (!grid.isPassable(x, y)) argb = NARROW;
+                else if (!grid.isReachable(x, y)) argb = UNREACHABLE;
+                else argb = grid.isTurningSpot(x, y) ? TURNING : REACHABLE;
+                pixels[i] = argb;
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.FurnitureScene;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Draws the visible furniture items with a handful of Graphics2D calls instead of
+ * a colour change, fill and draw per item.
+ * <p>
+ * Items are first split into layers: an item goes one layer above every earlier (lower in
+ * draw order) item whose bounds overlap it, so the items inside a layer never overlap and
+ * their relative order does not matter. Each layer is then painted as one merged fill path
+ * per colour followed by one outline path for the whole layer. A layout without overlaps
+ * is a single layer, i.e. one fill per colour plus one outline draw.
+ * Overlap is tested on the axis-aligned bounds, which can only add layers, never drop one.
+ * <p>
+ * All working storage is reused between frames. Not thread-safe; used from the EDT only.
+ */
+class ColorBatchRenderer {
+
+    private static final int MAX_GRID_SIZE = 128; // Cells per axis of the overlap grid
+
+    // --- Per-frame visible item data, indexed by visible position ---
+    private int count = 0;
+    private int[] slots = new int[256];
+    private double[] bounds = new double[256 * 4]; // minX, minY, maxX, maxY
+    private int[] layer = new int[256];
+    private int[] colorIndex = new int[256];
+    private int[] order = new int[256]; // Visible positions sorted by (layer, colour)
+    private int[] sortOffsets = new int[64];
+
+    // --- Distinct colours seen this frame ---
+    private int colorCount = 0;
+    private int[] colorArgb = new int[16];
+
+    // --- Uniform grid used to find earlier overlapping items (linked lists per cell) ---
+    private int[] cellHead = new int[0];
+    private int[] entryNext = new int[1024];
+    private int[] entryItem = new int[1024];
+    private int entryCount = 0;
+
+    private final Path2D.Double fillPath = new Path2D.Double(Path2D.WIND_NON_ZERO, 1024);
+    private final Path2D.Double outlinePath = new Path2D.Double(Path2D.WIND_NON_ZERO, 1024);
+    private final double[] corners = new double[8];
+
+    private int lastLayerCount = 0;
+
+    /** Starts a new frame. */
+    void begin() {
+        count = 0;
+        colorCount = 0;
+    }
+
+    /** Adds a visible slot with its world bounds (minX, minY, maxX, maxY), in draw order. */
+    void add(int slot, double[] slotBounds, int argb) {
+        if (count == slots.length) grow();
+        slots[count] = slot;
+        System.arraycopy(slotBounds, 0, bounds, count * 4, 4);
+        colorIndex[count] = indexOfColor(argb);
+        count++;
+    }
+
+    /** Number of layers used by the last {@link #paint} call (1 when nothing overlaps). */
+    int lastLayerCount() { return lastLayerCount; }
+
+    /**
+     * Paints the items added since {@link #begin()}.
+     * The graphics must already have the view transform and the outline stroke set.
+     */
+    void paint(Graphics2D g2d, FurnitureScene scene, ColorSource colors) {
+        if (count == 0) {
+            lastLayerCount = 0;
+            return;
+        }
+        int layerCount = assignLayers();
+        sortByLayerAndColor(layerCount);
+        lastLayerCount = layerCount;
+
+        int i = 0;
+        while (i < count) {
+            int currentLayer = layer[order[i]];
+            outlinePath.reset();
+            // One fill per colour run inside the layer
+            while (i < count && layer[order[i]] == currentLayer) {
+                int currentColor = colorIndex[order[i]];
+                fillPath.reset();
+                while (i < count && layer[order[i]] == currentLayer && colorIndex[order[i]] == currentColor) {
+                    scene.corners(slots[order[i]], corners);
+                    appendQuad(fillPath);
+                    appendQuad(outlinePath);
+                    i++;
+                }
+                g2d.setColor(colors.colorFor(colorArgb[currentColor]));
+                g2d.fill(fillPath);
+            }
+            g2d.setColor(Color.BLACK); // Outlines for the whole layer
+            g2d.draw(outlinePath);
+        }
+    }
+
+    /** Looks up cached Color instances for ARGB values. */
+    interface ColorSource {
+        Color colorFor(int argb);
+    }
+
+    // --- Internals ---
+
+    private void appendQuad(Path2D.Double path) {
+        double[] c = corners;
+        path.moveTo(c[0], c[1]);
+        path.lineTo(c[2], c[3]);
+        path.lineTo(c[4], c[5]);
+        path.lineTo(c[6], c[7]);
+        path.closePath();
+    }
+
+    private int indexOfColor(int argb) {
+        // Layouts use few distinct colours, so a linear scan beats hashing
+        for (int i = 0; i < colorCount; i++) {
+            if (colorArgb[i] == argb) return i;
+        }
+        if (colorCount == colorArgb.length) colorArgb = Arrays.copyOf(colorArgb, colorCount * 2);
+        colorArgb[colorCount] = argb;
+        return colorCount++;
+    }
+
+    /** Gives every item a layer one above the highest earlier item overlapping it. Returns the layer count. */
+    private int assignLayers() {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            minX = Math.min(minX, bounds[b]);
+            minY = Math.min(minY, bounds[b + 1]);
+            maxX = Math.max(maxX, bounds[b + 2]);
+            maxY = Math.max(maxY, bounds[b + 3]);
+        }
+        int gridSize = Math.max(1, Math.min(MAX_GRID_SIZE, (int) Math.sqrt(count)));
+        double cellW = Math.max((maxX - minX) / gridSize, 1e-9);
+        double cellH = Math.max((maxY - minY) / gridSize, 1e-9);
+        int cellCount = gridSize * gridSize;
+        if (cellHead.length < cellCount) cellHead = new int[cellCount];
+        Arrays.fill(cellHead, 0, cellCount, -1);
+        entryCount = 0;
+
+        int layerCount = 0;
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            int cx0 = cell(bounds[b], minX, cellW, gridSize);
+            int cy0 = cell(bounds[b + 1], minY, cellH, gridSize);
+            int cx1 = cell(bounds[b + 2], minX, cellW, gridSize);
+            int cy1 = cell(bounds[b + 3], minY, cellH, gridSize);
+            int itemLayer = 0;
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int cellIndex = cy * gridSize + cx;
+                    for (int e = cellHead[cellIndex]; e >= 0; e = entryNext[e]) {
+                        int other = entryItem[e];
+                        if (layer[other] >= itemLayer && overlaps(b, other * 4)) {
+                            itemLayer = layer[other] + 1;
+                        }
+                    }
+                }
+            }
+            layer[i] = itemLayer;
+            layerCount = Math.max(layerCount, itemLayer + 1);
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int cellIndex = cy * gridSize + cx;
+                    if (entryCount == entryItem.length) {
+                        entryItem = Arrays.copyOf(entryItem, entryCount * 2);
+                        entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                    }
+                    entryItem[entryCount] = i;
+                    entryNext[entryCount] = cellHead[cellIndex];
+                    cellHead[cellIndex] = entryCount++;
+                }
+            }
+        }
+        return layerCount;
+    }
+
+    private static int cell(double v, double min, double size, int gridSize) {
+        int c = (int) ((v - min) / size);
+        return c < 0 ? 0 : (c >= gridSize ? gridSize - 1 : c);
+    }
+
+    private boolean overlaps(int a, int b) {
+        return bounds[a] < bounds[b + 2] && bounds[b] < bounds[a + 2]
+            && bounds[a + 1] < bounds[b + 3] && bounds[b + 1] < bounds[a + 3];
+    }
+
+    /** Counting sort of the visible positions by layer, then colour; stable, so draw order is kept within a run. */
+    private void sortByLayerAndColor(int layerCount) {
+        int keyCount = layerCount * colorCount;
+        if (sortOffsets.length < keyCount + 1) sortOffsets = new int[Math.max(keyCount + 1, sortOffsets.length * 2)];
+        int[] offsets = sortOffsets;
+        Arrays.fill(offsets, 0, keyCount + 1, 0);
+        for (int i = 0; i < count; i++) offsets[layer[i] * colorCount + colorIndex[i] + 1]++;
+        for (int k = 0; k < keyCount; k++) offsets[k + 1] += offsets[k];
+        for (int i = 0; i < count; i++) order[offsets[layer[i] * colorCount + colorIndex[i]]++] = i;
+    }
+
+    private void grow() {
+        int newCapacity = slots.length * 2;
+        slots = Arrays.copyOf(slots, newCapacity);
+        bounds = Arrays.copyOf(bounds, newCapacity * 4);
+        layer = Arrays.copyOf(layer, newCapacity);
+        colorIndex = Arrays.copyOf(colorIndex, newCapacity);
+        order = Arrays.copyOf(order, newCapacity);
+    }
+}
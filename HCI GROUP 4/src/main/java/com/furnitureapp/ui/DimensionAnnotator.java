@@ -0,0 +1,213 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+/**
+ * Dimension lines for the selected item in {@link DrawingCanvas}: the gap to the nearest wall on
+ * each side (left, right, above, below) and to the nearest other items.
+ * <p>
+ * Gaps are exact distances between the rotated footprint rectangles (and wall segments), with the
+ * closest points as the line ends. Nearby items come from the scene's spatial grid, searched in
+ * boxes that double in size until enough items lie within the box margin, so the cost depends on
+ * the local density rather than the scene size. Walls are scanned linearly, rooms have few edges.
+ * Items that overlap the measured one, or that the filter excludes (the rest of the selection),
+ * are skipped.
+ * <p>
+ * After {@link #measure} the lines are available from the getters. Not thread-safe; EDT only.
+ */
+final class DimensionAnnotator {
+
+    static final int MAX_ITEM_LINES = 2;
+    private static final int SIDES = 4;                // Left, right, above, below
+    static final int MAX_LINES = SIDES + MAX_ITEM_LINES; // Wall lines first, then item lines
+    private static final double INITIAL_REACH = 64.0;  // World px; the scene grid's cell size
+    private static final double MAX_REACH = 1 << 16;   // World px searched at most (~1.3 km at 50 px/m)
+
+    // --- Results: x0, y0, x1, y1 (x0, y0 on the measured item) and length per line ---
+    private final double[] wallLines = new double[SIDES * 5];
+    private final boolean[] hasWall = new boolean[SIDES];
+    private final double[] itemLines = new double[MAX_ITEM_LINES * 5];
+    private int itemCount;
+    private final int[] itemSlots = new int[MAX_ITEM_LINES];
+
+    // --- Search state ---
+    private final double[] quad = new double[8];
+    private final double[] other = new double[8];
+    private final double[] boundsScratch = new double[4];
+    private final double[] edgeScratch = new double[4];
+    private final double[] closest = new double[5]; // Scratch closest pair: x0, y0, x1, y1, distance
+    private double minX, minY, maxX, maxY;          // Measured item's bounds
+    private int measuredSlot;
+    private FurnitureScene scene;
+    private SnapEngine.MovingFilter excluded;
+    private final FurnitureScene.SlotVisitor candidateVisitor = this::testCandidate;
+
+    int itemLineCount() { return itemCount; }
+    int itemSlot(int index) { return itemSlots[index]; }
+    boolean hasWallLine(int side) { return hasWall[side]; }
+    int sideCount() { return SIDES; }
+
+    /** Copies wall line {@code side} (x0, y0, x1, y1, length) into out. */
+    void wallLine(int side, double[] out) { System.arraycopy(wallLines, side * 5, out, 0, 5); }
+
+    /** Copies item line {@code index} (x0, y0, x1, y1, length) into out. */
+    void itemLine(int index, double[] out) { System.arraycopy(itemLines, index * 5, out, 0, 5); }
+
+    /**
+     * Measures the gaps around the item in {@code slot}.
+     * @param room     outline in world px, or null for no walls
+     * @param excluded slots not measured against (may be null)
+     */
+    void measure(FurnitureScene scene, RoomShape room, int slot, SnapEngine.MovingFilter excluded) {
+        this.scene = scene;
+        this.excluded = excluded;
+        this.measuredSlot = slot;
+        scene.corners(slot, quad);
+        scene.bounds(slot, boundsScratch);
+        minX = boundsScratch[0];
+        minY = boundsScratch[1];
+        maxX = boundsScratch[2];
+        maxY = boundsScratch[3];
+        measureWalls(room);
+
+        itemCount = 0;
+        for (double reach = INITIAL_REACH; ; reach *= 2) {
+            scene.forEachInBounds(minX - reach, minY - reach, maxX + reach, maxY + reach, candidateVisitor);
+            // Items outside the box are more than reach away; a full list within reach is final
+            if (itemCount == MAX_ITEM_LINES && itemLines[(MAX_ITEM_LINES - 1) * 5 + 4] <= reach) break;
+            if (reach >= MAX_REACH || scene.size() <= 1 + itemCount) break;
+        }
+        this.scene = null;
+        this.excluded = null;
+    }
+
+    private void measureWalls(RoomShape room) {
+        for (int side = 0; side < SIDES; side++) {
+            hasWall[side] = false;
+            wallLines[side * 5 + 4] = Double.MAX_VALUE;
+        }
+        if (room == null) return;
+        for (int e = 0; e < room.edgeCount(); e++) {
+            room.edge(e, edgeScratch);
+            closestToSegment(quad, edgeScratch[0], edgeScratch[1], edgeScratch[2], edgeScratch[3], closest);
+            double dx = closest[2] - closest[0], dy = closest[3] - closest[1];
+            if (closest[4] <= 1e-9) continue; // Touching or crossing this wall: no gap to show
+            int side = Math.abs(dx) >= Math.abs(dy) ? (dx < 0 ? 0 : 1) : (dy < 0 ? 2 : 3);
+            if (closest[4] < wallLines[side * 5 + 4]) {
+                System.arraycopy(closest, 0, wallLines, side * 5, 5);
+                hasWall[side] = true;
+            }
+        }
+    }
+
+    private void testCandidate(int slot) {
+        if (slot == measuredSlot || (excluded != null && excluded.isMoving(slot))) return;
+        for (int i = 0; i < itemCount; i++) if (itemSlots[i] == slot) return; // Found by a smaller box
+        scene.bounds(slot, boundsScratch);
+        // Bounds gap is a lower bound of the footprint gap: skip items that cannot make the list
+        double gx = Math.max(0, Math.max(boundsScratch[0] - maxX, minX - boundsScratch[2]));
+        double gy = Math.max(0, Math.max(boundsScratch[1] - maxY, minY - boundsScratch[3]));
+        if (itemCount == MAX_ITEM_LINES && Math.hypot(gx, gy) >= itemLines[(MAX_ITEM_LINES - 1) * 5 + 4]) return;
+        scene.corners(slot, other);
+        if (!closestBetweenQuads(quad, other, closest)) return; // Overlapping: shown by the collision highlight
+        int position = itemCount;
+        while (position > 0 && itemLines[(position - 1) * 5 + 4] > closest[4]) position--;
+        if (position >= MAX_ITEM_LINES) return;
+        int last = Math.min(itemCount, MAX_ITEM_LINES - 1);
+        for (int i = last; i > position; i--) {
+            System.arraycopy(itemLines, (i - 1) * 5, itemLines, i * 5, 5);
+            itemSlots[i] = itemSlots[i - 1];
+        }
+        System.arraycopy(closest, 0, itemLines, position * 5, 5);
+        itemSlots[position] = slot;
+        if (itemCount < MAX_ITEM_LINES) itemCount++;
+    }
+
+    // --- Exact distances ---
+
+    /**
+     * Closest points between two convex quads. Returns false if they overlap; otherwise the
+     * minimum over each quad's corners against the other's edges, which is exact for disjoint
+     * convex polygons.
+     */
+    static boolean closestBetweenQuads(double[] a, double[] b, double[] out) {
+        if (overlaps(a, b)) return false;
+        out[4] = Double.MAX_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            int j = (i + 2) & 7;
+            closestCornerToSegment(a, b[i], b[i + 1], b[j], b[j + 1], false, out);
+            closestCornerToSegment(b, a[i], a[i + 1], a[j], a[j + 1], true, out);
+        }
+        return true;
+    }
+
+    /** Closest points between a quad and a segment (zero if they touch or cross). */
+    static void closestToSegment(double[] q, double x0, double y0, double x1, double y1, double[] out) {
+        out[4] = Double.MAX_VALUE;
+        closestCornerToSegment(q, x0, y0, x1, y1, false, out);
+        for (int i = 0; i < 8; i += 2) {
+            int j = (i + 2) & 7;
+            // Segment end points against the quad edge, reported quad point first
+            pointToSegment(x0, y0, q[i], q[i + 1], q[j], q[j + 1], false, out);
+            pointToSegment(x1, y1, q[i], q[i + 1], q[j], q[j + 1], false, out);
+            if (segmentsCross(x0, y0, x1, y1, q[i], q[i + 1], q[j], q[j + 1])) out[4] = 0;
+        }
+    }
+
+    /** Each corner of {@code corners} against the segment; {@code cornerSecond} swaps the pair ends. */
+    private static void closestCornerToSegment(double[] corners, double x0, double y0, double x1, double y1,
+                                               boolean cornerSecond, double[] out) {
+        for (int k = 0; k < 8; k += 2) pointToSegment(corners[k], corners[k + 1], x0, y0, x1, y1, !cornerSecond, out);
+    }
+
+    /**
+     * Updates out if point p is closer to segment (x0, y0)-(x1, y1) than the current best.
+     * @param pointFirst true to store p as the first end of the pair, false as the second
+     */
+    private static void pointToSegment(double px, double py, double x0, double y0, double x1, double y1,
+                                       boolean pointFirst, double[] out) {
+        double dx = x1 - x0, dy = y1 - y0, length2 = dx * dx + dy * dy;
+        double t = length2 > 0 ? Math.max(0, Math.min(1, ((px - x0) * dx + (py - y0) * dy) / length2)) : 0;
+        double sx = x0 + t * dx, sy = y0 + t * dy;
+        double distance = Math.hypot(px - sx, py - sy);
+        if (distance >= out[4]) return;
+        out[4] = distance;
+        if (pointFirst) {
+            out[0] = px; out[1] = py; out[2] = sx; out[3] = sy;
+        } else {
+            out[0] = sx; out[1] = sy; out[2] = px; out[3] = py;
+        }
+    }
+
+    private static boolean segmentsCross(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+        double d1 = cross(cx, cy, dx, dy, ax, ay), d2 = cross(cx, cy, dx, dy, bx, by);
+        double d3 = cross(ax, ay, bx, by, cx, cy), d4 = cross(ax, ay, bx, by, dx, dy);
+        return (d1 > 0) != (d2 > 0) && (d3 > 0) != (d4 > 0);
+    }
+
+    private static double cross(double ox, double oy, double ax, double ay, double px, double py) {
+        return (ax - ox) * (py - oy) - (ay - oy) * (px - ox);
+    }
+
+    /** Separating-axis test on the quads' edge normals; touching counts as not overlapping. */
+    private static boolean overlaps(double[] a, double[] b) {
+        return !separatedByEdgesOf(a, a, b) && !separatedByEdgesOf(b, a, b);
+    }
+
+    private static boolean separatedByEdgesOf(double[] source, double[] a, double[] b) {
+        for (int i = 0; i < 4; i += 2) { // Two edges per rectangle give both normals
+            double nx = source[i + 3] - source[i + 1], ny = source[i] - source[i + 2];
+            double aMin = Double.MAX_VALUE, aMax = -Double.MAX_VALUE, bMin = Double.MAX_VALUE, bMax = -Double.MAX_VALUE;
+            for (int k = 0; k < 8; k += 2) {
+                double pa = a[k] * nx + a[k + 1] * ny, pb = b[k] * nx + b[k + 1] * ny;
+                aMin = Math.min(aMin, pa);
+                aMax = Math.max(aMax, pa);
+                bMin = Math.min(bMin, pb);
+                bMax = Math.max(bMax, pb);
+            }
+            if (aMax <= bMin || bMax <= aMin) return true;
+        }
+        return false;
+    }
+}
@@ -1,17 +1,28 @@
 package com.furnitureapp.ui;
 
+import com.furnitureapp.model.ClearanceGrid;
+import com.furnitureapp.model.CollisionEngine;
 import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.geom.Ellipse2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,11 +41,29 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     private static final int ROTATION_HANDLE_OFFSET = 20; // Pixels away from corner
     private static final int ROTATION_HANDLE_INDEX = 4; // Use index 4 for rotation handle
     private static final Color ROOM_BORDER_COLOR = Color.DARK_GRAY;
-    private static final Color ROOM_FILL_COLOR = new Color(240, 240, 240); // Light gray fill
+    static final Color ROOM_FILL_COLOR = new Color(240, 240, 240); // Light gray fill (also used by TileRenderer)
+    static final Color COLLISION_FILL_COLOR = new Color(220, 0, 0, 90); // Translucent red over overlapping items
+    static final Color COLLISION_BORDER_COLOR = new Color(200, 0, 0);
+    private static final Color SNAP_GUIDE_COLOR = new Color(230, 0, 160); // Magenta alignment guides
+    private static final Color SNAP_GRID_COLOR = new Color(0, 0, 0, 28);   // Faint grid shown while dragging
+    private static final double MIN_GRID_SCREEN_SPACING = 6.0; // Grid lines closer than this (px) are not drawn
+    private static final Color MARQUEE_FILL_COLOR = new Color(0, 120, 215, 40); // Translucent rubber band
+    private static final Color MARQUEE_BORDER_COLOR = new Color(0, 120, 215);
+    private static final double MIN_GROUP_SCALE_FACTOR = 0.05; // Group scaling cannot collapse the selection
     private static final double DEFAULT_PIXELS_PER_METER = 50.0; // Added default scale
-
-    private List<FurnitureItem> furnitureItems = new ArrayList<>();
-    private FurnitureItem selectedItem = null;
+    private static final Color OUTSIDE_ROOM_COLOR = new Color(255, 140, 0); // Selection outline when it leaves the room
+    private static final Color ROOM_VERTEX_COLOR = new Color(0, 150, 80);   // Vertex handles while editing the room
+    private static final Color DOOR_COLOR = new Color(150, 90, 40);          // Door openings in the wall
+    private static final Color DIMENSION_COLOR = new Color(0, 90, 170);      // Gap lines around the selected item
+    private static final Color DIMENSION_LABEL_BACKGROUND = new Color(255, 255, 255, 210);
+    private static final Font DIMENSION_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+    private static final double DIMENSION_TICK = 4.0; // Screen px, half length of the end ticks
+
+    private FurnitureScene scene = new FurnitureScene(); // Shared with the owning panel, not copied
+    private CollisionEngine collisionEngine = new CollisionEngine(scene); // Tracks overlapping footprints in the scene
+    private boolean collisionHighlighting = true;
+    private FurnitureItem selectedItem = null; // Primary selection (handles, info panel); always in selectedIds
+    private final Set<Long> selectedIds = new LinkedHashSet<>(); // All selected item IDs, in selection order
     private ItemUpdateListener listener;
 
     // --- View Transformation & Interaction State ---
@@ -46,16 +75,91 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     private double lastDragAngle;        // Store angle state at last drag event for rotation
     private AffineTransform originalViewTransformState; // Added for panning state
 
-    private enum InteractionMode { NONE, MOVING, RESIZING, ROTATING, PANNING }
+    /** How furniture items are issued to Graphics2D. */
+    public enum ItemRenderMode {
+        PER_ITEM("Per Item"),           // Colour, fill and outline per item
+        COLOR_BATCHED("Colour Batched"), // Merged paths per colour and overlap layer (see ColorBatchRenderer)
+        TILED("Tiled (Background)");    // Cached tiles rasterized off the EDT, selection drawn live (see TileRenderer)
+
+        private final String label;
+
+        ItemRenderMode(String label) { this.label = label; }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    private enum InteractionMode { NONE, MOVING, RESIZING, ROTATING, PANNING, MARQUEE, EDITING_ROOM }
     private InteractionMode currentMode = InteractionMode.NONE;
     private int activeHandle = -1; // Index of the active resize/rotate handle
     private FurnitureItem originalItemState; // Item state at the start of interaction
 
+    // --- Group interaction state (more than one item selected) ---
+    private List<FurnitureItem> groupOriginalStates; // Selected items at the start of a group transform
+    private Point2D groupCentroid;                   // Selection centroid at the start of a group transform
+    private double groupStartAngle;                  // Press angle around the centroid (group rotation)
+    private double groupStartDistance;               // Press distance from the centroid (group scaling)
+    private final Rectangle2D.Double marqueeWorld = new Rectangle2D.Double(); // Rubber band (MARQUEE mode)
+    private Set<Long> marqueeBaseSelection;          // Selection kept while an additive (shift) marquee is dragged
+    private final Rectangle2D.Double groupStartBounds = new Rectangle2D.Double(); // Selection bounds at the press
+
+    // --- Snapping ---
+    private final SnapEngine snapEngine = new SnapEngine();
+    // Selected items move: their slots carry the current stamp, marked at the press (and per paint when idle)
+    private int[] movingStamp = new int[0];
+    private int movingPass;
+    private final SnapEngine.MovingFilter movingFilter = slot -> slot < movingStamp.length && movingStamp[slot] == movingPass;
+    private final Line2D.Double lineScratch = new Line2D.Double();
+
+    // --- Dimension lines ---
+    private final DimensionAnnotator dimensionAnnotator = new DimensionAnnotator();
+    private boolean dimensionsVisible = true;
+    private final double[] dimensionLine = new double[5]; // x0, y0, x1, y1, length (world px)
+    // Labels per line, re-formatted only when the rounded length changes
+    private final long[] dimensionLabelCm = new long[DimensionAnnotator.MAX_LINES];
+    private final String[] dimensionLabels = new String[DimensionAnnotator.MAX_LINES];
+    private final int[] dimensionLabelWidths = new int[DimensionAnnotator.MAX_LINES];
+    private int dimensionLabelHeight, dimensionLabelAscent; // DIMENSION_FONT never changes
+
     // --- Room State ---
-    private double roomWidthMeters = 5.0; // Default width
+    private double roomWidthMeters = 5.0; // Default width (extent of the outline from the origin)
     private double roomDepthMeters = 4.0; // Default depth
     private double pixelsPerMeter = DEFAULT_PIXELS_PER_METER;
     private Rectangle2D roomBoundsWorld = new Rectangle2D.Double(); // Room bounds in world coords (pixels)
+    private RoomShape roomShape = RoomShape.rectangle(roomWidthMeters, roomDepthMeters); // Outline in meters
+    private RoomShape roomShapeWorld;   // Outline in world px, for containment and snapping
+    private Path2D.Double roomPathWorld; // Outline in world px, for drawing
+    private boolean roomEditing = false;    // Vertex handles shown, room outline editable
+    private boolean constrainToRoom = false; // Drags that would leave the room are refused
+    private boolean selectionOutsideRoom = false; // Last drag step put a selected footprint outside
+    private int editRing = -1, editVertex = -1; // Vertex being dragged (EDITING_ROOM)
+    private RoomShape editStartShape;           // Outline when the vertex drag started
+    private final List<Point2D.Double> doorsMeters = new ArrayList<>(); // Door centres on the outline
+    private boolean doorEditing = false;        // Clicks on the outline add or remove doors
+
+    // --- Clearance analysis (null while off) ---
+    private ClearanceOverlay clearanceOverlay;
+    private double clearanceCellMeters = 0.05;
+    private double walkwayMeters = 0.9;       // Accessible walkway width
+    private double turningMeters = 1.5;       // Wheelchair turning circle diameter
+    private double doorWidthMeters = 0.9;
+
+    // --- Paint scratch state (reused every frame to avoid per-item allocation) ---
+    private final Path2D.Double itemPath = new Path2D.Double();
+    private final double[] cornerScratch = new double[8];
+    private final double[] quadScratch = new double[8]; // For RoomShape.containsQuad
+    private final double[] boundsScratch = new double[4];
+    private final double[] edgeScratch = new double[4]; // Room edge x0, y0, x1, y1 (world px)
+    private final Rectangle clipScratch = new Rectangle();
+    private final Color[] colorCache = new Color[64]; // Direct-mapped ARGB -> Color cache
+    private final CanvasRenderContext renderContext = new CanvasRenderContext(HANDLE_SIZE, ROTATION_HANDLE_OFFSET);
+    private final ColorBatchRenderer batchRenderer = new ColorBatchRenderer();
+    private final ColorBatchRenderer.ColorSource colorSource = this::colorFor;
+    private ItemRenderMode itemRenderMode = ItemRenderMode.PER_ITEM;
+    private final Path2D.Double collisionPath = new Path2D.Double(); // Overlapping visible items, drawn on top
+    private TileRenderer tileRenderer; // Only while the mode is TILED
+    private CanvasMetrics metrics;      // Only while metrics are enabled; null costs nothing
+    private boolean hudVisible = false;
 
     public DrawingCanvas() {
         setBackground(Color.WHITE); // Background outside the room bounds
@@ -69,10 +173,37 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
      * Sets the room dimensions in meters and updates the world bounds.
      */
     public void setRoomDimensions(double widthMeters, double depthMeters) {
-        this.roomWidthMeters = Math.max(0.1, widthMeters);
-        this.roomDepthMeters = Math.max(0.1, depthMeters);
+        double width = Math.max(0.1, widthMeters), depth = Math.max(0.1, depthMeters);
+        if (width == roomWidthMeters && depth == roomDepthMeters) return;
+        if (roomShape.isRectangle() && roomShape.getMinX() == 0 && roomShape.getMinY() == 0) {
+            setRoomShape(RoomShape.rectangle(width, depth));
+        } else { // A polygonal room is stretched to the new extent
+            setRoomShape(roomShape.scaled(width / roomShape.getMaxX(), depth / roomShape.getMaxY()));
+        }
+    }
+
+    /**
+     * Replaces the room outline (meters, vertices at x, y &gt;= 0). The room width and depth
+     * become the outline's extent from the origin. Fires a "roomShape" property change.
+     */
+    public void setRoomShape(RoomShape shape) {
+        RoomShape old = roomShape;
+        applyRoomShape(shape);
+        firePropertyChange("roomShape", old, shape);
+    }
+
+    public RoomShape getRoomShape() { return roomShape; }
+
+    /** The room outline in world pixels. */
+    public RoomShape getRoomShapeWorld() { return roomShapeWorld; }
+
+    /** Sets the outline without notifying property listeners (used while a vertex is dragged). */
+    private void applyRoomShape(RoomShape shape) {
+        roomShape = shape;
+        roomWidthMeters = Math.max(0.1, shape.getMaxX());
+        roomDepthMeters = Math.max(0.1, shape.getMaxY());
         updateRoomBoundsWorld();
-        // TODO: Consider resetting view or adjusting pan/zoom when room changes?
+        fireViewChanged();
         repaint();
     }
 
@@ -82,9 +213,104 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
          double roomDepthPixels = roomDepthMeters * pixelsPerMeter;
          // Position room origin at (0,0) in world space for simplicity
          roomBoundsWorld.setRect(0, 0, roomWidthPixels, roomDepthPixels);
+         roomShapeWorld = roomShape.scaled(pixelsPerMeter, pixelsPerMeter);
+         roomPathWorld = roomShapeWorld.toPath();
          LOGGER.finer("Room bounds (world px) updated: " + roomBoundsWorld);
      }
 
+    public boolean isRoomEditing() { return roomEditing; }
+
+    /**
+     * Shows vertex handles on the room outline. Drag a handle to move a vertex, double-click an
+     * edge to insert one, double-click a handle to remove it. Elsewhere items work as usual.
+     */
+    public void setRoomEditing(boolean editing) {
+        this.roomEditing = editing;
+        repaint();
+    }
+
+    public boolean isDoorEditing() { return doorEditing; }
+
+    /** While on, a click near the room outline adds a door there and a click on a door removes it. */
+    public void setDoorEditing(boolean editing) {
+        this.doorEditing = editing;
+        repaint();
+    }
+
+    /** Door centres in meters. */
+    public List<Point2D.Double> getDoors() {
+        List<Point2D.Double> copy = new ArrayList<>(doorsMeters.size());
+        for (Point2D.Double door : doorsMeters) copy.add(new Point2D.Double(door.x, door.y));
+        return copy;
+    }
+
+    /** Replaces the doors (centres in meters, on the room outline). Fires a "doors" property change. */
+    public void setDoors(List<? extends Point2D> doors) {
+        List<Point2D.Double> old = getDoors();
+        doorsMeters.clear();
+        for (Point2D door : doors) doorsMeters.add(new Point2D.Double(door.getX(), door.getY()));
+        if (clearanceOverlay != null) clearanceOverlay.setDoors(doorsWorld());
+        firePropertyChange("doors", old, getDoors());
+        repaint();
+    }
+
+    public boolean isClearanceAnalysis() { return clearanceOverlay != null; }
+
+    /** The occupancy grid behind the clearance overlay, or null while the analysis is off. */
+    public ClearanceGrid getClearanceGrid() { return clearanceOverlay != null ? clearanceOverlay.grid() : null; }
+
+    /**
+     * Shows or hides the clearance heat map: red where free floor is narrower than the walkway,
+     * blue where it is wide enough but cannot be reached from a door, yellow on walkways and
+     * green where a turning circle fits. The grid follows scene changes incrementally.
+     */
+    public void setClearanceAnalysis(boolean enabled) {
+        if (enabled == (clearanceOverlay != null)) return;
+        if (enabled) {
+            rebuildClearance();
+        } else {
+            clearanceOverlay.dispose();
+            clearanceOverlay = null;
+        }
+        repaint();
+    }
+
+    /** Sets the grid resolution and the accessibility rules (all in meters); rebuilds the grid if shown. */
+    public void setClearanceSettings(double cellMeters, double walkwayMeters, double turningMeters, double doorWidthMeters) {
+        this.clearanceCellMeters = cellMeters;
+        this.walkwayMeters = walkwayMeters;
+        this.turningMeters = turningMeters;
+        this.doorWidthMeters = doorWidthMeters;
+        if (clearanceOverlay != null) rebuildClearance();
+        repaint();
+    }
+
+    private void rebuildClearance() {
+        if (clearanceOverlay != null) clearanceOverlay.dispose();
+        long start = System.nanoTime();
+        clearanceOverlay = new ClearanceOverlay(scene, roomShapeWorld, pixelsPerMeter, clearanceCellMeters,
+                                                walkwayMeters, turningMeters, doorWidthMeters);
+        clearanceOverlay.setDoors(doorsWorld());
+        LOGGER.fine(() -> String.format("[Canvas] Clearance grid %dx%d built in %.1f ms", clearanceOverlay.grid().getColumns(),
+                                        clearanceOverlay.grid().getRows(), (System.nanoTime() - start) / 1e6));
+    }
+
+    private double[] doorsWorld() {
+        double[] world = new double[doorsMeters.size() * 2];
+        for (int i = 0; i < doorsMeters.size(); i++) {
+            world[2 * i] = doorsMeters.get(i).x * pixelsPerMeter;
+            world[2 * i + 1] = doorsMeters.get(i).y * pixelsPerMeter;
+        }
+        return world;
+    }
+
+    public boolean isConstrainToRoom() { return constrainToRoom; }
+
+    /** When on, moves, resizes and rotations that would put a footprint outside the room are refused. */
+    public void setConstrainToRoom(boolean constrain) {
+        this.constrainToRoom = constrain;
+    }
+
     /**
      * Sets the pixels-per-meter scale used for drawing the room and potentially items.
      * @param ppm Pixels per meter
@@ -93,6 +319,7 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         this.pixelsPerMeter = Math.max(1.0, ppm); // Ensure positive scale
         updateRoomBoundsWorld();
         // TODO: Rescale items or adjust view?
+        fireViewChanged();
         repaint();
     }
 
@@ -101,38 +328,162 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     public double getRoomDepthMeters() { return roomDepthMeters; }
     public double getPixelsPerMeter() { return pixelsPerMeter; }
     public AffineTransform getViewTransform() { return viewTransform; }
+    public ItemRenderMode getItemRenderMode() { return itemRenderMode; }
+    /** Tiles rasterized in the background so far; 0 unless the render mode is TILED. */
+    public int getTilesRendered() { return tileRenderer != null ? tileRenderer.tilesRendered() : 0; }
+    /** Visible tiles still waiting for an up-to-date image in the last frame; 0 unless TILED. */
+    public int getTilesMissing() { return tileRenderer != null ? tileRenderer.tilesMissingLastFrame() : 0; }
+    public CollisionEngine getCollisionEngine() { return collisionEngine; }
+    /** Frame metrics, or null while they are disabled. */
+    public CanvasMetrics getMetrics() { return metrics; }
+    public boolean isMetricsEnabled() { return metrics != null; }
+    public boolean isHudVisible() { return hudVisible; }
 
     /**
-     * Sets the list of furniture items to be displayed and interacted with.
-     * @param items The list of furniture items.
+     * Starts or stops recording frame metrics (paint time, items drawn/culled, hit tests,
+     * itemUpdated dispatch, allocation per paint). Disabling drops the recorded samples.
      */
-    public void setFurnitureItems(List<FurnitureItem> items) {
-        if (items == null) {
-             LOGGER.warning("[Canvas] setFurnitureItems called with null list. Clearing items.");
-             this.furnitureItems = new ArrayList<>();
-             this.selectedItem = null;
-        } else {
-            LOGGER.finer("[Canvas] setFurnitureItems called with list size: " + items.size()); // DEBUG
-            this.furnitureItems = new ArrayList<>(items); // Use a copy
-            // Ensure selectedItem reference is updated if the underlying list changes
-            if (selectedItem != null) {
-                FurnitureItem currentSelection = this.selectedItem;
-                this.selectedItem = items.stream()
-                                    .filter(item -> item.equals(currentSelection)) // Find item equal to the previous selection
-                                    .findFirst()
-                                    .orElse(null); // Deselect if not found in new list
-                if (this.selectedItem == null) {
-                     LOGGER.finer("[Canvas] Previous selected item not found in new list, deselected."); // DEBUG
-                } else {
-                    LOGGER.finer("[Canvas] Selected item reference updated."); // DEBUG
-                }
-            } else {
-                LOGGER.finer("[Canvas] No item was selected, skipping selection update."); // DEBUG
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled == (metrics != null)) return;
+        metrics = enabled ? new CanvasMetrics() : null;
+        if (!enabled) hudVisible = false;
+        LOGGER.fine("[Canvas] Metrics " + (enabled ? "enabled" : "disabled"));
+        repaint();
+    }
+
+    /** Shows or hides the metrics overlay in the top-left corner; showing it enables metrics. */
+    public void setHudVisible(boolean visible) {
+        if (visible) setMetricsEnabled(true);
+        hudVisible = visible && metrics != null;
+        repaint();
+    }
+    public boolean isDimensionsVisible() { return dimensionsVisible; }
+
+    /** Shows or hides the gap lines from the selected item to the nearest walls and items. */
+    public void setDimensionsVisible(boolean visible) {
+        if (visible == dimensionsVisible) return;
+        dimensionsVisible = visible;
+        repaint();
+    }
+
+    public boolean isSnappingEnabled() { return snapEngine.isEnabled(); }
+    public double getSnapGridSizeMeters() { return snapEngine.getGridSizeMeters(); }
+
+    /**
+     * Turns snapping (grid, room edges, nearby items, rotation steps) on or off.
+     * While enabled, holding Alt during a drag suspends it.
+     */
+    public void setSnappingEnabled(boolean enabled) {
+        snapEngine.setEnabled(enabled);
+        LOGGER.fine("[Canvas] Snapping " + (enabled ? "enabled" : "disabled"));
+    }
+
+    /** Sets the snap grid spacing in meters (converted with the current pixels-per-meter). */
+    public void setSnapGridSizeMeters(double meters) {
+        snapEngine.setGridSizeMeters(meters);
+        repaint();
+    }
+    public boolean isCollisionHighlighting() { return collisionHighlighting; }
+
+    /** Shows or hides the red highlight on items whose footprints overlap another item. */
+    public void setCollisionHighlighting(boolean enabled) {
+        this.collisionHighlighting = enabled;
+        if (tileRenderer != null) tileRenderer.setCollisionHighlighting(enabled);
+        repaint();
+    }
+
+    /**
+     * Switches between per-item drawing and colour-batched drawing of the furniture items.
+     * Both produce the same picture; batching issues far fewer Graphics2D calls for large layouts.
+     */
+    public void setItemRenderMode(ItemRenderMode mode) {
+        if (mode == null || mode == itemRenderMode) return;
+        LOGGER.fine("[Canvas] Item render mode: " + mode);
+        this.itemRenderMode = mode;
+        if (mode == ItemRenderMode.TILED) {
+            tileRenderer = new TileRenderer(scene, collisionEngine, this, getBackground());
+            tileRenderer.setCollisionHighlighting(collisionHighlighting);
+        } else if (tileRenderer != null) {
+            tileRenderer.dispose(); // Frees the tile cache and worker threads
+            tileRenderer = null;
+        }
+        repaint();
+    }
+
+    /**
+     * Sets the scene whose furniture items are displayed and interacted with.
+     * The canvas keeps a reference to it; call {@link #sceneChanged()} after modifying it.
+     * @param scene The scene model.
+     */
+    public void setScene(FurnitureScene scene) {
+        if (scene == null) {
+             LOGGER.warning("[Canvas] setScene called with null scene. Using an empty scene.");
+             scene = new FurnitureScene();
+        }
+        if (scene != this.scene) {
+            collisionEngine.dispose();
+            collisionEngine = new CollisionEngine(scene);
+            if (tileRenderer != null) {
+                tileRenderer.dispose();
+                tileRenderer = new TileRenderer(scene, collisionEngine, this, getBackground());
+                tileRenderer.setCollisionHighlighting(collisionHighlighting);
+            }
+        }
+        this.scene = scene;
+        sceneChanged();
+    }
+
+    /**
+     * Re-syncs the selection with the scene after items were added, replaced or removed, and repaints.
+     */
+    public void sceneChanged() {
+        LOGGER.finer("[Canvas] sceneChanged, item count: " + scene.size()); // DEBUG
+        // Ensure selectedItem refers to the current version of the selected piece
+        selectedIds.removeIf(id -> !scene.contains(id)); // Drop removed items from the selection
+        if (selectedItem != null) {
+            this.selectedItem = scene.getById(selectedItem.getId()); // Null (deselect) if it was removed
+            if (this.selectedItem == null) {
+                 LOGGER.finer("[Canvas] Previous selected item not found in scene, deselected."); // DEBUG
+                 if (!selectedIds.isEmpty()) {
+                     this.selectedItem = scene.getById(selectedIds.iterator().next()); // Promote another selected item
+                 }
             }
         }
         repaint();
     }
 
+    /** Returns the selected items (current versions) in selection order; empty if nothing is selected. */
+    public List<FurnitureItem> getSelectedItems() {
+        if (selectedIds.isEmpty()) return Collections.emptyList();
+        List<FurnitureItem> result = new ArrayList<>(selectedIds.size());
+        for (long id : selectedIds) {
+            FurnitureItem item = scene.getById(id);
+            if (item != null) result.add(item);
+        }
+        return result;
+    }
+
+    public int getSelectionSize() { return selectedIds.size(); }
+
+    /**
+     * Registers a listener notified whenever the visible part of the world changes
+     * (pan, zoom, re-centering, room size). Not called for scene edits.
+     */
+    public void addViewChangeListener(ChangeListener l) {
+        listenerList.add(ChangeListener.class, l);
+    }
+
+    public void removeViewChangeListener(ChangeListener l) {
+        listenerList.remove(ChangeListener.class, l);
+    }
+
+    private void fireViewChanged() {
+        ChangeListener[] listeners = listenerList.getListeners(ChangeListener.class);
+        if (listeners.length == 0) return;
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener l : listeners) l.stateChanged(event);
+    }
+
     /**
      * Sets the listener that will be notified about item updates (selection, transform changes).
      * @param listener The listener object (typically the MainWorkspacePanel).
@@ -141,19 +492,44 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         this.listener = listener;
     }
 
-    /** Deselects the currently selected item and hides handles. */
+    /** Deselects all selected items and hides handles. */
     public void deselectItem() {
-        if (this.selectedItem != null) {
+        if (this.selectedItem != null || !selectedIds.isEmpty()) {
              this.selectedItem = null;
+             selectedIds.clear();
              if (listener != null) {
                  listener.itemDeselected(); 
+                 listener.selectionChanged(Collections.emptyList());
              }
              repaint();
         }
     }
 
+    /** Makes the item with this ID the only selected one, as a click on it would (used by the 3D view's picking). */
+    public void selectItemById(long id) {
+        FurnitureItem item = scene.getById(id);
+        if (item != null) selectItem(item);
+    }
+
+    /**
+     * Moves an item as a drag in the canvas would, including the room constraint, and tells the
+     * listener. For moves made elsewhere (dragging in the 3D view); no snapping is applied.
+     */
+    public void moveItemTo(long id, double tx, double ty) {
+        FurnitureItem item = scene.getById(id);
+        if (item == null || listener == null) return;
+        FurnitureItem movedItem = item.translateTo(tx, ty);
+        if (checkRoom(movedItem)) dispatchItemUpdated(movedItem);
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        CanvasMetrics metrics = this.metrics;
+        long paintStart = 0, allocationStart = 0;
+        if (metrics != null) {
+            paintStart = System.nanoTime();
+            allocationStart = metrics.allocatedBytes();
+        }
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g.create(); // Work on a copy
 
@@ -166,41 +542,166 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         // Apply our view transform (pan/zoom)
         g2d.transform(viewTransform);
 
+        clipScratch.setBounds(0, 0, getWidth(), getHeight()); // Kept as-is if the Graphics has no clip
+        Rectangle clip = g.getClipBounds(clipScratch);
+        boolean tiled = tileRenderer != null;
+
         // --- Draw Room Bounds (in World Coordinates) --- 
+        // Strokes are cached per zoom level in the render context
+        renderContext.updateScale(viewTransform.getScaleX());
         g2d.setColor(ROOM_FILL_COLOR);
-        g2d.fill(roomBoundsWorld);
+        g2d.fill(roomPathWorld);
+        if (tiled) {
+            // Floor and unselected items come from the tile cache (screen space); the room fill above
+            // only shows where a tile is not ready yet. The selection is left out and drawn live below.
+            tileRenderer.setRoom(roomShapeWorld);
+            tileRenderer.setExcluded(selectedIds);
+            g2d.setTransform(originalTx);
+            tileRenderer.paint(g2d, viewTransform, clip);
+            g2d.transform(viewTransform);
+        }
         g2d.setColor(ROOM_BORDER_COLOR);
-        g2d.setStroke(new BasicStroke(1.0f / (float)viewTransform.getScaleX())); // Scale stroke width
-        g2d.draw(roomBoundsWorld);
-        g2d.setStroke(new BasicStroke(1)); // Reset stroke
-
-        // --- Draw Furniture Items (within the transformed world) ---
-        for (FurnitureItem item : furnitureItems) {
-            Shape itemShape = item.footprint(); // Footprint is already in world coordinates
-            g2d.setColor(item.color());
-            g2d.fill(itemShape);
+        g2d.setStroke(renderContext.hairlineStroke()); // Scaled stroke width
+        g2d.draw(roomPathWorld);
+        if (snapEngine.isEnabled() && snapEngine.isSnapToGrid()
+                && (currentMode == InteractionMode.MOVING || currentMode == InteractionMode.RESIZING)) {
+            drawSnapGrid(g2d); // Only while dragging, so the normal view stays uncluttered
+        }
+
+        // --- Draw Furniture Items (iterating the scene arrays directly, culled to the visible area) ---
+        // Outline stroke is the same hairline, so it is set once for all items
+        double scale = viewTransform.getScaleX();
+        double visMinX = (clip.getMinX() - viewTransform.getTranslateX()) / scale;
+        double visMinY = (clip.getMinY() - viewTransform.getTranslateY()) / scale;
+        double visMaxX = (clip.getMaxX() - viewTransform.getTranslateX()) / scale;
+        double visMaxY = (clip.getMaxY() - viewTransform.getTranslateY()) / scale;
+        boolean batched = itemRenderMode == ItemRenderMode.COLOR_BATCHED;
+        boolean highlightCollisions = collisionHighlighting && collisionEngine.collidingSlotCount() > 0;
+        if (batched) batchRenderer.begin();
+        collisionPath.reset();
+        int drawn = 0, culled = 0;
+        if (tiled) {
+            for (long id : selectedIds) { // Drawn live, above the tiles
+                int slot = scene.slotOf(id);
+                if (slot < 0) continue;
+                drawn++;
+                buildItemPath(slot);
+                g2d.setColor(colorFor(scene.argbAt(slot)));
+                g2d.fill(itemPath);
+                g2d.setColor(Color.BLACK);
+                g2d.draw(itemPath);
+            }
+            if (highlightCollisions) { // The tiles carry the highlight of the other items
+                for (long id : selectedIds) {
+                    int slot = scene.slotOf(id);
+                    if (slot < 0 || !collisionEngine.isColliding(slot)) continue;
+                    scene.corners(slot, cornerScratch);
+                    appendQuad(collisionPath, cornerScratch);
+                }
+            }
+        }
+        int slotLimit = tiled ? 0 : scene.slotCount(); // Tiles already hold the unselected items
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (!scene.isLive(slot)) continue;
+            scene.bounds(slot, boundsScratch);
+            if (boundsScratch[2] < visMinX || boundsScratch[0] > visMaxX
+                    || boundsScratch[3] < visMinY || boundsScratch[1] > visMaxY) {
+                culled++;
+                continue; // Off-screen
+            }
+            drawn++;
+            if (highlightCollisions && collisionEngine.isColliding(slot)) {
+                scene.corners(slot, cornerScratch);
+                appendQuad(collisionPath, cornerScratch);
+            }
+            if (batched) {
+                batchRenderer.add(slot, boundsScratch, scene.argbAt(slot)); // Drawn below in a few calls
+                continue;
+            }
+            buildItemPath(slot);
+            g2d.setColor(colorFor(scene.argbAt(slot)));
+            g2d.fill(itemPath);
             g2d.setColor(Color.BLACK); // Outline
-            // Scale outline stroke width based on view zoom
-            g2d.setStroke(new BasicStroke(1.0f / (float)viewTransform.getScaleX())); 
-            g2d.draw(itemShape);
+            g2d.draw(itemPath);
+        }
+        if (batched) batchRenderer.paint(g2d, scene, colorSource);
+        if (highlightCollisions) {
+            // One overlay for all overlapping items, above every item so overlaps are never hidden
+            g2d.setColor(COLLISION_FILL_COLOR);
+            g2d.fill(collisionPath);
+            g2d.setColor(COLLISION_BORDER_COLOR);
+            g2d.draw(collisionPath);
+        }
+        g2d.setStroke(CanvasRenderContext.UNIT_STROKE); // Reset stroke
+
+        // --- Clearance Heat Map and Doors ---
+        if (clearanceOverlay != null) {
+            if (!clearanceOverlay.isFor(scene, roomShapeWorld)) rebuildClearance(); // Room, scale or scene replaced
+            clearanceOverlay.paint(g2d);
+        }
+        if (!doorsMeters.isEmpty() && (clearanceOverlay != null || doorEditing || roomEditing)) {
+            drawDoors(g2d);
         }
-         g2d.setStroke(new BasicStroke(1)); // Reset stroke
 
         // --- Draw Selection Highlight and Handles ---
-        if (selectedItem != null) {
-            Shape selectedShape = selectedItem.footprint();
-            // Scale selection stroke based on view zoom
-            float baseDash[] = {5.0f};
-            float scaledDash[] = {baseDash[0] / (float)viewTransform.getScaleX()};
-            Stroke scaledSelectionStroke = new BasicStroke(2.0f / (float)viewTransform.getScaleX(), 
-                                                         BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 
-                                                         10.0f, scaledDash, 0.0f);
+        if (selectedIds.size() > 1) {
             g2d.setColor(SELECTION_COLOR);
-            g2d.setStroke(scaledSelectionStroke);
-            g2d.draw(selectedShape); // Draw dashed outline
-            g2d.setStroke(new BasicStroke(1)); // Reset stroke
+            g2d.setStroke(renderContext.selectionStroke()); // Dashed, scaled to the zoom level
+            for (long id : selectedIds) {
+                int slot = scene.slotOf(id);
+                if (slot < 0) continue;
+                buildItemPath(slot);
+                g2d.draw(itemPath);
+            }
+            Rectangle2D groupBounds = loadSelectionBounds(renderContext.selectionBounds());
+            g2d.draw(groupBounds); // Group box, handles act on the whole selection
+            g2d.setStroke(CanvasRenderContext.UNIT_STROKE); // Reset stroke
+            drawSelectionHandles(g2d, groupBounds);
+        } else {
+            int selectedSlot = selectedItem != null ? scene.slotOf(selectedItem.getId()) : -1;
+            if (selectedSlot >= 0) {
+                buildItemPath(selectedSlot);
+                g2d.setColor(SELECTION_COLOR);
+                g2d.setStroke(renderContext.selectionStroke()); // Dashed, scaled to the zoom level
+                g2d.draw(itemPath); // Draw dashed outline
+                g2d.setStroke(CanvasRenderContext.UNIT_STROKE); // Reset stroke
+
+                drawSelectionHandles(g2d, loadSlotBounds(selectedSlot, renderContext.selectionBounds()));
+            }
+        }
+
+        // --- Flag a selection dragged outside the room ---
+        if (selectionOutsideRoom && currentMode != InteractionMode.NONE) {
+            g2d.setColor(OUTSIDE_ROOM_COLOR);
+            g2d.setStroke(renderContext.selectionStroke());
+            for (long id : selectedIds) {
+                int slot = scene.slotOf(id);
+                if (slot < 0) continue;
+                buildItemPath(slot);
+                g2d.draw(itemPath);
+            }
+            g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
+        }
+
+        // --- Draw Room Vertex Handles ---
+        if (roomEditing) {
+            drawRoomVertices(g2d);
+        }
+
+        // --- Draw Snap Guides ---
+        if (currentMode == InteractionMode.MOVING || currentMode == InteractionMode.RESIZING
+                || currentMode == InteractionMode.ROTATING) {
+            drawSnapGuides(g2d);
+        }
 
-            drawSelectionHandles(g2d, selectedShape.getBounds2D());
+        // --- Draw Rubber Band ---
+        if (currentMode == InteractionMode.MARQUEE) {
+            g2d.setColor(MARQUEE_FILL_COLOR);
+            g2d.fill(marqueeWorld);
+            g2d.setColor(MARQUEE_BORDER_COLOR);
+            g2d.setStroke(renderContext.hairlineStroke());
+            g2d.draw(marqueeWorld);
+            g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
         }
 
         // --- Restore Original Transform --- 
@@ -210,97 +711,324 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         // Example: Draw mouse world coordinates in a corner (screen fixed)
         // drawWorldCoordinates(g2d); 
 
+        // --- Dimension lines (screen space, so labels keep their size) ---
+        int measuredSlot = dimensionsVisible && selectedItem != null ? scene.slotOf(selectedItem.getId()) : -1;
+        if (measuredSlot >= 0 && currentMode != InteractionMode.MARQUEE) {
+            long measureStart = metrics != null ? System.nanoTime() : 0;
+            if (!isTransformingSelection()) markMovingSlots(); // The selection may have changed since the last press
+            dimensionAnnotator.measure(scene, roomShapeWorld, measuredSlot, movingFilter); // Rest of the selection is skipped
+            if (metrics != null) metrics.record(CanvasMetrics.Metric.DIMENSION_NANOS, System.nanoTime() - measureStart);
+            drawDimensions(g2d);
+        }
+
+        if (clearanceOverlay != null) clearanceOverlay.paintSummary(g2d, 8, getHeight() - 8);
+
+        if (metrics != null) {
+            metrics.record(CanvasMetrics.Metric.PAINT_NANOS, System.nanoTime() - paintStart);
+            if (allocationStart >= 0) {
+                metrics.record(CanvasMetrics.Metric.PAINT_ALLOCATED_BYTES, metrics.allocatedBytes() - allocationStart);
+            }
+            metrics.record(CanvasMetrics.Metric.ITEMS_DRAWN, drawn);
+            metrics.record(CanvasMetrics.Metric.ITEMS_CULLED, culled);
+            if (hudVisible) metrics.paintHud(g2d, 8, 8); // Not part of the measured paint
+        }
+
         g2d.dispose(); // Dispose the graphics copy
     }
 
+    /** Loads the footprint quad of a scene slot into the reusable itemPath. */
+    private void buildItemPath(int slot) {
+        scene.corners(slot, cornerScratch);
+        itemPath.reset();
+        appendQuad(itemPath, cornerScratch);
+    }
+
+    private static void appendQuad(Path2D.Double path, double[] c) {
+        path.moveTo(c[0], c[1]);
+        path.lineTo(c[2], c[3]);
+        path.lineTo(c[4], c[5]);
+        path.lineTo(c[6], c[7]);
+        path.closePath();
+    }
+
+    /** Copies a slot's world bounds into the given rectangle and returns it. */
+    private Rectangle2D loadSlotBounds(int slot, Rectangle2D.Double out) {
+        scene.bounds(slot, boundsScratch);
+        out.setFrameFromDiagonal(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);
+        return out;
+    }
+
+    /** Draws each door as a thick segment of the door width along the nearest room edge. */
+    private void drawDoors(Graphics2D g2d) {
+        double[] edge = edgeScratch;
+        double half = doorWidthMeters * pixelsPerMeter / 2;
+        g2d.setColor(DOOR_COLOR);
+        g2d.setStroke(renderContext.doorStroke()); // Scaled to the zoom level
+        for (int i = 0; i < doorsMeters.size(); i++) { // Indexed: no iterator per paint
+            Point2D.Double door = doorsMeters.get(i);
+            double x = door.x * pixelsPerMeter, y = door.y * pixelsPerMeter;
+            int nearest = nearestRoomEdge(x, y, edge);
+            if (nearest < 0) continue;
+            roomShapeWorld.edge(nearest, edge);
+            double dx = edge[2] - edge[0], dy = edge[3] - edge[1], length = Math.hypot(dx, dy);
+            dx *= half / length;
+            dy *= half / length;
+            lineScratch.setLine(x - dx, y - dy, x + dx, y + dy);
+            g2d.draw(lineScratch);
+        }
+        g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
+    }
+
+    /** Index of the room edge (world px) nearest to the point, or -1 for a degenerate room; edge is scratch. */
+    private int nearestRoomEdge(double x, double y, double[] edge) {
+        int nearest = -1;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < roomShapeWorld.edgeCount(); i++) {
+            roomShapeWorld.edge(i, edge);
+            double distance = Line2D.ptSegDistSq(edge[0], edge[1], edge[2], edge[3], x, y);
+            if (distance < best) {
+                best = distance;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Door editing press: removes the door under the mouse, or adds one at the nearest point of
+     * the outline if the press is close to it. Returns false if the press was neither.
+     */
+    private boolean pressDoor() {
+        double x = lastMousePressWorld.getX(), y = lastMousePressWorld.getY();
+        double half = doorWidthMeters * pixelsPerMeter / 2;
+        for (int i = 0; i < doorsMeters.size(); i++) {
+            Point2D.Double door = doorsMeters.get(i);
+            if (Point2D.distance(door.x * pixelsPerMeter, door.y * pixelsPerMeter, x, y) <= half) {
+                List<Point2D.Double> doors = getDoors();
+                doors.remove(i);
+                setDoors(doors);
+                return true;
+            }
+        }
+        double[] edge = new double[4];
+        int nearest = nearestRoomEdge(x, y, edge);
+        if (nearest < 0) return false;
+        roomShapeWorld.edge(nearest, edge);
+        if (Line2D.ptSegDist(edge[0], edge[1], edge[2], edge[3], x, y) > 2 * HANDLE_SIZE / viewTransform.getScaleX()) return false;
+        double dx = edge[2] - edge[0], dy = edge[3] - edge[1];
+        double t = Math.max(0, Math.min(1, ((x - edge[0]) * dx + (y - edge[1]) * dy) / (dx * dx + dy * dy)));
+        List<Point2D.Double> doors = getDoors();
+        doors.add(new Point2D.Double((edge[0] + t * dx) / pixelsPerMeter, (edge[1] + t * dy) / pixelsPerMeter));
+        setDoors(doors);
+        return true;
+    }
+
+    /** Draws a square handle on every vertex of the room outline (holes included). */
+    private void drawRoomVertices(Graphics2D g2d) {
+        double size = HANDLE_SIZE / viewTransform.getScaleX();
+        Rectangle2D.Double handle = renderContext.selectionBounds(); // Scratch, not in use at this point
+        for (int ring = 0; ring < roomShapeWorld.ringCount(); ring++) {
+            for (int i = 0; i < roomShapeWorld.vertexCount(ring); i++) {
+                handle.setRect(roomShapeWorld.vertexX(ring, i) - size / 2, roomShapeWorld.vertexY(ring, i) - size / 2, size, size);
+                g2d.setColor(ROOM_VERTEX_COLOR);
+                g2d.fill(handle);
+                g2d.setColor(Color.BLACK);
+                g2d.setStroke(renderContext.hairlineStroke());
+                g2d.draw(handle);
+            }
+        }
+        g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
+    }
+
+    /** Draws the snap grid lines that fall inside both the room and the clip. */
+    private void drawSnapGrid(Graphics2D g2d) {
+        double spacing = snapEngine.getGridSizeMeters() * pixelsPerMeter;
+        if (spacing * viewTransform.getScaleX() < MIN_GRID_SCREEN_SPACING) return; // Too dense to be useful
+        Rectangle clip = g2d.getClipBounds(); // In world coordinates (the view transform is applied)
+        double minX = roomBoundsWorld.getMinX(), maxX = roomBoundsWorld.getMaxX();
+        double minY = roomBoundsWorld.getMinY(), maxY = roomBoundsWorld.getMaxY();
+        if (clip != null) {
+            minX = Math.max(minX, clip.getMinX());
+            maxX = Math.min(maxX, clip.getMaxX());
+            minY = Math.max(minY, clip.getMinY());
+            maxY = Math.min(maxY, clip.getMaxY());
+        }
+        g2d.setColor(SNAP_GRID_COLOR);
+        for (double x = Math.ceil(minX / spacing) * spacing; x <= maxX; x += spacing) {
+            lineScratch.setLine(x, minY, x, maxY);
+            g2d.draw(lineScratch);
+        }
+        for (double y = Math.ceil(minY / spacing) * spacing; y <= maxY; y += spacing) {
+            lineScratch.setLine(minX, y, maxX, y);
+            g2d.draw(lineScratch);
+        }
+    }
+
+    /** Draws the alignment guides of the last snap. */
+    private void drawSnapGuides(Graphics2D g2d) {
+        if (!snapEngine.hasGuideX() && !snapEngine.hasGuideY() && !snapEngine.hasAngleGuide()) return;
+        g2d.setColor(SNAP_GUIDE_COLOR);
+        g2d.setStroke(renderContext.hairlineStroke());
+        if (snapEngine.hasGuideX()) {
+            lineScratch.setLine(snapEngine.guideX(), snapEngine.guideXMinY(), snapEngine.guideX(), snapEngine.guideXMaxY());
+            g2d.draw(lineScratch);
+        }
+        if (snapEngine.hasGuideY()) {
+            lineScratch.setLine(snapEngine.guideYMinX(), snapEngine.guideY(), snapEngine.guideYMaxX(), snapEngine.guideY());
+            g2d.draw(lineScratch);
+        }
+        if (snapEngine.hasAngleGuide()) {
+            double cx = snapEngine.angleGuideX(), cy = snapEngine.angleGuideY();
+            double length = snapEngine.angleGuideLength() * 1.5; // Reach a little past the item
+            double angle = snapEngine.angleGuideAngle();
+            lineScratch.setLine(cx, cy, cx + Math.cos(angle) * length, cy + Math.sin(angle) * length);
+            g2d.draw(lineScratch);
+        }
+        g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
+    }
+
+    /** Draws the last measured gap lines with their lengths in meters; g is in screen coordinates. */
+    private void drawDimensions(Graphics2D g2d) {
+        g2d.setFont(DIMENSION_FONT);
+        g2d.setStroke(CanvasRenderContext.UNIT_STROKE);
+        for (int side = 0; side < dimensionAnnotator.sideCount(); side++) {
+            if (!dimensionAnnotator.hasWallLine(side)) continue;
+            dimensionAnnotator.wallLine(side, dimensionLine);
+            drawDimensionLine(g2d, side);
+        }
+        for (int i = 0; i < dimensionAnnotator.itemLineCount(); i++) {
+            dimensionAnnotator.itemLine(i, dimensionLine);
+            drawDimensionLine(g2d, dimensionAnnotator.sideCount() + i);
+        }
+    }
+
+    /** Draws the line in {@link #dimensionLine}; index picks its label cache entry. */
+    private void drawDimensionLine(Graphics2D g2d, int index) {
+        viewTransform.transform(dimensionLine, 0, dimensionLine, 0, 2); // Ends to screen; the length stays in world px
+        double x0 = dimensionLine[0], y0 = dimensionLine[1], x1 = dimensionLine[2], y1 = dimensionLine[3];
+        double length = Math.hypot(x1 - x0, y1 - y0);
+        if (length < 2) return; // Too short to read at this zoom
+        double tx = -(y1 - y0) / length * DIMENSION_TICK, ty = (x1 - x0) / length * DIMENSION_TICK;
+        g2d.setColor(DIMENSION_COLOR);
+        lineScratch.setLine(x0, y0, x1, y1);
+        g2d.draw(lineScratch);
+        lineScratch.setLine(x0 - tx, y0 - ty, x0 + tx, y0 + ty);
+        g2d.draw(lineScratch);
+        lineScratch.setLine(x1 - tx, y1 - ty, x1 + tx, y1 + ty);
+        g2d.draw(lineScratch);
+
+        long cm = Math.round(dimensionLine[4] / pixelsPerMeter * 100); // Covers both length and scale changes
+        String label = dimensionLabels[index];
+        if (label == null || dimensionLabelCm[index] != cm) {
+            FontMetrics fm = g2d.getFontMetrics();
+            label = String.format(java.util.Locale.ROOT, "%.2f m", cm / 100.0);
+            dimensionLabels[index] = label;
+            dimensionLabelCm[index] = cm;
+            dimensionLabelWidths[index] = fm.stringWidth(label) + 6;
+            dimensionLabelHeight = fm.getHeight();
+            dimensionLabelAscent = fm.getAscent();
+        }
+        int width = dimensionLabelWidths[index], height = dimensionLabelHeight;
+        int lx = (int) Math.round((x0 + x1) / 2 - width / 2.0), ly = (int) Math.round((y0 + y1) / 2 - height / 2.0);
+        g2d.setColor(DIMENSION_LABEL_BACKGROUND);
+        g2d.fillRect(lx, ly, width, height);
+        g2d.setColor(DIMENSION_COLOR);
+        g2d.drawString(label, lx + 3, ly + dimensionLabelAscent);
+    }
+
+    /** Copies the union of the selected items' world bounds into the given rectangle and returns it. */
+    private Rectangle2D loadSelectionBounds(Rectangle2D.Double out) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (long id : selectedIds) {
+            int slot = scene.slotOf(id);
+            if (slot < 0) continue;
+            scene.bounds(slot, boundsScratch);
+            minX = Math.min(minX, boundsScratch[0]);
+            minY = Math.min(minY, boundsScratch[1]);
+            maxX = Math.max(maxX, boundsScratch[2]);
+            maxY = Math.max(maxY, boundsScratch[3]);
+        }
+        if (minX > maxX) {
+            out.setRect(0, 0, 0, 0); // Nothing selected is live
+        } else {
+            out.setFrameFromDiagonal(minX, minY, maxX, maxY);
+        }
+        return out;
+    }
+
+    /** Returns a Color for the ARGB value, reusing a cached instance when possible. */
+    private Color colorFor(int argb) {
+        int bucket = (argb ^ (argb >>> 7) ^ (argb >>> 17)) & (colorCache.length - 1);
+        Color color = colorCache[bucket];
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+            colorCache[bucket] = color;
+        }
+        return color;
+    }
+
     // --- Draw Handles ---
     private void drawSelectionHandles(Graphics2D g2d, Rectangle2D bounds) {
-        g2d.setColor(HANDLE_COLOR);
-        double x = bounds.getX();
-        double y = bounds.getY();
-        double w = bounds.getWidth();
-        double h = bounds.getHeight();
+        renderContext.layoutHandles(bounds); // Reuses the preallocated handle shapes
 
         // Corner Resize handles
-        Rectangle2D[] handles = getHandleRects(bounds);
+        Rectangle2D[] handles = renderContext.cornerHandles();
         for (int i=0; i<4; i++) { // Only draw corner handles (0-3)
+            g2d.setColor(HANDLE_COLOR);
             g2d.fill(handles[i]);
             g2d.setColor(Color.BLACK);
             g2d.draw(handles[i]);
-            g2d.setColor(HANDLE_COLOR); // Reset color for next fill
         }
 
         // Rotation Handle (above Top-Right corner)
-        Point2D rotationHandleCenter = getRotationHandleCenter(bounds);
-        if (rotationHandleCenter != null) {
-            double rhX = rotationHandleCenter.getX() - HANDLE_SIZE / 2.0;
-            double rhY = rotationHandleCenter.getY() - HANDLE_SIZE / 2.0;
-            Shape rotationHandleShape = new Ellipse2D.Double(rhX, rhY, HANDLE_SIZE, HANDLE_SIZE);
-            g2d.setColor(ROTATION_HANDLE_COLOR);
-            g2d.fill(rotationHandleShape);
-            g2d.setColor(Color.BLACK);
-            g2d.draw(rotationHandleShape);
-            // Optional: Draw line from corner/center to rotation handle
-            g2d.drawLine((int)bounds.getMaxX(), (int)bounds.getMinY(), // TR corner
-                         (int)rotationHandleCenter.getX(), (int)rotationHandleCenter.getY());
-        }
-    }
-
-    // --- Calculate Handle Rectangles (Corners only) ---
-    private Rectangle2D[] getHandleRects(Rectangle2D bounds) {
-        double x = bounds.getX();
-        double y = bounds.getY();
-        double w = bounds.getWidth();
-        double h = bounds.getHeight();
-        double halfHandle = HANDLE_SIZE / 2.0;
-        Rectangle2D[] handles = new Rectangle2D[4]; // TL, TR, BR, BL
-        handles[0] = new Rectangle2D.Double(x - halfHandle, y - halfHandle, HANDLE_SIZE, HANDLE_SIZE); // TL
-        handles[1] = new Rectangle2D.Double(x + w - halfHandle, y - halfHandle, HANDLE_SIZE, HANDLE_SIZE); // TR
-        handles[2] = new Rectangle2D.Double(x + w - halfHandle, y + h - halfHandle, HANDLE_SIZE, HANDLE_SIZE); // BR
-        handles[3] = new Rectangle2D.Double(x - halfHandle, y + h - halfHandle, HANDLE_SIZE, HANDLE_SIZE); // BL
-        return handles;
-    }
-
-    // --- Calculate Rotation Handle Center ---
-    private Point2D getRotationHandleCenter(Rectangle2D bounds) {
-        // Position above Top-Right corner
-        double handleX = bounds.getMaxX();
-        double handleY = bounds.getMinY() - ROTATION_HANDLE_OFFSET;
         // TODO: Consider rotating this handle position based on item rotation for better UX?
-        // For now, it stays directly above the TR corner relative to the bounds.
-        return new Point2D.Double(handleX, handleY);
+        Point2D rotationHandleCenter = renderContext.rotationHandleCenter();
+        g2d.setColor(ROTATION_HANDLE_COLOR);
+        g2d.fill(renderContext.rotationHandle());
+        g2d.setColor(Color.BLACK);
+        g2d.draw(renderContext.rotationHandle());
+        // Optional: Draw line from corner/center to rotation handle
+        g2d.drawLine((int)bounds.getMaxX(), (int)bounds.getMinY(), // TR corner
+                     (int)rotationHandleCenter.getX(), (int)rotationHandleCenter.getY());
     }
 
     // --- Hit Testing ---
     private FurnitureItem getItemAtPoint(Point2D worldPoint) {
-        // Iterate in reverse draw order (topmost first)
-        for (int i = furnitureItems.size() - 1; i >= 0; i--) {
-            FurnitureItem item = furnitureItems.get(i);
-            if (item.footprint().contains(worldPoint)) {
-                return item;
+        if (metrics == null) return findItemAtPoint(worldPoint);
+        long start = System.nanoTime();
+        FurnitureItem hit = findItemAtPoint(worldPoint);
+        metrics.record(CanvasMetrics.Metric.HIT_TEST_NANOS, System.nanoTime() - start);
+        return hit;
+    }
+
+    private FurnitureItem findItemAtPoint(Point2D worldPoint) {
+        // Iterate slots in reverse draw order (topmost first); only the hit item becomes a FurnitureItem
+        double x = worldPoint.getX();
+        double y = worldPoint.getY();
+        for (int slot = scene.slotCount() - 1; slot >= 0; slot--) {
+            if (scene.isLive(slot) && scene.containsPoint(slot, x, y)) {
+                return scene.itemAt(slot);
             }
         }
         return null;
     }
 
     private int getHandleAtPoint(Point2D worldPoint) {
-        if (selectedItem == null) return -1;
-        Rectangle2D bounds = selectedItem.footprint().getBounds2D();
+        if (selectedIds.size() > 1) {
+            renderContext.layoutHandles(loadSelectionBounds(renderContext.selectionBounds()));
+        } else {
+            int selectedSlot = selectedItem != null ? scene.slotOf(selectedItem.getId()) : -1;
+            if (selectedSlot < 0) return -1;
+            renderContext.layoutHandles(loadSlotBounds(selectedSlot, renderContext.selectionBounds()));
+        }
 
         // Check Rotation Handle First
-        Point2D rotationHandleCenter = getRotationHandleCenter(bounds);
-        if (rotationHandleCenter != null) {
-            Shape rotationHandleShape = new Ellipse2D.Double(
-                rotationHandleCenter.getX() - HANDLE_SIZE / 2.0,
-                rotationHandleCenter.getY() - HANDLE_SIZE / 2.0,
-                HANDLE_SIZE, HANDLE_SIZE);
-            if (rotationHandleShape.contains(worldPoint)) {
-                return ROTATION_HANDLE_INDEX; // Return 4 for rotation
-            }
+        if (renderContext.rotationHandle().contains(worldPoint)) {
+            return ROTATION_HANDLE_INDEX; // Return 4 for rotation
         }
 
         // Check Resize Handles (Corners)
-        Rectangle2D[] handles = getHandleRects(bounds);
+        Rectangle2D[] handles = renderContext.cornerHandles();
         for (int i = 0; i < handles.length; i++) {
             if (handles[i].contains(worldPoint)) {
                 return i;
@@ -331,8 +1059,14 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         }
 
         activeHandle = -1;
+        boolean toggleModifier = e.isShiftDown() || e.isControlDown() || e.isMetaDown();
+        FurnitureItem itemUnderMouse = null;
 
-        if (SwingUtilities.isRightMouseButton(e) || e.isControlDown()) {
+        // Ctrl over an item toggles it; Ctrl over empty space still pans
+        if (!SwingUtilities.isRightMouseButton(e) && toggleModifier) {
+            itemUnderMouse = getItemAtPoint(lastMousePressWorld);
+        }
+        if (SwingUtilities.isRightMouseButton(e) || (e.isControlDown() && itemUnderMouse == null)) {
             currentMode = InteractionMode.PANNING;
             initialPanTranslation = new Point2D.Double(viewTransform.getTranslateX(), viewTransform.getTranslateY());
             originalViewTransformState = new AffineTransform(viewTransform); // Store current view transform state
@@ -341,10 +1075,44 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
             return;
         }
 
-        if (selectedItem != null) {
+        if (roomEditing && !toggleModifier && pressRoomOutline(e)) {
+            return;
+        }
+        if (doorEditing && !toggleModifier && pressDoor()) {
+            return;
+        }
+
+        if (toggleModifier) {
+            if (itemUnderMouse != null) {
+                toggleSelection(itemUnderMouse);
+                if (selectedIds.contains(itemUnderMouse.getId())) {
+                    beginMove(); // Shift-click then drag moves the selection
+                } else {
+                    currentMode = InteractionMode.NONE;
+                }
+            } else {
+                beginMarquee(true); // Shift-drag on empty space adds to the selection
+            }
+            repaint();
+            return;
+        }
+
+        if (selectedIds.size() > 1) {
+            activeHandle = getHandleAtPoint(lastMousePressWorld);
+            if (activeHandle != -1) {
+                beginGroupTransform();
+                markMovingSlots();
+                currentMode = activeHandle == ROTATION_HANDLE_INDEX ? InteractionMode.ROTATING : InteractionMode.RESIZING;
+                setCursorForHandle(activeHandle);
+                LOGGER.finer("Mouse pressed on group handle " + activeHandle + ". Mode: " + currentMode);
+                repaint();
+                return;
+            }
+        } else if (selectedItem != null) {
             activeHandle = getHandleAtPoint(lastMousePressWorld);
             if (activeHandle != -1) {
                 originalItemState = selectedItem;
+                markMovingSlots();
                 if (activeHandle == ROTATION_HANDLE_INDEX) {
                     currentMode = InteractionMode.ROTATING;
                     Point2D itemCenter = getShapeCenter(originalItemState.footprint());
@@ -361,26 +1129,174 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
             }
         }
 
-        FurnitureItem itemUnderMouse = getItemAtPoint(lastMousePressWorld);
+        itemUnderMouse = getItemAtPoint(lastMousePressWorld);
         if (itemUnderMouse != null) {
-            if (selectedItem != itemUnderMouse) {
+            // Pressing a member of a multi-selection drags the whole group
+            if (!selectedIds.contains(itemUnderMouse.getId())) {
                 selectItem(itemUnderMouse);
             }
-            currentMode = InteractionMode.MOVING;
-            originalItemState = selectedItem;
-            this.lastMouseDragWorld = lastMousePressWorld;
-            setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
-            LOGGER.finer("Mouse pressed on item " + selectedItem.type() + ". Mode: MOVING.");
+            beginMove();
+            LOGGER.finer("Mouse pressed on item " + itemUnderMouse.type() + ". Mode: MOVING.");
         } else {
-            if (selectedItem != null) {
-                deselectItem();
-            }
-            currentMode = InteractionMode.NONE;
-            LOGGER.finer("Mouse pressed on empty space. Mode: NONE.");
+            deselectItem();
+            beginMarquee(false);
+            LOGGER.finer("Mouse pressed on empty space. Mode: MARQUEE.");
         }
         repaint();
     }
 
+    /** Starts moving the selection (one item or the whole group) from the press point. */
+    private void beginMove() {
+        currentMode = InteractionMode.MOVING;
+        originalItemState = selectedItem;
+        markMovingSlots();
+        if (selectedIds.size() > 1) {
+            beginGroupTransform();
+        }
+        this.lastMouseDragWorld = lastMousePressWorld;
+        setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+    }
+
+    /** Records the selected items, their centroid and the press geometry for a group transform. */
+    /** Stamps the slots of the selected items for {@link #movingFilter}; slots stay put while dragging. */
+    private void markMovingSlots() {
+        if (movingStamp.length < scene.slotCount()) movingStamp = new int[Math.max(scene.slotCount(), movingStamp.length * 2)];
+        if (++movingPass == 0) { // Wrapped: old stamps could match again
+            Arrays.fill(movingStamp, 0);
+            movingPass = 1;
+        }
+        for (long id : selectedIds) {
+            int slot = scene.slotOf(id);
+            if (slot >= 0) movingStamp[slot] = movingPass;
+        }
+    }
+
+    private boolean isTransformingSelection() {
+        return currentMode == InteractionMode.MOVING || currentMode == InteractionMode.RESIZING
+                || currentMode == InteractionMode.ROTATING;
+    }
+
+    private void beginGroupTransform() {
+        groupOriginalStates = getSelectedItems();
+        double sumX = 0, sumY = 0;
+        for (FurnitureItem item : groupOriginalStates) {
+            sumX += item.getTx();
+            sumY += item.getTy();
+        }
+        int n = Math.max(1, groupOriginalStates.size());
+        groupCentroid = new Point2D.Double(sumX / n, sumY / n);
+        groupStartAngle = Math.atan2(lastMousePressWorld.getY() - groupCentroid.getY(),
+                                     lastMousePressWorld.getX() - groupCentroid.getX());
+        groupStartDistance = lastMousePressWorld.distance(groupCentroid);
+        loadSelectionBounds(groupStartBounds);
+    }
+
+    /** Starts a rubber-band selection at the press point. */
+    private void beginMarquee(boolean additive) {
+        currentMode = InteractionMode.MARQUEE;
+        marqueeBaseSelection = additive ? new LinkedHashSet<>(selectedIds) : Collections.emptySet();
+        marqueeWorld.setFrameFromDiagonal(lastMousePressWorld, lastMousePressWorld);
+    }
+
+    /** Selects every item whose bounds lie inside the rubber band, plus the base selection. */
+    private void updateMarqueeSelection(Point2D currentMouseWorld) {
+        marqueeWorld.setFrameFromDiagonal(lastMousePressWorld, currentMouseWorld);
+        selectedIds.clear();
+        selectedIds.addAll(marqueeBaseSelection);
+        double minX = marqueeWorld.getMinX(), minY = marqueeWorld.getMinY();
+        double maxX = marqueeWorld.getMaxX(), maxY = marqueeWorld.getMaxY();
+        scene.forEachInBounds(minX, minY, maxX, maxY, slot -> {
+            scene.bounds(slot, boundsScratch);
+            if (boundsScratch[0] >= minX && boundsScratch[1] >= minY && boundsScratch[2] <= maxX && boundsScratch[3] <= maxY) {
+                selectedIds.add(scene.idAt(slot));
+            }
+        });
+        if (selectedItem == null || !selectedIds.contains(selectedItem.getId())) {
+            selectedItem = selectedIds.isEmpty() ? null : scene.getById(selectedIds.iterator().next());
+        }
+    }
+
+    /** Adds the item to the selection, or removes it if it is already selected. */
+    private void toggleSelection(FurnitureItem item) {
+        if (selectedIds.remove(item.getId())) {
+            if (selectedItem != null && selectedItem.getId() == item.getId()) {
+                selectedItem = selectedIds.isEmpty() ? null : scene.getById(selectedIds.iterator().next());
+            }
+        } else {
+            selectedIds.add(item.getId());
+            selectedItem = item; // The last toggled-on item becomes the primary one
+        }
+        fireSelectionChanged();
+    }
+
+    /** Tells the listener about the current selection. */
+    private void fireSelectionChanged() {
+        if (listener == null) return;
+        if (selectedItem == null) {
+            listener.itemDeselected();
+        } else {
+            listener.itemSelected(selectedItem);
+        }
+        listener.selectionChanged(getSelectedItems());
+    }
+
+    /**
+     * Applies a group transform relative to the states recorded at the press: every item is
+     * moved by (dx, dy), then rotated by {@code angle} and scaled by {@code factor} around the
+     * selection centroid. The listener receives all items in one call.
+     */
+    private void applyGroupTransform(double dx, double dy, double angle, double factor) {
+        if (groupOriginalStates == null || groupOriginalStates.isEmpty() || listener == null) return;
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        double cx = groupCentroid.getX(), cy = groupCentroid.getY();
+        List<FurnitureItem> updated = new ArrayList<>(groupOriginalStates.size());
+        for (FurnitureItem item : groupOriginalStates) {
+            double rx = (item.getTx() - cx) * factor, ry = (item.getTy() - cy) * factor;
+            updated.add(item.withTransform(cx + rx * cos - ry * sin + dx, cy + rx * sin + ry * cos + dy,
+                                           item.getScaleX() * factor, item.getScaleY() * factor,
+                                           item.getRotationRadians() + angle));
+        }
+        if (!checkRoom(updated)) return; // Constrained: the group stays where it was
+        long start = metrics != null ? System.nanoTime() : 0;
+        listener.itemsUpdated(updated);
+        if (metrics != null) metrics.record(CanvasMetrics.Metric.UPDATE_DISPATCH_NANOS, System.nanoTime() - start);
+    }
+
+    /**
+     * Checks proposed item states against the room outline (O(log n) per item in the number of
+     * room edges). Returns false if the change must be dropped because the canvas is constrained
+     * to the room; otherwise remembers whether a footprint is outside, for the paint.
+     */
+    private boolean checkRoom(List<FurnitureItem> proposed) {
+        boolean inside = true;
+        for (int i = 0; i < proposed.size() && inside; i++) {
+            proposed.get(i).corners(cornerScratch);
+            inside = roomShapeWorld.containsQuad(cornerScratch, quadScratch);
+        }
+        if (!inside && constrainToRoom) return false;
+        selectionOutsideRoom = !inside;
+        return true;
+    }
+
+    private boolean checkRoom(FurnitureItem proposed) {
+        proposed.corners(cornerScratch);
+        boolean inside = roomShapeWorld.containsQuad(cornerScratch, quadScratch);
+        if (!inside && constrainToRoom) return false;
+        selectionOutsideRoom = !inside;
+        return true;
+    }
+
+    /** Sends one changed item to the listener, timing the dispatch while metrics are on. */
+    private void dispatchItemUpdated(FurnitureItem item) {
+        if (metrics == null) {
+            listener.itemUpdated(item);
+            return;
+        }
+        long start = System.nanoTime();
+        listener.itemUpdated(item);
+        metrics.record(CanvasMetrics.Metric.UPDATE_DISPATCH_NANOS, System.nanoTime() - start);
+    }
+
     @Override
     public void mouseDragged(MouseEvent e) {
         if (lastMousePressWorld == null && currentMode != InteractionMode.PANNING) { // Allow panning even if lastMousePressWorld is null (e.g. if press was outside)
@@ -389,6 +1305,8 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
 
         Point2D currentMouseScreen = e.getPoint();
         Point2D currentMouseWorld = null; // Initialize to null
+        boolean snapActive = snapEngine.isEnabled() && !e.isAltDown(); // Alt suspends snapping
+        snapEngine.clearGuides();
         try {
             if (viewTransform != null && !viewTransform.isIdentity() && Math.abs(viewTransform.getDeterminant()) > 1e-9) {
                  currentMouseWorld = viewTransform.inverseTransform(currentMouseScreen, null);
@@ -425,19 +1343,60 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                     originalViewTransformState.toString(),
                     viewTransform.toString()
                 ));
+                fireViewChanged();
                 repaint();
             }
+        } else if (currentMode == InteractionMode.MARQUEE) {
+            if (currentMouseWorld != null) {
+                updateMarqueeSelection(currentMouseWorld);
+            }
+        } else if (currentMode == InteractionMode.EDITING_ROOM) {
+            if (currentMouseWorld != null) {
+                dragRoomVertex(currentMouseWorld, snapActive);
+            }
+        } else if (currentMouseWorld != null && groupOriginalStates != null) {
+            // Group transforms are always relative to the press, so rounding never accumulates
+            if (currentMode == InteractionMode.MOVING) {
+                double dx = currentMouseWorld.getX() - lastMousePressWorld.getX();
+                double dy = currentMouseWorld.getY() - lastMousePressWorld.getY();
+                if (snapActive) { // Snap the group box as a whole
+                    snapEngine.snapBounds(scene, movingFilter, groupStartBounds.getMinX() + dx, groupStartBounds.getMinY() + dy,
+                                          groupStartBounds.getMaxX() + dx, groupStartBounds.getMaxY() + dy,
+                                          roomShapeWorld, pixelsPerMeter, viewTransform.getScaleX());
+                    dx += snapEngine.snapDx();
+                    dy += snapEngine.snapDy();
+                }
+                applyGroupTransform(dx, dy, 0.0, 1.0);
+            } else if (currentMode == InteractionMode.ROTATING) {
+                double angle = Math.atan2(currentMouseWorld.getY() - groupCentroid.getY(),
+                                          currentMouseWorld.getX() - groupCentroid.getX()) - groupStartAngle;
+                if (snapActive) {
+                    angle = snapEngine.snapAngleToStep(angle, groupCentroid.getX(), groupCentroid.getY(), groupStartDistance);
+                }
+                applyGroupTransform(0, 0, angle, 1.0);
+            } else if (currentMode == InteractionMode.RESIZING && groupStartDistance > 1e-9) {
+                double factor = currentMouseWorld.distance(groupCentroid) / groupStartDistance;
+                applyGroupTransform(0, 0, 0.0, Math.max(MIN_GROUP_SCALE_FACTOR, factor));
+            }
         } else if (currentMode == InteractionMode.MOVING) {
-            if (selectedItem != null && lastMouseDragWorld != null) { 
-                double dxWorld = currentMouseWorld.getX() - lastMouseDragWorld.getX();
-                double dyWorld = currentMouseWorld.getY() - lastMouseDragWorld.getY();
-
-                FurnitureItem movedItem = selectedItem.translateTo(
-                    selectedItem.getTx() + dxWorld,
-                    selectedItem.getTy() + dyWorld
-                );
-                if (listener != null) {
-                    listener.itemUpdated(movedItem);
+            if (selectedItem != null && originalItemState != null && currentMouseWorld != null) {
+                // Position relative to the press, so a snapped item does not stick to its snap target
+                double newTx = originalItemState.getTx() + currentMouseWorld.getX() - lastMousePressWorld.getX();
+                double newTy = originalItemState.getTy() + currentMouseWorld.getY() - lastMousePressWorld.getY();
+                int slot = scene.slotOf(selectedItem.getId());
+                if (snapActive && slot >= 0) {
+                    scene.bounds(slot, boundsScratch);
+                    double ox = newTx - scene.txAt(slot), oy = newTy - scene.tyAt(slot); // Bounds at the unsnapped position
+                    snapEngine.snapBounds(scene, movingFilter, boundsScratch[0] + ox, boundsScratch[1] + oy,
+                                          boundsScratch[2] + ox, boundsScratch[3] + oy,
+                                          roomShapeWorld, pixelsPerMeter, viewTransform.getScaleX());
+                    newTx += snapEngine.snapDx();
+                    newTy += snapEngine.snapDy();
+                }
+
+                FurnitureItem movedItem = selectedItem.translateTo(newTx, newTy);
+                if (listener != null && checkRoom(movedItem)) {
+                    dispatchItemUpdated(movedItem);
                     LOGGER.finest(() -> String.format("Moving item: %s to (%.2f, %.2f)", movedItem.type(), movedItem.getTx(), movedItem.getTy()));
                 }
             }
@@ -445,6 +1404,12 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
             if (selectedItem != null && originalItemState != null && activeHandle != -1) {
                 Point2D anchor = getResizeAnchor(activeHandle, originalItemState.footprint().getBounds2D());
                 if (anchor == null) return;
+                if (snapActive) { // Snap the dragged corner
+                    snapEngine.snapPoint(scene, movingFilter, currentMouseWorld.getX(), currentMouseWorld.getY(),
+                                         roomShapeWorld, pixelsPerMeter, viewTransform.getScaleX());
+                    currentMouseWorld = new Point2D.Double(currentMouseWorld.getX() + snapEngine.snapDx(),
+                                                           currentMouseWorld.getY() + snapEngine.snapDy());
+                }
 
                 double currentItemRotation = originalItemState.getRotationRadians();
                 AffineTransform rotation = AffineTransform.getRotateInstance(currentItemRotation, anchor.getX(), anchor.getY());
@@ -488,8 +1453,8 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
 
                 FurnitureItem resizedItem = originalItemState.setScale(newScaleX, newScaleY);
 
-                if (listener != null) {
-                    listener.itemUpdated(resizedItem);
+                if (listener != null && checkRoom(resizedItem)) {
+                    dispatchItemUpdated(resizedItem);
                      LOGGER.finest(() -> String.format("Resizing item: %s to scale (%.2f, %.2f)", resizedItem.type(), resizedItem.getScaleX(), resizedItem.getScaleY()));
                 }
             }
@@ -498,9 +1463,15 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                 Point2D itemCenter = getShapeCenter(originalItemState.footprint()); 
                 double newAbsoluteAngle = Math.atan2(currentMouseWorld.getY() - itemCenter.getY(),
                                                      currentMouseWorld.getX() - itemCenter.getX());
+                if (snapActive) { // Angle steps, or line up with a nearby item
+                    Rectangle2D itemBounds = originalItemState.footprint().getBounds2D();
+                    double reach = Math.hypot(itemBounds.getWidth(), itemBounds.getHeight()) / 2;
+                    newAbsoluteAngle = snapEngine.snapAngle(scene, movingFilter, newAbsoluteAngle,
+                                                            itemCenter.getX(), itemCenter.getY(), reach, viewTransform.getScaleX());
+                }
                 FurnitureItem trulyRotatedItem = originalItemState.setRotation(newAbsoluteAngle);
-                if (listener != null) {
-                    listener.itemUpdated(trulyRotatedItem);
+                if (listener != null && checkRoom(trulyRotatedItem)) {
+                    dispatchItemUpdated(trulyRotatedItem);
                      LOGGER.finest(() -> String.format("Rotating item: %s to angle %.2f rad", trulyRotatedItem.type(), trulyRotatedItem.getRotationRadians()));
                 }
             }
@@ -518,15 +1489,88 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
              LOGGER.log(Level.FINER, "Interaction ended: " + currentMode);
              // Optional: Final notification if needed, but updates are live during drag
         }
+        boolean marqueeEnded = currentMode == InteractionMode.MARQUEE;
+        if (currentMode == InteractionMode.EDITING_ROOM && editStartShape != roomShape) {
+            firePropertyChange("roomShape", editStartShape, roomShape); // Once per vertex drag
+        }
+        editStartShape = null;
+        editRing = editVertex = -1;
+        selectionOutsideRoom = false;
         currentMode = InteractionMode.NONE;
         activeHandle = -1;
         originalItemState = null;
+        groupOriginalStates = null;
+        groupCentroid = null;
+        marqueeBaseSelection = null;
+        snapEngine.clearGuides();
+        repaint(); // Remove guides and the drag grid
+        if (marqueeEnded) {
+            fireSelectionChanged();
+        }
         lastMousePressScreen = null;
         lastMousePressWorld = null;
         lastMouseDragWorld = null; // Reset last drag world pos
         lastDragAngle = 0.0; // Reset last drag angle
     }
 
+    /**
+     * Room editing press: starts a vertex drag, or on a double-click removes the vertex / inserts
+     * one on the edge under the mouse. Returns false if the press was not on the outline.
+     */
+    private boolean pressRoomOutline(MouseEvent e) {
+        double tolerance = HANDLE_SIZE / viewTransform.getScaleX();
+        double x = lastMousePressWorld.getX(), y = lastMousePressWorld.getY();
+        for (int ring = 0; ring < roomShapeWorld.ringCount(); ring++) {
+            for (int i = 0; i < roomShapeWorld.vertexCount(ring); i++) {
+                if (Math.abs(roomShapeWorld.vertexX(ring, i) - x) > tolerance
+                        || Math.abs(roomShapeWorld.vertexY(ring, i) - y) > tolerance) {
+                    continue;
+                }
+                if (e.getClickCount() == 2) {
+                    RoomShape edited = roomShape.withVertexRemoved(ring, i);
+                    if (edited != roomShape && edited.isValid()) setRoomShape(edited);
+                } else {
+                    currentMode = InteractionMode.EDITING_ROOM;
+                    editRing = ring;
+                    editVertex = i;
+                    editStartShape = roomShape;
+                    setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+                }
+                return true;
+            }
+        }
+        if (e.getClickCount() != 2) return false;
+        for (int ring = 0; ring < roomShapeWorld.ringCount(); ring++) {
+            int n = roomShapeWorld.vertexCount(ring);
+            for (int i = 0; i < n; i++) {
+                int j = (i + 1) % n;
+                double x1 = roomShapeWorld.vertexX(ring, i), y1 = roomShapeWorld.vertexY(ring, i);
+                double x2 = roomShapeWorld.vertexX(ring, j), y2 = roomShapeWorld.vertexY(ring, j);
+                if (Line2D.ptSegDist(x1, y1, x2, y2, x, y) > tolerance) continue;
+                // Insert the projection of the press onto the edge, between i and j
+                double dx = x2 - x1, dy = y2 - y1;
+                double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+                RoomShape edited = roomShape.withVertexInserted(ring, i + 1,
+                        (x1 + t * dx) / pixelsPerMeter, (y1 + t * dy) / pixelsPerMeter);
+                if (edited.isValid()) setRoomShape(edited);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Moves the dragged room vertex, snapped to the grid; edits that would make the outline invalid are ignored. */
+    private void dragRoomVertex(Point2D world, boolean snapActive) {
+        double x = Math.max(0, world.getX() / pixelsPerMeter), y = Math.max(0, world.getY() / pixelsPerMeter);
+        if (snapActive && snapEngine.isSnapToGrid()) {
+            double grid = snapEngine.getGridSizeMeters();
+            x = Math.round(x / grid) * grid;
+            y = Math.round(y / grid) * grid;
+        }
+        RoomShape edited = roomShape.withVertexMoved(editRing, editVertex, x, y);
+        if (edited.isValid()) applyRoomShape(edited); // Listeners hear about it on release
+    }
+
     @Override
     public void mouseEntered(MouseEvent e) { }
 
@@ -575,16 +1619,17 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         AffineTransform translateTx = AffineTransform.getTranslateInstance(deltaX, deltaY);
         viewTransform.preConcatenate(translateTx);
 
+        fireViewChanged();
         repaint();
     }
 
     // Helper to select an item and notify listener
     private void selectItem(FurnitureItem item) {
-        if (this.selectedItem != item) {
+        if (this.selectedItem == null || this.selectedItem.getId() != item.getId() || selectedIds.size() != 1) {
             this.selectedItem = item;
-            if (listener != null) {
-                listener.itemSelected(item);
-            }
+            selectedIds.clear();
+            selectedIds.add(item.getId());
+            fireSelectionChanged();
             repaint();
         }
     }
@@ -683,6 +1728,16 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         LOGGER.info(String.format("Centering View: Scale=%.2f, TranslateX=%.1f, TranslateY=%.1f%n",
                            viewTransform.getScaleX(), viewTransform.getTranslateX(), viewTransform.getTranslateY()));
 
+        fireViewChanged();
+        repaint();
+    }
+
+    /** Pans (keeping the zoom level) so the given world point is in the middle of the canvas. */
+    public void centerViewOn(double worldX, double worldY) {
+        double scale = viewTransform.getScaleX(); // Uniform scale
+        viewTransform.setToTranslation(getWidth() / 2.0 - worldX * scale, getHeight() / 2.0 - worldY * scale);
+        viewTransform.scale(scale, scale);
+        fireViewChanged();
         repaint();
     }
 
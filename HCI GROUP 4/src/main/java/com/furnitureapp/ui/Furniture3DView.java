@@ -2,6 +2,10 @@ package com.furnitureapp.ui;
 
 import com.furnitureapp.model.FurnitureItem;
 import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.model.RoomShape;
+import com.furnitureapp.util.BoundingVolumeHierarchy;
+import com.furnitureapp.util.MeshBaker;
+import com.furnitureapp.util.MeshBvh;
 import com.furnitureapp.util.ModelHelper;
 
 // --- Remove JOGL Imports ---
@@ -13,19 +17,24 @@ import com.jogamp.opengl.util.FPSAnimator;
 
 // --- Keep JavaFX Imports ---
 import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.scene.*;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Box;
+import javafx.scene.shape.CullFace;
 import javafx.scene.shape.Sphere;
 import javafx.scene.shape.Cylinder;
 import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.shape.MeshView;
+import javafx.scene.shape.Shape3D;
 import javafx.scene.shape.TriangleMesh;
 import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Affine;
 import javafx.scene.transform.Rotate;
-import javafx.scene.transform.Scale;
 import javafx.scene.transform.Translate;
 import javafx.scene.transform.Transform;
 import javafx.scene.Group;
@@ -58,10 +67,18 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.io.File; // Added missing import
@@ -77,7 +94,7 @@ public class Furniture3DView {
     private static final Color ROOM_BORDER_COLOR = Color.DARKGRAY;
     private static final Color ROOM_FILL_COLOR = new Color(0.95, 0.95, 0.95, 1.0); // Lighter gray fill
     private static final double WALL_THICKNESS = 5.0; // Thickness of walls in pixels
-    private static final double INITIAL_3D_SCALE_FACTOR = 0.02; // NEW: Default scale for 3D items
+    static final Color ITEM_SPECULAR = Color.rgb(50, 50, 50); // Highlight of item (and batch) materials
 
     // --- Constants ---
     private static final double AXIS_LENGTH = 40.0; // For compass
@@ -92,6 +109,7 @@ public class Furniture3DView {
     private PerspectiveCamera mainCamera;
     private Group roomGroup = new Group();              // For the floor and walls visualization
     private Group itemsGroup = new Group();             // Group to hold furniture item Nodes
+    private Group batchGroup = new Group();             // Merged meshes of batched items (see StaticMeshBatcher)
     // --- Camera Transform Fields for easier control ---
     private Rotate cameraRotateX = new Rotate(-30, Rotate.X_AXIS); // Initial tilt
     private Rotate cameraRotateY = new Rotate(0, Rotate.Y_AXIS);
@@ -102,22 +120,96 @@ public class Furniture3DView {
     private Rotate compassRotateX = new Rotate(0, Rotate.X_AXIS);
 
     // --- Wall Node References ---
-    private Box northWallBox, eastWallBox, southWallBox, westWallBox;
+    private final Group[] wallSides = new Group[4]; // Walls facing N, E, S, W
+    private final PhongMaterial[] wallMaterials = new PhongMaterial[4]; // Shared by the walls of each side, from materialCache
+    private final PhongMaterial floorMaterial = new PhongMaterial(ROOM_FILL_COLOR);
+    private final TriangleMesh floorMesh = new TriangleMesh(); // Points and faces replaced on each room update
+    private final MeshView floorView = new MeshView(floorMesh);
+    private boolean roomUpdateScheduled = false;
 
     // --- State Variables ---
     private double pixelsPerMeter = DEFAULT_PIXELS_PER_METER;
     private double roomWidthMeters = 5.0;
     private double roomDepthMeters = 4.0;
     private double wallHeightMeters = 2.5; // Added wall height
+    private RoomShape roomShape = RoomShape.rectangle(roomWidthMeters, roomDepthMeters); // Outline in meters
     private Color[] wallColors = { Color.LIGHTGRAY, Color.LIGHTGRAY, Color.LIGHTGRAY, Color.LIGHTGRAY }; // Default FX Colors
-    private List<FurnitureItem> currentItems = new ArrayList<>();
-    private Map<FurnitureItem, Node> itemNodeMap = new HashMap<>(); // Map items to their JavaFX Nodes
+    private Map<Long, FurnitureItem> currentItems = new HashMap<>(); // Latest item state by item ID
+    private Map<Long, Node> itemNodeMap = new HashMap<>(); // Map item IDs to their JavaFX Nodes
+    private Map<Long, Affine> itemTransformMap = new HashMap<>(); // The single, reused transform of each item node
+    private final Object transformQueueLock = new Object();
+    private Map<Long, FurnitureItem> pendingTransforms = new HashMap<>();  // Queued by queueItemTransform, guarded by the lock
+    private Map<Long, FurnitureItem> drainingTransforms = new HashMap<>(); // Being applied on the FX thread
+    private boolean transformFlushScheduled = false; // Guarded by transformQueueLock
+    private Map<Long, GeometryData> itemGeometryMap = new HashMap<>(); // Geometry of each item node, for batching
+    private final Map<GeometryData, PreparedMesh> preparedMeshes = new WeakHashMap<>(); // Shared TriangleMesh per model
+    private final MaterialCache materialCache = new MaterialCache(); // Item and wall materials, shared per colour
+    private final Set<Long> proxyItemIds = new HashSet<>(); // Items shown as boxes until their mesh is streamed in
+    private final ProgressiveItemLoader itemLoader = new ProgressiveItemLoader(new ProgressiveItemLoader.Host() {
+        @Override public void priorities(long[] ids, int count, double[] out) { streamPriorities(ids, count, out); }
+        @Override public void meshPrepared(GeometryData geometry, PreparedMesh mesh) { preparedMeshes.putIfAbsent(geometry, mesh); }
+        @Override public boolean install(long id, GeometryData geometry) { return installStreamedItem(id, geometry); }
+        @Override public void failed(long id, String modelFilename) { dropProxy(id, modelFilename); }
+    });
+    private StaticMeshBatcher meshBatcher; // Null until batching is first enabled
+    private boolean meshBatching = false;
+    private Set<Long> liveItemIds = new HashSet<>(); // Selected items: always their own node, never batched
+    private final double[] itemMatrix = new double[12]; // Scratch for itemMatrix()
+
+    // --- Frustum culling: item world bounds in a BVH, tested against the camera frustum ---
+    private final BoundingVolumeHierarchy itemBvh = new BoundingVolumeHierarchy();
+    private Map<Long, Integer> itemBvhHandles = new HashMap<>();
+    private Map<Long, double[]> itemBaseExtents = new HashMap<>(); // Half width, height, half depth of each item's mesh
+    private Node[] cullNodes = new Node[64];        // Item node by BVH handle
+    private boolean[] cullVisible = new boolean[64]; // Visibility last set by culling, by BVH handle
+    private int[] cullStamp = new int[64];          // Pass in which the handle was last found inside
+    private int cullPass;
+    private boolean frustumCulling = true;
+    private boolean cullingDirty, cullingScheduled;
+    private double viewportWidth = 600, viewportHeight = 400; // Main SubScene size, for the aspect ratio
+    private final double[] frustumCorners = new double[24];
+    private final double[] frustumPlanes = new double[24];
+    private final double[] boundsScratch = new double[6];
+
+    // --- Picking: mouse ray through the item BVH, then the triangles of each model's MeshBvh ---
+    private final Map<GeometryData, CompletableFuture<MeshBvh>> meshBvhCache = new WeakHashMap<>(); // Lives as long as the model's geometry
+    private final ExecutorService meshBvhBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mesh-bvh-build");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private ItemUpdateListener pickListener; // Told about 3D selections and drags, on the FX thread
+    private FurnitureItem dragItem;          // Item being dragged along the floor, null if none
+    private double dragOffsetX, dragOffsetZ; // Item position minus the floor point under the mouse at the press
+    private final double[] pickRay = new double[6]; // Origin and direction in item space
     private boolean depthLightingEnabled = false; // Track current state
 
     // --- Animation ---
     private Rotate sceneRotationY = new Rotate(0, Rotate.Y_AXIS); // Rotation applied to contentGroup
     private AnimationTimer rotationTimer;
-    private double rotationSpeed = 0.5; // Degrees per frame
+    private double rotationSpeed = 30.0; // Degrees per second (0.5 per frame at 60 fps)
+    private RenderMode renderMode = RenderMode.CONTINUOUS;
+    private double maxFramesPerSecond = 30.0; // For RenderMode.CAPPED
+    private boolean animationRequested = false; // 3D tab selected (start/stopRotationAnimation)
+    private boolean animationPaused = false;    // Panel hidden or window minimized (setAnimationPaused)
+    private boolean timerRunning = false;
+    private long lastFrameNanos = -1;           // Time of the last rotation step, -1 after a (re)start
+    private int wallQuadrant = -1;              // Cutaway quadrant the walls are set for, -1 if none yet
+
+    /** How often the 3D preview redraws. */
+    public enum RenderMode {
+        CONTINUOUS("Continuous"),    // Auto-rotation stepped on every pulse
+        CAPPED("Capped FPS"),        // Auto-rotation stepped at most maxFramesPerSecond times a second
+        ON_DEMAND("On Demand");      // No auto-rotation; JavaFX redraws only on scene, camera or size changes
+
+        private final String label;
+
+        RenderMode(String label) { this.label = label; }
+
+        @Override
+        public String toString() { return label; }
+    }
 
     // --- REMOVED JOGL Fields ---
     // private GLCanvas glCanvas;
@@ -136,13 +228,16 @@ public class Furniture3DView {
         mainCamera = setupCamera();
         setupLighting();
         setupInitialScene();
+        // Any camera move, zoom or scene rotation changes one of these two transforms
+        mainCamera.localToSceneTransformProperty().addListener((obs, oldTransform, newTransform) -> requestCulling());
+        itemsGroup.localToSceneTransformProperty().addListener((obs, oldTransform, newTransform) -> requestCulling());
         // No JOGL initialization needed
     }
 
     // Setup initial scene elements (lights, floor, content group)
     private void setupInitialScene() {
-        drawRoom();      // Add floor
-        contentGroup.getChildren().addAll(roomGroup, itemsGroup);
+        createRoomNodes(); // Floor and walls
+        contentGroup.getChildren().addAll(roomGroup, itemsGroup, batchGroup);
         
         // Set the pivot point for the rotation to the center of the floor
         double pivotX = roomWidthMeters * pixelsPerMeter / 2.0;
@@ -278,68 +373,92 @@ public class Furniture3DView {
         return compassRoot;
     }
 
-    // Draw JavaFX floor and walls
-    private void drawRoom() {
-        roomGroup.getChildren().clear(); // Clear previous floor and walls
-        
-        double roomWidthPixels = roomWidthMeters * pixelsPerMeter;
-        double roomDepthPixels = roomDepthMeters * pixelsPerMeter;
+    // Builds the room's persistent nodes: the floor mesh and one group of walls per side
+    private void createRoomNodes() {
+        floorMesh.getTexCoords().setAll(0, 0);
+        floorView.setMaterial(floorMaterial);
+        floorView.setCullFace(CullFace.NONE); // Winding depends on the trapezoid; show both sides
+        roomGroup.getChildren().add(floorView);
+        for (int i = 0; i < 4; i++) {
+            wallMaterials[i] = materialCache.acquire(wallColors[i], null);
+            wallSides[i] = new Group();
+        }
+        roomGroup.getChildren().addAll(wallSides);
+        updateRoomNodes();
+        updateWallVisibility(sceneRotationY.getAngle());
+    }
+
+    // Updates the room on the next run of the FX thread; all changes until then are handled together
+    private void requestRoomUpdate() {
+        if (roomUpdateScheduled) return;
+        roomUpdateScheduled = true;
+        Platform.runLater(() -> {
+            roomUpdateScheduled = false;
+            updateRoomNodes();
+        });
+    }
+
+    /**
+     * Fits the floor and walls to the current outline, wall height and scale in place: the floor
+     * mesh's arrays are replaced, and the wall boxes of each side are resized and moved, with boxes
+     * added or removed only when a side gains or loses edges. A dimension change touches no nodes.
+     */
+    private void updateRoomNodes() {
+        RoomShape room = roomShape.scaled(pixelsPerMeter, pixelsPerMeter); // 2D y becomes 3D z
         double wallHeightPixels = wallHeightMeters * pixelsPerMeter;
 
-        // --- Floor --- 
-        PhongMaterial floorMaterial = new PhongMaterial(ROOM_FILL_COLOR);
-        Box floor = new Box(roomWidthPixels, WALL_THICKNESS, roomDepthPixels); // Use thickness
-        floor.setMaterial(floorMaterial);
-        // Position floor so its TOP surface is at Y=0 and its center is at the room's XZ center
-        floor.setTranslateX(roomWidthPixels / 2.0);   // Added X translation
-        floor.setTranslateY(-WALL_THICKNESS / 2.0); // Corrected: Move center DOWN by half thickness
-        floor.setTranslateZ(roomDepthPixels / 2.0);    // Added Z translation
-        roomGroup.getChildren().add(floor);
-
-        // --- Walls --- 
-        // Create materials for walls (index: 0=N, 1=E, 2=S, 3=W)
-        PhongMaterial[] wallMaterials = new PhongMaterial[4];
-        for (int i = 0; i < 4; i++) {
-            wallMaterials[i] = new PhongMaterial(wallColors[i]);
+        // --- Floor: the room's trapezoids as one mesh, top surface at Y=0 ---
+        List<float[]> quads = new ArrayList<>();
+        room.forEachTrapezoid((yTop, yBottom, xTopLeft, xTopRight, xBottomLeft, xBottomRight) -> quads.add(new float[]{
+            (float) xTopLeft, 0, (float) yTop, (float) xTopRight, 0, (float) yTop,
+            (float) xBottomRight, 0, (float) yBottom, (float) xBottomLeft, 0, (float) yBottom}));
+        float[] floorPoints = new float[quads.size() * 12];
+        int[] floorFaces = new int[quads.size() * 12];
+        for (int q = 0; q < quads.size(); q++) {
+            System.arraycopy(quads.get(q), 0, floorPoints, q * 12, 12);
+            int v = q * 4;
+            int[] face = {v, 0, v + 1, 0, v + 2, 0, v, 0, v + 2, 0, v + 3, 0};
+            System.arraycopy(face, 0, floorFaces, q * 12, 12);
         }
-        
-        // North Wall (Back, along X axis at Z=0)
-        Box northWall = new Box(roomWidthPixels, wallHeightPixels, WALL_THICKNESS);
-        northWall.setMaterial(wallMaterials[0]);
-        northWall.setTranslateX(roomWidthPixels / 2.0); // Center X
-        northWall.setTranslateY(-wallHeightPixels / 2.0); // Center Y (relative to floor at Y=0)
-        northWall.setTranslateZ(WALL_THICKNESS / 2.0); // Position Z at the back edge
-        this.northWallBox = northWall; // Store reference
-        roomGroup.getChildren().add(this.northWallBox);
-
-        // East Wall (Right, along Z axis at X=Width) - UNCOMMENTED
-        Box eastWall = new Box(WALL_THICKNESS, wallHeightPixels, roomDepthPixels);
-        eastWall.setMaterial(wallMaterials[1]);
-        eastWall.setTranslateX(roomWidthPixels - (WALL_THICKNESS / 2.0)); // Position X at the right edge
-        eastWall.setTranslateY(-wallHeightPixels / 2.0);
-        eastWall.setTranslateZ(roomDepthPixels / 2.0); // Center Z
-        this.eastWallBox = eastWall; // Store reference
-        roomGroup.getChildren().add(this.eastWallBox);
-
-        // South Wall (Front, along X axis at Z=Depth) - UNCOMMENTED
-        Box southWall = new Box(roomWidthPixels, wallHeightPixels, WALL_THICKNESS);
-        southWall.setMaterial(wallMaterials[2]);
-        southWall.setTranslateX(roomWidthPixels / 2.0); 
-        southWall.setTranslateY(-wallHeightPixels / 2.0);
-        southWall.setTranslateZ(roomDepthPixels - (WALL_THICKNESS / 2.0)); // Position Z at the front edge
-        this.southWallBox = southWall; // Store reference
-        roomGroup.getChildren().add(this.southWallBox);
-
-        // West Wall (Left, along Z axis at X=0)
-        Box westWall = new Box(WALL_THICKNESS, wallHeightPixels, roomDepthPixels);
-        westWall.setMaterial(wallMaterials[3]);
-        westWall.setTranslateX(WALL_THICKNESS / 2.0); // Position X at the left edge
-        westWall.setTranslateY(-wallHeightPixels / 2.0);
-        westWall.setTranslateZ(roomDepthPixels / 2.0);
-        this.westWallBox = westWall; // Store reference
-        roomGroup.getChildren().add(this.westWallBox);
-
-        LOGGER.finer("Drew room floor and walls centered at origin in roomGroup");
+        floorMesh.getPoints().setAll(floorPoints);
+        floorMesh.getFaces().setAll(floorFaces);
+
+        // --- Walls: one box per outline edge, inside the outline ---
+        // Edges are grouped by the side they face (index: 0=N, 1=E, 2=S, 3=W) for colour and cutaway
+        int[] used = new int[4];
+        double[] edge = new double[4];
+        for (int i = 0; i < room.edgeCount(); i++) {
+            room.edge(i, edge);
+            double dx = edge[2] - edge[0], dz = edge[3] - edge[1];
+            double length = Math.hypot(dx, dz);
+            if (length < 1e-9) continue;
+            double nx = dz / length, nz = -dx / length; // Outward normal
+            int side = Math.abs(nx) > Math.abs(nz) ? (nx > 0 ? 1 : 3) : (nz < 0 ? 0 : 2);
+            List<Node> walls = wallSides[side].getChildren();
+            Box wall;
+            if (used[side] < walls.size()) {
+                wall = (Box) walls.get(used[side]);
+            } else {
+                wall = new Box();
+                wall.setMaterial(wallMaterials[side]);
+                wall.getTransforms().add(new Rotate(0, Rotate.Y_AXIS)); // Box X axis along the edge
+                walls.add(wall);
+            }
+            used[side]++;
+            wall.setWidth(length);
+            wall.setHeight(wallHeightPixels);
+            wall.setDepth(WALL_THICKNESS);
+            wall.setTranslateX((edge[0] + edge[2]) / 2.0 - nx * WALL_THICKNESS / 2.0);
+            wall.setTranslateY(-wallHeightPixels / 2.0); // Center Y (relative to floor at Y=0)
+            wall.setTranslateZ((edge[1] + edge[3]) / 2.0 - nz * WALL_THICKNESS / 2.0);
+            ((Rotate) wall.getTransforms().get(0)).setAngle(-Math.toDegrees(Math.atan2(dz, dx)));
+        }
+        for (int side = 0; side < 4; side++) {
+            List<Node> walls = wallSides[side].getChildren();
+            if (walls.size() > used[side]) walls.subList(used[side], walls.size()).clear(); // The side lost edges
+        }
+
+        LOGGER.finer("Updated room floor and walls (" + room.edgeCount() + " edges) in roomGroup");
     }
 
     // Update room dimensions - Recalculates bounds and might adjust camera
@@ -353,19 +472,35 @@ public class Furniture3DView {
              this.roomDepthMeters = Math.max(0.1, depthMeters);
              changed = true;
         }
+        if (changed) { // A polygonal room is stretched to the new extent
+            roomShape = roomShape.isRectangle() ? RoomShape.rectangle(roomWidthMeters, roomDepthMeters)
+                    : roomShape.scaled(roomWidthMeters / roomShape.getMaxX(), roomDepthMeters / roomShape.getMaxY());
+        }
         if (Math.abs(this.wallHeightMeters - heightMeters) > 1e-6) {
              this.wallHeightMeters = Math.max(0.1, heightMeters);
              changed = true;
         }
 
         if (changed) {
-             drawRoom(); // Redraw floor and walls with new dimensions
+             requestRoomUpdate(); // Refit floor and walls to the new dimensions
              updateCameraPositioning(); // Adjust camera based on new room size
              updatePointLightPosition(); // Update light position when room changes
              LOGGER.info("3D View Room dimensions updated.");
         }
     }
     
+    /** Replaces the room outline (meters); the room extent follows the outline. */
+    public void setRoomShape(RoomShape shape) {
+        if (shape == null || shape == roomShape) return; // Shapes are immutable
+        roomShape = shape;
+        roomWidthMeters = Math.max(0.1, shape.getMaxX());
+        roomDepthMeters = Math.max(0.1, shape.getMaxY());
+        requestRoomUpdate();
+        updateCameraPositioning();
+        updatePointLightPosition();
+        LOGGER.info("3D View room shape updated (" + shape.edgeCount() + " edges).");
+    }
+
      // Set wall colors
      public void setWallColors(Color[] colors) {
          if (colors != null && colors.length == 4) {
@@ -374,11 +509,17 @@ public class Furniture3DView {
                 if(!Objects.equals(this.wallColors[i], colors[i])){
                     this.wallColors[i] = colors[i] != null ? colors[i] : Color.LIGHTGRAY;
                     changed = true;
+                    // Swap the side's walls to the shared material of the new colour; the room stays as it is
+                    PhongMaterial previous = wallMaterials[i];
+                    wallMaterials[i] = materialCache.acquire(this.wallColors[i], null);
+                    if (wallSides[i] != null) {
+                        for (Node wall : wallSides[i].getChildren()) ((Shape3D) wall).setMaterial(wallMaterials[i]);
+                    }
+                    materialCache.release(previous);
                 }
             }
             if(changed){
-                LOGGER.info("Updating wall colors.");
-                drawRoom(); // Redraw room/walls with new colors
+                LOGGER.info("Updated wall colors.");
             }
          } else {
              LOGGER.warning("setWallColors called with invalid array.");
@@ -392,8 +533,8 @@ public class Furniture3DView {
         LOGGER.info("Updating pixelsPerMeter to: " + ppm);
         this.pixelsPerMeter = ppm;
         
-        // Redraw room with new scale
-        drawRoom();
+        // Refit room to the new scale
+        requestRoomUpdate();
         
         // Adjust camera positioning based on new scale
         updateCameraPositioning();
@@ -401,7 +542,7 @@ public class Furniture3DView {
 
         // Update transforms for all existing items to reflect new scale
         // Need to iterate over a copy of keys to avoid ConcurrentModificationException if map changes
-        List<FurnitureItem> itemsToUpdate = new ArrayList<>(itemNodeMap.keySet());
+        List<FurnitureItem> itemsToUpdate = new ArrayList<>(currentItems.values());
         for (FurnitureItem item : itemsToUpdate) {
             updateItemTransforms(item); // This will re-apply scale using the new pixelsPerMeter
         }
@@ -409,8 +550,22 @@ public class Furniture3DView {
 
     // Clears all items from the 3D scene
     public void clearAllItemNodes() {
+        itemLoader.cancel();
+        proxyItemIds.clear();
+        for (Node node : itemNodeMap.values()) releaseMaterials(node);
         itemsGroup.getChildren().clear();          
         itemNodeMap.clear(); 
+        currentItems.clear();
+        itemTransformMap.clear();
+        itemGeometryMap.clear();
+        if (meshBatcher != null) meshBatcher.clear();
+        itemBvh.clear();
+        itemBvhHandles.clear();
+        itemBaseExtents.clear();
+        Arrays.fill(cullNodes, null);
+        synchronized (transformQueueLock) {
+            pendingTransforms.clear();
+        }
         LOGGER.info("Cleared all items from 3D view.");
     }
 
@@ -420,6 +575,9 @@ public class Furniture3DView {
             LOGGER.warning("Attempted to add/update item node with null item or geometry.");
             return;
         }
+        FurnitureItem queued = takePendingTransform(item.getId()); // A move that arrived before the add
+        // Keep the item's BVH entry across the swap, so the next cull refits instead of rebuilding
+        Integer bvhHandle = itemBvhHandles.remove(item.getId());
         // Remove existing node for this item first, if any (safer than update)
         removeItemNode(item); 
 
@@ -432,11 +590,23 @@ public class Furniture3DView {
         }
         
         if (itemNode != null) {
+             if (queued != null) item = queued;
              applyItemTransforms(item, itemNode); // Apply transforms
              itemsGroup.getChildren().add(itemNode);
-             itemNodeMap.put(item, itemNode);
+             itemNodeMap.put(item.getId(), itemNode);
+             currentItems.put(item.getId(), item);
+             itemGeometryMap.put(item.getId(), geometry);
+             batchItem(item.getId()); // No-op unless batching
+             if (MeshBaker.isValid(geometry)) {
+                 double[] extents = new double[3];
+                 MeshBaker.baseExtents(geometry, extents);
+                 trackItemBounds(item, itemNode, extents, bvhHandle);
+                 bvhHandle = null;
+             }
+             prepareMeshBvh(geometry);
              LOGGER.finer("Added/Updated node for: " + item.type());
         }
+        if (bvhHandle != null) untrackItemBounds(bvhHandle); // No usable geometry any more
     }
 
     // Updates the color of an existing item node
@@ -445,23 +615,28 @@ public class Furniture3DView {
              LOGGER.warning("updateItemColor called with null oldItem or newItem.");
              return;
          }
-         Node itemNode = itemNodeMap.remove(oldItem); // Get node and remove old mapping
+         Node itemNode = itemNodeMap.get(newItem.getId()); // Same ID for old and new versions
 
          if (itemNode != null) {
              if (itemNode instanceof Group itemGroup) { 
                  for (Node child : itemGroup.getChildren()) {
-                     if (child instanceof MeshView meshView) {
-                         if(meshView.getMaterial() instanceof PhongMaterial material) {
-                             material.setDiffuseColor(convertAwtToFxColor(newItem.color())); // Use newItem's color
+                     if (child instanceof Shape3D shape) { // MeshView, or the Box of a proxy
+                         if(shape.getMaterial() instanceof PhongMaterial material) {
+                             // Shared materials are never changed: switch to the one of the new colour
+                             shape.setMaterial(materialCache.acquire(convertAwtToFxColor(newItem.color()), ITEM_SPECULAR));
+                             materialCache.release(material);
                              LOGGER.finer("Updated color for node originally for: " + oldItem.type() + " to new item color from: " + newItem.type());
-                             // Consider if multiple meshviews in a group need updating, for now, assume one primary mesh
                          }
                      }
                  }
              } else {
                   LOGGER.warning("Could not update color: Node for item " + oldItem.type() + " is not the expected Group structure.");
              }
-             itemNodeMap.put(newItem, itemNode); // Re-add mapping with the newItem as key
+             currentItems.put(newItem.getId(), newItem);
+             if (meshBatcher != null && meshBatcher.contains(newItem.getId())) {
+                 unbatchItem(newItem.getId()); // Moves to the batch of its new colour
+                 batchItem(newItem.getId());
+             }
          } else {
              LOGGER.warning("Node not found in map for oldItem: " + oldItem.type() + " during color update. Cannot update 3D color.");
          }
@@ -473,11 +648,11 @@ public class Furniture3DView {
             LOGGER.warning("updateItemTransforms (old/new) called with null oldItem or newItem.");
             return;
         }
-        Node itemNode = itemNodeMap.remove(oldItem); // Get node and remove old mapping
+        Node itemNode = itemNodeMap.get(newItem.getId()); // Same ID for old and new versions
 
         if (itemNode != null) {
             applyItemTransforms(newItem, itemNode); // Apply transforms using newItem's properties
-            itemNodeMap.put(newItem, itemNode);     // Re-add mapping with the newItem as key
+            currentItems.put(newItem.getId(), newItem);
             LOGGER.finer("Updated transforms for node originally for: " + oldItem.type() + " using new item data: " + newItem.type());
         } else {
             LOGGER.warning("Node not found in map for oldItem: " + oldItem.type() + " during transform update (old/new). Cannot update 3D transforms.");
@@ -492,10 +667,10 @@ public class Furniture3DView {
             LOGGER.warning("updateItemTransforms (single item) called with null item.");
             return;
         }
-        Node itemNode = itemNodeMap.get(item); // Get the node associated with this item
+        Node itemNode = itemNodeMap.get(item.getId()); // Get the node associated with this item
         if (itemNode != null) {
             applyItemTransforms(item, itemNode); // Re-apply transforms using the item's current state
-            // No need to re-put in map as the key (item) hasn't changed instance
+            currentItems.put(item.getId(), item);
             LOGGER.finer("Refreshed transforms for node: " + item.type() + " (e.g., due to pixelsPerMeter change)");
         } else {
             LOGGER.warning("Node not found in map for item: " + item.type() + " during single-item transform update.");
@@ -505,15 +680,54 @@ public class Furniture3DView {
     // Removes an item node from the scene
     public void removeItemNode(FurnitureItem item) {
         if (item == null) return;
-        Node removedNode = itemNodeMap.remove(item);
+        proxyItemIds.remove(item.getId());
+        Node removedNode = itemNodeMap.remove(item.getId());
+        currentItems.remove(item.getId());
+        itemTransformMap.remove(item.getId());
+        itemGeometryMap.remove(item.getId());
+        if (meshBatcher != null) meshBatcher.remove(item.getId());
+        itemBaseExtents.remove(item.getId());
+        Integer handle = itemBvhHandles.remove(item.getId());
+        if (handle != null) untrackItemBounds(handle);
+        takePendingTransform(item.getId());
         if (removedNode != null) {
+            releaseMaterials(removedNode);
             itemsGroup.getChildren().remove(removedNode);
             LOGGER.finer("Removed node for: " + item.type());
         }
     }
 
-    // --- Renamed createNodeFromGeometry (logic mostly unchanged) --- 
+    // Node for one item: a MeshView over its model's shared TriangleMesh, with the shared material of its colour
     private Node createNodeFromGeometry(GeometryData geometry, java.awt.Color awtColor) {
+        PreparedMesh prepared = preparedMeshes.get(geometry);
+        if (prepared == null) {
+            prepared = prepareMesh(geometry);
+            preparedMeshes.put(geometry, prepared);
+        }
+        if (prepared.mesh() == null) return new Group(); // Invalid geometry, logged when prepared
+
+        MeshView meshView = new MeshView(prepared.mesh());
+        meshView.setMaterial(materialCache.acquire(convertAwtToFxColor(awtColor), ITEM_SPECULAR));
+        // --- Center Base at Y=0 --- 
+        meshView.getTransforms().add(new Translate(-prepared.baseX(), -prepared.baseY(), -prepared.baseZ()));
+
+        LOGGER.finer("Created JavaFX Node from geometry data.");
+        // Return a Group containing the single MeshView for now.
+        // If OBJ loader returns multiple parts, this needs adjustment.
+        return new Group(meshView); 
+    }
+
+    /**
+     * A model's TriangleMesh, shared by the MeshViews of every item using it, and the offset that
+     * puts the centre of its base at the origin. The mesh is null for unusable geometry.
+     */
+    record PreparedMesh(TriangleMesh mesh, double baseX, double baseY, double baseZ) {}
+
+    /**
+     * Builds the TriangleMesh for a model. Touches no scene state, so it may run off the FX thread
+     * (see {@link ProgressiveItemLoader}); the mesh must not be used by two threads at once.
+     */
+    static PreparedMesh prepareMesh(GeometryData geometry) {
         // Geometry data is already processed and provided
         float[] points = geometry.points();
         float[] normals = geometry.normals();
@@ -523,9 +737,8 @@ public class Furniture3DView {
         // Basic validation
         if (points == null || faces == null || points.length == 0 || faces.length == 0) {
              LOGGER.warning("Attempted to create node with invalid geometry data.");
-             // Cannot create an error placeholder here easily without the original item, 
-             // but this should ideally be caught during loading in ModelHelper.
-             return new Group(); // Return empty group
+             // This should ideally be caught during loading in ModelHelper.
+             return new PreparedMesh(null, 0, 0, 0);
         }
         if (normals == null || normals.length != points.length) {
             LOGGER.warning("Normals array is null or size mismatch, using placeholders.");
@@ -535,59 +748,32 @@ public class Furniture3DView {
              LOGGER.warning("TexCoords array is null or size mismatch, using placeholders.");
              texCoords = createPlaceholderTexCoords(points.length);
         }
-        
+        // POINT_NORMAL_TEXCOORD faces are [p1, n1, t1, p2, n2, t2, p3, n3, t3, ...]: a multiple of 9
+        if (faces.length % 9 != 0) {
+            LOGGER.severe("FATAL: Faces array size (" + faces.length + ") is not divisible by 9. Cannot create valid TriangleMesh.");
+            // This indicates a problem in the OBJ parsing or conversion in ModelHelper.
+            return new PreparedMesh(null, 0, 0, 0); // Prevents a JavaFX error
+        }
+        LOGGER.finer("Creating TriangleMesh with faces array size: " + faces.length);
+
         // --- Create JavaFX TriangleMesh --- 
         TriangleMesh mesh = new TriangleMesh(VertexFormat.POINT_NORMAL_TEXCOORD);
         mesh.getPoints().setAll(points);
         mesh.getNormals().setAll(normals);   
         mesh.getTexCoords().setAll(texCoords); 
-
-        // The faces array from GeometryData should be in p1,n1,t1, p2,n2,t2 format after conversion
-        // Log its size to check against the warning
-        if (faces == null || faces.length == 0) {
-             LOGGER.warning("GeometryData provided null or empty faces array.");
-             return new Group();
-        }
-        LOGGER.finer("Creating TriangleMesh with faces array size: " + faces.length);
-        // Sanity check: If size isn't multiple of 9, log error and return empty
-        // getFaceElementSize for POINT_NORMAL_TEXCOORD is 3 indices * 3 vertices = 9?
-        // Actually, getFaceElementSize() refers to the number of elements per *vertex* in the face definition (p, n, t) => 3
-        // So the faces array length must be divisible by 3 * 3 = 9. Let's re-check that logic.
-        // From JavaFX docs: faces is [p1, t1, p2, t2, p3, t3...] if POINT_TEXCOORD. 
-        // So POINT_NORMAL_TEXCOORD is likely [p1, n1, t1, p2, n2, t2, p3, n3, t3, ...] - Yes, length must be multiple of 9.
-        
-        int elementsPerVertex = 3; // p, n, t
-        int verticesPerFace = 3; // triangle
-        int indicesPerFace = elementsPerVertex * verticesPerFace; // Should be 9
-        if (faces.length % indicesPerFace != 0) {
-            LOGGER.severe("FATAL: Faces array size (" + faces.length + ") is not divisible by indicesPerFace (" + indicesPerFace + "). Cannot create valid TriangleMesh.");
-            // This indicates a problem in the OBJ parsing or conversion in ModelHelper.
-            return new Group(); // Return empty group to prevent JavaFX error
-        }
-
         mesh.getFaces().setAll(faces); // Use the processed faces directly
 
-        // --- Create MeshView and Material --- 
-        MeshView meshView = new MeshView(mesh);
-        PhongMaterial material = new PhongMaterial();
-        
-        // Convert AWT color to JavaFX color
-        material.setDiffuseColor(convertAwtToFxColor(awtColor));
-        material.setSpecularColor(Color.rgb(50,50,50)); 
-        meshView.setMaterial(material);
-        
-        // --- Center Base at Y=0 --- 
-        Bounds bounds = meshView.getBoundsInLocal(); 
-        double minY = bounds.getMinY();
-        double centerX = bounds.getCenterX();
-        double centerZ = bounds.getCenterZ();
-        Translate baseTranslate = new Translate(-centerX, -minY, -centerZ);
-        meshView.getTransforms().add(baseTranslate);
-
-        LOGGER.finer("Created JavaFX Node from geometry data.");
-        // Return a Group containing the single MeshView for now.
-        // If OBJ loader returns multiple parts, this needs adjustment.
-        return new Group(meshView); 
+        // Base offset from the points' bounds, as the mesh's bounds in local coordinates
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i + 2 < points.length; i += 3) {
+            minX = Math.min(minX, points[i]);
+            maxX = Math.max(maxX, points[i]);
+            minY = Math.min(minY, points[i + 1]);
+            minZ = Math.min(minZ, points[i + 2]);
+            maxZ = Math.max(maxZ, points[i + 2]);
+        }
+        return new PreparedMesh(mesh, (minX + maxX) / 2.0, minY, (minZ + maxZ) / 2.0);
     }
     
     // Helper to convert AWT Color to JavaFX Color (add if not present)
@@ -601,8 +787,18 @@ public class Furniture3DView {
         );
     }
 
+    // Gives back the cached materials of an item node's shapes
+    private void releaseMaterials(Node node) {
+        if (!(node instanceof Group group)) return;
+        for (Node child : group.getChildren()) {
+            if (child instanceof Shape3D shape && shape.getMaterial() instanceof PhongMaterial material) {
+                materialCache.release(material);
+            }
+        }
+    }
+
     // --- Placeholder Generators (Keep or move to ModelHelper) --- 
-    private float[] createPlaceholderNormals(int pointDataLength) {
+    private static float[] createPlaceholderNormals(int pointDataLength) {
          float[] normals = new float[pointDataLength];
          for(int i=0; i < pointDataLength / 3; i++){
              normals[i*3 + 0] = 0.0f;
@@ -611,7 +807,7 @@ public class Furniture3DView {
          }
          return normals;
     }
-    private float[] createPlaceholderTexCoords(int pointDataLength) {
+    private static float[] createPlaceholderTexCoords(int pointDataLength) {
          // Need 2 tex coords (s, t) for every 3 point coords (x, y, z)
          int numVertices = pointDataLength / 3;
          return new float[numVertices * 2]; // Defaults to all 0.0f
@@ -621,42 +817,507 @@ public class Furniture3DView {
     private Node createErrorPlaceholderNode(FurnitureItem item) {
         double size = pixelsPerMeter * 0.5; // Fixed size for error sphere
         Sphere sphere = new Sphere(size / 2.0);
-        sphere.setMaterial(new PhongMaterial(Color.RED));
+        sphere.setMaterial(materialCache.acquire(Color.RED, null));
         // Position based on item's intended location - handled by applyItemTransforms
         // sphere.setTranslateY(-size / 2.0); // Y is up, move half height down - REMOVE this, base should be at 0
         return new Group(sphere);
     }
 
-    // Apply position, rotation, scale from FurnitureItem to a JavaFX Node
+    // Apply position, rotation, scale from FurnitureItem to a JavaFX Node.
+    // The node keeps a single Affine that is overwritten in place, so a move allocates nothing and
+    // the node's transform list does not change. The matrix (scale, flip to Y-up, default turn, the
+    // item's rotation and translation) comes from MeshBaker.itemMatrix, shared with the batches.
     private void applyItemTransforms(FurnitureItem item, Node node) {
-        Translate itemTranslate = new Translate(item.getTx(), 0, item.getTy());
-        Rotate itemRotate = new Rotate(Math.toDegrees(item.getRotationRadians()), Rotate.Y_AXIS); 
-        Rotate flipToYUp = new Rotate(180, Rotate.X_AXIS); 
-        Rotate defaultYRotation = new Rotate(180, Rotate.Y_AXIS); // Changed: Default 180-degree Y rotation (was 90)
-
-        // --- Scaling ---
-        // Apply the item's scale factor * default 3D factor * world scale (pixelsPerMeter)
-        double baseScaleX = item.getScaleX() * INITIAL_3D_SCALE_FACTOR;
-        double baseScaleY = item.getScaleY() * INITIAL_3D_SCALE_FACTOR;
-        double finalScaleX = baseScaleX * pixelsPerMeter;
-        double finalScaleY = baseScaleY * pixelsPerMeter;
-        // Use finalScaleX for Z scaling to maintain aspect ratio from 2D view
-        Scale itemScale = new Scale(finalScaleX, finalScaleY, finalScaleX); 
-        
-        LOGGER.log(Level.FINER, "Calculating scale for {0}: itemScale={1}/{2}, initial3D={3}, ppm={4} -> finalScale=({5}, {6}, {5})", 
-            new Object[]{item.type(), item.getScaleX(), item.getScaleY(), INITIAL_3D_SCALE_FACTOR, pixelsPerMeter, finalScaleX, finalScaleY});
-
-        node.getTransforms().clear(); 
-        node.getTransforms().addAll(
-            itemTranslate,      // 5. Move to final position
-            itemRotate,         // 4. Rotate around item's origin (Y-axis) based on item's property
-            defaultYRotation,   // 3. Apply default 180-degree Y rotation (was 90)
-            flipToYUp,          // 2. Flip model to Y-up 
-            itemScale           // 1. Apply scale 
-        );
-        
-        // Log message already includes defaultYRotation object, which will now reflect 180 degrees
-        LOGGER.finer("Applied transforms to " + item.type() + ": T=" + itemTranslate + ", R_item=" + itemRotate + ", R_defaultY=" + defaultYRotation + ", Flip=" + flipToYUp + ", S(final)=" + itemScale);
+        Affine transform = itemTransformMap.get(item.getId());
+        if (transform == null) {
+            transform = new Affine();
+            node.getTransforms().setAll(transform);
+            itemTransformMap.put(item.getId(), transform);
+        }
+        double[] m = itemMatrix(item);
+        transform.setToTransform(m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8], m[9], m[10], m[11]);
+        if (meshBatcher != null) meshBatcher.update(item.getId(), m); // Rebakes its batch if batched
+        Integer handle = itemBvhHandles.get(item.getId());
+        if (handle != null) {
+            itemWorldBounds(item.getId(), m, boundsScratch);
+            itemBvh.update(handle, boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3], boundsScratch[4], boundsScratch[5]);
+            requestCulling();
+        }
+
+        if (LOGGER.isLoggable(Level.FINER)) {
+            LOGGER.log(Level.FINER, "Applied transform to {0}: pos=({1}, {2}), rot={3} deg, finalScale=({4}, {5}, {4})",
+                new Object[]{item.type(), item.getTx(), item.getTy(), Math.toDegrees(item.getRotationRadians()), Math.hypot(m[0], m[2]), -m[5]});
+        }
+    }
+
+    // The item's affine transform as 12 values (mxx, mxy, mxz, tx, myx, ... tz) in the shared scratch array
+    private double[] itemMatrix(FurnitureItem item) {
+        MeshBaker.itemMatrix(item, pixelsPerMeter, itemMatrix);
+        return itemMatrix;
+    }
+
+    // --- Progressive loading ---
+
+    /**
+     * Replaces all items without stalling the FX thread: each item first appears as a box the
+     * size of its footprint, then its real mesh is swapped in once the model is loaded and its
+     * TriangleMesh built on a worker thread, items in view and nearest the camera first, with the
+     * swap-ins of each pulse held to a time budget (see {@link ProgressiveItemLoader}).
+     * Edits made meanwhile (moves, colour changes, removals) apply to the boxes and carry over.
+     * @param geometrySource model geometry by model file name, or null if it cannot be loaded;
+     *                       called on the loader thread, once per model
+     */
+    public void setItemsProgressively(List<FurnitureItem> items, Function<String, GeometryData> geometrySource) {
+        clearAllItemNodes();
+        for (FurnitureItem item : items) {
+            if (item != null && !currentItems.containsKey(item.getId())) addProxyNode(item);
+        }
+        itemLoader.start(items, geometrySource);
+    }
+
+    /** True while box proxies are still waiting for their meshes. FX thread. */
+    public boolean isStreamingItems() { return itemLoader.isActive(); }
+
+    // A box over the item's footprint standing in for its mesh, in the same model units and transform
+    private void addProxyNode(FurnitureItem item) {
+        java.awt.geom.Rectangle2D footprint = item.getBaseFootprint().getBounds2D();
+        double width = Math.max(footprint.getWidth(), 1e-6), depth = Math.max(footprint.getHeight(), 1e-6);
+        // The model is baseLargestDimension tall when that is neither the width nor the depth;
+        // otherwise its height is not known and the shorter side stands in
+        double largest = item.getBaseLargestDimension();
+        double height = largest > Math.max(width, depth) * 1.001 ? largest : Math.min(width, depth);
+        Box box = new Box(width, height, depth);
+        box.setTranslateY(height / 2.0); // Base at y = 0, up is +y before the item transform
+        box.setMaterial(materialCache.acquire(convertAwtToFxColor(item.color()), ITEM_SPECULAR));
+        Node node = new Group(box);
+        FurnitureItem queued = takePendingTransform(item.getId());
+        if (queued != null) item = queued;
+        applyItemTransforms(item, node);
+        itemsGroup.getChildren().add(node);
+        itemNodeMap.put(item.getId(), node);
+        currentItems.put(item.getId(), item);
+        proxyItemIds.add(item.getId());
+        trackItemBounds(item, node, new double[]{width / 2.0, height, depth / 2.0}, null);
+    }
+
+    // Streaming order keys: items in the frustum first, then by squared distance from the camera
+    private void streamPriorities(long[] ids, int count, double[] out) {
+        // Proxies just added start out visible; cull now so "in the frustum" means something
+        if (frustumCulling && cullingDirty) updateCulling();
+        double eyeX = roomWidthMeters * pixelsPerMeter / 2.0, eyeY = 0, eyeZ = roomDepthMeters * pixelsPerMeter / 2.0;
+        if (mainCamera != null) {
+            try {
+                Point3D eye = mainCamera.getLocalToSceneTransform().transform(0, 0, 0);
+                eye = itemsGroup.getLocalToSceneTransform().inverseTransform(eye.getX(), eye.getY(), eye.getZ());
+                eyeX = eye.getX();
+                eyeY = eye.getY();
+                eyeZ = eye.getZ();
+            } catch (NonInvertibleTransformException e) {
+                LOGGER.log(Level.FINE, "Scene transform not invertible; streaming by distance from the room centre.", e);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Integer handle = itemBvhHandles.get(ids[i]);
+            if (handle == null) {
+                out[i] = 0; // Not tracked (already swapped or gone): costs nothing to skip
+                continue;
+            }
+            itemBvh.bounds(handle, boundsScratch);
+            double dx = (boundsScratch[0] + boundsScratch[3]) / 2.0 - eyeX;
+            double dy = (boundsScratch[1] + boundsScratch[4]) / 2.0 - eyeY;
+            double dz = (boundsScratch[2] + boundsScratch[5]) / 2.0 - eyeZ;
+            boolean visible = !frustumCulling || cullVisible[handle];
+            out[i] = (visible ? 0 : 1e30) + dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    // Swaps a proxy for the item's real node; false if the item has gone or was replaced meanwhile
+    private boolean installStreamedItem(long id, GeometryData geometry) {
+        if (!proxyItemIds.contains(id)) return false;
+        addOrUpdateItemNode(currentItems.get(id), geometry); // Latest state of the item, edits included
+        return true;
+    }
+
+    private void dropProxy(long id, String modelFilename) {
+        if (!proxyItemIds.contains(id)) return;
+        LOGGER.warning("Failed to get/load model geometry for: " + modelFilename + "; item left out of the 3D view.");
+        removeItemNode(currentItems.get(id));
+    }
+
+    // --- Static mesh batching ---
+
+    public boolean isMeshBatching() { return meshBatching; }
+
+    /**
+     * Merges the items that are not selected into combined meshes per colour and area (fewer
+     * nodes and draw calls for large layouts), or goes back to one node per item. FX thread.
+     */
+    public void setMeshBatching(boolean enable) {
+        if (enable == meshBatching) return;
+        meshBatching = enable;
+        if (enable) {
+            if (meshBatcher == null) meshBatcher = new StaticMeshBatcher(batchGroup, materialCache, this::detachBatchedNode);
+            for (Long id : itemNodeMap.keySet()) batchItem(id);
+        } else if (meshBatcher != null) {
+            for (Node node : itemNodeMap.values()) attachItemNode(node);
+            meshBatcher.clear();
+        }
+        LOGGER.info("3D mesh batching " + (enable ? "enabled" : "disabled") + ".");
+    }
+
+    /** Items drawn as their own nodes while batching (the selection, which is what gets dragged). FX thread. */
+    public void setSelectedItemIds(Set<Long> ids) {
+        Set<Long> previous = liveItemIds;
+        liveItemIds = new HashSet<>(ids);
+        if (!meshBatching) return;
+        for (Long id : liveItemIds) {
+            if (!previous.contains(id)) unbatchItem(id);
+        }
+        for (Long id : previous) {
+            if (!liveItemIds.contains(id)) batchItem(id);
+        }
+    }
+
+    // Adds an item to the batches if it qualifies; its node stays until the batch is installed
+    private void batchItem(long id) {
+        FurnitureItem item = currentItems.get(id);
+        GeometryData geometry = itemGeometryMap.get(id);
+        if (!meshBatching || item == null || liveItemIds.contains(id) || !MeshBaker.isValid(geometry)) return;
+        meshBatcher.add(id, geometry, item.color(), itemMatrix(item));
+    }
+
+    private void unbatchItem(long id) {
+        if (meshBatcher == null || !meshBatcher.remove(id)) return;
+        Node node = itemNodeMap.get(id);
+        if (node != null) attachItemNode(node);
+    }
+
+    // Called once the batch holding the item is on screen
+    private void detachBatchedNode(long id) {
+        Node node = itemNodeMap.get(id);
+        if (node != null) itemsGroup.getChildren().remove(node);
+        requestCulling(); // The new batch mesh needs a culling state
+    }
+
+    private void attachItemNode(Node node) {
+        if (node.getParent() != itemsGroup) itemsGroup.getChildren().add(node);
+    }
+
+    // --- Frustum culling ---
+
+    public boolean isFrustumCulling() { return frustumCulling; }
+
+    /** Hides item nodes (and mesh batches) outside the camera frustum, or shows everything again. FX thread. */
+    public void setFrustumCulling(boolean enable) {
+        if (enable == frustumCulling) return;
+        frustumCulling = enable;
+        if (enable) {
+            requestCulling();
+            return;
+        }
+        for (int handle = 0; handle < itemBvh.handleCount(); handle++) {
+            if (cullNodes[handle] != null && !cullVisible[handle]) {
+                cullNodes[handle].setVisible(true);
+                cullVisible[handle] = true;
+            }
+        }
+        if (meshBatcher != null) meshBatcher.forEachView(view -> view.setVisible(true));
+    }
+
+    /** Size of the SubScene showing the main camera; the frustum's aspect ratio. */
+    public void setViewportSize(double width, double height) {
+        if (width <= 0 || height <= 0) return;
+        viewportWidth = width;
+        viewportHeight = height;
+        requestCulling();
+    }
+
+    // Puts an item's world bounds into the BVH, from its half width, height and half depth in model
+    // units; items without usable geometry are not tracked and never culled. A handle kept from the
+    // item's previous node (a proxy swapped for its mesh) is moved in place: a refit, not a rebuild
+    private void trackItemBounds(FurnitureItem item, Node node, double[] extents, Integer handle) {
+        itemBaseExtents.put(item.getId(), extents);
+        itemWorldBounds(item.getId(), itemMatrix(item), boundsScratch);
+        if (handle != null) {
+            itemBvh.update(handle, boundsScratch[0], boundsScratch[1], boundsScratch[2],
+                           boundsScratch[3], boundsScratch[4], boundsScratch[5]);
+        } else {
+            handle = itemBvh.insert(item.getId(), boundsScratch[0], boundsScratch[1], boundsScratch[2],
+                                    boundsScratch[3], boundsScratch[4], boundsScratch[5]);
+            if (handle >= cullNodes.length) {
+                int capacity = Math.max(handle + 1, cullNodes.length * 2);
+                cullNodes = Arrays.copyOf(cullNodes, capacity);
+                cullVisible = Arrays.copyOf(cullVisible, capacity);
+                cullStamp = Arrays.copyOf(cullStamp, capacity);
+            }
+            cullStamp[handle] = 0;
+        }
+        cullNodes[handle] = node;
+        cullVisible[handle] = true; // New nodes start visible
+        itemBvhHandles.put(item.getId(), handle);
+        requestCulling();
+    }
+
+    private void untrackItemBounds(int handle) {
+        itemBvh.remove(handle);
+        cullNodes[handle] = null;
+    }
+
+    // Axis-aligned box around the item's transformed mesh box (minX, minY, minZ, maxX, maxY, maxZ)
+    private void itemWorldBounds(long id, double[] m, double[] out) {
+        double[] e = itemBaseExtents.get(id);
+        double halfHeight = e[1] / 2.0;
+        double cx = m[1] * halfHeight + m[3], cy = m[5] * halfHeight + m[7], cz = m[9] * halfHeight + m[11];
+        double ex = Math.abs(m[0]) * e[0] + Math.abs(m[1]) * halfHeight + Math.abs(m[2]) * e[2];
+        double ey = Math.abs(m[4]) * e[0] + Math.abs(m[5]) * halfHeight + Math.abs(m[6]) * e[2];
+        double ez = Math.abs(m[8]) * e[0] + Math.abs(m[9]) * halfHeight + Math.abs(m[10]) * e[2];
+        out[0] = cx - ex;
+        out[1] = cy - ey;
+        out[2] = cz - ez;
+        out[3] = cx + ex;
+        out[4] = cy + ey;
+        out[5] = cz + ez;
+    }
+
+    // Culls before the next pulse; changes within one event are handled together
+    private void requestCulling() {
+        cullingDirty = true;
+        if (cullingScheduled || !frustumCulling) return;
+        cullingScheduled = true;
+        Platform.runLater(() -> {
+            cullingScheduled = false;
+            if (cullingDirty) updateCulling();
+        });
+    }
+
+    /**
+     * Derives the frustum from the camera's transforms into the items' coordinate space, finds the
+     * items inside it with the BVH, and calls setVisible only on nodes whose state changed.
+     */
+    private void updateCulling() {
+        cullingDirty = false;
+        if (!frustumCulling || mainCamera == null) return;
+        Transform cameraToScene = mainCamera.getLocalToSceneTransform();
+        Transform itemsToScene = itemsGroup.getLocalToSceneTransform();
+        // The camera looks along +Z with Y down; its eye is at its origin (fixedEyeAtCameraZero)
+        double tan = Math.tan(Math.toRadians(mainCamera.getFieldOfView() / 2.0));
+        double aspect = viewportWidth / viewportHeight;
+        try {
+            for (int face = 0; face < 2; face++) {
+                double z = face == 0 ? mainCamera.getNearClip() : mainCamera.getFarClip();
+                double halfHeight = mainCamera.isVerticalFieldOfView() ? z * tan : z * tan / aspect;
+                double halfWidth = mainCamera.isVerticalFieldOfView() ? halfHeight * aspect : z * tan;
+                for (int corner = 0; corner < 4; corner++) {
+                    double x = corner == 0 || corner == 3 ? -halfWidth : halfWidth;
+                    double y = corner < 2 ? -halfHeight : halfHeight;
+                    Point3D scenePoint = cameraToScene.transform(x, y, z);
+                    Point3D local = itemsToScene.inverseTransform(scenePoint.getX(), scenePoint.getY(), scenePoint.getZ());
+                    int at = (face * 4 + corner) * 3;
+                    frustumCorners[at] = local.getX();
+                    frustumCorners[at + 1] = local.getY();
+                    frustumCorners[at + 2] = local.getZ();
+                }
+            }
+        } catch (NonInvertibleTransformException e) {
+            LOGGER.log(Level.FINE, "Scene transform not invertible; skipping frustum culling this pass.", e);
+            return;
+        }
+        BoundingVolumeHierarchy.frustumPlanes(frustumCorners, frustumPlanes);
+
+        int pass = ++cullPass;
+        itemBvh.forEachInFrustum(frustumPlanes, handle -> cullStamp[handle] = pass);
+        int changed = 0;
+        for (int handle = 0; handle < itemBvh.handleCount(); handle++) {
+            Node node = cullNodes[handle];
+            if (node == null) continue;
+            boolean visible = cullStamp[handle] == pass;
+            if (visible != cullVisible[handle]) {
+                node.setVisible(visible);
+                cullVisible[handle] = visible;
+                changed++;
+            }
+        }
+        if (meshBatcher != null) {
+            // Batches are few and spatially compact: test their bounds directly
+            meshBatcher.forEachView(view -> {
+                Bounds b = view.getBoundsInParent();
+                boundsScratch[0] = b.getMinX(); boundsScratch[1] = b.getMinY(); boundsScratch[2] = b.getMinZ();
+                boundsScratch[3] = b.getMaxX(); boundsScratch[4] = b.getMaxY(); boundsScratch[5] = b.getMaxZ();
+                boolean visible = BoundingVolumeHierarchy.intersects(frustumPlanes, boundsScratch, 0);
+                if (view.isVisible() != visible) view.setVisible(visible);
+            });
+        }
+        if (changed > 0) LOGGER.finer("Frustum culling changed visibility of " + changed + " item nodes.");
+    }
+
+    // --- Picking and dragging ---
+
+    /**
+     * Lets items be selected by clicking them in the main SubScene and moved by dragging them
+     * along the floor. The listener gets {@code itemSelected} / {@code itemDeselected} on a
+     * press and {@code itemUpdated} with the moved item while dragging, all on the FX thread;
+     * the view itself does not change the item until the update comes back.
+     */
+    public void installPicking(SubScene subScene, ItemUpdateListener listener) {
+        pickListener = listener;
+        subScene.setOnMousePressed(this::handlePickPress);
+        subScene.setOnMouseDragged(this::handlePickDrag);
+        subScene.setOnMouseReleased(e -> dragItem = null);
+    }
+
+    /**
+     * The item under a point of the main SubScene (in its own coordinates), or null. The mouse
+     * ray runs through the item BVH near to far and is tested against the triangles of each
+     * candidate with its model's {@link MeshBvh}, so only a handful of triangles are touched
+     * however large the models are. A model whose MeshBvh is still being built is hit on its
+     * box. FX thread.
+     */
+    public FurnitureItem pickItem(double x, double y) {
+        if (!pickRay(x, y, pickRay)) return null;
+        int handle = itemBvh.raycast(pickRay[0], pickRay[1], pickRay[2], pickRay[3], pickRay[4], pickRay[5],
+                                     mainCamera.getFarClip(), this::hitItem);
+        return handle < 0 ? null : currentItems.get(itemBvh.idAt(handle));
+    }
+
+    // Exact hit test for one item: its model's triangles under its current transform
+    private double hitItem(int handle, double boxDistance, double tMax) {
+        long id = itemBvh.idAt(handle);
+        FurnitureItem item = currentItems.get(id);
+        if (item == null) return Double.POSITIVE_INFINITY;
+        CompletableFuture<MeshBvh> future = meshBvhCache.get(itemGeometryMap.get(id));
+        MeshBvh mesh = future != null ? future.getNow(null) : null;
+        if (mesh == null) return boxDistance; // Not built yet (or failed): the box will do
+        return mesh.raycast(itemMatrix(item), 0, pickRay[0], pickRay[1], pickRay[2], pickRay[3], pickRay[4], pickRay[5], tMax);
+    }
+
+    // Starts building the MeshBvh of a model geometry unless it is cached already
+    private void prepareMeshBvh(GeometryData geometry) {
+        if (!MeshBaker.isValid(geometry) || meshBvhCache.containsKey(geometry)) return;
+        meshBvhCache.put(geometry, CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            MeshBvh bvh = MeshBvh.build(geometry);
+            LOGGER.fine(() -> String.format("Built picking BVH for %d triangles in %.1f ms.",
+                                            bvh.triangleCount(), (System.nanoTime() - start) / 1e6));
+            return bvh;
+        }, meshBvhBuilder).exceptionally(e -> {
+            LOGGER.log(Level.WARNING, "Building a picking BVH failed; the model is picked by its box.", e);
+            return null;
+        }));
+    }
+
+    /**
+     * The ray from the camera eye through a SubScene point, in the items' coordinate space:
+     * origin (0-2) and direction (3-5). The direction is one unit of camera depth long, so t
+     * along it is the depth. False if the scene transforms are not invertible.
+     */
+    private boolean pickRay(double x, double y, double[] out) {
+        if (mainCamera == null || viewportWidth <= 0 || viewportHeight <= 0) return false;
+        Transform cameraToScene = mainCamera.getLocalToSceneTransform();
+        Transform itemsToScene = itemsGroup.getLocalToSceneTransform();
+        double tan = Math.tan(Math.toRadians(mainCamera.getFieldOfView() / 2.0));
+        double half = mainCamera.isVerticalFieldOfView() ? viewportHeight / 2.0 : viewportWidth / 2.0;
+        double cx = (x - viewportWidth / 2.0) / half * tan, cy = (y - viewportHeight / 2.0) / half * tan;
+        try {
+            Point3D eye = cameraToScene.transform(0, 0, 0);
+            Point3D through = cameraToScene.transform(cx, cy, 1);
+            eye = itemsToScene.inverseTransform(eye.getX(), eye.getY(), eye.getZ());
+            through = itemsToScene.inverseTransform(through.getX(), through.getY(), through.getZ());
+            out[0] = eye.getX();
+            out[1] = eye.getY();
+            out[2] = eye.getZ();
+            out[3] = through.getX() - eye.getX();
+            out[4] = through.getY() - eye.getY();
+            out[5] = through.getZ() - eye.getZ();
+            return true;
+        } catch (NonInvertibleTransformException e) {
+            LOGGER.log(Level.FINE, "Scene transform not invertible; nothing picked.", e);
+            return false;
+        }
+    }
+
+    // Floor point (y = 0) under a SubScene point, as 2D world (x, y) = item space (x, z) into out
+    private boolean floorPoint(double x, double y, double[] out) {
+        if (!pickRay(x, y, pickRay) || Math.abs(pickRay[4]) < 1e-9) return false;
+        double t = -pickRay[1] / pickRay[4];
+        if (t <= 0) return false; // Looking away from the floor
+        out[0] = pickRay[0] + t * pickRay[3];
+        out[1] = pickRay[2] + t * pickRay[5];
+        return true;
+    }
+
+    private void handlePickPress(MouseEvent e) {
+        dragItem = null;
+        if (e.getButton() != MouseButton.PRIMARY || pickListener == null) return;
+        long start = System.nanoTime();
+        FurnitureItem hit = pickItem(e.getX(), e.getY());
+        LOGGER.finer(() -> String.format("3D pick took %.3f ms: %s", (System.nanoTime() - start) / 1e6, hit != null ? hit.type() : "nothing"));
+        if (hit == null) {
+            pickListener.itemDeselected();
+            return;
+        }
+        pickListener.itemSelected(hit);
+        double[] floor = new double[2];
+        if (floorPoint(e.getX(), e.getY(), floor)) {
+            dragItem = hit;
+            dragOffsetX = hit.getTx() - floor[0];
+            dragOffsetZ = hit.getTy() - floor[1];
+        }
+    }
+
+    private void handlePickDrag(MouseEvent e) {
+        double[] floor = new double[2];
+        if (dragItem == null || !floorPoint(e.getX(), e.getY(), floor)) return;
+        FurnitureItem current = currentItems.getOrDefault(dragItem.getId(), dragItem);
+        pickListener.itemUpdated(current.translateTo(floor[0] + dragOffsetX, floor[1] + dragOffsetZ));
+        e.consume();
+    }
+
+    // --- Transform updates coalesced per FX pulse ---
+
+    /**
+     * Queues a transform update for an item node; callable from any thread. Updates queued before
+     * the FX thread gets to them are applied together in one runLater, only the latest state of
+     * each item counts. An update for a node that is not added yet is kept until the add.
+     */
+    public void queueItemTransform(FurnitureItem item) {
+        if (item == null) return;
+        synchronized (transformQueueLock) {
+            pendingTransforms.put(item.getId(), item);
+            if (transformFlushScheduled) return;
+            transformFlushScheduled = true;
+        }
+        Platform.runLater(this::flushItemTransforms);
+    }
+
+    private void flushItemTransforms() {
+        Map<Long, FurnitureItem> batch;
+        synchronized (transformQueueLock) {
+            // Swap buffers so the queue stays open while the batch is applied
+            batch = pendingTransforms;
+            pendingTransforms = drainingTransforms;
+            drainingTransforms = batch;
+            transformFlushScheduled = false;
+        }
+        int applied = 0;
+        for (FurnitureItem item : batch.values()) {
+            Node itemNode = itemNodeMap.get(item.getId());
+            if (itemNode == null) {
+                synchronized (transformQueueLock) { pendingTransforms.putIfAbsent(item.getId(), item); } // Applied on add
+                continue;
+            }
+            applyItemTransforms(item, itemNode);
+            currentItems.put(item.getId(), item);
+            applied++;
+        }
+        batch.clear();
+        LOGGER.finer("Applied " + applied + " queued item transforms in one pulse.");
+    }
+
+    /** Removes and returns the queued transform for an item, or null. */
+    private FurnitureItem takePendingTransform(long itemId) {
+        synchronized (transformQueueLock) {
+            return pendingTransforms.remove(itemId);
+        }
     }
 
     // Adjust camera position based on room size changes (also updates distance)
@@ -690,75 +1351,131 @@ public class Furniture3DView {
              LOGGER.finer("Updated camera pivot: X=" + pivot.getX() + " Z=" + pivot.getZ());
         }
          mainCamera.setFarClip(maxDistance * 1.2); // Update far clip based on max possible distance
+         requestCulling();
+    }
+
+    // --- Offscreen snapshots (see SnapshotExporter) ---
+
+    /** Current rotation of the scene in degrees. */
+    double getSceneRotation() { return sceneRotationY.getAngle(); }
+
+    /**
+     * Runs {@code snapshot} with the scene rotated to {@code angle} degrees and that angle's walls
+     * cut away, then puts back the rotation and walls shown on screen. Both happen in the same FX
+     * task, so no pulse ever draws the snapshot pose.
+     */
+    void withSnapshotPose(double angle, Runnable snapshot) {
+        double shown = sceneRotationY.getAngle();
+        sceneRotationY.setAngle(angle);
+        updateWallVisibility(angle);
+        try {
+            snapshot.run();
+        } finally {
+            sceneRotationY.setAngle(shown);
+            updateWallVisibility(shown);
+        }
     }
 
     // --- Animation Setup --- 
+    // The timer only runs while the 3D tab is selected, the panel is showing and the mode animates;
+    // otherwise nothing in the scene changes between events and JavaFX schedules no redraws.
     private void setupAnimation() {
          rotationTimer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                // Increment rotation angle
-                double currentAngle = sceneRotationY.getAngle();
-                // Ensure angle stays within 0-360 range
-                double newAngle = (currentAngle + rotationSpeed) % 360;
-                sceneRotationY.setAngle(newAngle);
-
-                // --- Update Wall Visibility based on Angle ---
-                // Normalize angle to ensure it's positive for easier quadrant checks
-                double normalizedAngle = (newAngle % 360 + 360) % 360;
-
-                // Default: all walls visible initially
-                boolean showNorth = true;
-                boolean showEast = true;
-                boolean showSouth = true;
-                boolean showWest = true;
-
-                // Hide the two walls generally facing *AWAY* from the camera to create cutaway.
-                if (normalizedAngle >= 5 && normalizedAngle < 95) { 
-                    // Camera looking roughly from +X side (towards -X). Hide North and East walls.
-                    showNorth = false;
-                    showEast = false;
-                } else if (normalizedAngle >= 95 && normalizedAngle < 185) { 
-                    // Camera looking roughly from +Z side (towards -Z). Hide East and South walls.
-                    showEast = false;
-                    showSouth = false;
-                } else if (normalizedAngle >= 185 && normalizedAngle < 275) { 
-                    // Camera looking roughly from -X side (towards +X). Hide South and West walls.
-                    showSouth = false;
-                    showWest = false;
-                } else { 
-                    // Camera looking roughly from -Z side (towards +Z). Hide West and North walls (0-45 and 315-360).
-                    showWest = false;
-                    showNorth = false;
+                if (lastFrameNanos < 0) {
+                    lastFrameNanos = now;
+                    return;
                 }
-
-                // Apply visibility (check if nodes exist, though they should after drawRoom)
-                if (northWallBox != null) northWallBox.setVisible(showNorth);
-                if (eastWallBox != null) eastWallBox.setVisible(showEast);
-                if (southWallBox != null) southWallBox.setVisible(showSouth);
-                if (westWallBox != null) westWallBox.setVisible(showWest);
+                long elapsed = now - lastFrameNanos;
+                if (renderMode == RenderMode.CAPPED && elapsed < 1e9 / maxFramesPerSecond) return; // Leaves the scene clean: no redraw
+                lastFrameNanos = now;
+                // Step by elapsed time so the speed is the same in every mode; clamp stalls to 0.1 s
+                double step = rotationSpeed * Math.min(elapsed, 100_000_000L) / 1e9;
+                double newAngle = (sceneRotationY.getAngle() + step) % 360;
+                sceneRotationY.setAngle(newAngle);
+                updateWallVisibility(newAngle);
+                if (cullingDirty) updateCulling(); // Before this pulse renders, not one frame late
             }
         };
     }
 
+    // Hide the two walls generally facing *AWAY* from the camera to create a cutaway.
+    // Visibility only changes when the angle crosses into another quadrant.
+    private void updateWallVisibility(double angle) {
+        double normalizedAngle = (angle % 360 + 360) % 360; // Positive for easier quadrant checks
+        int quadrant;
+        if (normalizedAngle >= 5 && normalizedAngle < 95) {
+            quadrant = 0; // Camera looking roughly from +X side (towards -X). Hide North and East walls.
+        } else if (normalizedAngle >= 95 && normalizedAngle < 185) {
+            quadrant = 1; // Camera looking roughly from +Z side (towards -Z). Hide East and South walls.
+        } else if (normalizedAngle >= 185 && normalizedAngle < 275) {
+            quadrant = 2; // Camera looking roughly from -X side (towards +X). Hide South and West walls.
+        } else {
+            quadrant = 3; // Camera looking roughly from -Z side (towards +Z). Hide West and North walls.
+        }
+        if (quadrant == wallQuadrant) return;
+        wallQuadrant = quadrant;
+        // Wall side i (0=N, 1=E, 2=S, 3=W) is hidden in quadrants i and i - 1
+        for (int side = 0; side < 4; side++) {
+            if (wallSides[side] != null) wallSides[side].setVisible(side != quadrant && side != (quadrant + 1) % 4);
+        }
+    }
+
+    // Starts or stops the timer to match the requested, paused and mode state
+    private void updateAnimationTimer() {
+        boolean run = animationRequested && !animationPaused && renderMode != RenderMode.ON_DEMAND;
+        if (rotationTimer == null || run == timerRunning) return;
+        timerRunning = run;
+        if (run) {
+            lastFrameNanos = -1; // Don't jump by the time spent stopped
+            rotationTimer.start();
+        } else {
+            rotationTimer.stop();
+        }
+        LOGGER.fine((run ? "Started" : "Stopped") + " 3D rotation timer (mode " + renderMode + ").");
+    }
+
     public void startRotationAnimation() {
-         if (rotationTimer != null) {
-             LOGGER.info("Starting 3D rotation animation.");
-             rotationTimer.start();
-         }
+         LOGGER.info("Starting 3D rotation animation.");
+         animationRequested = true;
+         updateAnimationTimer();
     }
 
     public void stopRotationAnimation() {
-         if (rotationTimer != null) {
-             LOGGER.info("Stopping 3D rotation animation.");
-             rotationTimer.stop();
-         }
+         LOGGER.info("Stopping 3D rotation animation.");
+         animationRequested = false;
+         updateAnimationTimer();
+    }
+
+    /** Pauses the animation while the 3D panel is not visible (hidden tab, minimized window). FX thread. */
+    public void setAnimationPaused(boolean paused) {
+        animationPaused = paused;
+        updateAnimationTimer();
+    }
+
+    public RenderMode getRenderMode() { return renderMode; }
+
+    /** Sets how the preview redraws; in {@link RenderMode#ON_DEMAND} the view holds its current angle. FX thread. */
+    public void setRenderMode(RenderMode mode) {
+        if (mode == null || mode == renderMode) return;
+        renderMode = mode;
+        LOGGER.info("3D render mode: " + mode);
+        updateAnimationTimer();
+    }
+
+    /** Frame rate limit for {@link RenderMode#CAPPED}. FX thread. */
+    public void setMaxFramesPerSecond(double fps) {
+        if (fps > 0) maxFramesPerSecond = fps;
     }
 
     // Method to clean up resources (if any needed for JavaFX)
     public void cleanup() {
         stopRotationAnimation(); // Stop timer on cleanup
         clearAllItemNodes(); // Clear nodes on cleanup
+        if (meshBatcher != null) meshBatcher.dispose();
+        meshBvhBuilder.shutdownNow();
+        itemLoader.dispose();
         LOGGER.info("Cleaning up Furniture3DView (JavaFX)...");
         // No explicit cleanup needed for animator or glCanvas anymore
         // JavaFX nodes will be garbage collected when no longer referenced.
@@ -2,9 +2,12 @@ package com.furnitureapp.ui;
 
 import com.furnitureapp.model.FurnitureItem;
 
+import java.util.List;
+
 /**
  * Listener interface for components that need to be notified about
- * changes to FurnitureItems originating from the DrawingCanvas.
+ * changes to FurnitureItems originating from the DrawingCanvas (or from
+ * picking in the 3D view, see Furniture3DView#installPicking).
  */
 public interface ItemUpdateListener {
     /** Called when an item's transform (position, rotation, scale) has been changed in the canvas. */
@@ -13,4 +16,18 @@ public interface ItemUpdateListener {
     void itemSelected(FurnitureItem selectedItem);
     /** Called when no item is selected in the canvas. */
     void itemDeselected();
+
+    /**
+     * Called once when a group transform changed several items together.
+     * The default forwards each item to {@link #itemUpdated}; implementations should override
+     * it to apply the whole batch with a single refresh.
+     */
+    default void itemsUpdated(List<FurnitureItem> updatedItems) {
+        for (FurnitureItem item : updatedItems) {
+            itemUpdated(item);
+        }
+    }
+
+    /** Called when the set of selected items changes (marquee, shift/ctrl toggling). Empty when nothing is selected. */
+    default void selectionChanged(List<FurnitureItem> selectedItems) { }
 } 
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.furnitureapp.ui;
 
 import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
 import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.model.LayoutOptimizer;
+import com.furnitureapp.model.RoomShape;
 import com.furnitureapp.util.ModelHelper;
 import com.furnitureapp.util.ModelHelper.ModelLoadResult;
 // JavaFX imports needed
@@ -31,11 +34,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.WindowStateListener;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.logging.Logger; // Added Logger import
 import java.util.logging.Level; // Added Level import
@@ -48,10 +54,13 @@ import javax.swing.event.ChangeListener;
 import javax.swing.event.ChangeEvent;
 import java.util.Map; // Added import
 import java.util.HashMap; // Added import
+import java.util.HashSet;
+import java.util.Set;
 import javax.swing.JToggleButton; // Added import
 import com.furnitureapp.io.ColorData;
 import com.furnitureapp.io.ItemData;
 import com.furnitureapp.io.LayoutData;
+import com.furnitureapp.io.PlanExporter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature; // For pretty printing
 import java.io.IOException; // Added import
@@ -64,9 +73,11 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
 
     private static final Logger LOGGER = Logger.getLogger(MainWorkspacePanel.class.getName()); // Added Logger instance
     private static final String MODELS_DIR = "assets/objects"; // Assuming OBJs are here too
+    private static final int ROOM_3D_UPDATE_MILLIS = 40; // Spinner changes reach the 3D view at most this often
     // private static final double DPAD_PAN_AMOUNT = 20.0; // DPad controls removed/disabled
 
     private DrawingCanvas drawingCanvas;
+    private MinimapPanel minimapPanel; // Overview of the whole plan, pans the canvas
     private JToolBar topToolBar;
     private JList<String> objFileList;
     private DefaultListModel<String> objListModel;
@@ -74,6 +85,9 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
     private JPanel controlPanel; // Panel for room controls etc.
     private JSpinner roomWidthSpinner;
     private JSpinner roomDepthSpinner;
+    private JToggleButton editRoomButton; // Room outline vertex editing in the 2D canvas
+    private JCheckBox keepInsideBox;      // Refuse drags that leave the room
+    private JToggleButton editDoorsButton; // Door placement on the room outline
     private JSpinner wallHeightSpinner;
     private JTabbedPane centerTabbedPane; // Add this field
     // private JPanel viewControlPanel; // Removed: Panel for zoom/pan buttons
@@ -83,13 +97,16 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
     private JFileChooser layoutFileChooser; // Renamed/repurposed file chooser
     private JFXPanel jfxPanel; // Added JavaFX panel
     private Furniture3DView furniture3DView; // Added JavaFX 3D view component
+    private volatile SubScene mainSubScene;  // Shows the 3D view; set by initFX on the FX thread
 
     private double roomWidthMeters = 5.0;
     private double roomDepthMeters = 4.0; // Represents depth in 3D
     private double wallHeightMeters = 2.5; // Added wall height
+    // Sends the latest room state to the 3D view once the spinner changes of the interval are in
+    private final javax.swing.Timer room3DUpdateTimer = new javax.swing.Timer(ROOM_3D_UPDATE_MILLIS, e -> sendDimensionsAndColorsTo3DView());
 
     // --- State Management ---
-    private List<FurnitureItem> furnitureItems;
+    private FurnitureScene scene; // Placed items in draw order, indexed by item ID
     private FurnitureItem selectedItem; // Keep track of the selected item centrally
     private Map<String, ModelLoadResult> itemModelCache; // Added itemModelCache
 
@@ -105,6 +122,16 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
     private JButton zoomInButton; // Added
     private JButton zoomOutButton; // Added
     private JToggleButton toggleLightingButton; // Added
+    private JComboBox<DrawingCanvas.ItemRenderMode> renderModeCombo; // How the 2D canvas draws furniture
+    private JComboBox<Furniture3DView.RenderMode> render3DModeCombo; // How often the 3D preview redraws
+    private JToggleButton meshBatchingButton; // Merge unselected 3D items into combined meshes
+    private Window watchedWindow; // Window whose minimize state pauses the 3D animation
+    private final WindowStateListener windowStateListener = e -> update3DAnimationPause();
+    private JToggleButton snapButton; // Snapping in the 2D canvas
+    private JToggleButton dimensionsButton; // Gap lines around the selected item on the 2D canvas
+    private JToggleButton hudButton; // Frame metrics overlay on the 2D canvas
+    private JToggleButton clearanceButton; // Walkway/turning-circle heat map on the 2D canvas
+    private JButton autoLayoutButton; // Runs the layout optimizer; disabled while a search runs
     private ObjectMapper objectMapper; // Jackson object mapper
 
     public MainWorkspacePanel() {
@@ -114,6 +141,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         Platform.startup(() -> {});
 
         itemModelCache = new HashMap<>(); // Initialize cache
+        room3DUpdateTimer.setRepeats(false);
         objectMapper = new ObjectMapper();
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT); // Make JSON readable
         initComponents();
@@ -133,13 +161,15 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         jfxPanel = new JFXPanel(); // Initialize the JFXPanel
 
         // Initialize furniture list before setting up views
-        furnitureItems = new ArrayList<>();
+        scene = new FurnitureScene();
         selectedItem = null;
 
         // Setup DrawingCanvas
         drawingCanvas.setRoomDimensions(roomWidthMeters, roomDepthMeters);
-        drawingCanvas.setFurnitureItems(furnitureItems);
+        drawingCanvas.setScene(scene);
         drawingCanvas.setItemUpdateListener(this);
+        minimapPanel = new MinimapPanel(drawingCanvas);
+        minimapPanel.setScene(scene);
 
         // Initialize JavaFX content on the FX thread
         Platform.runLater(() -> initFX(jfxPanel));
@@ -173,12 +203,50 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         topToolBar.add(toggleLightingButton);
         // --- End Lighting Toggle Button --- 
 
+        // --- 2D Render Mode Toggle ---
+        renderModeCombo = new JComboBox<>(DrawingCanvas.ItemRenderMode.values());
+        renderModeCombo.setToolTipText("2D drawing: per item, grouped by colour, or cached tiles rendered in the background (large layouts)");
+        renderModeCombo.setSelectedItem(drawingCanvas.getItemRenderMode()); // Initial state matches DrawingCanvas
+        renderModeCombo.setMaximumSize(renderModeCombo.getPreferredSize()); // Don't stretch in the toolbar
+        topToolBar.add(renderModeCombo);
+        render3DModeCombo = new JComboBox<>(Furniture3DView.RenderMode.values());
+        render3DModeCombo.setToolTipText("3D preview: rotate continuously, rotate at a capped frame rate, or only redraw when something changes");
+        render3DModeCombo.setSelectedItem(Furniture3DView.RenderMode.CONTINUOUS); // Initial state matches Furniture3DView
+        render3DModeCombo.setMaximumSize(render3DModeCombo.getPreferredSize());
+        topToolBar.add(render3DModeCombo);
+        meshBatchingButton = new JToggleButton("Batch 3D");
+        meshBatchingButton.setToolTipText("Draw unselected items in the 3D preview as merged meshes per colour (faster for large layouts)");
+        topToolBar.add(meshBatchingButton);
+        snapButton = new JToggleButton("Snap");
+        snapButton.setToolTipText("Snap to grid, walls and nearby furniture while dragging (hold Alt to suspend)");
+        snapButton.setSelected(true); // Initial state matches DrawingCanvas
+        topToolBar.add(snapButton);
+        dimensionsButton = new JToggleButton("Dimensions");
+        dimensionsButton.setToolTipText("Show the distances from the selected item to the nearest walls and items");
+        dimensionsButton.setSelected(drawingCanvas.isDimensionsVisible()); // Initial state matches DrawingCanvas
+        topToolBar.add(dimensionsButton);
+        hudButton = new JToggleButton("Metrics");
+        hudButton.setToolTipText("Show paint, hit-test and update timings over the 2D view");
+        topToolBar.add(hudButton);
+        clearanceButton = new JToggleButton("Clearance");
+        clearanceButton.setToolTipText("Show where free floor is narrower than a 0.9 m walkway, unreachable from the doors, or fits a 1.5 m turning circle");
+        topToolBar.add(clearanceButton);
+        autoLayoutButton = new JButton("Auto Layout");
+        autoLayoutButton.setToolTipText("Search for an arrangement of the selected items (or all items) without overlaps, keeping walkways and wall clearance");
+        topToolBar.add(autoLayoutButton);
+
         // --- Add Save/Load Buttons to Toolbar --- 
         topToolBar.addSeparator();
         JButton saveButton = new JButton("Save Layout");
         topToolBar.add(saveButton);
         JButton loadButton = new JButton("Load Layout");
         topToolBar.add(loadButton);
+        JButton exportButton = new JButton("Export Plan");
+        exportButton.setToolTipText("Export the 2D plan as PNG, SVG or PDF for printing");
+        topToolBar.add(exportButton);
+        JButton snapshotButton = new JButton("Export 3D Snapshot");
+        snapshotButton.setToolTipText("Export the 3D view as high-resolution PNG images, from one or more angles");
+        topToolBar.add(snapshotButton);
 
         // --- OBJ File List Setup ---
         objListModel = new DefaultListModel<>();
@@ -232,14 +300,52 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             wallColorChooserPanel.add(wallColorButtons[i]); 
         }
 
+        // Room outline: vertex editing, columns, reset, containment
+        JPanel shapePanel = new JPanel(new GridLayout(3, 2, 4, 4));
+        editRoomButton = new JToggleButton("Edit Shape");
+        editRoomButton.setToolTipText("Drag corners of the room in 2D; double-click an edge to add a corner, a corner to remove it");
+        shapePanel.add(editRoomButton);
+        JButton addColumnButton = new JButton("Add Column");
+        addColumnButton.setToolTipText("Add a 0.4 m square column at the centre of the room");
+        addColumnButton.addActionListener(e -> addRoomColumn());
+        shapePanel.add(addColumnButton);
+        JButton rectangleButton = new JButton("Rectangle");
+        rectangleButton.setToolTipText("Reset the room to a rectangle of the current width and depth");
+        rectangleButton.addActionListener(e -> drawingCanvas.setRoomShape(RoomShape.rectangle(roomWidthMeters, roomDepthMeters)));
+        shapePanel.add(rectangleButton);
+        keepInsideBox = new JCheckBox("Keep inside");
+        keepInsideBox.setToolTipText("Stop furniture from being moved, resized or rotated through the walls");
+        shapePanel.add(keepInsideBox);
+        editDoorsButton = new JToggleButton("Doors");
+        editDoorsButton.setToolTipText("Click on a wall in 2D to add a door, click a door to remove it");
+        shapePanel.add(editDoorsButton);
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 2; gbc.fill = GridBagConstraints.HORIZONTAL;
+        controlPanel.add(shapePanel, gbc);
+        gbc.gridwidth = 1;
+
         // Add empty component to push controls up
-        gbc.gridx = 0; gbc.gridy = 3; gbc.weighty = 1.0;
+        gbc.gridx = 0; gbc.gridy = 4; gbc.weighty = 1.0;
         controlPanel.add(new JPanel(), gbc);
 
         // --- DPad Control Panel Setup ---
         dPadControlPanel = new DPadControlPanel();
     }
 
+    // Hooks the window holding the 3D panel so that minimizing it pauses the animation
+    private void watchWindowState() {
+        Window window = SwingUtilities.getWindowAncestor(jfxPanel);
+        if (window == watchedWindow) return;
+        if (watchedWindow != null) watchedWindow.removeWindowStateListener(windowStateListener);
+        watchedWindow = window;
+        if (window != null) window.addWindowStateListener(windowStateListener);
+    }
+
+    private void update3DAnimationPause() {
+        boolean minimized = watchedWindow instanceof Frame frame && (frame.getExtendedState() & Frame.ICONIFIED) != 0;
+        boolean paused = !jfxPanel.isShowing() || minimized;
+        if (furniture3DView != null) Platform.runLater(() -> furniture3DView.setAnimationPaused(paused));
+    }
+
     /**
      * Initializes the JavaFX components. Must be called on the JavaFX Application Thread.
      */
@@ -269,6 +375,24 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         );
         mainSubScene.setFill(Color.LIGHTSKYBLUE); // Set background color
         mainSubScene.setCamera(mainCamera);
+        this.mainSubScene = mainSubScene;
+        // Click to select, drag along the floor to move; applied through the canvas so both views agree
+        furniture3DView.installPicking(mainSubScene, new ItemUpdateListener() {
+            @Override
+            public void itemUpdated(FurnitureItem item) {
+                SwingUtilities.invokeLater(() -> drawingCanvas.moveItemTo(item.getId(), item.getTx(), item.getTy()));
+            }
+
+            @Override
+            public void itemSelected(FurnitureItem item) {
+                SwingUtilities.invokeLater(() -> drawingCanvas.selectItemById(item.getId()));
+            }
+
+            @Override
+            public void itemDeselected() {
+                SwingUtilities.invokeLater(drawingCanvas::deselectItem);
+            }
+        });
 
         // Create compass node and a simple camera for it
         Parent compassNode = furniture3DView.createCompass();
@@ -290,8 +414,14 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         mainSubScene.heightProperty().bind(layoutPane.heightProperty());
 
         // Add listeners to update camera positioning when SubScene resizes
-        mainSubScene.widthProperty().addListener((obs, oldVal, newVal) -> furniture3DView.updateCameraPositioning());
-        mainSubScene.heightProperty().addListener((obs, oldVal, newVal) -> furniture3DView.updateCameraPositioning());
+        mainSubScene.widthProperty().addListener((obs, oldVal, newVal) -> {
+            furniture3DView.setViewportSize(mainSubScene.getWidth(), mainSubScene.getHeight()); // Frustum aspect ratio
+            furniture3DView.updateCameraPositioning();
+        });
+        mainSubScene.heightProperty().addListener((obs, oldVal, newVal) -> {
+            furniture3DView.setViewportSize(mainSubScene.getWidth(), mainSubScene.getHeight());
+            furniture3DView.updateCameraPositioning();
+        });
 
         // Create the final Scene with the layout pane
         Scene finalScene = new Scene(layoutPane);
@@ -339,6 +469,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         JPanel eastPanel = new JPanel(new BorderLayout(0, 5));
         eastPanel.add(furnitureItemListPanel, BorderLayout.CENTER);
         // eastPanel.add(dPadControlPanel, BorderLayout.SOUTH); 
+        eastPanel.add(minimapPanel, BorderLayout.SOUTH);
 
         // Center: Tabbed Pane with 2D and 3D views
         centerTabbedPane.addTab("2D Design", drawingCanvas);
@@ -381,6 +512,10 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         roomWidthSpinner.addChangeListener(e -> updateRoomDimensionsState());
         roomDepthSpinner.addChangeListener(e -> updateRoomDimensionsState());
         wallHeightSpinner.addChangeListener(e -> updateRoomDimensionsState());
+        editRoomButton.addActionListener(e -> drawingCanvas.setRoomEditing(editRoomButton.isSelected()));
+        keepInsideBox.addActionListener(e -> drawingCanvas.setConstrainToRoom(keepInsideBox.isSelected()));
+        editDoorsButton.addActionListener(e -> drawingCanvas.setDoorEditing(editDoorsButton.isSelected()));
+        drawingCanvas.addPropertyChangeListener("roomShape", e -> roomShapeChanged());
         
         // Refresh 3D button listener - Re-enabled
         JButton refreshButton = findButton(topToolBar, "Refresh 3D");
@@ -430,9 +565,37 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             }
         });
 
+        // --- Add Listener for 2D Render Mode ---
+        renderModeCombo.addActionListener(e -> drawingCanvas.setItemRenderMode(
+                (DrawingCanvas.ItemRenderMode) renderModeCombo.getSelectedItem()));
+
+        render3DModeCombo.addActionListener(e -> {
+            Furniture3DView.RenderMode mode = (Furniture3DView.RenderMode) render3DModeCombo.getSelectedItem();
+            if (furniture3DView != null) Platform.runLater(() -> furniture3DView.setRenderMode(mode));
+        });
+        meshBatchingButton.addActionListener(e -> {
+            boolean enable = meshBatchingButton.isSelected();
+            if (furniture3DView != null) Platform.runLater(() -> furniture3DView.setMeshBatching(enable));
+        });
+        // Pause the 3D animation while its panel is not on screen or the window is minimized
+        jfxPanel.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & (HierarchyEvent.SHOWING_CHANGED | HierarchyEvent.PARENT_CHANGED)) != 0) {
+                watchWindowState();
+                update3DAnimationPause();
+            }
+        });
+
+        snapButton.addActionListener(e -> drawingCanvas.setSnappingEnabled(snapButton.isSelected()));
+        dimensionsButton.addActionListener(e -> drawingCanvas.setDimensionsVisible(dimensionsButton.isSelected()));
+        hudButton.addActionListener(e -> drawingCanvas.setHudVisible(hudButton.isSelected()));
+        clearanceButton.addActionListener(e -> drawingCanvas.setClearanceAnalysis(clearanceButton.isSelected()));
+        autoLayoutButton.addActionListener(e -> optimizeLayout());
+
         // --- Add Listeners for Save/Load Buttons --- 
         findButton(topToolBar, "Save Layout").addActionListener(e -> saveLayout());
         findButton(topToolBar, "Load Layout").addActionListener(e -> loadLayout());
+        findButton(topToolBar, "Export Plan").addActionListener(e -> exportPlan());
+        findButton(topToolBar, "Export 3D Snapshot").addActionListener(e -> exportSnapshot());
     }
 
     /**
@@ -498,7 +661,8 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             GeometryData newGeometry = result.geometry;
 
             Point2D viewCenterWorld = screenToWorld(new Point(drawingCanvas.getWidth() / 2, drawingCanvas.getHeight() / 2));
-            FurnitureItem positionedItem = newItemTemplate.translateTo(viewCenterWorld.getX(), viewCenterWorld.getY());
+            // Fresh ID per placement: the cached template is shared by every piece of this model
+            FurnitureItem positionedItem = newItemTemplate.withNewId().translateTo(viewCenterWorld.getX(), viewCenterWorld.getY());
             
             addFurnitureItem(positionedItem); 
 
@@ -538,9 +702,9 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
     // addFurnitureItem: No 3D view calls needed here anymore
     public void addFurnitureItem(FurnitureItem item) {
         if (item != null) {
-            this.furnitureItems.add(item);
-            drawingCanvas.setFurnitureItems(this.furnitureItems);
-            furnitureItemListPanel.updateList(this.furnitureItems); 
+            scene.add(item);
+            drawingCanvas.sceneChanged();
+            furnitureItemListPanel.updateList(scene.asList()); 
         }
     }
 
@@ -552,11 +716,11 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
 
     // clearItems: Needs to tell 3D view to clear
     public void clearItems() {
-        furnitureItems.clear();
+        scene.clear();
         selectedItem = null;
-        drawingCanvas.setFurnitureItems(furnitureItems);
+        drawingCanvas.sceneChanged();
         drawingCanvas.deselectItem(); 
-        furnitureItemListPanel.updateList(this.furnitureItems);
+        furnitureItemListPanel.updateList(scene.asList());
         infoPanel.updateInfo(null); 
         // Tell 3D view to clear its items
         if (furniture3DView != null) {
@@ -567,22 +731,55 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
     // itemUpdated: Needs to tell 3D view to update transforms
     @Override
     public void itemUpdated(FurnitureItem updatedItem) {
-        if (this.selectedItem != null) {
-            updateSelectedItem(this.selectedItem, updatedItem); 
+        // Resolve the stored version by ID, so duplicates of the same model never get mixed up
+        FurnitureItem currentItem = scene.getById(updatedItem.getId());
+        if (currentItem != null) {
+            updateSelectedItem(currentItem, updatedItem);
         } else {
-            if (!furnitureItems.isEmpty()) {
-                FurnitureItem lastItem = furnitureItems.get(furnitureItems.size() -1);
-                if (lastItem.type().equals(updatedItem.type())) { 
-                     updateSelectedItem(lastItem, updatedItem);
-                } else {
-                     LOGGER.warning("itemUpdated called with no selectedItem, and updatedItem doesn't match last added. Update skipped for: " + updatedItem.type());
-                }
-            } else {
-                 LOGGER.warning("itemUpdated called with no selectedItem and no items in list. Update skipped for: " + updatedItem.type());
-            }
+            LOGGER.warning("itemUpdated called for an item that is not in the scene. Update skipped for: " + updatedItem.type() + " (id " + updatedItem.getId() + ")");
         }
     }
     
+    // itemsUpdated: one refresh of the list, canvas and 3D view for a whole group transform
+    @Override
+    public void itemsUpdated(List<FurnitureItem> updatedItems) {
+        List<FurnitureItem[]> changes = new ArrayList<>(updatedItems.size()); // {old, new} pairs for the 3D view
+        for (FurnitureItem updatedItem : updatedItems) {
+            FurnitureItem currentItem = scene.getById(updatedItem.getId());
+            if (currentItem == null || !scene.replace(updatedItem)) {
+                LOGGER.warning("itemsUpdated: item id " + updatedItem.getId() + " is not in the scene. Update skipped.");
+                continue;
+            }
+            if (selectedItem != null && selectedItem.getId() == updatedItem.getId()) {
+                this.selectedItem = updatedItem;
+            }
+            changes.add(new FurnitureItem[]{currentItem, updatedItem});
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        drawingCanvas.sceneChanged();
+        infoPanel.updateInfo(selectedItem);
+        updateSaveState(true);
+
+        if (furniture3DView != null) {
+            // Transforms coalesce into the next FX pulse; colour changes are rare and go in one runLater
+            List<FurnitureItem[]> recolored = new ArrayList<>();
+            for (FurnitureItem[] change : changes) {
+                if (!change[0].color().equals(change[1].color())) recolored.add(change);
+                furniture3DView.queueItemTransform(change[1]);
+            }
+            if (!recolored.isEmpty()) {
+                Platform.runLater(() -> {
+                    for (FurnitureItem[] change : recolored) furniture3DView.updateItemColor(change[0], change[1]);
+                });
+            }
+        }
+        updateUndoRedoState();
+        LOGGER.finer("itemsUpdated: applied " + changes.size() + " item updates in one batch.");
+    }
+
     // Called when scale spinner value changes
     private void handleScaleChange() {
         if (infoPanel.isInternalSpinnerUpdate() || selectedItem == null) {
@@ -614,16 +811,19 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             return;
         }
 
-        int index = furnitureItems.indexOf(oldItem);
+        if (oldItem.getId() != newItem.getId()) {
+            LOGGER.warning("updateSelectedItem called with items of different IDs: " + oldItem.getId() + " / " + newItem.getId());
+            return;
+        }
 
-        if (index != -1) {
-            furnitureItems.set(index, newItem);
-            this.selectedItem = newItem;
+        if (scene.replace(newItem)) {
+            if (selectedItem == null || selectedItem.getId() == newItem.getId()) {
+                this.selectedItem = newItem;
+            }
 
-            // IMPORTANT: Give DrawingCanvas the updated list so it can update its internal copy
-            // and also its own selectedItem reference. Pass a new copy.
+            // DrawingCanvas shares the scene; it only needs to refresh its selectedItem reference
             if (drawingCanvas != null) {
-                drawingCanvas.setFurnitureItems(new ArrayList<>(this.furnitureItems));
+                drawingCanvas.sceneChanged();
             }
 
             infoPanel.updateInfo(newItem);
@@ -644,7 +844,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                     if (colorChanged) {
                         Platform.runLater(() -> furniture3DView.updateItemColor(oldItem, newItem));
                     }
-                    Platform.runLater(() -> furniture3DView.updateItemTransforms(oldItem, newItem));
+                    furniture3DView.queueItemTransform(newItem); // Coalesced with other moves in the same pulse
                 } else {
                     LOGGER.warning("furniture3DView is null, skipping 3D updates for item: " + newItem.type());
                 }
@@ -661,7 +861,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             updateUndoRedoState();
             // drawingCanvas.repaint(); // setFurnitureItems in DrawingCanvas should handle repaint
         } else {
-            LOGGER.warning("updateSelectedItem: oldItem not found in furnitureItems list. Old: " + oldItem.type() + " New: " + newItem.type());
+            LOGGER.warning("updateSelectedItem: item id " + oldItem.getId() + " not found in scene. Old: " + oldItem.type() + " New: " + newItem.type());
         }
     }
 
@@ -687,12 +887,47 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
 
          if (changed) {
              drawingCanvas.setRoomDimensions(roomWidthMeters, roomDepthMeters); 
-             LOGGER.info(String.format("Room dimensions updated: W=%.1f, D=%.1f, H=%.1f%n", 
-                 roomWidthMeters, roomDepthMeters, wallHeightMeters));
-             sendDimensionsAndColorsTo3DView(); // Send updates immediately
+             if (LOGGER.isLoggable(Level.FINE)) {
+                 LOGGER.fine(String.format("Room dimensions updated: W=%.1f, D=%.1f, H=%.1f",
+                     roomWidthMeters, roomDepthMeters, wallHeightMeters));
+             }
+             requestRoom3DUpdate();
          }
     }
 
+    // Held spinner arrows fire many changes (each also a "roomShape" change from the canvas):
+    // coalesce them, the timer sends the latest values
+    private void requestRoom3DUpdate() {
+        if (!room3DUpdateTimer.isRunning()) room3DUpdateTimer.start();
+    }
+
+    // Mirrors an edited room outline into the spinners and the 3D view
+    private void roomShapeChanged() {
+        RoomShape shape = drawingCanvas.getRoomShape();
+        roomWidthMeters = drawingCanvas.getRoomWidthMeters();
+        roomDepthMeters = drawingCanvas.getRoomDepthMeters();
+        roomWidthSpinner.setValue(roomWidthMeters); // Equal to the members, so no update loop
+        roomDepthSpinner.setValue(roomDepthMeters);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(String.format("Room shape updated: %d edges, %.2f m2", shape.edgeCount(), shape.area()));
+        }
+        requestRoom3DUpdate();
+    }
+
+    // Adds a square column in the middle of the room if it fits there
+    private void addRoomColumn() {
+        RoomShape shape = drawingCanvas.getRoomShape();
+        double cx = (shape.getMinX() + shape.getMaxX()) / 2, cy = (shape.getMinY() + shape.getMaxY()) / 2, half = 0.2;
+        RoomShape withColumn = shape.withHole(new double[]{cx - half, cy - half, cx + half, cy - half,
+                                                           cx + half, cy + half, cx - half, cy + half});
+        if (withColumn.isValid()) {
+            drawingCanvas.setRoomShape(withColumn);
+        } else {
+            JOptionPane.showMessageDialog(this, "The centre of the room is not free for a column.",
+                                          "Add Column", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
     // NEW: Method to send current dims/colors to 3D view
     private void sendDimensionsAndColorsTo3DView() {
          if (furniture3DView != null) {
@@ -704,7 +939,9 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
             final double width = roomWidthMeters;
             final double depth = roomDepthMeters;
             final double height = wallHeightMeters;
+            final RoomShape shape = drawingCanvas.getRoomShape();
             Platform.runLater(() -> {
+                furniture3DView.setRoomShape(shape);
                 furniture3DView.setRoomDimensions(width, depth, height);
                 furniture3DView.setWallColors(fxWallColors);
             });
@@ -741,6 +978,17 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
          // Let DrawingCanvas handle its own selection highlighting
     }
 
+    @Override
+    public void selectionChanged(List<FurnitureItem> selectedItems) {
+        LOGGER.fine("Selection changed: " + selectedItems.size() + " item(s)");
+        if (furniture3DView != null) {
+            // Selected (and so draggable) items stay out of the 3D mesh batches
+            Set<Long> ids = new HashSet<>();
+            for (FurnitureItem item : selectedItems) ids.add(item.getId());
+            Platform.runLater(() -> furniture3DView.setSelectedItemIds(ids));
+        }
+    }
+
     @Override
     public void itemDeselected() {
         selectedItem = null;
@@ -834,6 +1082,15 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                 layoutData.roomWidthMeters = this.roomWidthMeters;
                 layoutData.roomDepthMeters = this.roomDepthMeters;
                 layoutData.wallHeightMeters = this.wallHeightMeters;
+                RoomShape shape = drawingCanvas.getRoomShape();
+                if (!shape.isRectangle() || shape.getMinX() != 0 || shape.getMinY() != 0) {
+                    layoutData.roomRings = shape.rings(); // Width/depth alone describe a plain room
+                }
+                List<Point2D.Double> doors = drawingCanvas.getDoors();
+                if (!doors.isEmpty()) {
+                    layoutData.doors = new ArrayList<>();
+                    for (Point2D.Double door : doors) layoutData.doors.add(new double[]{door.x, door.y});
+                }
                 
                 // Convert wall colors
                 layoutData.wallColors = new ArrayList<>();
@@ -843,8 +1100,9 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
 
                 // Convert furniture items
                 layoutData.items = new ArrayList<>();
-                for (FurnitureItem item : this.furnitureItems) {
+                for (FurnitureItem item : scene.asList()) {
                     ItemData itemData = new ItemData();
+                    itemData.id = item.getId();
                     itemData.modelFilename = item.getModelFilename();
                     itemData.type = item.type();
                     itemData.color = new ColorData(item.color());
@@ -891,6 +1149,22 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                 wallHeightSpinner.setValue(this.wallHeightMeters);
                 // Update 2D canvas dimensions (triggers repaint)
                 drawingCanvas.setRoomDimensions(this.roomWidthMeters, this.roomDepthMeters); 
+                if (layoutData.roomRings != null) {
+                    try {
+                        drawingCanvas.setRoomShape(new RoomShape(layoutData.roomRings));
+                    } catch (IllegalArgumentException ex) {
+                        LOGGER.log(Level.WARNING, "Ignoring invalid room outline in " + file.getName(), ex);
+                    }
+                } else {
+                    drawingCanvas.setRoomShape(RoomShape.rectangle(this.roomWidthMeters, this.roomDepthMeters));
+                }
+                List<Point2D.Double> doors = new ArrayList<>();
+                if (layoutData.doors != null) {
+                    for (double[] door : layoutData.doors) {
+                        if (door != null && door.length == 2) doors.add(new Point2D.Double(door[0], door[1]));
+                    }
+                }
+                drawingCanvas.setDoors(doors);
 
                 // 3. Update Wall Colors
                 if (layoutData.wallColors != null && layoutData.wallColors.size() == 4) {
@@ -904,6 +1178,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
 
                 // 4. Rebuild Furniture Items List
                 List<FurnitureItem> loadedItems = new ArrayList<>();
+                Set<Long> loadedIds = new HashSet<>();
                 if (layoutData.items != null) {
                     for (ItemData itemData : layoutData.items) {
                         // Reload model template to get base footprint etc.
@@ -916,7 +1191,9 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                         if (templateResult != null && templateResult.item != null) {
                             FurnitureItem template = templateResult.item;
                             // Start with the template (has base shape, type, base dimension, model filename)
-                            FurnitureItem loadedItem = template 
+                            // Keep the saved ID unless it is missing (older files) or already used in this file
+                            boolean reuseId = itemData.id > 0 && loadedIds.add(itemData.id);
+                            FurnitureItem loadedItem = (reuseId ? template.withId(itemData.id) : template.withNewId())
                                 .withColor(itemData.color.toAwtColor()) // Apply loaded color
                                 .setScale(itemData.scaleX, itemData.scaleY) // Apply loaded scale
                                 .setRotation(itemData.rotationRadians) // Apply loaded rotation
@@ -928,11 +1205,11 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                         }
                     }
                 }
-                this.furnitureItems = loadedItems; // Replace the main list
+                scene.setAll(loadedItems); // Replace the scene content
 
                 // 5. Update UI Components
-                drawingCanvas.setFurnitureItems(this.furnitureItems); // Update canvas with new list
-                furnitureItemListPanel.updateList(this.furnitureItems); // Update list panel
+                drawingCanvas.sceneChanged(); // Canvas shares the scene, just refresh it
+                furnitureItemListPanel.updateList(scene.asList()); // Update list panel
                 infoPanel.updateInfo(null); // Clear info panel
                 refresh3DViewCompletely(); // Reload all items in 3D view
                 sendDimensionsAndColorsTo3DView(); // Ensure 3D room state is correct
@@ -949,6 +1226,268 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         }
     }
     
+    /**
+     * Exports the 2D plan to PNG/SVG/PDF. The scene is copied here on the EDT; rendering and
+     * writing run in a background worker with a cancellable progress dialog.
+     */
+    private void exportPlan() {
+        JFileChooser chooser = new JFileChooser(layoutFileChooser.getCurrentDirectory());
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("PNG image (*.png)", "png"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("SVG drawing (*.svg)", "svg"));
+        chooser.addChoosableFileFilter(new FileNameExtensionFilter("PDF document (*.pdf)", "pdf"));
+        chooser.setAcceptAllFileFilterUsed(false);
+        JComboBox<String> paperCombo = new JComboBox<>(new String[]{"A0", "A1", "A2", "A3", "A4"});
+        JComboBox<Integer> dpiCombo = new JComboBox<>(new Integer[]{300, 150, 96});
+        JCheckBox dimensionsBox = new JCheckBox("Dimensions", true);
+        JCheckBox legendBox = new JCheckBox("Legend", true);
+        JPanel optionsPanel = new JPanel(new GridLayout(0, 1, 2, 2));
+        optionsPanel.setBorder(BorderFactory.createTitledBorder("Page"));
+        optionsPanel.add(paperCombo);
+        optionsPanel.add(dpiCombo);
+        optionsPanel.add(dimensionsBox);
+        optionsPanel.add(legendBox);
+        chooser.setAccessory(optionsPanel);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File chosen = chooser.getSelectedFile();
+        if (PlanExporter.Format.forFileName(chosen.getName()) == null) {
+            String extension = ((FileNameExtensionFilter) chooser.getFileFilter()).getExtensions()[0];
+            chosen = new File(chosen.getParentFile(), chosen.getName() + "." + extension);
+        }
+        final File file = chosen;
+
+        PlanExporter.Options options = new PlanExporter.Options();
+        int paper = paperCombo.getSelectedIndex(); // A0..A4: halve the long side each step
+        for (int i = 0; i < paper; i++) {
+            double half = Math.floor(options.paperHeightMm / 2);
+            options.paperHeightMm = options.paperWidthMm;
+            options.paperWidthMm = half;
+        }
+        options.dpi = (Integer) dpiCombo.getSelectedItem();
+        options.showDimensions = dimensionsBox.isSelected();
+        options.showLegend = legendBox.isSelected();
+        PlanExporter exporter = new PlanExporter(scene, drawingCanvas.getRoomShape(), drawingCanvas.getPixelsPerMeter());
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting plan to " + file.getName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        SwingWorker<Void, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                exporter.export(file, options, new PlanExporter.ProgressListener() {
+                    @Override
+                    public void progress(int done, int total) {
+                        setProgress(total == 0 ? 100 : (int) (100L * done / total));
+                    }
+
+                    @Override
+                    public boolean isCancelled() { return monitor.isCanceled(); }
+                });
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(MainWorkspacePanel.this, "Plan exported to " + file.getName(), "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.CancellationException e) {
+                    LOGGER.info("Plan export cancelled.");
+                } catch (java.util.concurrent.ExecutionException e) {
+                    if (e.getCause() instanceof java.util.concurrent.CancellationException) {
+                        LOGGER.info("Plan export cancelled.");
+                        return;
+                    }
+                    LOGGER.log(Level.SEVERE, "Error exporting plan to file: " + file.getAbsolutePath(), e.getCause());
+                    JOptionPane.showMessageDialog(MainWorkspacePanel.this, "Error exporting plan: \n" + e.getCause().getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) monitor.setProgress((Integer) e.getNewValue());
+        });
+        worker.execute();
+    }
+
+    /**
+     * Exports the 3D view as PNG images of a chosen size, from the angle shown and optionally from
+     * further angles around the room. Tiles are rendered on the FX thread one at a time and the
+     * images written by a background worker, with a cancellable progress dialog.
+     */
+    private void exportSnapshot() {
+        if (furniture3DView == null || mainSubScene == null) {
+            JOptionPane.showMessageDialog(this, "The 3D view is not ready yet.", "Export 3D Snapshot", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser(layoutFileChooser.getCurrentDirectory());
+        chooser.setFileFilter(new FileNameExtensionFilter("PNG image (*.png)", "png"));
+        chooser.setAcceptAllFileFilterUsed(false);
+        String[] sizeNames = {"8K (7680 x 4320)", "4K (3840 x 2160)", "Full HD (1920 x 1080)", "16K (15360 x 8640)"};
+        int[][] sizes = {{7680, 4320}, {3840, 2160}, {1920, 1080}, {15360, 8640}};
+        JComboBox<String> sizeCombo = new JComboBox<>(sizeNames);
+        JComboBox<String> viewsCombo = new JComboBox<>(new String[]{"Current view", "4 views around", "8 views around"});
+        JPanel optionsPanel = new JPanel(new GridLayout(0, 1, 2, 2));
+        optionsPanel.setBorder(BorderFactory.createTitledBorder("Image"));
+        optionsPanel.add(sizeCombo);
+        optionsPanel.add(viewsCombo);
+        chooser.setAccessory(optionsPanel);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File chosen = chooser.getSelectedFile();
+        if (!chosen.getName().toLowerCase(java.util.Locale.ROOT).endsWith(".png")) {
+            chosen = new File(chosen.getParentFile(), chosen.getName() + ".png");
+        }
+        final File file = chosen;
+
+        SnapshotExporter.Options options = new SnapshotExporter.Options();
+        options.width = sizes[sizeCombo.getSelectedIndex()][0];
+        options.height = sizes[sizeCombo.getSelectedIndex()][1];
+        int views = new int[]{1, 4, 8}[viewsCombo.getSelectedIndex()];
+        options.yawOffsets = new double[views];
+        for (int i = 0; i < views; i++) options.yawOffsets[i] = 360.0 * i / views;
+        SnapshotExporter exporter = new SnapshotExporter(furniture3DView, mainSubScene);
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting 3D snapshot to " + file.getName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        SwingWorker<List<File>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<File> doInBackground() throws IOException {
+                return exporter.export(file, options, new PlanExporter.ProgressListener() {
+                    @Override
+                    public void progress(int done, int total) {
+                        setProgress(total == 0 ? 100 : (int) (100L * done / total));
+                    }
+
+                    @Override
+                    public boolean isCancelled() { return monitor.isCanceled(); }
+                });
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    List<File> files = get();
+                    String written = files.size() == 1 ? files.get(0).getName() : files.size() + " images in " + file.getParent();
+                    JOptionPane.showMessageDialog(MainWorkspacePanel.this, "3D snapshot exported to " + written, "Export Successful", JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.CancellationException e) {
+                    LOGGER.info("3D snapshot export cancelled.");
+                } catch (java.util.concurrent.ExecutionException e) {
+                    if (e.getCause() instanceof java.util.concurrent.CancellationException) {
+                        LOGGER.info("3D snapshot export cancelled.");
+                        return;
+                    }
+                    LOGGER.log(Level.SEVERE, "Error exporting 3D snapshot to file: " + file.getAbsolutePath(), e.getCause());
+                    JOptionPane.showMessageDialog(MainWorkspacePanel.this, "Error exporting 3D snapshot: \n" + e.getCause().getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) monitor.setProgress((Integer) e.getNewValue());
+        });
+        worker.execute();
+    }
+
+    /**
+     * Arranges the selected items (all items if nothing is selected) with the layout optimizer.
+     * The search runs in a background worker; each better layout it finds is applied to the scene
+     * as it arrives, and the progress dialog's Cancel button stops it, keeping the best so far.
+     */
+    private void optimizeLayout() {
+        if (scene.isEmpty()) return;
+        List<FurnitureItem> selection = drawingCanvas.getSelectedItems();
+        JSpinner walkwaySpinner = new JSpinner(new SpinnerNumberModel(0.6, 0.0, 3.0, 0.1));
+        JSpinner wallSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 2.0, 0.1));
+        JComboBox<String> facingCombo = new JComboBox<>(new String[]{"Any direction", "North wall", "East wall", "South wall", "West wall"});
+        JCheckBox quarterTurnsBox = new JCheckBox("Turn in 90\u00B0 steps only", true);
+        JSpinner secondsSpinner = new JSpinner(new SpinnerNumberModel(15, 1, 600, 5));
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Walkway between items (m):"));
+        form.add(walkwaySpinner);
+        form.add(new JLabel("Clearance from walls (m):"));
+        form.add(wallSpinner);
+        form.add(new JLabel("Fronts face:"));
+        form.add(facingCombo);
+        form.add(new JLabel("Search time (s):"));
+        form.add(secondsSpinner);
+        form.add(quarterTurnsBox);
+        String title = selection.isEmpty() ? "Auto Layout (all " + scene.size() + " items)"
+                                           : "Auto Layout (" + selection.size() + " selected items)";
+        if (JOptionPane.showConfirmDialog(this, form, title, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        double ppm = drawingCanvas.getPixelsPerMeter();
+        LayoutOptimizer.Options options = new LayoutOptimizer.Options();
+        options.walkwayWidth = ((Number) walkwaySpinner.getValue()).doubleValue() * ppm;
+        options.wallClearance = ((Number) wallSpinner.getValue()).doubleValue() * ppm;
+        double[][] facing = {{0, 0}, {0, -1}, {1, 0}, {0, 1}, {-1, 0}}; // North is up the plan (-y)
+        options.facingX = facing[facingCombo.getSelectedIndex()][0];
+        options.facingY = facing[facingCombo.getSelectedIndex()][1];
+        options.quarterTurns = quarterTurnsBox.isSelected();
+        options.timeLimitMillis = ((Number) secondsSpinner.getValue()).longValue() * 1000;
+        Set<Long> movableIds = null;
+        if (!selection.isEmpty()) {
+            movableIds = new HashSet<>();
+            for (FurnitureItem item : selection) movableIds.add(item.getId());
+        }
+        LayoutOptimizer optimizer = new LayoutOptimizer(scene, drawingCanvas.getRoomShapeWorld(), movableIds, options);
+        LOGGER.info("Auto layout started: " + optimizer.movableCount() + " movable of " + scene.size() + " items.");
+
+        ProgressMonitor monitor = new ProgressMonitor(this, title, "Searching...", 0, 100);
+        monitor.setMillisToDecideToPopup(0);
+        monitor.setMillisToPopup(0);
+        javax.swing.Timer poll = new javax.swing.Timer(200, e -> {
+            if (monitor.isCanceled()) optimizer.cancel();
+            else monitor.setProgress(Math.min(99, (int) (optimizer.progress() * 100))); // 100 would close the dialog
+        });
+        SwingWorker<LayoutOptimizer.Result, LayoutOptimizer.Result> worker = new SwingWorker<>() {
+            private LayoutOptimizer.Result applied; // Last result put into the scene; items moved away from it are the user's
+
+            @Override
+            protected LayoutOptimizer.Result doInBackground() {
+                return optimizer.run(best -> publish(best));
+            }
+
+            @Override
+            protected void process(List<LayoutOptimizer.Result> improvements) {
+                LayoutOptimizer.Result latest = improvements.get(improvements.size() - 1);
+                itemsUpdated(latest.toItems(scene, applied));
+                applied = latest;
+                monitor.setNote(describeLayoutResult(latest));
+            }
+
+            @Override
+            protected void done() {
+                poll.stop();
+                monitor.close();
+                autoLayoutButton.setEnabled(true);
+                try {
+                    LayoutOptimizer.Result result = get();
+                    itemsUpdated(result.toItems(scene, applied));
+                    LOGGER.info("Auto layout finished after " + optimizer.totalSteps() + " steps: " + describeLayoutResult(result));
+                } catch (java.util.concurrent.ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "Auto layout failed", e.getCause());
+                    JOptionPane.showMessageDialog(MainWorkspacePanel.this, "Auto layout failed: \n" + e.getCause().getMessage(), "Auto Layout Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        autoLayoutButton.setEnabled(false);
+        poll.start();
+        worker.execute();
+    }
+
+    private static String describeLayoutResult(LayoutOptimizer.Result result) {
+        return String.format("Cost %.2f, %d overlapping pair(s), %d item(s) outside the room",
+                             result.getCost(), result.getOverlappingPairs(), result.getItemsOutside());
+    }
+
     // --- Added Placeholder Methods ---
     private void updateSaveState(boolean hasUnsavedChanges) {
         // TODO: Implement logic to indicate unsaved changes (e.g., enable save button, show asterisk)
@@ -983,7 +1522,7 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
                  Platform.runLater(() -> furniture3DView.addOrUpdateItemNode(itemToDisplay, geomToDisplay));
                  LOGGER.info("Loaded and displayed in 3D: " + item.type());
             }
-            if (isNewItem && !furnitureItems.contains(item)) {
+            if (isNewItem && !scene.contains(item.getId())) {
                  // This was part of the original addSelectedItemToCanvas logic which should handle adding to list
                  // addFurnitureItem(item); // Avoid duplicate add if called after addFurnitureItem
             }
@@ -1022,27 +1561,26 @@ public class MainWorkspacePanel extends JPanel implements ItemUpdateListener {
         // Ensure 3D view has current room dimensions/colors *before* adding items
         sendDimensionsAndColorsTo3DView();
 
-        final List<FurnitureItem> itemsCopy = new ArrayList<>(this.furnitureItems);
-
-        Platform.runLater(() -> {
-            furniture3DView.clearAllItemNodes();
-            int loadedCount = 0;
-            for (FurnitureItem item : itemsCopy) {
-                // Use the cache to get geometry data, load if missing
-                ModelLoadResult result = itemModelCache.computeIfAbsent(item.getModelFilename(), k ->
-                    ModelHelper.loadModelDataFromObj(k, item.color()) // Use item's color for loading
-                );
-
-                if (result != null && result.geometry != null) {
-                    // Add node using the item from our list (which has correct transform)
-                    // and the geometry from the loaded result.
-                    furniture3DView.addOrUpdateItemNode(item, result.geometry);
-                    loadedCount++;
-                } else {
-                     LOGGER.warning("Failed to get/load model geometry during refresh for: " + item.getModelFilename());
-                }
-            }
-            LOGGER.info("Refresh 3D complete. Added " + loadedCount + " item nodes.");
+        final List<FurnitureItem> itemsCopy = scene.asList(); // Snapshot of item views
+
+        // Models already in the cache, keyed like it; the rest are loaded by the 3D view's loader
+        // thread and added to the cache back on the EDT
+        final Map<String, GeometryData> cachedGeometry = new HashMap<>();
+        final Map<String, java.awt.Color> loadColors = new HashMap<>();
+        itemModelCache.forEach((filename, result) -> {
+            if (result != null && result.geometry != null) cachedGeometry.put(filename, result.geometry);
         });
+        for (FurnitureItem item : itemsCopy) loadColors.putIfAbsent(item.getModelFilename(), item.color());
+        Function<String, GeometryData> geometrySource = filename -> {
+            GeometryData geometry = cachedGeometry.get(filename);
+            if (geometry != null) return geometry;
+            ModelLoadResult result = ModelHelper.loadModelDataFromObj(filename, loadColors.get(filename)); // Item's color, as before
+            if (result == null) return null;
+            SwingUtilities.invokeLater(() -> itemModelCache.putIfAbsent(filename, result));
+            return result.geometry;
+        };
+
+        // Boxes at once, then the real meshes streamed in without holding up the FX thread
+        Platform.runLater(() -> furniture3DView.setItemsProgressively(itemsCopy, geometrySource));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.furnitureapp.ui;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Shared {@link PhongMaterial}s for {@link Furniture3DView}, one per diffuse and specular colour,
+ * so all items (and walls) of one colour use a single material. Each {@link #acquire} counts a
+ * reference and must be matched by a {@link #release} when the shape stops using the material;
+ * the material is dropped with its last reference. Shared materials are never modified: a colour
+ * change swaps the shape to another material. FX thread only.
+ */
+final class MaterialCache {
+
+    private record Key(Color diffuse, Color specular) {}
+
+    private static final class Entry {
+        final Key key;
+        final PhongMaterial material;
+        int references;
+
+        Entry(Key key, PhongMaterial material) {
+            this.key = key;
+            this.material = material;
+        }
+    }
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final Map<PhongMaterial, Entry> byMaterial = new IdentityHashMap<>();
+
+    /** The shared material for the colours, with one more reference. Specular null for none. */
+    PhongMaterial acquire(Color diffuse, Color specular) {
+        Key key = new Key(diffuse, specular);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            PhongMaterial material = new PhongMaterial(diffuse);
+            if (specular != null) material.setSpecularColor(specular);
+            entry = new Entry(key, material);
+            entries.put(key, entry);
+            byMaterial.put(material, entry);
+        }
+        entry.references++;
+        return entry.material;
+    }
+
+    /** Gives back one reference; materials that did not come from this cache are ignored. */
+    void release(PhongMaterial material) {
+        Entry entry = material != null ? byMaterial.get(material) : null;
+        if (entry == null || --entry.references > 0) return;
+        entries.remove(entry.key);
+        byMaterial.remove(material);
+    }
+
+    /** Distinct materials in use. */
+    int size() { return entries.size(); }
+}
@@ -0,0 +1,351 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Overview of the whole floor plan with the {@link DrawingCanvas} viewport drawn on top.
+ * Clicking or dragging in the minimap pans the canvas to that spot.
+ * <p>
+ * The plan is rasterized once into a low-resolution image. Scene changes only mark the old and
+ * new bounds of the changed item as dirty; on the next paint just those regions are cleared and
+ * redrawn (clipped, with the items intersecting them). Panning and zooming the canvas only moves
+ * the viewport rectangle, so a normal minimap paint is one image blit plus one rectangle.
+ */
+public class MinimapPanel extends JPanel implements FurnitureScene.ChangeListener {
+
+    private static final Logger LOGGER = Logger.getLogger(MinimapPanel.class.getName());
+    private static final Color OUTSIDE_COLOR = new Color(225, 225, 225);
+    private static final Color ROOM_FILL_COLOR = Color.WHITE;
+    private static final Color ROOM_BORDER_COLOR = Color.DARK_GRAY;
+    private static final Color VIEWPORT_FILL_COLOR = new Color(0, 120, 215, 40);
+    private static final Color VIEWPORT_BORDER_COLOR = new Color(0, 120, 215);
+    private static final int MAX_DIRTY_REGIONS = 16; // More than this collapses into one union region
+    private static final double ROOM_MARGIN = 0.05;  // Fraction of the room shown around it
+    private static final AffineTransform IDENTITY = new AffineTransform(); // Only passed to setTransform, never mutated
+
+    private final DrawingCanvas canvas;
+    private FurnitureScene scene;
+
+    // --- Cached raster and its world -> image mapping ---
+    private BufferedImage image;
+    private double imageScale;               // Image px per world px
+    private double imageOffsetX, imageOffsetY;
+    private RoomShape rasterRoom;  // Room outline (world px) the image was drawn for
+    private Path2D.Double roomPath; // Its outline as a path
+
+    // --- Dirty regions (world coordinates, minX/minY/maxX/maxY each) ---
+    private final double[] dirty = new double[MAX_DIRTY_REGIONS * 4];
+    private int dirtyCount = 0;
+    private boolean fullRedraw = true;
+    private double[] rasterBounds = new double[64 * 4]; // Bounds each slot was last rasterized with
+
+    // --- Raster scratch ---
+    private int[] regionSlots = new int[64];
+    private int regionSlotCount;
+    private final double[] cornerScratch = new double[8];
+    private final double[] boundsScratch = new double[4];
+    private final Path2D.Double quad = new Path2D.Double();
+    private final Rectangle2D.Double rectScratch = new Rectangle2D.Double();
+    private BasicStroke borderStroke; // One image pixel wide in world units
+    private final Color[] colorCache = new Color[64]; // Direct-mapped ARGB -> Color cache
+    private final FurnitureScene.SlotVisitor regionCollector = slot -> {
+        if (regionSlotCount == regionSlots.length) regionSlots = Arrays.copyOf(regionSlots, regionSlotCount * 2);
+        regionSlots[regionSlotCount++] = slot;
+    };
+
+    private int fullRasterCount = 0;
+    private int regionRasterCount = 0;
+
+    public MinimapPanel(DrawingCanvas canvas) {
+        this.canvas = canvas;
+        setPreferredSize(new Dimension(200, 160));
+        setBorder(BorderFactory.createTitledBorder("Overview"));
+        setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+
+        canvas.addViewChangeListener(e -> repaint()); // Viewport only; the raster stays valid
+        canvas.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                repaint();
+            }
+        });
+        MouseAdapter panHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                panCanvasTo(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panCanvasTo(e.getX(), e.getY());
+            }
+        };
+        addMouseListener(panHandler);
+        addMouseMotionListener(panHandler);
+    }
+
+    /** Shows the given scene and tracks its changes. Pass the same scene as the canvas. */
+    public void setScene(FurnitureScene scene) {
+        if (this.scene == scene) return;
+        if (this.scene != null) this.scene.removeChangeListener(this);
+        this.scene = scene;
+        if (scene != null) scene.addChangeListener(this);
+        invalidateRaster();
+    }
+
+    /** Discards the cached raster; the next paint redraws the whole plan. */
+    public void invalidateRaster() {
+        fullRedraw = true;
+        dirtyCount = 0;
+        repaint();
+    }
+
+    /** Number of full-plan rasterizations so far (image created, resized or too many changes). */
+    public int getFullRasterCount() { return fullRasterCount; }
+
+    /** Number of dirty regions redrawn so far. */
+    public int getRegionRasterCount() { return regionRasterCount; }
+
+    // --- FurnitureScene.ChangeListener ---
+
+    @Override
+    public void slotAdded(int slot) {
+        ensureCapacity(slot + 1);
+        scene.bounds(slot, boundsScratch);
+        System.arraycopy(boundsScratch, 0, rasterBounds, slot * 4, 4);
+        markDirty(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);
+    }
+
+    @Override
+    public void slotChanged(int slot) {
+        ensureCapacity(slot + 1);
+        int b = slot * 4;
+        markDirty(rasterBounds[b], rasterBounds[b + 1], rasterBounds[b + 2], rasterBounds[b + 3]); // Where it was
+        scene.bounds(slot, boundsScratch);
+        System.arraycopy(boundsScratch, 0, rasterBounds, b, 4);
+        markDirty(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);   // Where it is now
+    }
+
+    @Override
+    public void slotRemoved(int slot) {
+        if (slot * 4 >= rasterBounds.length) return;
+        int b = slot * 4;
+        markDirty(rasterBounds[b], rasterBounds[b + 1], rasterBounds[b + 2], rasterBounds[b + 3]);
+    }
+
+    @Override
+    public void cleared() {
+        invalidateRaster();
+    }
+
+    // --- Painting ---
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        int height = getHeight() - insets.top - insets.bottom;
+        if (width <= 0 || height <= 0 || scene == null) return;
+
+        updateRaster(width, height);
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.translate(insets.left, insets.top);
+        g2d.drawImage(image, 0, 0, null);
+        drawViewport(g2d, width, height);
+        g2d.dispose();
+    }
+
+    /** Brings the cached image up to date, redrawing everything only when the mapping changed. */
+    private void updateRaster(int width, int height) {
+        RoomShape room = canvas.getRoomShapeWorld(); // Immutable, replaced on every change
+        if (image == null || image.getWidth() != width || image.getHeight() != height || room != rasterRoom) {
+            if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            rasterRoom = room;
+            roomPath = room.toPath();
+            double roomWidth = room.getMaxX(), roomDepth = room.getMaxY(); // Extent from the origin
+            // Fit the room plus a margin, centred
+            double worldWidth = roomWidth * (1 + 2 * ROOM_MARGIN);
+            double worldDepth = roomDepth * (1 + 2 * ROOM_MARGIN);
+            imageScale = Math.min(width / worldWidth, height / worldDepth);
+            imageOffsetX = (width - roomWidth * imageScale) / 2.0;
+            imageOffsetY = (height - roomDepth * imageScale) / 2.0;
+            borderStroke = new BasicStroke((float) (1.0 / imageScale));
+            fullRedraw = true;
+        }
+        if (!fullRedraw && dirtyCount == 0) return;
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (fullRedraw) {
+            syncRasterBounds();
+            rasterizeRegion(g, 0, 0, width, height);
+            fullRasterCount++;
+            LOGGER.finer(() -> "[Minimap] Full raster " + width + "x" + height);
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                int d = i * 4;
+                // Pad by a pixel so antialiased edges of the old position are cleared too
+                int x0 = (int) Math.floor(dirty[d] * imageScale + imageOffsetX) - 1;
+                int y0 = (int) Math.floor(dirty[d + 1] * imageScale + imageOffsetY) - 1;
+                int x1 = (int) Math.ceil(dirty[d + 2] * imageScale + imageOffsetX) + 1;
+                int y1 = (int) Math.ceil(dirty[d + 3] * imageScale + imageOffsetY) + 1;
+                x0 = Math.max(0, x0);
+                y0 = Math.max(0, y0);
+                x1 = Math.min(width, x1);
+                y1 = Math.min(height, y1);
+                if (x0 >= x1 || y0 >= y1) continue; // Entirely outside the image
+                rasterizeRegion(g, x0, y0, x1 - x0, y1 - y0);
+                regionRasterCount++;
+            }
+        }
+        g.dispose();
+        fullRedraw = false;
+        dirtyCount = 0;
+    }
+
+    /** Clears an image-pixel rectangle and redraws the room and every item intersecting it, in draw order. */
+    private void rasterizeRegion(Graphics2D g, int x, int y, int w, int h) {
+        g.setTransform(IDENTITY);
+        g.setClip(x, y, w, h);
+        g.setColor(OUTSIDE_COLOR);
+        g.fillRect(x, y, w, h);
+
+        g.translate(imageOffsetX, imageOffsetY);
+        g.scale(imageScale, imageScale);
+        g.setColor(ROOM_FILL_COLOR);
+        g.fill(roomPath);
+
+        // World rectangle covered by the region
+        double minX = (x - imageOffsetX) / imageScale, minY = (y - imageOffsetY) / imageScale;
+        double maxX = (x + w - imageOffsetX) / imageScale, maxY = (y + h - imageOffsetY) / imageScale;
+        regionSlotCount = 0;
+        scene.forEachInBounds(minX, minY, maxX, maxY, regionCollector);
+        Arrays.sort(regionSlots, 0, regionSlotCount); // Slot order is draw order
+        for (int i = 0; i < regionSlotCount; i++) {
+            int slot = regionSlots[i];
+            scene.corners(slot, cornerScratch);
+            quad.reset();
+            quad.moveTo(cornerScratch[0], cornerScratch[1]);
+            quad.lineTo(cornerScratch[2], cornerScratch[3]);
+            quad.lineTo(cornerScratch[4], cornerScratch[5]);
+            quad.lineTo(cornerScratch[6], cornerScratch[7]);
+            quad.closePath();
+            g.setColor(colorFor(scene.argbAt(slot)));
+            g.fill(quad); // No outlines: items are a few pixels wide at this scale
+        }
+
+        // Room border on top, one image pixel wide
+        g.setColor(ROOM_BORDER_COLOR);
+        g.setStroke(borderStroke);
+        g.draw(roomPath);
+    }
+
+    /** Outlines the part of the world visible in the canvas. */
+    private void drawViewport(Graphics2D g2d, int width, int height) {
+        AffineTransform view = canvas.getViewTransform();
+        double scale = view.getScaleX(); // Uniform scale + translation only
+        if (scale <= 0 || canvas.getWidth() <= 0 || canvas.getHeight() <= 0) return;
+        double worldMinX = -view.getTranslateX() / scale;
+        double worldMinY = -view.getTranslateY() / scale;
+        double x = worldMinX * imageScale + imageOffsetX;
+        double y = worldMinY * imageScale + imageOffsetY;
+        double w = canvas.getWidth() / scale * imageScale;
+        double h = canvas.getHeight() / scale * imageScale;
+        rectScratch.setRect(x, y, w, h);
+        g2d.setClip(0, 0, width, height);
+        g2d.setColor(VIEWPORT_FILL_COLOR);
+        g2d.fill(rectScratch);
+        g2d.setColor(VIEWPORT_BORDER_COLOR);
+        g2d.draw(rectScratch);
+    }
+
+    private void panCanvasTo(int mouseX, int mouseY) {
+        if (image == null || imageScale <= 0) return;
+        Insets insets = getInsets();
+        double worldX = (mouseX - insets.left - imageOffsetX) / imageScale;
+        double worldY = (mouseY - insets.top - imageOffsetY) / imageScale;
+        canvas.centerViewOn(worldX, worldY);
+    }
+
+    private void markDirty(double minX, double minY, double maxX, double maxY) {
+        if (fullRedraw) return; // Everything is redrawn anyway
+        // Merge into an overlapping region so a dragged item produces one region, not a trail
+        for (int i = 0; i < dirtyCount; i++) {
+            int d = i * 4;
+            if (minX <= dirty[d + 2] && maxX >= dirty[d] && minY <= dirty[d + 3] && maxY >= dirty[d + 1]) {
+                dirty[d] = Math.min(dirty[d], minX);
+                dirty[d + 1] = Math.min(dirty[d + 1], minY);
+                dirty[d + 2] = Math.max(dirty[d + 2], maxX);
+                dirty[d + 3] = Math.max(dirty[d + 3], maxY);
+                repaint();
+                return;
+            }
+        }
+        if (dirtyCount == MAX_DIRTY_REGIONS) {
+            // Many scattered changes (group move, load): one union region instead
+            for (int i = 1; i < dirtyCount; i++) {
+                int d = i * 4;
+                minX = Math.min(minX, dirty[d]);
+                minY = Math.min(minY, dirty[d + 1]);
+                maxX = Math.max(maxX, dirty[d + 2]);
+                maxY = Math.max(maxY, dirty[d + 3]);
+            }
+            dirty[0] = Math.min(dirty[0], minX);
+            dirty[1] = Math.min(dirty[1], minY);
+            dirty[2] = Math.max(dirty[2], maxX);
+            dirty[3] = Math.max(dirty[3], maxY);
+            dirtyCount = 1;
+        } else {
+            int d = dirtyCount * 4;
+            dirty[d] = minX;
+            dirty[d + 1] = minY;
+            dirty[d + 2] = maxX;
+            dirty[d + 3] = maxY;
+            dirtyCount++;
+        }
+        repaint();
+    }
+
+    /** Returns a Color for the ARGB value, reusing a cached instance when possible. */
+    private Color colorFor(int argb) {
+        int bucket = (argb ^ (argb >>> 7) ^ (argb >>> 17)) & (colorCache.length - 1);
+        Color color = colorCache[bucket];
+        if (color == null || color.getRGB() != argb) {
+            color = new Color(argb, true);
+            colorCache[bucket] = color;
+        }
+        return color;
+    }
+
+    /** Records every slot's current bounds, so later changes know where the item was drawn. */
+    private void syncRasterBounds() {
+        ensureCapacity(scene.slotCount());
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            scene.bounds(slot, boundsScratch);
+            System.arraycopy(boundsScratch, 0, rasterBounds, slot * 4, 4);
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots * 4 <= rasterBounds.length) return;
+        rasterBounds = Arrays.copyOf(rasterBounds, Math.max(slots * 4, rasterBounds.length * 2));
+    }
+}
@@ -0,0 +1,218 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.GeometryData;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Progressive population of {@link Furniture3DView}: the view shows a box proxy for every item
+ * at once, and this class streams in the real meshes.
+ * <p>
+ * Models are loaded and their TriangleMeshes built on a worker thread, one model at a time, in
+ * the order of their most urgent item. Once a model is ready, its items are swapped in from an
+ * {@link AnimationTimer}: each pulse sorts the waiting items by the view's priority (in view,
+ * then nearest to the camera) and installs them until {@link #FRAME_BUDGET_NANOS} is used up, so
+ * the scene keeps rotating and responding while a large layout fills in. A new {@link #start} or
+ * {@link #cancel} drops everything still in flight.
+ * <p>
+ * All methods are called on the FX thread; the {@link Host} is only called there too.
+ */
+final class ProgressiveItemLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(ProgressiveItemLoader.class.getName());
+    static final long FRAME_BUDGET_NANOS = 4_000_000; // Swap-in work per pulse (a quarter of a 60 Hz frame)
+
+    /** The view side of the loader. */
+    interface Host {
+        /** Sort keys for items, lowest streamed first. */
+        void priorities(long[] ids, int count, double[] out);
+        /** A model's mesh, built off the FX thread, before any of its items is installed. */
+        void meshPrepared(GeometryData geometry, Furniture3DView.PreparedMesh mesh);
+        /** Replaces an item's proxy with its real node; false if the item no longer waits for it. */
+        boolean install(long id, GeometryData geometry);
+        /** The item's model could not be loaded. */
+        void failed(long id, String modelFilename);
+    }
+
+    private final Host host;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mesh-stream");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+    private final AnimationTimer swapTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) { swapIn(); }
+    };
+    private volatile int generation; // Bumped by start and cancel; older results are dropped
+    private final Map<String, List<Long>> waitingByModel = new HashMap<>(); // Items whose model is not ready
+    private long[] readyIds = new long[64];           // Items whose model is ready, not yet installed
+    private GeometryData[] readyGeometry = new GeometryData[64];
+    private int readyCount;
+    private double[] keys = new double[64];
+    private long[] order = new long[64];
+    private boolean[] taken = new boolean[64];  // Installed this pulse, by ready index
+    private boolean timerRunning;
+    private long startNanos;
+    private int installed;
+
+    ProgressiveItemLoader(Host host) {
+        this.host = host;
+    }
+
+    /** Starts streaming the meshes of items whose proxies the view has just added. */
+    void start(List<FurnitureItem> items, Function<String, GeometryData> geometrySource) {
+        cancel();
+        int gen = generation;
+        long[] ids = new long[items.size()];
+        int count = 0;
+        for (FurnitureItem item : items) {
+            if (item == null || item.getModelFilename() == null) continue;
+            waitingByModel.computeIfAbsent(item.getModelFilename(), k -> new ArrayList<>()).add(item.getId());
+            ids[count++] = item.getId();
+        }
+        if (count == 0) return;
+
+        // Models in the order of their most urgent item
+        double[] itemKeys = new double[count];
+        host.priorities(ids, count, itemKeys);
+        Map<Long, String> modelById = new HashMap<>();
+        for (FurnitureItem item : items) {
+            if (item != null && item.getModelFilename() != null) modelById.put(item.getId(), item.getModelFilename());
+        }
+        long[] byKey = sortedIndices(itemKeys, count, new long[count]);
+        Set<String> models = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) models.add(modelById.get(ids[(int) byKey[i]]));
+
+        startNanos = System.nanoTime();
+        installed = 0;
+        LOGGER.info("Streaming " + count + " items (" + models.size() + " models) into the 3D view.");
+        for (String model : models) {
+            loader.execute(() -> {
+                if (generation != gen) return;
+                GeometryData geometry = null;
+                Furniture3DView.PreparedMesh mesh = null;
+                try {
+                    geometry = geometrySource.apply(model);
+                    if (geometry != null) mesh = Furniture3DView.prepareMesh(geometry);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Loading model " + model + " for the 3D view failed.", e);
+                }
+                GeometryData loaded = geometry;
+                Furniture3DView.PreparedMesh prepared = mesh;
+                Platform.runLater(() -> modelReady(gen, model, loaded, prepared));
+            });
+        }
+        setTimerRunning(true);
+    }
+
+    /** Drops all items still waiting; their proxies stay as they are. */
+    void cancel() {
+        generation++;
+        waitingByModel.clear();
+        Arrays.fill(readyGeometry, 0, readyCount, null);
+        readyCount = 0;
+        setTimerRunning(false);
+    }
+
+    /** True while items are waiting for their meshes. */
+    boolean isActive() { return timerRunning; }
+
+    void dispose() {
+        cancel();
+        loader.shutdownNow();
+    }
+
+    private void modelReady(int gen, String model, GeometryData geometry, Furniture3DView.PreparedMesh mesh) {
+        if (gen != generation) return;
+        List<Long> ids = waitingByModel.remove(model);
+        if (ids == null) return;
+        if (geometry == null || mesh == null || mesh.mesh() == null) {
+            for (long id : ids) host.failed(id, model);
+        } else {
+            host.meshPrepared(geometry, mesh);
+            if (readyCount + ids.size() > readyIds.length) {
+                int capacity = Math.max(readyCount + ids.size(), readyIds.length * 2);
+                readyIds = Arrays.copyOf(readyIds, capacity);
+                readyGeometry = Arrays.copyOf(readyGeometry, capacity);
+            }
+            for (long id : ids) {
+                readyIds[readyCount] = id;
+                readyGeometry[readyCount++] = geometry;
+            }
+        }
+        setTimerRunning(true);
+    }
+
+    // One pulse of swap-ins: the most urgent ready items until the budget is spent
+    private void swapIn() {
+        long pulseStart = System.nanoTime();
+        if (readyCount > 0) {
+            if (keys.length < readyCount) {
+                keys = new double[readyIds.length];
+                order = new long[readyIds.length];
+                taken = new boolean[readyIds.length];
+            }
+            host.priorities(readyIds, readyCount, keys);
+            long[] sorted = sortedIndices(keys, readyCount, order);
+            int done = 0;
+            Arrays.fill(taken, 0, readyCount, false);
+            for (int i = 0; i < readyCount && System.nanoTime() - pulseStart < FRAME_BUDGET_NANOS; i++) {
+                int index = (int) sorted[i];
+                if (host.install(readyIds[index], readyGeometry[index])) installed++;
+                taken[index] = true;
+                done++;
+            }
+            // Keep the rest, in any order (they are sorted again next pulse)
+            int kept = 0;
+            for (int i = 0; i < readyCount; i++) {
+                if (taken[i]) continue;
+                readyIds[kept] = readyIds[i];
+                readyGeometry[kept++] = readyGeometry[i];
+            }
+            Arrays.fill(readyGeometry, kept, readyCount, null);
+            readyCount = kept;
+            if (LOGGER.isLoggable(Level.FINER)) {
+                LOGGER.finer(String.format("Swapped in %d items in %.2f ms, %d ready, %d models loading.",
+                                           done, (System.nanoTime() - pulseStart) / 1e6, readyCount, waitingByModel.size()));
+            }
+        }
+        if (readyCount == 0 && waitingByModel.isEmpty()) {
+            setTimerRunning(false);
+            LOGGER.info(String.format("Streamed %d item meshes into the 3D view in %.0f ms.",
+                                      installed, (System.nanoTime() - startNanos) / 1e6));
+        }
+    }
+
+    // Indices 0..count-1 sorted by key into out[0..count): non-negative float key bits above the index, one primitive sort
+    private static long[] sortedIndices(double[] keys, int count, long[] out) {
+        for (int i = 0; i < count; i++) {
+            float key = (float) Math.min(Math.max(keys[i], 0), Float.MAX_VALUE);
+            out[i] = (long) Float.floatToIntBits(key) << 32 | i;
+        }
+        Arrays.sort(out, 0, count);
+        return out;
+    }
+
+    private void setTimerRunning(boolean run) {
+        if (run == timerRunning) return;
+        timerRunning = run;
+        if (run) swapTimer.start();
+        else swapTimer.stop();
+    }
+}
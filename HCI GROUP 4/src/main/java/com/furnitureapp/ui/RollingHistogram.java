@@ -0,0 +1,84 @@
+package com.furnitureapp.ui;
+
+/**
+ * Percentiles over the most recent samples, with constant-time recording and no allocation.
+ * <p>
+ * Values are counted in log-linear buckets (exact below 16, then 8 sub-buckets per power of
+ * two, so about 12% relative error). A ring remembers the bucket of each of the last
+ * {@code window} samples; recording a new one removes the oldest from its bucket, so the
+ * counts always describe a sliding window.
+ */
+final class RollingHistogram {
+
+    private static final int LINEAR_LIMIT = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - 4) * SUB_BUCKETS;
+
+    private final int[] counts = new int[BUCKET_COUNT];
+    private final short[] ring; // Bucket of each sample in the window
+    private int next = 0, size = 0;
+    private long last = 0, total = 0;
+
+    RollingHistogram(int window) {
+        this.ring = new short[window];
+    }
+
+    /** Adds a sample; negative values count as 0. */
+    void record(long value) {
+        if (value < 0) value = 0;
+        int bucket = bucketOf(value);
+        if (size == ring.length) {
+            counts[ring[next]]--; // Evict the oldest sample
+        } else {
+            size++;
+        }
+        ring[next] = (short) bucket;
+        next = next + 1 == ring.length ? 0 : next + 1;
+        counts[bucket]++;
+        last = value;
+        total++;
+    }
+
+    /** Upper bound of the bucket holding the given percentile (0-100) of the window; 0 if empty. */
+    long percentile(double percent) {
+        if (size == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * size));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return upperBound(bucket);
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    long last() { return last; }
+
+    /** Samples recorded since creation or the last {@link #clear()}, including evicted ones. */
+    long total() { return total; }
+
+    int size() { return size; }
+
+    void clear() {
+        java.util.Arrays.fill(counts, 0);
+        next = 0;
+        size = 0;
+        last = 0;
+        total = 0;
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
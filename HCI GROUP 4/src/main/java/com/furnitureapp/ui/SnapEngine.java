@@ -0,0 +1,288 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import java.util.Arrays;
+
+/**
+ * Snapping for DrawingCanvas interactions.
+ * <p>
+ * Moves snap the dragged bounds' edges and centre to axis-aligned room walls and to the edges
+ * and centres of nearby items, falling back to the metric grid when nothing is close. Resizes
+ * snap the dragged corner the same way, and rotations snap to fixed angle steps or to the
+ * rotation of a nearby item. Nearby items come from a spatial query limited to the snap radius,
+ * so the cost depends on the local density only, not on the scene size.
+ * <p>
+ * After each call the applied offset and the guide lines to draw are available from the getters.
+ * Not thread-safe; used from the EDT only.
+ */
+class SnapEngine {
+
+    /** Decides which slots are being dragged and so must not act as snap targets. */
+    interface MovingFilter {
+        boolean isMoving(int slot);
+    }
+
+    private static final double DEFAULT_SNAP_RADIUS_PIXELS = 8.0; // Screen pixels
+    private static final double DEFAULT_GRID_SIZE_METERS = 0.25;
+    private static final double DEFAULT_ANGLE_STEP_DEGREES = 15.0;
+    private static final double ANGLE_TOLERANCE_RADIANS = Math.toRadians(4.0);
+    private static final double QUARTER_TURN = Math.PI / 2;
+
+    // --- Settings ---
+    private boolean enabled = true;
+    private boolean snapToGrid = true;
+    private boolean snapToWalls = true;
+    private boolean snapToItems = true;
+    private double gridSizeMeters = DEFAULT_GRID_SIZE_METERS;
+    private double angleStepRadians = Math.toRadians(DEFAULT_ANGLE_STEP_DEGREES);
+    private double snapRadiusPixels = DEFAULT_SNAP_RADIUS_PIXELS;
+
+    // --- Result of the last call ---
+    private double snapDx, snapDy;
+    private boolean hasGuideX, hasGuideY, hasAngleGuide;
+    private double guideX, guideXMinY, guideXMaxY; // Vertical guide line
+    private double guideY, guideYMinX, guideYMaxX; // Horizontal guide line
+    private double angleGuideX, angleGuideY, angleGuideAngle, angleGuideLength;
+
+    // --- Per-axis search state ---
+    private double bestDelta, bestLo, bestHi, bestGuideFeature;
+    private boolean bestFound;
+
+    // --- Neighbour candidates from the spatial query ---
+    private int[] candidates = new int[64];
+    private int candidateCount;
+    private MovingFilter movingFilter;
+    private final FurnitureScene.SlotVisitor collector = this::collect;
+    private final double[] boundsScratch = new double[4];
+    private final double[] edgeScratch = new double[4];
+
+    // --- Settings access ---
+    boolean isEnabled() { return enabled; }
+    void setEnabled(boolean enabled) { this.enabled = enabled; }
+    void setSnapToGrid(boolean snapToGrid) { this.snapToGrid = snapToGrid; }
+    void setSnapToWalls(boolean snapToWalls) { this.snapToWalls = snapToWalls; }
+    void setSnapToItems(boolean snapToItems) { this.snapToItems = snapToItems; }
+    boolean isSnapToGrid() { return snapToGrid; }
+    double getGridSizeMeters() { return gridSizeMeters; }
+    void setGridSizeMeters(double meters) { this.gridSizeMeters = Math.max(0.01, meters); }
+    void setAngleStepDegrees(double degrees) { this.angleStepRadians = Math.toRadians(Math.max(1.0, degrees)); }
+    void setSnapRadiusPixels(double pixels) { this.snapRadiusPixels = Math.max(1.0, pixels); }
+
+    // --- Results ---
+    double snapDx() { return snapDx; }
+    double snapDy() { return snapDy; }
+    boolean hasGuideX() { return hasGuideX; }
+    boolean hasGuideY() { return hasGuideY; }
+    boolean hasAngleGuide() { return hasAngleGuide; }
+    double guideX() { return guideX; }
+    double guideXMinY() { return guideXMinY; }
+    double guideXMaxY() { return guideXMaxY; }
+    double guideY() { return guideY; }
+    double guideYMinX() { return guideYMinX; }
+    double guideYMaxX() { return guideYMaxX; }
+    double angleGuideX() { return angleGuideX; }
+    double angleGuideY() { return angleGuideY; }
+    double angleGuideAngle() { return angleGuideAngle; }
+    double angleGuideLength() { return angleGuideLength; }
+
+    /** Forgets the guides of the last snap (e.g. when the drag ends). */
+    void clearGuides() {
+        hasGuideX = hasGuideY = hasAngleGuide = false;
+        snapDx = snapDy = 0;
+    }
+
+    /**
+     * Snaps dragged bounds (world coordinates, at the unsnapped position).
+     * The offset to add to the position is then available from {@link #snapDx()} / {@link #snapDy()}.
+     */
+    void snapBounds(FurnitureScene scene, MovingFilter moving, double minX, double minY, double maxX, double maxY,
+                    RoomShape room, double pixelsPerMeter, double viewScale) {
+        clearGuides();
+        if (!enabled) return;
+        double radius = snapRadiusPixels / viewScale;
+        if (snapToItems) {
+            gatherNeighbours(scene, moving, minX - radius, minY - radius, maxX + radius, maxY + radius);
+        } else {
+            candidateCount = 0;
+        }
+        double centerX = (minX + maxX) * 0.5, centerY = (minY + maxY) * 0.5;
+
+        // --- X axis (vertical guide) ---
+        beginAxis(radius);
+        if (snapToWalls) { // Vertical walls
+            for (int i = 0; i < room.edgeCount(); i++) {
+                room.edge(i, edgeScratch);
+                if (edgeScratch[0] != edgeScratch[2]) continue;
+                considerAxis(edgeScratch[0], minX, centerX, maxX,
+                             Math.min(edgeScratch[1], edgeScratch[3]), Math.max(edgeScratch[1], edgeScratch[3]));
+            }
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            scene.bounds(candidates[i], boundsScratch);
+            double lo = Math.min(minY, boundsScratch[1]), hi = Math.max(maxY, boundsScratch[3]);
+            considerAxis(boundsScratch[0], minX, centerX, maxX, lo, hi);
+            considerAxis((boundsScratch[0] + boundsScratch[2]) * 0.5, minX, centerX, maxX, lo, hi);
+            considerAxis(boundsScratch[2], minX, centerX, maxX, lo, hi);
+        }
+        if (bestFound) {
+            snapDx = bestDelta;
+            hasGuideX = true;
+            guideX = bestGuideFeature + bestDelta; // The target coordinate
+            guideXMinY = bestLo;
+            guideXMaxY = bestHi;
+        } else if (snapToGrid) {
+            snapDx = gridDelta(minX, centerX, maxX, pixelsPerMeter, radius);
+        }
+
+        // --- Y axis (horizontal guide) ---
+        beginAxis(radius);
+        if (snapToWalls) { // Horizontal walls
+            for (int i = 0; i < room.edgeCount(); i++) {
+                room.edge(i, edgeScratch);
+                if (edgeScratch[1] != edgeScratch[3]) continue;
+                considerAxis(edgeScratch[1], minY, centerY, maxY,
+                             Math.min(edgeScratch[0], edgeScratch[2]), Math.max(edgeScratch[0], edgeScratch[2]));
+            }
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            scene.bounds(candidates[i], boundsScratch);
+            double lo = Math.min(minX, boundsScratch[0]), hi = Math.max(maxX, boundsScratch[2]);
+            considerAxis(boundsScratch[1], minY, centerY, maxY, lo, hi);
+            considerAxis((boundsScratch[1] + boundsScratch[3]) * 0.5, minY, centerY, maxY, lo, hi);
+            considerAxis(boundsScratch[3], minY, centerY, maxY, lo, hi);
+        }
+        if (bestFound) {
+            snapDy = bestDelta;
+            hasGuideY = true;
+            guideY = bestGuideFeature + bestDelta;
+            guideYMinX = bestLo;
+            guideYMaxX = bestHi;
+        } else if (snapToGrid) {
+            snapDy = gridDelta(minY, centerY, maxY, pixelsPerMeter, radius);
+        }
+        if (hasGuideX) {
+            // Guide spans the moved bounds too
+            guideXMinY = Math.min(guideXMinY, minY + snapDy);
+            guideXMaxY = Math.max(guideXMaxY, maxY + snapDy);
+        }
+        if (hasGuideY) {
+            guideYMinX = Math.min(guideYMinX, minX + snapDx);
+            guideYMaxX = Math.max(guideYMaxX, maxX + snapDx);
+        }
+    }
+
+    /** Snaps a dragged point (e.g. a resize corner); the offset is in {@link #snapDx()} / {@link #snapDy()}. */
+    void snapPoint(FurnitureScene scene, MovingFilter moving, double x, double y,
+                   RoomShape room, double pixelsPerMeter, double viewScale) {
+        snapBounds(scene, moving, x, y, x, y, room, pixelsPerMeter, viewScale);
+    }
+
+    /**
+     * Snaps a rotation angle for an item centred at (cx, cy) with the given radius of influence:
+     * to the angle step, or to the rotation (modulo a quarter turn) of a nearby item.
+     * @return the snapped angle, or {@code angle} unchanged when nothing is within tolerance.
+     */
+    double snapAngle(FurnitureScene scene, MovingFilter moving, double angle, double cx, double cy, double reach, double viewScale) {
+        clearGuides();
+        if (!enabled) return angle;
+        double best = angle;
+        double bestDiff = ANGLE_TOLERANCE_RADIANS;
+        double stepped = Math.round(angle / angleStepRadians) * angleStepRadians;
+        if (Math.abs(stepped - angle) < bestDiff) {
+            best = stepped;
+            bestDiff = Math.abs(stepped - angle);
+        }
+        if (snapToItems) {
+            double radius = reach + snapRadiusPixels / viewScale;
+            gatherNeighbours(scene, moving, cx - radius, cy - radius, cx + radius, cy + radius);
+            for (int i = 0; i < candidateCount; i++) {
+                double r = scene.rotationAt(candidates[i]);
+                double aligned = r + Math.round((angle - r) / QUARTER_TURN) * QUARTER_TURN;
+                double diff = Math.abs(aligned - angle);
+                if (diff < bestDiff) {
+                    best = aligned;
+                    bestDiff = diff;
+                }
+            }
+        }
+        if (best != angle) {
+            hasAngleGuide = true;
+            angleGuideX = cx;
+            angleGuideY = cy;
+            angleGuideAngle = best;
+            angleGuideLength = reach;
+        }
+        return best;
+    }
+
+    /** Snaps an angle to the angle step only (used for group rotations); the guide is centred at (cx, cy). */
+    double snapAngleToStep(double angle, double cx, double cy, double reach) {
+        clearGuides();
+        if (!enabled) return angle;
+        double stepped = Math.round(angle / angleStepRadians) * angleStepRadians;
+        if (Math.abs(stepped - angle) >= ANGLE_TOLERANCE_RADIANS) return angle;
+        hasAngleGuide = true;
+        angleGuideX = cx;
+        angleGuideY = cy;
+        angleGuideAngle = stepped;
+        angleGuideLength = reach;
+        return stepped;
+    }
+
+    // --- Internals ---
+
+    private void beginAxis(double radius) {
+        bestFound = false;
+        bestDelta = radius; // Only snaps strictly inside the radius are taken
+    }
+
+    /** Checks the three features (low edge, centre, high edge) of the dragged bounds against a target. */
+    private void considerAxis(double target, double low, double center, double high, double guideLo, double guideHi) {
+        considerFeature(target, low, guideLo, guideHi);
+        considerFeature(target, center, guideLo, guideHi);
+        considerFeature(target, high, guideLo, guideHi);
+    }
+
+    private void considerFeature(double target, double feature, double guideLo, double guideHi) {
+        double delta = target - feature;
+        if (Math.abs(delta) < Math.abs(bestDelta)) {
+            bestDelta = delta;
+            bestGuideFeature = feature;
+            bestLo = guideLo;
+            bestHi = guideHi;
+            bestFound = true;
+        }
+    }
+
+    /** Offset that puts the nearest of the three features on a grid line, or 0 if none is within the radius. */
+    private double gridDelta(double low, double center, double high, double pixelsPerMeter, double radius) {
+        double spacing = gridSizeMeters * pixelsPerMeter;
+        double best = nearer(gridOffset(low, spacing), radius);
+        best = nearer(gridOffset(center, spacing), best);
+        best = nearer(gridOffset(high, spacing), best);
+        return Math.abs(best) < radius ? best : 0;
+    }
+
+    private static double gridOffset(double v, double spacing) {
+        return Math.round(v / spacing) * spacing - v;
+    }
+
+    private static double nearer(double a, double b) {
+        return Math.abs(a) < Math.abs(b) ? a : b;
+    }
+
+    private void gatherNeighbours(FurnitureScene scene, MovingFilter moving, double minX, double minY, double maxX, double maxY) {
+        candidateCount = 0;
+        movingFilter = moving;
+        scene.forEachInBounds(minX, minY, maxX, maxY, collector);
+        movingFilter = null;
+    }
+
+    private void collect(int slot) {
+        if (movingFilter != null && movingFilter.isMoving(slot)) return;
+        if (candidateCount == candidates.length) candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        candidates[candidateCount++] = slot;
+    }
+}
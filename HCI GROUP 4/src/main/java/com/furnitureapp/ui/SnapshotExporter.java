@@ -0,0 +1,290 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.io.PlanExporter;
+import com.furnitureapp.io.PngStripWriter;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Parent;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SubScene;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exports the {@link Furniture3DView} scene as PNG images far larger than the screen (8K and up),
+ * and larger than a single snapshot can render.
+ * <p>
+ * The image is cut into square tiles. Each tile is drawn by a tile camera with the main camera's
+ * pose, a field of view one tile high and its projection sheared onto the tile's centre, so the
+ * tiles are exact parts of one perspective image and join without seams. For a tile, the scene
+ * root is lent to an offscreen SubScene of tile size (it brings its lights along), posed at the
+ * export angle, drawn with {@link SubScene#snapshot} into one reused WritableImage and handed
+ * back, all in one FX task: the FX thread is held for one tile at a time, and the on-screen view
+ * never shows any of it.
+ * <p>
+ * Tiles fill strips of full image width and one tile height. {@link #export} runs on a worker
+ * thread and compresses each finished strip into a {@link PngStripWriter} while the FX thread
+ * renders the next one, so memory holds two strips, never the whole image. The camera is taken
+ * when the export starts; the scene is drawn as it is when each tile is rendered.
+ */
+final class SnapshotExporter {
+
+    private static final Logger LOGGER = Logger.getLogger(SnapshotExporter.class.getName());
+    private static final long CANCEL_POLL_MILLIS = 100; // How often a waiting export checks for cancellation
+
+    /** Image settings. Defaults: 8K UHD, one image at the rotation shown on screen. */
+    static class Options {
+        int width = 7680;
+        int height = 4320;
+        int tileSize = 1024;           // Square tiles, well within the texture limit of any renderer
+        double[] yawOffsets = {0};     // Degrees added to the shown scene rotation, one image each
+    }
+
+    private final Furniture3DView view;
+    private final SubScene onScreen;
+    // FX thread only
+    private final PerspectiveCamera tileCamera = new PerspectiveCamera(true);
+    private final Affine tileTransform = new Affine();
+    private final Group tilePlaceholder = new Group();   // Root of the tile SubScene between tiles
+    private final Group screenPlaceholder = new Group(); // Root of the on-screen SubScene during a tile
+    private SubScene tileScene;
+    private WritableImage tileImage;
+    private double[] cameraMatrix; // Main camera to scene, row-major 3x4
+    private double tanHalfFov;
+    private boolean verticalFov;
+    private boolean cullingWasOn;
+
+    /** {@code onScreen} is the SubScene showing the view's root with its main camera. */
+    SnapshotExporter(Furniture3DView view, SubScene onScreen) {
+        this.view = view;
+        this.onScreen = onScreen;
+        tileCamera.getTransforms().add(tileTransform);
+    }
+
+    /**
+     * Writes one PNG per yaw offset: to {@code file} for a single offset, otherwise to
+     * {@link #fileForAngle} of it for each angle. Blocks until done, so it must not be called on the
+     * FX thread. Partial files are deleted if the export fails or is cancelled.
+     * @return the files written
+     * @throws CancellationException if the listener cancelled the export.
+     */
+    List<File> export(File file, Options options, PlanExporter.ProgressListener progress) throws IOException {
+        if (Platform.isFxApplicationThread()) throw new IllegalStateException("Snapshot export waits for the FX thread");
+        if (options.width <= 0 || options.height <= 0 || options.tileSize <= 0) throw new IllegalArgumentException("Image and tile size must be positive");
+        if (options.yawOffsets == null || options.yawOffsets.length == 0) throw new IllegalArgumentException("No angles to export");
+
+        long start = System.nanoTime();
+        int strips = (options.height + options.tileSize - 1) / options.tileSize;
+        int total = options.yawOffsets.length * strips;
+        List<File> files = new ArrayList<>();
+        try {
+            double shownAngle = onFx(() -> begin(options));
+            int[][] buffers = {new int[options.width * options.tileSize], new int[options.width * options.tileSize]};
+            for (int i = 0; i < options.yawOffsets.length; i++) {
+                double angle = shownAngle + options.yawOffsets[i];
+                File target = options.yawOffsets.length == 1 ? file : fileForAngle(file, angle);
+                writeImage(target, angle, options, buffers, progress, i * strips, total);
+                files.add(target);
+            }
+        } finally {
+            Platform.runLater(this::end);
+        }
+        LOGGER.info(String.format(Locale.ROOT, "Exported %d snapshot(s) of %dx%d to %s in %.1f s.", files.size(),
+                                  options.width, options.height, file.getParent(), (System.nanoTime() - start) / 1e9));
+        return files;
+    }
+
+    /** {@code base} with the angle before the extension: room.png at 30 degrees is room_yaw030.png. */
+    static File fileForAngle(File base, double angle) {
+        String name = base.getName();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : ".png";
+        long degrees = Math.round((angle % 360 + 360) % 360) % 360;
+        return new File(base.getParentFile(), String.format(Locale.ROOT, "%s_yaw%03d%s", stem, degrees, extension));
+    }
+
+    // One image: strip s is compressed while strip s + 1 renders into the other buffer
+    private void writeImage(File file, double angle, Options options, int[][] buffers,
+                            PlanExporter.ProgressListener progress, int progressBase, int progressTotal) throws IOException {
+        int strips = (options.height + options.tileSize - 1) / options.tileSize;
+        CompletableFuture<Void> pending = null;
+        boolean done = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 64 * 1024)) {
+            PngStripWriter png = new PngStripWriter(out, options.width, options.height);
+            pending = renderStrip(angle, 0, buffers[0], options);
+            for (int s = 0; s < strips; s++) {
+                report(progress, progressBase + s, progressTotal);
+                await(pending, progress);
+                pending = s + 1 < strips ? renderStrip(angle, s + 1, buffers[(s + 1) % 2], options) : null;
+                png.writeRows(buffers[s % 2], 0, options.width, Math.min(options.tileSize, options.height - s * options.tileSize));
+            }
+            png.finish();
+            done = true;
+        } finally {
+            if (pending != null) pending.cancel(false); // Its remaining tiles are skipped
+            if (!done && !file.delete()) {
+                LOGGER.warning("Could not delete incomplete snapshot " + file);
+            }
+        }
+    }
+
+    // Renders the tiles of one strip, one FX task each; completes when all are in the buffer
+    private CompletableFuture<Void> renderStrip(double angle, int strip, int[] pixels, Options options) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> renderTile(angle, strip, 0, pixels, options, done));
+        return done;
+    }
+
+    private void renderTile(double angle, int strip, int column, int[] pixels, Options options, CompletableFuture<Void> done) {
+        if (done.isDone()) return; // Cancelled
+        int x0 = column * options.tileSize, y0 = strip * options.tileSize;
+        try {
+            aimTileCamera(x0, y0, options);
+            view.withSnapshotPose(angle, this::snapshotTile);
+            // Tiles on the right and bottom edges reach past the image; only their inside is kept
+            int width = Math.min(options.tileSize, options.width - x0);
+            int height = Math.min(options.tileSize, options.height - y0);
+            tileImage.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, x0, options.width);
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+            return;
+        }
+        if (x0 + options.tileSize < options.width) {
+            Platform.runLater(() -> renderTile(angle, strip, column + 1, pixels, options, done));
+        } else {
+            done.complete(null);
+        }
+    }
+
+    // Lends the scene root to the tile SubScene for one snapshot
+    private void snapshotTile() {
+        Parent root = onScreen.getRoot();
+        onScreen.setRoot(screenPlaceholder);
+        tileScene.setRoot(root);
+        try {
+            tileScene.snapshot(null, tileImage);
+        } finally {
+            tileScene.setRoot(tilePlaceholder);
+            onScreen.setRoot(root);
+        }
+    }
+
+    /**
+     * Points the tile camera at the tile with top left pixel (x0, y0): camera space is sheared by
+     * x += cx * z, y += cy * z, which turns the ray through the tile's centre (cx, cy, 1) of the main
+     * camera into the tile camera's axis, and the field of view is one tile high.
+     */
+    private void aimTileCamera(int x0, int y0, Options options) {
+        int tile = options.tileSize;
+        double tan = verticalFov ? tanHalfFov : tanHalfFov * options.height / options.width; // Half image height at z = 1
+        double cx = (2.0 * x0 + tile - options.width) / options.height * tan;
+        double cy = (2.0 * y0 + tile - options.height) / options.height * tan;
+        double[] m = cameraMatrix;
+        tileTransform.setToTransform(m[0], m[1], m[2] + cx * m[0] + cy * m[1], m[3],
+                                     m[4], m[5], m[6] + cx * m[4] + cy * m[5], m[7],
+                                     m[8], m[9], m[10] + cx * m[8] + cy * m[9], m[11]);
+        tileCamera.setFieldOfView(Math.toDegrees(2 * Math.atan((double) tile / options.height * tan)));
+    }
+
+    // Takes the main camera, turns culling off (tiles at other angles see other items) and sets up
+    // the tile SubScene; returns the shown scene rotation
+    private double begin(Options options) {
+        PerspectiveCamera camera = view.getMainCamera();
+        Transform m = camera.getLocalToSceneTransform();
+        cameraMatrix = new double[]{m.getMxx(), m.getMxy(), m.getMxz(), m.getTx(),
+                                    m.getMyx(), m.getMyy(), m.getMyz(), m.getTy(),
+                                    m.getMzx(), m.getMzy(), m.getMzz(), m.getTz()};
+        tanHalfFov = Math.tan(Math.toRadians(camera.getFieldOfView() / 2.0));
+        verticalFov = camera.isVerticalFieldOfView();
+        tileCamera.setVerticalFieldOfView(true);
+        tileCamera.setNearClip(camera.getNearClip());
+        tileCamera.setFarClip(camera.getFarClip());
+
+        cullingWasOn = view.isFrustumCulling();
+        view.setFrustumCulling(false);
+        int tile = options.tileSize;
+        if (tileScene == null) {
+            tileScene = new SubScene(tilePlaceholder, tile, tile, true, SceneAntialiasing.BALANCED);
+            tileScene.setCamera(tileCamera);
+        }
+        tileScene.setWidth(tile);
+        tileScene.setHeight(tile);
+        tileScene.setFill(onScreen.getFill());
+        if (tileImage == null || tileImage.getWidth() != tile || tileImage.getHeight() != tile) {
+            tileImage = new WritableImage(tile, tile);
+        }
+        return view.getSceneRotation();
+    }
+
+    private void end() {
+        tileImage = null;
+        if (cullingWasOn) view.setFrustumCulling(true);
+    }
+
+    // Waits for a strip, checking for cancellation while the FX thread renders it
+    private static void await(CompletableFuture<Void> strip, PlanExporter.ProgressListener progress) throws IOException {
+        while (true) {
+            try {
+                strip.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (progress != null && progress.isCancelled()) throw new CancellationException("Export cancelled");
+            } catch (ExecutionException e) {
+                throw new IOException("Rendering a snapshot tile failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Snapshot export interrupted");
+            }
+        }
+    }
+
+    private static <T> T onFx(Supplier<T> task) throws IOException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Preparing the snapshot export failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Snapshot export interrupted");
+        }
+    }
+
+    private static void report(PlanExporter.ProgressListener progress, int done, int total) {
+        if (progress == null) return;
+        if (progress.isCancelled()) {
+            LOGGER.log(Level.INFO, "Snapshot export cancelled at {0}/{1}", new Object[]{done, total});
+            throw new CancellationException("Export cancelled");
+        }
+        progress.progress(done, total);
+    }
+}
@@ -0,0 +1,242 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.util.MeshBaker;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Static mesh batching for {@link Furniture3DView}: items with the same colour that lie close
+ * together are merged into one {@link MeshView}, with the item transforms baked into the vertices,
+ * so a large layout is drawn with a few dozen meshes instead of one node per item.
+ * <p>
+ * Items are grouped by colour and by a coarse floor cell (so batches stay spatially compact),
+ * and each batch holds at most {@link #MAX_BATCH_ITEMS} items. Membership is sticky: a batch is
+ * only rebaked when one of its own members is added, removed or changed. Baking runs on a worker
+ * thread ({@link MeshBaker}); all changes within one pulse are coalesced and a result that a newer
+ * change has overtaken is dropped.
+ * <p>
+ * The view keeps drawing an item's own node until the batch containing it is installed; the
+ * {@code installed} callback names those items so their nodes can then be detached.
+ * All methods except the bake are called on the FX thread.
+ */
+final class StaticMeshBatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(StaticMeshBatcher.class.getName());
+    static final int MAX_BATCH_ITEMS = 64;
+    private static final double CELL_SIZE = 256.0; // World px (~5 m at 50 px/m)
+
+    private record BatchKey(int argb, int cellX, int cellZ) {}
+
+    private static final class Member {
+        final long id;
+        GeometryData geometry;
+        final double[] matrix = new double[12];
+        Batch batch;
+
+        Member(long id) { this.id = id; }
+    }
+
+    private static final class Batch {
+        final BatchKey key;
+        final List<Member> members = new ArrayList<>(MAX_BATCH_ITEMS);
+        final MeshView view = new MeshView();
+        int version;           // Bumped on every member change; bakes of older versions are dropped
+        boolean attached;
+
+        Batch(BatchKey key, PhongMaterial material) {
+            this.key = key;
+            view.setMaterial(material);
+        }
+    }
+
+    private final Group batchGroup;
+    private final MaterialCache materials;
+    private final LongConsumer installed;
+    private final Map<Long, Member> members = new HashMap<>();
+    private final Map<BatchKey, List<Batch>> batchesByKey = new HashMap<>();
+    private final Set<Batch> dirty = new LinkedHashSet<>();
+    private boolean submitScheduled;
+    private final ExecutorService baker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mesh-batch-bake");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        return t;
+    });
+
+    /**
+     * @param batchGroup group the batch meshes are added to
+     * @param materials  the view's materials; a batch shares the one of its items' colour
+     * @param installed  told the id of every item whose batch mesh has just been installed
+     */
+    StaticMeshBatcher(Group batchGroup, MaterialCache materials, LongConsumer installed) {
+        this.batchGroup = batchGroup;
+        this.materials = materials;
+        this.installed = installed;
+    }
+
+    boolean contains(long id) { return members.containsKey(id); }
+
+    int batchCount() {
+        int count = 0;
+        for (List<Batch> batches : batchesByKey.values()) count += batches.size();
+        return count;
+    }
+
+    /** Visits the mesh of every batch that is on screen. */
+    void forEachView(Consumer<MeshView> visitor) {
+        for (List<Batch> batches : batchesByKey.values()) {
+            for (Batch batch : batches) {
+                if (batch.attached) visitor.accept(batch.view);
+            }
+        }
+    }
+
+    /**
+     * Adds an item to the batch for its colour and position.
+     * @param matrix the item's 12-value affine transform (see {@link MeshBaker#bake}), copied
+     */
+    void add(long id, GeometryData geometry, java.awt.Color color, double[] matrix) {
+        remove(id);
+        Member member = new Member(id);
+        member.geometry = geometry;
+        System.arraycopy(matrix, 0, member.matrix, 0, 12);
+        BatchKey key = new BatchKey(color.getRGB(), (int) Math.floor(matrix[3] / CELL_SIZE), (int) Math.floor(matrix[11] / CELL_SIZE));
+        List<Batch> batches = batchesByKey.computeIfAbsent(key, k -> new ArrayList<>());
+        Batch batch = null;
+        for (Batch candidate : batches) {
+            if (candidate.members.size() < MAX_BATCH_ITEMS) {
+                batch = candidate;
+                break;
+            }
+        }
+        if (batch == null) {
+            Color diffuse = Color.rgb(color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha() / 255.0);
+            batch = new Batch(key, materials.acquire(diffuse, Furniture3DView.ITEM_SPECULAR)); // Same as single item nodes
+            batches.add(batch);
+        }
+        batch.members.add(member);
+        member.batch = batch;
+        members.put(id, member);
+        markDirty(batch);
+    }
+
+    /** A member's transform changed; its batch is rebaked. The item stays in its batch even if it moved cells. */
+    void update(long id, double[] matrix) {
+        Member member = members.get(id);
+        if (member == null) return;
+        System.arraycopy(matrix, 0, member.matrix, 0, 12);
+        markDirty(member.batch);
+    }
+
+    /** Removes an item; returns false if it was not batched. */
+    boolean remove(long id) {
+        Member member = members.remove(id);
+        if (member == null) return false;
+        Batch batch = member.batch;
+        batch.members.remove(member);
+        if (batch.members.isEmpty()) {
+            // Nothing left to draw: drop the batch now rather than baking an empty mesh
+            batch.version++;
+            dirty.remove(batch);
+            if (batch.attached) batchGroup.getChildren().remove(batch.view);
+            materials.release((PhongMaterial) batch.view.getMaterial());
+            List<Batch> batches = batchesByKey.get(batch.key);
+            batches.remove(batch);
+            if (batches.isEmpty()) batchesByKey.remove(batch.key);
+        } else {
+            markDirty(batch);
+        }
+        return true;
+    }
+
+    /** Drops all batches; pending bakes are discarded. */
+    void clear() {
+        for (List<Batch> batches : batchesByKey.values()) {
+            for (Batch batch : batches) {
+                batch.version++;
+                materials.release((PhongMaterial) batch.view.getMaterial());
+            }
+        }
+        batchesByKey.clear();
+        members.clear();
+        dirty.clear();
+        batchGroup.getChildren().clear();
+    }
+
+    void dispose() {
+        clear();
+        baker.shutdownNow();
+    }
+
+    private void markDirty(Batch batch) {
+        batch.version++;
+        dirty.add(batch);
+        if (submitScheduled) return;
+        submitScheduled = true;
+        Platform.runLater(this::submitDirty); // Coalesce all changes of this pulse
+    }
+
+    // Snapshots each dirty batch and hands it to the worker
+    private void submitDirty() {
+        submitScheduled = false;
+        for (Batch batch : dirty) {
+            int count = batch.members.size();
+            GeometryData[] parts = new GeometryData[count];
+            double[] matrices = new double[count * 12];
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                Member member = batch.members.get(i);
+                parts[i] = member.geometry;
+                System.arraycopy(member.matrix, 0, matrices, i * 12, 12);
+                ids[i] = member.id;
+            }
+            int version = batch.version;
+            baker.execute(() -> {
+                try {
+                    GeometryData baked = MeshBaker.bake(parts, matrices, count);
+                    Platform.runLater(() -> install(batch, version, baked, ids));
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Baking a batch of " + count + " items failed.", e);
+                }
+            });
+        }
+        dirty.clear();
+    }
+
+    private void install(Batch batch, int version, GeometryData baked, long[] ids) {
+        if (batch.version != version) return; // Overtaken by a newer change (or dropped)
+        TriangleMesh mesh = new TriangleMesh(VertexFormat.POINT_NORMAL_TEXCOORD);
+        mesh.getPoints().setAll(baked.points());
+        mesh.getNormals().setAll(baked.normals());
+        mesh.getTexCoords().setAll(baked.texCoords());
+        mesh.getFaces().setAll(baked.faces());
+        batch.view.setMesh(mesh);
+        if (!batch.attached) {
+            batchGroup.getChildren().add(batch.view);
+            batch.attached = true;
+        }
+        for (long id : ids) {
+            if (members.containsKey(id)) installed.accept(id);
+        }
+        LOGGER.finer(() -> "Installed batch of " + ids.length + " items, " + baked.faces().length / 9 + " triangles.");
+    }
+}
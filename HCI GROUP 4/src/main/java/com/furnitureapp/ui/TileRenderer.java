@@ -0,0 +1,472 @@
+package com.furnitureapp.ui;
+
+import com.furnitureapp.model.CollisionEngine;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Draws the room floor and furniture of a {@link DrawingCanvas} from pre-rasterized tiles.
+ * <p>
+ * The world is split into {@value #TILE_SIZE} px tiles at power-of-two zoom levels; a frame uses the
+ * level at or just above the view scale and scales those tiles down by at most 2x. Missing tiles are
+ * rasterized on a small worker pool into BufferedImages kept in an LRU cache; until they arrive the
+ * frame shows a stale version of the tile or a cached tile from a coarser level, so the picture
+ * refines progressively instead of blocking the EDT.
+ * <p>
+ * Workers never touch the scene: when a tile is requested the EDT copies the footprints inside it
+ * into a job, and the worker draws from that copy. Scene changes invalidate the tiles under the old
+ * and new bounds of the changed slot, and the collision engine reports items whose highlight
+ * changed. Excluded slots (the selection, drawn live by the canvas) are left out of tiles, so
+ * dragging them only invalidates tiles whose items start or stop overlapping.
+ * <p>
+ * Apart from the workers' rasterization, used from the EDT only.
+ */
+class TileRenderer implements FurnitureScene.ChangeListener {
+
+    private static final Logger LOGGER = Logger.getLogger(TileRenderer.class.getName());
+    static final int TILE_SIZE = 256;          // Tile edge in image px
+    private static final int MIN_LEVEL = -5;   // Scale 1/32
+    private static final int MAX_LEVEL = 4;    // Scale 16
+    private static final int CACHE_CAPACITY = 192; // Tiles (~48 MB), several screens' worth
+    private static final int MAX_REQUESTS_PER_FRAME = 8; // Bounds the EDT snapshot work per paint
+    private static final int FALLBACK_LEVELS = 3;        // Coarser levels searched for a placeholder
+
+    private final FurnitureScene scene;
+    private final CollisionEngine collisionEngine;
+    private final Component repaintTarget;
+    private final Color backgroundColor;
+    private final ExecutorService workers;
+
+    // LRU tile cache, key = packed (level, column, row); accessed on the EDT only
+    private final LinkedHashMap<Long, Tile> cache = new LinkedHashMap<>(CACHE_CAPACITY * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+            if (size() <= CACHE_CAPACITY) return false;
+            eldest.getValue().evicted = true; // A queued job for it is skipped
+            return true;
+        }
+    };
+
+    private RoomShape room;              // World px, baked into the tiles
+    private Shape roomPath;              // Outline of room; never mutated, so workers may share it
+    private boolean collisionHighlighting = true; // Overlap highlight baked into the tiles
+    private volatile long frame = 0; // Read by the workers to skip tiles that scrolled away
+    private int requestsThisFrame;
+
+    // --- Slot tracking for invalidation ---
+    private double[] rasterBounds = new double[64 * 4]; // Bounds each slot has in the tiles
+    private boolean[] excluded = new boolean[64];
+    private long[] excludedIds = new long[0];
+
+    // --- Snapshot scratch ---
+    private int[] snapshotSlots = new int[256];
+    private int snapshotCount;
+    private final double[] boundsScratch = new double[4];
+    private final double[] cornerScratch = new double[8];
+    private final FurnitureScene.SlotVisitor snapshotCollector = slot -> {
+        if (slot < excluded.length && excluded[slot]) return;
+        if (snapshotCount == snapshotSlots.length) snapshotSlots = Arrays.copyOf(snapshotSlots, snapshotCount * 2);
+        snapshotSlots[snapshotCount++] = slot;
+    };
+
+    // --- Statistics ---
+    private final AtomicInteger tilesRendered = new AtomicInteger();
+    private int tilesMissingLastFrame;
+
+    TileRenderer(FurnitureScene scene, CollisionEngine collisionEngine, Component repaintTarget, Color backgroundColor) {
+        this.scene = scene;
+        this.collisionEngine = collisionEngine;
+        this.repaintTarget = repaintTarget;
+        this.backgroundColor = backgroundColor;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)); // Leave a core for the EDT
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tile-raster-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        syncAllBounds();
+        scene.addChangeListener(this);
+        collisionEngine.setStateListener(this::collisionStateChanged);
+    }
+
+    /** Stops the workers, drops all tiles and stops tracking the scene. */
+    void dispose() {
+        scene.removeChangeListener(this);
+        collisionEngine.setStateListener(null);
+        workers.shutdownNow();
+        invalidateAll();
+    }
+
+    /** Tiles rasterized so far (including ones rendered again after invalidation). */
+    int tilesRendered() { return tilesRendered.get(); }
+
+    /** Visible tiles that had no up-to-date image in the last {@link #paint} call. */
+    int tilesMissingLastFrame() { return tilesMissingLastFrame; }
+
+    /** Sets the room outline (world px) drawn into the tiles; a new shape invalidates every tile. */
+    void setRoom(RoomShape room) {
+        if (room == this.room) return;
+        this.room = room;
+        this.roomPath = room.toPath();
+        invalidateAll();
+    }
+
+    /** Turns the baked-in overlap highlight on or off; a change invalidates every tile. */
+    void setCollisionHighlighting(boolean enabled) {
+        if (enabled == collisionHighlighting) return;
+        collisionHighlighting = enabled;
+        invalidateAll();
+    }
+
+    /**
+     * Sets which items are left out of the tiles. Tiles under items entering or leaving the set
+     * are invalidated.
+     */
+    void setExcluded(Collection<Long> ids) {
+        if (ids.size() == excludedIds.length) {
+            boolean same = true;
+            int i = 0;
+            for (long id : ids) {
+                if (excludedIds[i++] != id) { same = false; break; }
+            }
+            if (same) return;
+        }
+        for (long id : excludedIds) setSlotExcluded(scene.slotOf(id), false); // Reappear in the tiles
+        long[] newIds = new long[ids.size()];
+        int i = 0;
+        for (long id : ids) {
+            newIds[i++] = id;
+            setSlotExcluded(scene.slotOf(id), true);
+        }
+        excludedIds = newIds;
+    }
+
+    /** Drops every cached tile. */
+    void invalidateAll() {
+        for (Tile tile : cache.values()) tile.evicted = true;
+        cache.clear();
+    }
+
+    /**
+     * Blits the tiles covering the clip. The graphics must be in screen space; the view transform
+     * is a uniform scale plus translation.
+     */
+    void paint(Graphics2D g2d, AffineTransform view, Rectangle clip) {
+        frame++;
+        requestsThisFrame = 0;
+        tilesMissingLastFrame = 0;
+        double viewScale = view.getScaleX();
+        int level = levelFor(viewScale);
+        double levelScale = Math.scalb(1.0, level);
+        double tileWorld = TILE_SIZE / levelScale;
+
+        double worldMinX = (clip.getMinX() - view.getTranslateX()) / viewScale;
+        double worldMinY = (clip.getMinY() - view.getTranslateY()) / viewScale;
+        double worldMaxX = (clip.getMaxX() - view.getTranslateX()) / viewScale;
+        double worldMaxY = (clip.getMaxY() - view.getTranslateY()) / viewScale;
+        int col0 = (int) Math.floor(worldMinX / tileWorld), col1 = (int) Math.floor(worldMaxX / tileWorld);
+        int row0 = (int) Math.floor(worldMinY / tileWorld), row1 = (int) Math.floor(worldMaxY / tileWorld);
+
+        // Nearest neighbour: bilinear scaling of a screenful of tiles costs ~3x more in software
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        // Centre tiles first, so they are requested (and refined) before the edges
+        int centreCol = (col0 + col1) / 2, centreRow = (row0 + row1) / 2;
+        int maxRing = Math.max(Math.max(centreCol - col0, col1 - centreCol), Math.max(centreRow - row0, row1 - centreRow));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int row = centreRow - ring; row <= centreRow + ring; row++) {
+                for (int col = centreCol - ring; col <= centreCol + ring; col++) {
+                    if (Math.max(Math.abs(col - centreCol), Math.abs(row - centreRow)) != ring) continue; // Ring border only
+                    if (col < col0 || col > col1 || row < row0 || row > row1) continue;
+                    paintTile(g2d, view, level, col, row);
+                }
+            }
+        }
+    }
+
+    // --- FurnitureScene.ChangeListener ---
+
+    @Override
+    public void slotAdded(int slot) {
+        ensureCapacity(slot + 1);
+        excluded[slot] = isExcludedId(scene.idAt(slot)); // After a clear or compaction the slot may hold another item
+        scene.bounds(slot, boundsScratch);
+        System.arraycopy(boundsScratch, 0, rasterBounds, slot * 4, 4);
+        invalidateRegion(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);
+    }
+
+    @Override
+    public void slotChanged(int slot) {
+        ensureCapacity(slot + 1);
+        int b = slot * 4;
+        scene.bounds(slot, boundsScratch);
+        if (!excluded[slot]) {
+            invalidateRegion(rasterBounds[b], rasterBounds[b + 1], rasterBounds[b + 2], rasterBounds[b + 3]);
+            invalidateRegion(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);
+        }
+        System.arraycopy(boundsScratch, 0, rasterBounds, b, 4);
+    }
+
+    @Override
+    public void slotRemoved(int slot) {
+        if (slot >= excluded.length) return;
+        int b = slot * 4;
+        if (!excluded[slot]) invalidateRegion(rasterBounds[b], rasterBounds[b + 1], rasterBounds[b + 2], rasterBounds[b + 3]);
+        excluded[slot] = false;
+    }
+
+    @Override
+    public void cleared() {
+        Arrays.fill(excluded, false);
+        invalidateAll();
+    }
+
+    /** An item started or stopped overlapping: its highlight in the tiles is out of date. */
+    private void collisionStateChanged(int slot) {
+        if (!collisionHighlighting || slot >= excluded.length || excluded[slot]) return;
+        int b = slot * 4;
+        invalidateRegion(rasterBounds[b], rasterBounds[b + 1], rasterBounds[b + 2], rasterBounds[b + 3]);
+    }
+
+    // --- Internals ---
+
+    /** The finest level whose scale is at least the view scale, so tiles are only ever scaled down. */
+    private static int levelFor(double viewScale) {
+        int level = (int) Math.ceil(Math.log(viewScale) / Math.log(2) - 1e-9);
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level));
+    }
+
+    private static long key(int level, int col, int row) {
+        return ((long) (level - MIN_LEVEL) << 56) | ((long) (col & 0xFFFFFFF) << 28) | (row & 0xFFFFFFF);
+    }
+
+    private void paintTile(Graphics2D g2d, AffineTransform view, int level, int col, int row) {
+        Tile tile = cache.get(key(level, col, row));
+        if (tile == null) {
+            tile = new Tile(level, col, row);
+            cache.put(key(level, col, row), tile);
+        }
+        tile.lastFrame = frame;
+        BufferedImage image = tile.image;
+        boolean current = image != null && tile.imageVersion == tile.version;
+        if (!current) {
+            tilesMissingLastFrame++;
+            if (tile.queuedVersion != tile.version && requestsThisFrame < MAX_REQUESTS_PER_FRAME) {
+                request(tile);
+            }
+        }
+        if (image != null) {
+            drawTileImage(g2d, view, image, level, col, row, 0, 0, TILE_SIZE); // Stale is better than nothing
+        } else {
+            drawFallback(g2d, view, level, col, row);
+        }
+    }
+
+    /** Draws the part of a cached coarser tile that covers the given tile, if there is one. */
+    private void drawFallback(Graphics2D g2d, AffineTransform view, int level, int col, int row) {
+        for (int up = 1; up <= FALLBACK_LEVELS && level - up >= MIN_LEVEL; up++) {
+            int parentCol = Math.floorDiv(col, 1 << up), parentRow = Math.floorDiv(row, 1 << up);
+            Tile parent = cache.get(key(level - up, parentCol, parentRow));
+            if (parent == null || parent.image == null) continue;
+            int subSize = TILE_SIZE >> up; // Source pixels of the parent that cover this tile
+            int srcX = (col - parentCol * (1 << up)) * subSize;
+            int srcY = (row - parentRow * (1 << up)) * subSize;
+            drawTileImage(g2d, view, parent.image, level, col, row, srcX, srcY, subSize);
+            return;
+        }
+    }
+
+    /** Draws a square of source pixels onto the screen area of tile (level, col, row). */
+    private void drawTileImage(Graphics2D g2d, AffineTransform view, BufferedImage image, int level, int col, int row,
+                               int srcX, int srcY, int srcSize) {
+        double tileWorld = TILE_SIZE / Math.scalb(1.0, level);
+        double scale = view.getScaleX();
+        // Rounded edges shared with the neighbours, so tiles never leave gaps
+        int x0 = (int) Math.round(col * tileWorld * scale + view.getTranslateX());
+        int y0 = (int) Math.round(row * tileWorld * scale + view.getTranslateY());
+        int x1 = (int) Math.round((col + 1) * tileWorld * scale + view.getTranslateX());
+        int y1 = (int) Math.round((row + 1) * tileWorld * scale + view.getTranslateY());
+        g2d.drawImage(image, x0, y0, x1, y1, srcX, srcY, srcX + srcSize, srcY + srcSize, null);
+    }
+
+    /** Copies the footprints under the tile and queues its rasterization. */
+    private void request(Tile tile) {
+        requestsThisFrame++;
+        double levelScale = Math.scalb(1.0, tile.level);
+        double tileWorld = TILE_SIZE / levelScale;
+        double pad = 2 / levelScale; // Outline and antialiasing reach past the footprint
+        double minX = tile.col * tileWorld, minY = tile.row * tileWorld;
+        snapshotCount = 0;
+        scene.forEachInBounds(minX - pad, minY - pad, minX + tileWorld + pad, minY + tileWorld + pad, snapshotCollector);
+        Arrays.sort(snapshotSlots, 0, snapshotCount); // Slot order is draw order
+        double[] corners = new double[snapshotCount * 8];
+        int[] argb = new int[snapshotCount];
+        boolean[] colliding = new boolean[snapshotCount];
+        for (int i = 0; i < snapshotCount; i++) {
+            int slot = snapshotSlots[i];
+            scene.corners(slot, cornerScratch);
+            System.arraycopy(cornerScratch, 0, corners, i * 8, 8);
+            argb[i] = scene.argbAt(slot);
+            colliding[i] = collisionHighlighting && collisionEngine.isColliding(slot);
+        }
+        int version = tile.version;
+        tile.queuedVersion = version;
+        Shape floor = roomPath;
+        try {
+            workers.execute(() -> rasterize(tile, version, corners, argb, colliding, floor));
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "[Tiles] Worker pool shut down, tile not rendered", e);
+        }
+    }
+
+    /** Worker side: draws the snapshot into a new image and publishes it if the tile is still wanted. */
+    private void rasterize(Tile tile, int version, double[] corners, int[] argb, boolean[] colliding, Shape floor) {
+        if (tile.evicted || tile.version != version || frame - tile.lastFrame > 2) {
+            tile.queuedVersion = -1; // Off screen or already stale: request again when visible
+            return;
+        }
+        double levelScale = Math.scalb(1.0, tile.level);
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(backgroundColor);
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.scale(levelScale, levelScale);
+            g.translate(-tile.col * (TILE_SIZE / levelScale), -tile.row * (TILE_SIZE / levelScale));
+            g.setColor(DrawingCanvas.ROOM_FILL_COLOR);
+            if (floor != null) g.fill(floor);
+            g.setStroke(new BasicStroke((float) (1.0 / levelScale))); // One image pixel, like the canvas hairline
+            Path2D.Double path = new Path2D.Double();
+            Path2D.Double collisionPath = new Path2D.Double();
+            Color color = null;
+            for (int i = 0; i < argb.length; i++) {
+                path.reset();
+                appendQuad(path, corners, i * 8);
+                if (color == null || color.getRGB() != argb[i]) color = new Color(argb[i], true);
+                g.setColor(color);
+                g.fill(path);
+                g.setColor(Color.BLACK);
+                g.draw(path);
+                if (colliding[i]) appendQuad(collisionPath, corners, i * 8);
+            }
+            // Same overlay as the canvas draws: above every item in the tile
+            g.setColor(DrawingCanvas.COLLISION_FILL_COLOR);
+            g.fill(collisionPath);
+            g.setColor(DrawingCanvas.COLLISION_BORDER_COLOR);
+            g.draw(collisionPath);
+        } finally {
+            g.dispose();
+        }
+        if (tile.version != version) return; // Invalidated while rendering; the newer request follows
+        tile.image = image;
+        tile.imageVersion = version;
+        tilesRendered.incrementAndGet();
+        repaintTarget.repaint(); // Thread-safe, coalesced by the RepaintManager
+    }
+
+    private static void appendQuad(Path2D.Double path, double[] corners, int c) {
+        path.moveTo(corners[c], corners[c + 1]);
+        path.lineTo(corners[c + 2], corners[c + 3]);
+        path.lineTo(corners[c + 4], corners[c + 5]);
+        path.lineTo(corners[c + 6], corners[c + 7]);
+        path.closePath();
+    }
+
+    /** Marks the tiles under a world rectangle as out of date, at every level that has tiles. */
+    private void invalidateRegion(double minX, double minY, double maxX, double maxY) {
+        if (cache.isEmpty()) return;
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            double levelScale = Math.scalb(1.0, level);
+            double tileWorld = TILE_SIZE / levelScale;
+            double pad = 2 / levelScale;
+            int col0 = (int) Math.floor((minX - pad) / tileWorld), col1 = (int) Math.floor((maxX + pad) / tileWorld);
+            int row0 = (int) Math.floor((minY - pad) / tileWorld), row1 = (int) Math.floor((maxY + pad) / tileWorld);
+            if ((long) (col1 - col0 + 1) * (row1 - row0 + 1) > cache.size()) {
+                // Large region at a fine level: cheaper to check the cached tiles
+                for (Iterator<Tile> it = cache.values().iterator(); it.hasNext(); ) {
+                    Tile tile = it.next();
+                    if (tile.level == level && tile.col >= col0 && tile.col <= col1 && tile.row >= row0 && tile.row <= row1) {
+                        tile.version++;
+                    }
+                }
+                continue;
+            }
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    Tile tile = cache.get(key(level, col, row)); // Also refreshes its LRU position
+                    if (tile != null) tile.version++;
+                }
+            }
+        }
+    }
+
+    private boolean isExcludedId(long id) {
+        for (long excludedId : excludedIds) {
+            if (excludedId == id) return true;
+        }
+        return false;
+    }
+
+    private void setSlotExcluded(int slot, boolean value) {
+        if (slot < 0) return;
+        ensureCapacity(slot + 1);
+        if (excluded[slot] == value) return;
+        excluded[slot] = value;
+        // Tiles drawn with (or without) the item are now wrong; rasterBounds is its current position
+        int b = slot * 4;
+        scene.bounds(slot, boundsScratch);
+        System.arraycopy(boundsScratch, 0, rasterBounds, b, 4);
+        invalidateRegion(boundsScratch[0], boundsScratch[1], boundsScratch[2], boundsScratch[3]);
+    }
+
+    private void syncAllBounds() {
+        ensureCapacity(scene.slotCount());
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            scene.bounds(slot, boundsScratch);
+            System.arraycopy(boundsScratch, 0, rasterBounds, slot * 4, 4);
+        }
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= excluded.length) return;
+        int newCapacity = Math.max(slots, excluded.length * 2);
+        excluded = Arrays.copyOf(excluded, newCapacity);
+        rasterBounds = Arrays.copyOf(rasterBounds, newCapacity * 4);
+    }
+
+    /** One cache entry. Versions and the image are read by the workers, hence volatile. */
+    private static final class Tile {
+        final int level, col, row;
+        volatile int version = 0;          // Bumped on invalidation (EDT)
+        volatile int queuedVersion = -1;   // Version of the last queued job
+        volatile BufferedImage image;      // Last rendered image, possibly stale
+        volatile int imageVersion = -1;
+        volatile boolean evicted = false;
+        volatile long lastFrame;           // Last frame that showed this tile
+
+        Tile(int level, int col, int row) {
+            this.level = level;
+            this.col = col;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.furnitureapp.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Bounding volume hierarchy over axis-aligned 3D boxes, used by the 3D view to find the items
+ * inside the camera frustum, or under the mouse, without testing every one.
+ * <p>
+ * Entries are addressed by int handles (reused after removal) and carry a caller id. The tree is
+ * a binary median split on the longest centroid axis with up to {@link #LEAF_SIZE} entries per
+ * leaf; each node also covers a contiguous range of the entry order, so a node that lies fully
+ * inside a query is reported without visiting its subtree.
+ * <p>
+ * Moving an entry refits its leaf and the ancestors whose bounds change (O(depth)); inserting or
+ * removing one marks the tree for a rebuild. Refits keep the topology, so after many moves nodes
+ * may grow loose: the summed node surface area is tracked, and once it exceeds
+ * {@link #REBUILD_FACTOR} times the value after the last build the tree is rebuilt before the
+ * next query. Not thread-safe.
+ */
+public final class BoundingVolumeHierarchy {
+
+    public static final int LEAF_SIZE = 4;
+    public static final double REBUILD_FACTOR = 1.5;
+    private static final int OUTSIDE = 0, PARTIAL = 1, INSIDE = 2;
+
+    // --- Entries, by handle: minX, minY, minZ, maxX, maxY, maxZ ---
+    private double[] entryBounds = new double[16 * 6];
+    private long[] ids = new long[16];
+    private boolean[] live = new boolean[16];
+    private int[] entryNode = new int[16];   // Leaf node holding the entry, -1 until the next build
+    private int handleCount;                 // Upper bound (exclusive) of handles in use
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int size;
+
+    // --- Nodes: a leaf has left == -1; every node covers order[start .. start + count) ---
+    private double[] nodeBounds = new double[0];
+    private int[] nodeLeft = new int[0], nodeRight = new int[0], nodeParent = new int[0];
+    private int[] nodeStart = new int[0], nodeCount = new int[0];
+    private int nodeTotal;
+    private int[] order = new int[0];
+    private double totalArea, builtArea;     // Summed node surface area, now and after the last build
+    private boolean structureDirty = true;
+    private int buildCount;
+    private final int[] stack = new int[128];
+    private double lastRayDistance = Double.POSITIVE_INFINITY;
+
+    /** Exact hit test for one entry, for {@link #raycast}. */
+    @FunctionalInterface
+    public interface RayHitTest {
+        /**
+         * Distance t along the ray of the entry's nearest hit below tMax, or infinity for a miss.
+         * @param boxDistance where the ray enters the entry's box (0 if it starts inside)
+         */
+        double hit(int handle, double boxDistance, double tMax);
+    }
+
+    // --- Entries ---
+
+    /** Adds a box; returns its handle. The tree is rebuilt before the next query. */
+    public int insert(long id, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        int handle = freeCount > 0 ? freeHandles[--freeCount] : handleCount++;
+        if (handle >= ids.length) {
+            int capacity = ids.length * 2;
+            entryBounds = Arrays.copyOf(entryBounds, capacity * 6);
+            ids = Arrays.copyOf(ids, capacity);
+            live = Arrays.copyOf(live, capacity);
+            entryNode = Arrays.copyOf(entryNode, capacity);
+        }
+        ids[handle] = id;
+        live[handle] = true;
+        entryNode[handle] = -1;
+        setBounds(handle, minX, minY, minZ, maxX, maxY, maxZ);
+        size++;
+        structureDirty = true;
+        return handle;
+    }
+
+    /** Moves a box; refits the nodes above it. */
+    public void update(int handle, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        setBounds(handle, minX, minY, minZ, maxX, maxY, maxZ);
+        if (!structureDirty && entryNode[handle] >= 0) refit(entryNode[handle]);
+    }
+
+    /** Removes a box; its handle may be returned by a later insert. */
+    public void remove(int handle) {
+        if (!live[handle]) return;
+        live[handle] = false;
+        if (freeCount == freeHandles.length) freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        freeHandles[freeCount++] = handle;
+        size--;
+        structureDirty = true;
+    }
+
+    public void clear() {
+        Arrays.fill(live, 0, handleCount, false);
+        handleCount = 0;
+        freeCount = 0;
+        size = 0;
+        structureDirty = true;
+    }
+
+    public int size() { return size; }
+
+    /** Upper bound (exclusive) for handle iteration; check {@link #isLive(int)}. */
+    public int handleCount() { return handleCount; }
+
+    public boolean isLive(int handle) { return live[handle]; }
+
+    public long idAt(int handle) { return ids[handle]; }
+
+    /** Copies an entry's box (minX, minY, minZ, maxX, maxY, maxZ) into out. */
+    public void bounds(int handle, double[] out) { System.arraycopy(entryBounds, handle * 6, out, 0, 6); }
+
+    /** Number of full builds so far. */
+    public int buildCount() { return buildCount; }
+
+    /** Summed node surface area relative to the last build (1 right after a build). */
+    public double degradation() { return builtArea > 0 ? totalArea / builtArea : 1; }
+
+    private void setBounds(int handle, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        int b = handle * 6;
+        entryBounds[b] = minX;
+        entryBounds[b + 1] = minY;
+        entryBounds[b + 2] = minZ;
+        entryBounds[b + 3] = maxX;
+        entryBounds[b + 4] = maxY;
+        entryBounds[b + 5] = maxZ;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Visits every entry whose box is at least partly inside the convex volume bounded by the
+     * planes (a, b, c, d per plane, inside where a*x + b*y + c*z + d >= 0), such as a frustum
+     * from {@link #frustumPlanes}. Boxes that straddle a corner outside may be reported too.
+     */
+    public void forEachInFrustum(double[] planes, IntConsumer visitor) {
+        ensureBuilt();
+        if (nodeTotal == 0) return;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int state = classify(nodeBounds, node * 6, planes);
+            if (state == OUTSIDE) continue;
+            int start = nodeStart[node], end = start + nodeCount[node];
+            if (state == INSIDE) {
+                for (int i = start; i < end; i++) visitor.accept(order[i]);
+            } else if (nodeLeft[node] < 0) {
+                for (int i = start; i < end; i++) {
+                    int handle = order[i];
+                    if (classify(entryBounds, handle * 6, planes) != OUTSIDE) visitor.accept(handle);
+                }
+            } else {
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeRight[node];
+            }
+        }
+    }
+
+    /**
+     * Casts the ray origin + t * direction (t in [0, tMax)) and returns the handle of the entry
+     * with the nearest hit, or -1. Nodes are visited near to far and skipped once their box starts
+     * beyond the best hit so far, so the exact test only runs for entries the ray reaches early.
+     * The hit distance is then available from {@link #lastRayDistance()}.
+     */
+    public int raycast(double ox, double oy, double oz, double dx, double dy, double dz, double tMax, RayHitTest test) {
+        ensureBuilt();
+        lastRayDistance = Double.POSITIVE_INFINITY;
+        if (nodeTotal == 0) return -1;
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        double best = tMax;
+        int bestHandle = -1;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (slab(nodeBounds, node * 6, ox, oy, oz, ix, iy, iz, best) == Double.POSITIVE_INFINITY) continue;
+            int left = nodeLeft[node];
+            if (left < 0) {
+                for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+                    int handle = order[i];
+                    double entry = slab(entryBounds, handle * 6, ox, oy, oz, ix, iy, iz, best);
+                    if (entry == Double.POSITIVE_INFINITY) continue;
+                    double t = test.hit(handle, entry, best);
+                    if (t < best) {
+                        best = t;
+                        bestHandle = handle;
+                    }
+                }
+                continue;
+            }
+            int right = nodeRight[node];
+            double tl = slab(nodeBounds, left * 6, ox, oy, oz, ix, iy, iz, best);
+            double tr = slab(nodeBounds, right * 6, ox, oy, oz, ix, iy, iz, best);
+            // Nearer child on top of the stack
+            if (tl <= tr) {
+                if (tr != Double.POSITIVE_INFINITY) stack[top++] = right;
+                if (tl != Double.POSITIVE_INFINITY) stack[top++] = left;
+            } else {
+                if (tl != Double.POSITIVE_INFINITY) stack[top++] = left;
+                stack[top++] = right;
+            }
+        }
+        if (bestHandle >= 0) lastRayDistance = best;
+        return bestHandle;
+    }
+
+    /** Distance t of the hit found by the last {@link #raycast}, or infinity if it found none. */
+    public double lastRayDistance() { return lastRayDistance; }
+
+    // Entry distance of the ray into a box (0 from inside), or infinity if it misses before tMax
+    private static double slab(double[] boxes, int b, double ox, double oy, double oz, double ix, double iy, double iz, double tMax) {
+        double t1 = (boxes[b] - ox) * ix, t2 = (boxes[b + 3] - ox) * ix;
+        double near = Math.min(t1, t2), far = Math.max(t1, t2);
+        t1 = (boxes[b + 1] - oy) * iy;
+        t2 = (boxes[b + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        t1 = (boxes[b + 2] - oz) * iz;
+        t2 = (boxes[b + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        if (far < Math.max(near, 0) || near >= tMax) return Double.POSITIVE_INFINITY;
+        return Math.max(near, 0);
+    }
+
+    /**
+     * Computes the six inward-facing planes of a frustum from its corners.
+     * @param corners 8 points (x, y, z): the near rectangle, then the far rectangle, both in the same
+     *                winding order so that corner i of the near face lines up with corner i of the far face
+     * @param planes  receives 6 planes (a, b, c, d), normalised
+     */
+    public static void frustumPlanes(double[] corners, double[] planes) {
+        double cx = 0, cy = 0, cz = 0;
+        for (int i = 0; i < 24; i += 3) {
+            cx += corners[i] / 8;
+            cy += corners[i + 1] / 8;
+            cz += corners[i + 2] / 8;
+        }
+        plane(corners, 0, 1, 2, cx, cy, cz, planes, 0); // Near
+        plane(corners, 4, 5, 6, cx, cy, cz, planes, 1); // Far
+        for (int i = 0; i < 4; i++) plane(corners, i, (i + 1) % 4, 4 + i, cx, cy, cz, planes, 2 + i);
+    }
+
+    // Plane through three corners, oriented so the centre is inside
+    private static void plane(double[] p, int i, int j, int k, double cx, double cy, double cz, double[] planes, int index) {
+        double ax = p[j * 3] - p[i * 3], ay = p[j * 3 + 1] - p[i * 3 + 1], az = p[j * 3 + 2] - p[i * 3 + 2];
+        double bx = p[k * 3] - p[i * 3], by = p[k * 3 + 1] - p[i * 3 + 1], bz = p[k * 3 + 2] - p[i * 3 + 2];
+        double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (length == 0) length = 1;
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        double d = -(nx * p[i * 3] + ny * p[i * 3 + 1] + nz * p[i * 3 + 2]);
+        if (nx * cx + ny * cy + nz * cz + d < 0) {
+            nx = -nx;
+            ny = -ny;
+            nz = -nz;
+            d = -d;
+        }
+        planes[index * 4] = nx;
+        planes[index * 4 + 1] = ny;
+        planes[index * 4 + 2] = nz;
+        planes[index * 4 + 3] = d;
+    }
+
+    /** Whether a box (minX, minY, minZ, maxX, maxY, maxZ from offset) is at least partly inside the planes. */
+    public static boolean intersects(double[] planes, double[] box, int offset) {
+        return classify(box, offset, planes) != OUTSIDE;
+    }
+
+    private static int classify(double[] boxes, int b, double[] planes) {
+        int state = INSIDE;
+        for (int p = 0; p < planes.length; p += 4) {
+            double a = planes[p], bb = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            // Farthest and nearest box corners along the plane normal
+            double far = a * (a >= 0 ? boxes[b + 3] : boxes[b]) + bb * (bb >= 0 ? boxes[b + 4] : boxes[b + 1])
+                    + c * (c >= 0 ? boxes[b + 5] : boxes[b + 2]) + d;
+            if (far < 0) return OUTSIDE;
+            double near = a * (a >= 0 ? boxes[b] : boxes[b + 3]) + bb * (bb >= 0 ? boxes[b + 1] : boxes[b + 4])
+                    + c * (c >= 0 ? boxes[b + 2] : boxes[b + 5]) + d;
+            if (near < 0) state = PARTIAL;
+        }
+        return state;
+    }
+
+    // --- Build and refit ---
+
+    private void ensureBuilt() {
+        if (structureDirty || totalArea > REBUILD_FACTOR * builtArea) build();
+    }
+
+    private void build() {
+        if (order.length < size) order = new int[Math.max(16, size * 2)];
+        int n = 0;
+        for (int h = 0; h < handleCount; h++) {
+            if (live[h]) order[n++] = h;
+        }
+        int maxNodes = Math.max(1, 2 * ((n + LEAF_SIZE - 1) / LEAF_SIZE));
+        if (nodeLeft.length < maxNodes) {
+            int capacity = maxNodes * 2;
+            nodeBounds = new double[capacity * 6];
+            nodeLeft = new int[capacity];
+            nodeRight = new int[capacity];
+            nodeParent = new int[capacity];
+            nodeStart = new int[capacity];
+            nodeCount = new int[capacity];
+        }
+        nodeTotal = 0;
+        totalArea = 0;
+        if (n > 0) buildNode(0, n, -1);
+        builtArea = totalArea;
+        structureDirty = false;
+        buildCount++;
+    }
+
+    private int buildNode(int start, int count, int parent) {
+        int node = nodeTotal++;
+        nodeParent[node] = parent;
+        nodeStart[node] = start;
+        nodeCount[node] = count;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        if (count <= LEAF_SIZE) {
+            for (int i = start; i < start + count; i++) entryNode[order[i]] = node;
+            unionEntries(node);
+            totalArea += area(node);
+            return node;
+        }
+        // Split at the median centroid along the longest centroid axis
+        double[] extent = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = start; i < start + count; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                double centre = centre(order[i], axis);
+                extent[axis] = Math.min(extent[axis], centre);
+                extent[axis + 3] = Math.max(extent[axis + 3], centre);
+            }
+        }
+        int axis = 0;
+        for (int a = 1; a < 3; a++) {
+            if (extent[a + 3] - extent[a] > extent[axis + 3] - extent[axis]) axis = a;
+        }
+        int half = count / 2;
+        select(start, start + count - 1, start + half, axis);
+        int left = buildNode(start, half, node);
+        int right = buildNode(start + half, count - half, node);
+        nodeLeft[node] = left;
+        nodeRight[node] = right;
+        unionChildren(node);
+        totalArea += area(node);
+        return node;
+    }
+
+    // Quickselect: order[k] gets the entry of rank k by centroid on the axis, smaller ones before it
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = centre(order[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centre(order[i], axis) < pivot) i++;
+                while (centre(order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private double centre(int handle, int axis) {
+        return entryBounds[handle * 6 + axis] + entryBounds[handle * 6 + axis + 3];
+    }
+
+    // Recomputes a leaf and then each ancestor, stopping where the bounds come out unchanged
+    private void refit(int node) {
+        boolean leaf = true;
+        while (node >= 0) {
+            int b = node * 6;
+            double x0 = nodeBounds[b], y0 = nodeBounds[b + 1], z0 = nodeBounds[b + 2];
+            double x1 = nodeBounds[b + 3], y1 = nodeBounds[b + 4], z1 = nodeBounds[b + 5];
+            double before = area(node);
+            if (leaf) unionEntries(node);
+            else unionChildren(node);
+            totalArea += area(node) - before;
+            if (x0 == nodeBounds[b] && y0 == nodeBounds[b + 1] && z0 == nodeBounds[b + 2]
+                    && x1 == nodeBounds[b + 3] && y1 == nodeBounds[b + 4] && z1 == nodeBounds[b + 5]) return;
+            node = nodeParent[node];
+            leaf = false;
+        }
+    }
+
+    private void unionEntries(int node) {
+        int b = node * 6;
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[b + k] = Double.MAX_VALUE;
+            nodeBounds[b + k + 3] = -Double.MAX_VALUE;
+        }
+        for (int i = nodeStart[node]; i < nodeStart[node] + nodeCount[node]; i++) {
+            int e = order[i] * 6;
+            for (int k = 0; k < 3; k++) {
+                nodeBounds[b + k] = Math.min(nodeBounds[b + k], entryBounds[e + k]);
+                nodeBounds[b + k + 3] = Math.max(nodeBounds[b + k + 3], entryBounds[e + k + 3]);
+            }
+        }
+    }
+
+    private void unionChildren(int node) {
+        int b = node * 6, l = nodeLeft[node] * 6, r = nodeRight[node] * 6;
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[b + k] = Math.min(nodeBounds[l + k], nodeBounds[r + k]);
+            nodeBounds[b + k + 3] = Math.max(nodeBounds[l + k + 3], nodeBounds[r + k + 3]);
+        }
+    }
+
+    private double area(int node) {
+        int b = node * 6;
+        double dx = nodeBounds[b + 3] - nodeBounds[b], dy = nodeBounds[b + 4] - nodeBounds[b + 1], dz = nodeBounds[b + 5] - nodeBounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
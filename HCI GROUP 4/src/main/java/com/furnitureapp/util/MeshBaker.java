@@ -0,0 +1,151 @@
+package com.furnitureapp.util;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.GeometryData;
+
+/**
+ * Bakes several geometries, each with its own affine transform, into one combined geometry so
+ * they can be drawn as a single mesh. Pure arrays, no JavaFX, safe to call from worker threads.
+ * <p>
+ * Each part is first moved so its base sits at y=0, centred on x and z (as the 3D view does for
+ * single items), then transformed. Normals are transformed with the inverse transpose of the
+ * linear part and renormalised. Missing or mismatched normals and texture coordinates are
+ * replaced by the same placeholders the 3D view uses (up normals, zero texture coordinates).
+ */
+public final class MeshBaker {
+
+    /** Model units per world px per pixelsPerMeter: the 3D size of an item at scale 1. */
+    public static final double MODEL_SCALE = 0.02;
+
+    private MeshBaker() {}
+
+    /**
+     * The transform the 3D view gives an item, as 12 values for {@link #bake}. Applied right to
+     * left: scale (sx, sy, sx) with sx/sy = item scale * MODEL_SCALE * pixelsPerMeter; flip to
+     * Y-up and the default 180 degree turn, together diag(-1, -1, 1); the item's rotation about
+     * Y; the translation to (tx, 0, ty).
+     */
+    public static void itemMatrix(FurnitureItem item, double pixelsPerMeter, double[] out) {
+        double sx = item.getScaleX() * MODEL_SCALE * pixelsPerMeter;
+        double sy = item.getScaleY() * MODEL_SCALE * pixelsPerMeter;
+        double cos = Math.cos(item.getRotationRadians());
+        double sin = Math.sin(item.getRotationRadians());
+        out[0] = -cos * sx; out[1] = 0;   out[2] = sin * sx;  out[3] = item.getTx();
+        out[4] = 0;         out[5] = -sy; out[6] = 0;         out[7] = 0;
+        out[8] = sin * sx;  out[9] = 0;   out[10] = cos * sx; out[11] = item.getTy();
+    }
+
+    /**
+     * @param parts    geometries in POINT_NORMAL_TEXCOORD face format
+     * @param matrices 12 values per part: mxx, mxy, mxz, tx, myx, myy, myz, ty, mzx, mzy, mzz, tz
+     * @param count    number of parts to bake
+     */
+    public static GeometryData bake(GeometryData[] parts, double[] matrices, int count) {
+        int pointFloats = 0, texFloats = 0, faceInts = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isValid(parts[i])) continue;
+            pointFloats += parts[i].points().length;
+            texFloats += parts[i].points().length / 3 * 2;
+            faceInts += parts[i].faces().length;
+        }
+        float[] points = new float[pointFloats];
+        float[] normals = new float[pointFloats];
+        float[] texCoords = new float[texFloats];
+        int[] faces = new int[faceInts];
+
+        int pointAt = 0, texAt = 0, faceAt = 0;
+        for (int i = 0; i < count; i++) {
+            GeometryData part = parts[i];
+            if (!isValid(part)) continue;
+            int m = i * 12;
+            float[] src = part.points();
+            int vertices = src.length / 3;
+
+            // Base at y=0, centred on x and z
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+            for (int k = 0; k < src.length; k += 3) {
+                minX = Math.min(minX, src[k]);
+                maxX = Math.max(maxX, src[k]);
+                minY = Math.min(minY, src[k + 1]);
+                minZ = Math.min(minZ, src[k + 2]);
+                maxZ = Math.max(maxZ, src[k + 2]);
+            }
+            double ox = -(minX + maxX) / 2.0, oy = -minY, oz = -(minZ + maxZ) / 2.0;
+            for (int k = 0; k < src.length; k += 3) {
+                double x = src[k] + ox, y = src[k + 1] + oy, z = src[k + 2] + oz;
+                points[pointAt + k]     = (float) (matrices[m]     * x + matrices[m + 1] * y + matrices[m + 2]  * z + matrices[m + 3]);
+                points[pointAt + k + 1] = (float) (matrices[m + 4] * x + matrices[m + 5] * y + matrices[m + 6]  * z + matrices[m + 7]);
+                points[pointAt + k + 2] = (float) (matrices[m + 8] * x + matrices[m + 9] * y + matrices[m + 10] * z + matrices[m + 11]);
+            }
+
+            // Cofactors of the linear part: the inverse transpose times the determinant
+            double a = matrices[m], b = matrices[m + 1], c = matrices[m + 2];
+            double d = matrices[m + 4], e = matrices[m + 5], f = matrices[m + 6];
+            double g = matrices[m + 8], h = matrices[m + 9], k9 = matrices[m + 10];
+            double c00 = e * k9 - f * h, c01 = f * g - d * k9, c02 = d * h - e * g;
+            double c10 = c * h - b * k9, c11 = a * k9 - c * g, c12 = b * g - a * h;
+            double c20 = b * f - c * e, c21 = c * d - a * f, c22 = a * e - b * d;
+            double sign = a * c00 + b * c01 + c * c02 < 0 ? -1 : 1; // Keep normals outward for mirroring transforms
+            float[] srcNormals = part.normals() != null && part.normals().length == src.length ? part.normals() : null;
+            for (int k = 0; k < src.length; k += 3) {
+                double nx = srcNormals != null ? srcNormals[k] : 0;
+                double ny = srcNormals != null ? srcNormals[k + 1] : 1;
+                double nz = srcNormals != null ? srcNormals[k + 2] : 0;
+                double tx = c00 * nx + c01 * ny + c02 * nz;
+                double ty = c10 * nx + c11 * ny + c12 * nz;
+                double tz = c20 * nx + c21 * ny + c22 * nz;
+                double length = Math.sqrt(tx * tx + ty * ty + tz * tz);
+                double scale = length > 0 ? sign / length : 0;
+                normals[pointAt + k] = (float) (tx * scale);
+                normals[pointAt + k + 1] = (float) (ty * scale);
+                normals[pointAt + k + 2] = (float) (tz * scale);
+            }
+
+            float[] srcTex = part.texCoords();
+            if (srcTex != null && srcTex.length == vertices * 2) {
+                System.arraycopy(srcTex, 0, texCoords, texAt, srcTex.length);
+            } // Else left at zero
+
+            // Faces are (point, normal, texcoord) triples; all three index per-vertex arrays here
+            int vertexBase = pointAt / 3, texBase = texAt / 2;
+            int[] srcFaces = part.faces();
+            for (int k = 0; k < srcFaces.length; k += 3) {
+                faces[faceAt + k] = srcFaces[k] + vertexBase;
+                faces[faceAt + k + 1] = srcFaces[k + 1] + vertexBase;
+                faces[faceAt + k + 2] = srcFaces[k + 2] + texBase;
+            }
+            pointAt += src.length;
+            texAt += vertices * 2;
+            faceAt += srcFaces.length;
+        }
+        return new GeometryData(points, normals, texCoords, faces);
+    }
+
+    /**
+     * Size of a geometry once its base is moved to y=0 and centred on x and z: half width, height
+     * and half depth into out. The box is [-out[0], out[0]] x [0, out[1]] x [-out[2], out[2]].
+     */
+    public static void baseExtents(GeometryData geometry, double[] out) {
+        float[] points = geometry.points();
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int k = 0; k < points.length; k += 3) {
+            minX = Math.min(minX, points[k]);
+            maxX = Math.max(maxX, points[k]);
+            minY = Math.min(minY, points[k + 1]);
+            maxY = Math.max(maxY, points[k + 1]);
+            minZ = Math.min(minZ, points[k + 2]);
+            maxZ = Math.max(maxZ, points[k + 2]);
+        }
+        out[0] = (maxX - minX) / 2.0;
+        out[1] = maxY - minY;
+        out[2] = (maxZ - minZ) / 2.0;
+    }
+
+    /** Whether a geometry can be baked: points and whole triangles (9 face ints each). */
+    public static boolean isValid(GeometryData geometry) {
+        return geometry != null && geometry.points() != null && geometry.faces() != null
+                && geometry.points().length > 0 && geometry.faces().length > 0 && geometry.faces().length % 9 == 0;
+    }
+}
@@ -0,0 +1,249 @@
+package com.furnitureapp.util;
+
+import com.furnitureapp.model.GeometryData;
+
+/**
+ * Triangle bounding volume hierarchy over one {@link GeometryData}, for ray picking in the 3D
+ * view without testing every triangle of a large model. Built once per model (it only depends
+ * on the geometry) and immutable afterwards, so one instance can serve every item using the
+ * model from any thread.
+ * <p>
+ * Median split on the longest centroid axis, up to {@link #LEAF_SIZE} triangles per leaf. The
+ * triangle corners are copied in leaf order, so a leaf's triangles are contiguous in memory.
+ */
+public final class MeshBvh {
+
+    public static final int LEAF_SIZE = 4;
+    private static final double EPSILON = 1e-12;
+
+    private final float[] triangles;  // 9 floats per triangle, in leaf order
+    private final float[] nodeBounds; // minX, minY, minZ, maxX, maxY, maxZ per node
+    private final int[] nodeLeft;     // Left child, or -1 for a leaf
+    private final int[] nodeRight;
+    private final int[] nodeStart;    // First triangle (leaves)
+    private final int[] nodeCount;
+    private int nodeTotal;
+    private final double baseX, baseY, baseZ; // Centre x, min y, centre z of the points (see MeshBaker)
+
+    // Build scratch
+    private float[] centroids;
+    private int[] order;
+    private float[] source;
+
+    private MeshBvh(int triangleCount, double baseX, double baseY, double baseZ) {
+        this.triangles = new float[triangleCount * 9];
+        int maxNodes = Math.max(1, nodeCount(triangleCount));
+        this.nodeBounds = new float[maxNodes * 6];
+        this.nodeLeft = new int[maxNodes];
+        this.nodeRight = new int[maxNodes];
+        this.nodeStart = new int[maxNodes];
+        this.nodeCount = new int[maxNodes];
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.baseZ = baseZ;
+    }
+
+    /** Builds the hierarchy for a geometry in POINT_NORMAL_TEXCOORD face format. */
+    public static MeshBvh build(GeometryData geometry) {
+        float[] points = geometry.points();
+        int[] faces = geometry.faces();
+        int count = faces.length / 9;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int k = 0; k < points.length; k += 3) {
+            minX = Math.min(minX, points[k]);
+            maxX = Math.max(maxX, points[k]);
+            minY = Math.min(minY, points[k + 1]);
+            minZ = Math.min(minZ, points[k + 2]);
+            maxZ = Math.max(maxZ, points[k + 2]);
+        }
+        MeshBvh bvh = new MeshBvh(count, (minX + maxX) / 2.0, minY, (minZ + maxZ) / 2.0);
+        bvh.source = new float[count * 9];
+        bvh.centroids = new float[count * 3];
+        bvh.order = new int[count];
+        for (int t = 0; t < count; t++) {
+            for (int v = 0; v < 3; v++) {
+                int p = faces[t * 9 + v * 3] * 3; // Point index of corner v
+                for (int k = 0; k < 3; k++) {
+                    bvh.source[t * 9 + v * 3 + k] = points[p + k];
+                    bvh.centroids[t * 3 + k] += points[p + k] / 3f;
+                }
+            }
+            bvh.order[t] = t;
+        }
+        if (count > 0) bvh.buildNode(0, count);
+        for (int i = 0; i < count; i++) System.arraycopy(bvh.source, bvh.order[i] * 9, bvh.triangles, i * 9, 9);
+        bvh.source = null;
+        bvh.centroids = null;
+        bvh.order = null;
+        return bvh;
+    }
+
+    public int triangleCount() { return triangles.length / 9; }
+
+    // Nodes a median split makes for count triangles (leaves hold 2..LEAF_SIZE, so more than count / LEAF_SIZE)
+    private static int nodeCount(int count) {
+        if (count <= LEAF_SIZE) return 1;
+        int half = count / 2;
+        return 1 + nodeCount(half) + nodeCount(count - half);
+    }
+
+    private int buildNode(int start, int count) {
+        int node = nodeTotal++;
+        nodeStart[node] = start;
+        nodeCount[node] = count;
+        nodeLeft[node] = -1;
+        nodeRight[node] = -1;
+        int b = node * 6;
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[b + k] = Float.MAX_VALUE;
+            nodeBounds[b + k + 3] = -Float.MAX_VALUE;
+        }
+        float[] centreMin = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] centreMax = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = start; i < start + count; i++) {
+            int t = order[i];
+            for (int c = 0; c < 9; c++) {
+                int k = c % 3;
+                nodeBounds[b + k] = Math.min(nodeBounds[b + k], source[t * 9 + c]);
+                nodeBounds[b + k + 3] = Math.max(nodeBounds[b + k + 3], source[t * 9 + c]);
+            }
+            for (int k = 0; k < 3; k++) {
+                centreMin[k] = Math.min(centreMin[k], centroids[t * 3 + k]);
+                centreMax[k] = Math.max(centreMax[k], centroids[t * 3 + k]);
+            }
+        }
+        if (count <= LEAF_SIZE) return node;
+        int axis = 0;
+        for (int k = 1; k < 3; k++) {
+            if (centreMax[k] - centreMin[k] > centreMax[axis] - centreMin[axis]) axis = k;
+        }
+        int half = count / 2;
+        select(start, start + count - 1, start + half, axis);
+        nodeLeft[node] = buildNode(start, half);
+        nodeRight[node] = buildNode(start + half, count - half);
+        return node;
+    }
+
+    // Quickselect on triangle centroids along the axis
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            float pivot = centroids[order[(lo + hi) >>> 1] * 3 + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroids[order[i] * 3 + axis] < pivot) i++;
+                while (centroids[order[j] * 3 + axis] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    /**
+     * Nearest hit of the ray origin + t * direction with a triangle (either side), in the
+     * geometry's own coordinates.
+     * @return t of the nearest hit below tMax, or {@link Double#POSITIVE_INFINITY}
+     */
+    public double raycast(double ox, double oy, double oz, double dx, double dy, double dz, double tMax) {
+        if (nodeTotal == 0) return Double.POSITIVE_INFINITY;
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+        double best = tMax;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (slab(nodeBounds, node * 6, ox, oy, oz, ix, iy, iz, best) == Double.POSITIVE_INFINITY) continue;
+            int left = nodeLeft[node];
+            if (left < 0) {
+                for (int t = nodeStart[node]; t < nodeStart[node] + nodeCount[node]; t++) {
+                    double hit = triangle(t * 9, ox, oy, oz, dx, dy, dz);
+                    if (hit < best) best = hit;
+                }
+                continue;
+            }
+            int right = nodeRight[node];
+            double tl = slab(nodeBounds, left * 6, ox, oy, oz, ix, iy, iz, best);
+            double tr = slab(nodeBounds, right * 6, ox, oy, oz, ix, iy, iz, best);
+            // Nearer child on top of the stack, so its hits prune the farther one
+            if (tl <= tr) {
+                if (tr != Double.POSITIVE_INFINITY) stack[top++] = right;
+                if (tl != Double.POSITIVE_INFINITY) stack[top++] = left;
+            } else {
+                if (tl != Double.POSITIVE_INFINITY) stack[top++] = left;
+                stack[top++] = right;
+            }
+        }
+        return best < tMax ? best : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Like {@link #raycast} for a ray in item space, where the geometry is shown with its base
+     * moved to y=0 (centred on x and z) and then transformed by an affine matrix. The distance
+     * parameter t is the same in both spaces.
+     * @param matrices 12 values from offset: mxx, mxy, mxz, tx, myx, myy, myz, ty, mzx, mzy, mzz, tz
+     */
+    public double raycast(double[] matrices, int offset, double ox, double oy, double oz, double dx, double dy, double dz, double tMax) {
+        int m = offset;
+        double a = matrices[m], b = matrices[m + 1], c = matrices[m + 2];
+        double d = matrices[m + 4], e = matrices[m + 5], f = matrices[m + 6];
+        double g = matrices[m + 8], h = matrices[m + 9], k = matrices[m + 10];
+        // Inverse of the linear part: the adjugate over the determinant
+        double c00 = e * k - f * h, c01 = c * h - b * k, c02 = b * f - c * e;
+        double c10 = f * g - d * k, c11 = a * k - c * g, c12 = c * d - a * f;
+        double c20 = d * h - e * g, c21 = b * g - a * h, c22 = a * e - b * d;
+        double det = a * c00 + b * c10 + c * c20;
+        if (Math.abs(det) < EPSILON) return Double.POSITIVE_INFINITY;
+        double px = ox - matrices[m + 3], py = oy - matrices[m + 7], pz = oz - matrices[m + 11];
+        double lox = (c00 * px + c01 * py + c02 * pz) / det + baseX;
+        double loy = (c10 * px + c11 * py + c12 * pz) / det + baseY;
+        double loz = (c20 * px + c21 * py + c22 * pz) / det + baseZ;
+        double ldx = (c00 * dx + c01 * dy + c02 * dz) / det;
+        double ldy = (c10 * dx + c11 * dy + c12 * dz) / det;
+        double ldz = (c20 * dx + c21 * dy + c22 * dz) / det;
+        return raycast(lox, loy, loz, ldx, ldy, ldz, tMax);
+    }
+
+    // Entry distance of the ray into a node box (0 from inside), or infinity if it misses before tMax
+    private static double slab(float[] bounds, int b, double ox, double oy, double oz, double ix, double iy, double iz, double tMax) {
+        double t1 = (bounds[b] - ox) * ix, t2 = (bounds[b + 3] - ox) * ix;
+        double near = Math.min(t1, t2), far = Math.max(t1, t2);
+        t1 = (bounds[b + 1] - oy) * iy;
+        t2 = (bounds[b + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        t1 = (bounds[b + 2] - oz) * iz;
+        t2 = (bounds[b + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t1, t2));
+        far = Math.min(far, Math.max(t1, t2));
+        if (far < Math.max(near, 0) || near >= tMax) return Double.POSITIVE_INFINITY;
+        return Math.max(near, 0);
+    }
+
+    // Moller-Trumbore; returns t or infinity
+    private double triangle(int at, double ox, double oy, double oz, double dx, double dy, double dz) {
+        float[] v = triangles;
+        double e1x = v[at + 3] - v[at], e1y = v[at + 4] - v[at + 1], e1z = v[at + 5] - v[at + 2];
+        double e2x = v[at + 6] - v[at], e2y = v[at + 7] - v[at + 1], e2z = v[at + 8] - v[at + 2];
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (Math.abs(det) < EPSILON) return Double.POSITIVE_INFINITY;
+        double inv = 1 / det;
+        double sx = ox - v[at], sy = oy - v[at + 1], sz = oz - v[at + 2];
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1) return Double.POSITIVE_INFINITY;
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double w = (dx * qx + dy * qy + dz * qz) * inv;
+        if (w < 0 || u + w > 1) return Double.POSITIVE_INFINITY;
+        double t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+        return t > EPSILON ? t : Double.POSITIVE_INFINITY;
+    }
+}
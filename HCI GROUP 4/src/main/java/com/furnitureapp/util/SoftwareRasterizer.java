@@ -0,0 +1,458 @@
+package com.furnitureapp.util;
+
+import com.furnitureapp.model.GeometryData;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Pure-Java triangle renderer with a z-buffer, for 3D previews where JavaFX cannot run (no GPU,
+ * no display). Lighting follows JavaFX's PhongMaterial model: diffuse colour times the ambient
+ * light plus, per point light, diffuse times N.L and a specular highlight, evaluated per pixel.
+ * <p>
+ * Each image goes through four parallel passes on a private {@link ForkJoinPool}:
+ * <ol>
+ * <li>every vertex is projected to the screen;</li>
+ * <li>triangles are culled (behind the near plane, back-facing, off screen) and binned into the
+ *     {@link #TILE_SIZE} screen tiles their bounds touch, each worker into its own bins;</li>
+ * <li>tiles are rasterized independently into a tile-sized depth and triangle-id buffer;</li>
+ * <li>each covered pixel of the tile is shaded once, from the triangle that won the depth test.</li>
+ * </ol>
+ * Tiles never share pixels, so nothing is locked after binning, and deferring the shading to the
+ * visible triangle keeps its cost independent of overdraw. Triangles with a vertex in front of the
+ * near plane are skipped rather than clipped; callers keep the camera outside the geometry.
+ * <p>
+ * A renderer is reused across images (its buffers grow to the largest image and scene) but renders
+ * one image at a time.
+ */
+public final class SoftwareRasterizer implements AutoCloseable {
+
+    public static final int TILE_SIZE = 64;
+    private static final int VERTEX_CHUNK = 1 << 14;
+
+    /** Surface properties, as a JavaFX PhongMaterial: diffuse colour, grey specular colour and power. */
+    public static final class Material {
+        final float red, green, blue;
+        final float specular;   // 0 for none (PhongMaterial without a specular colour)
+        final float power;
+        final boolean twoSided; // Lit from whichever side faces the camera (CullFace.NONE)
+
+        public Material(Color diffuse, double specular, double power, boolean twoSided) {
+            this.red = diffuse.getRed() / 255f;
+            this.green = diffuse.getGreen() / 255f;
+            this.blue = diffuse.getBlue() / 255f;
+            this.specular = (float) specular;
+            this.power = (float) power;
+            this.twoSided = twoSided;
+        }
+    }
+
+    /**
+     * One geometry drawn with one material. Normals are per point (normal index = point index), as
+     * {@link MeshBaker} produces them. The orientation says which way the triangle winding faces:
+     * +1 if (b - a) x (c - a) points out of the surface, -1 if in, 0 to draw both sides.
+     */
+    public static final class Mesh {
+        final GeometryData geometry;
+        final Material material;
+        final int orientation;
+
+        public Mesh(GeometryData geometry, Material material, int orientation) {
+            this.geometry = geometry;
+            this.material = material;
+            this.orientation = orientation;
+        }
+    }
+
+    /** Meshes packed into flat arrays, built once and rendered from any number of views. */
+    public static final class Scene {
+        final float[] points, normals;
+        final int[] triangles;    // 3 point indices per triangle
+        final int[] triangleMesh; // Mesh index of each triangle
+        final Material[] materials;
+        final int[] orientations;
+        final int vertexCount, triangleCount;
+
+        public Scene(List<Mesh> meshes) {
+            int vertices = 0, tris = 0;
+            for (Mesh mesh : meshes) {
+                vertices += mesh.geometry.points().length / 3;
+                tris += mesh.geometry.faces().length / 9;
+            }
+            points = new float[vertices * 3];
+            normals = new float[vertices * 3];
+            triangles = new int[tris * 3];
+            triangleMesh = new int[tris];
+            materials = new Material[meshes.size()];
+            orientations = new int[meshes.size()];
+            int vertexAt = 0, triAt = 0;
+            for (int m = 0; m < meshes.size(); m++) {
+                Mesh mesh = meshes.get(m);
+                materials[m] = mesh.material;
+                orientations[m] = mesh.orientation;
+                float[] p = mesh.geometry.points(), n = mesh.geometry.normals();
+                System.arraycopy(p, 0, points, vertexAt * 3, p.length);
+                if (n != null && n.length == p.length) {
+                    System.arraycopy(n, 0, normals, vertexAt * 3, n.length);
+                } else {
+                    for (int k = 1; k < p.length; k += 3) normals[vertexAt * 3 + k] = -1; // Up (y is down)
+                }
+                int[] faces = mesh.geometry.faces();
+                for (int k = 0; k < faces.length; k += 9, triAt++) {
+                    triangles[triAt * 3] = faces[k] + vertexAt;
+                    triangles[triAt * 3 + 1] = faces[k + 3] + vertexAt;
+                    triangles[triAt * 3 + 2] = faces[k + 6] + vertexAt;
+                    triangleMesh[triAt] = m;
+                }
+                vertexAt += p.length / 3;
+            }
+            vertexCount = vertices;
+            triangleCount = tris;
+        }
+
+        public int triangleCount() { return triangleCount; }
+
+        public int meshCount() { return materials.length; }
+    }
+
+    /** Ambient light plus an optional point light (JavaFX AmbientLight / PointLight without attenuation); colours 0-1. */
+    public static final class Lighting {
+        public float ambientRed, ambientGreen, ambientBlue;
+        public boolean pointLight;
+        public double lightX, lightY, lightZ;
+        public float lightRed = 1, lightGreen = 1, lightBlue = 1;
+    }
+
+    private final ForkJoinPool pool;
+
+    // Per image, grown as needed
+    private float[] screenX = new float[0], screenY = new float[0], inverseZ = new float[0];
+    private int[][][] bins = new int[0][][];   // [worker][tile] -> triangle indices
+    private int[][] binSizes = new int[0][];
+    private int[] supersampled = new int[0];
+    private final ThreadLocal<float[]> tileDepth = ThreadLocal.withInitial(() -> new float[TILE_SIZE * TILE_SIZE]);
+    private final ThreadLocal<int[]> tileIds = ThreadLocal.withInitial(() -> new int[TILE_SIZE * TILE_SIZE]);
+
+    // Per image state read by the passes
+    private Scene scene;
+    private boolean[] meshVisible;
+    private Lighting lighting;
+    private double[] view;       // World to camera, 3x4 row-major
+    private double eyeX, eyeY, eyeZ;
+    private double focal, centreX, centreY, nearClip;
+    private int width, height, tilesX, tilesY, background;
+    private int[] target;
+
+    /** @param threads worker threads; 0 for one per core */
+    public SoftwareRasterizer(int threads) {
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int parallelism() { return pool.getParallelism(); }
+
+    @Override
+    public void close() { pool.shutdownNow(); }
+
+    /**
+     * Renders the scene into pixels (ARGB, row-major, width x height).
+     * @param worldToCamera 12 values, 3x4 row-major: camera space looks along +z with y down and
+     *                      x to the right, like a JavaFX PerspectiveCamera
+     * @param fieldOfView   vertical field of view in degrees
+     * @param meshVisible   which meshes to draw, by index; null for all
+     * @param supersample   samples per pixel along each axis (1 for none), box-filtered
+     */
+    public void render(Scene scene, double[] worldToCamera, double fieldOfView, double nearClip, Lighting lighting,
+                       boolean[] meshVisible, int background, int[] pixels, int width, int height, int supersample) {
+        int s = Math.max(1, supersample);
+        int[] out = pixels;
+        if (s > 1) {
+            if (supersampled.length < width * height * s * s) supersampled = new int[width * height * s * s];
+            out = supersampled;
+        }
+        this.scene = scene;
+        this.meshVisible = meshVisible;
+        this.lighting = lighting;
+        this.view = worldToCamera;
+        this.nearClip = nearClip;
+        this.background = background;
+        this.target = out;
+        this.width = width * s;
+        this.height = height * s;
+        this.focal = this.height / 2.0 / Math.tan(Math.toRadians(fieldOfView / 2.0));
+        this.centreX = this.width / 2.0;
+        this.centreY = this.height / 2.0;
+        double[] m = worldToCamera; // Eye = -R^T t
+        eyeX = -(m[0] * m[3] + m[4] * m[7] + m[8] * m[11]);
+        eyeY = -(m[1] * m[3] + m[5] * m[7] + m[9] * m[11]);
+        eyeZ = -(m[2] * m[3] + m[6] * m[7] + m[10] * m[11]);
+        try {
+            project();
+            bin();
+            parallel(tilesX * tilesY, this::drawTile);
+            if (s > 1) downsample(pixels, width, height, s);
+        } finally {
+            this.scene = null;
+            this.target = null;
+        }
+    }
+
+    // Runs body(0 .. count - 1) on the pool and waits
+    private void parallel(int count, IntConsumer body) {
+        pool.submit(() -> IntStream.range(0, count).parallel().forEach(body)).join();
+    }
+
+    // --- Pass 1: vertices to screen ---
+
+    private void project() {
+        int vertices = scene.vertexCount;
+        if (screenX.length < vertices) {
+            screenX = new float[vertices];
+            screenY = new float[vertices];
+            inverseZ = new float[vertices];
+        }
+        parallel((vertices + VERTEX_CHUNK - 1) / VERTEX_CHUNK, chunk -> {
+            double[] m = view;
+            float[] p = scene.points;
+            for (int v = chunk * VERTEX_CHUNK, end = Math.min(vertices, v + VERTEX_CHUNK); v < end; v++) {
+                double x = p[v * 3], y = p[v * 3 + 1], z = p[v * 3 + 2];
+                double cx = m[0] * x + m[1] * y + m[2] * z + m[3];
+                double cy = m[4] * x + m[5] * y + m[6] * z + m[7];
+                double cz = m[8] * x + m[9] * y + m[10] * z + m[11];
+                if (cz < nearClip) {
+                    inverseZ[v] = -1; // Marks the vertex unusable
+                    continue;
+                }
+                double iz = 1 / cz;
+                screenX[v] = (float) (centreX + cx * focal * iz);
+                screenY[v] = (float) (centreY + cy * focal * iz);
+                inverseZ[v] = (float) iz;
+            }
+        });
+    }
+
+    // --- Pass 2: cull and bin triangles into tiles ---
+
+    private void bin() {
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int tiles = tilesX * tilesY, workers = pool.getParallelism();
+        if (bins.length != workers || bins[0].length < tiles) {
+            bins = new int[workers][tiles][16];
+            binSizes = new int[workers][tiles];
+        }
+        int count = scene.triangleCount;
+        // Contiguous ranges per worker keep each tile's triangles in scene order (deterministic ties)
+        parallel(workers, worker -> {
+            int[][] myBins = bins[worker];
+            int[] sizes = binSizes[worker];
+            Arrays.fill(sizes, 0);
+            int[] tri = scene.triangles;
+            for (int t = (int) ((long) count * worker / workers), end = (int) ((long) count * (worker + 1) / workers); t < end; t++) {
+                int mesh = scene.triangleMesh[t];
+                if (meshVisible != null && !meshVisible[mesh]) continue;
+                int a = tri[t * 3], b = tri[t * 3 + 1], c = tri[t * 3 + 2];
+                if (inverseZ[a] < 0 || inverseZ[b] < 0 || inverseZ[c] < 0) continue;
+                float ax = screenX[a], ay = screenY[a], bx = screenX[b], by = screenY[b], cx = screenX[c], cy = screenY[c];
+                float area = (bx - ax) * (cy - ay) - (cx - ax) * (by - ay);
+                if (area == 0) continue;
+                // Facing the camera iff orientation * area < 0 (projected winding flips for outward faces)
+                int orientation = scene.orientations[mesh];
+                if (orientation * area > 0) continue;
+                int minX = (int) Math.max(0, Math.floor(Math.min(ax, Math.min(bx, cx))));
+                int maxX = (int) Math.min(width - 1, Math.ceil(Math.max(ax, Math.max(bx, cx))));
+                int minY = (int) Math.max(0, Math.floor(Math.min(ay, Math.min(by, cy))));
+                int maxY = (int) Math.min(height - 1, Math.ceil(Math.max(ay, Math.max(by, cy))));
+                if (minX > maxX || minY > maxY) continue;
+                for (int ty = minY / TILE_SIZE; ty <= maxY / TILE_SIZE; ty++) {
+                    for (int tx = minX / TILE_SIZE; tx <= maxX / TILE_SIZE; tx++) {
+                        int tile = ty * tilesX + tx;
+                        if (sizes[tile] == myBins[tile].length) myBins[tile] = Arrays.copyOf(myBins[tile], sizes[tile] * 2);
+                        myBins[tile][sizes[tile]++] = t;
+                    }
+                }
+            }
+        });
+    }
+
+    // --- Passes 3 and 4: rasterize one tile into its visibility buffer, then shade it ---
+
+    private void drawTile(int tile) {
+        int x0 = (tile % tilesX) * TILE_SIZE, y0 = (tile / tilesX) * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, width), y1 = Math.min(y0 + TILE_SIZE, height);
+        float[] depth = tileDepth.get();
+        int[] ids = tileIds.get();
+        Arrays.fill(depth, 0); // Inverse depth: 0 is infinitely far
+        Arrays.fill(ids, -1);
+        int[] tri = scene.triangles;
+        for (int worker = 0; worker < bins.length; worker++) {
+            int[] list = bins[worker][tile];
+            for (int i = 0, n = binSizes[worker][tile]; i < n; i++) {
+                int t = list[i];
+                rasterize(t, tri[t * 3], tri[t * 3 + 1], tri[t * 3 + 2], x0, y0, x1, y1, depth, ids);
+            }
+        }
+        for (int y = y0; y < y1; y++) {
+            int row = (y - y0) * TILE_SIZE, out = y * width;
+            for (int x = x0; x < x1; x++) {
+                int id = ids[row + x - x0];
+                target[out + x] = id < 0 ? background : shade(id, x + 0.5, y + 0.5);
+            }
+        }
+    }
+
+    private void rasterize(int t, int a, int b, int c, int x0, int y0, int x1, int y1, float[] depth, int[] ids) {
+        float ax = screenX[a], ay = screenY[a], bx = screenX[b], by = screenY[b], cx = screenX[c], cy = screenY[c];
+        float area = (bx - ax) * (cy - ay) - (cx - ax) * (by - ay);
+        if (area < 0) { // Counter-clockwise on screen: swap b and c so the edge functions are positive inside
+            int v = b; b = c; c = v;
+            float f = bx; bx = cx; cx = f;
+            f = by; by = cy; cy = f;
+            area = -area;
+        }
+        int minX = Math.max(x0, (int) Math.floor(Math.min(ax, Math.min(bx, cx))));
+        int maxX = Math.min(x1 - 1, (int) Math.ceil(Math.max(ax, Math.max(bx, cx))));
+        int minY = Math.max(y0, (int) Math.floor(Math.min(ay, Math.min(by, cy))));
+        int maxY = Math.min(y1 - 1, (int) Math.ceil(Math.max(ay, Math.max(by, cy))));
+        if (minX > maxX || minY > maxY) return;
+        float za = inverseZ[a] / area, zb = inverseZ[b] / area, zc = inverseZ[c] / area;
+        // Edge functions, one per opposite vertex, at the first pixel centre; stepped per pixel
+        float px = minX + 0.5f, py = minY + 0.5f;
+        float e0 = (cx - bx) * (py - by) - (cy - by) * (px - bx), e0x = by - cy, e0y = cx - bx;
+        float e1 = (ax - cx) * (py - cy) - (ay - cy) * (px - cx), e1x = cy - ay, e1y = ax - cx;
+        float e2 = (bx - ax) * (py - ay) - (by - ay) * (px - ax), e2x = ay - by, e2y = bx - ax;
+        for (int y = minY; y <= maxY; y++) {
+            float w0 = e0, w1 = e1, w2 = e2;
+            int row = (y - y0) * TILE_SIZE - x0;
+            for (int x = minX; x <= maxX; x++) {
+                if (w0 >= 0 && w1 >= 0 && w2 >= 0) {
+                    float z = w0 * za + w1 * zb + w2 * zc;
+                    if (z > depth[row + x]) {
+                        depth[row + x] = z;
+                        ids[row + x] = t;
+                    }
+                }
+                w0 += e0x;
+                w1 += e1x;
+                w2 += e2x;
+            }
+            e0 += e0y;
+            e1 += e1y;
+            e2 += e2y;
+        }
+    }
+
+    // Phong lighting of the visible triangle at a pixel centre, with perspective-correct attributes
+    private int shade(int t, double px, double py) {
+        int a = scene.triangles[t * 3], b = scene.triangles[t * 3 + 1], c = scene.triangles[t * 3 + 2];
+        double ax = screenX[a], ay = screenY[a], bx = screenX[b], by = screenY[b], cx = screenX[c], cy = screenY[c];
+        double area = (bx - ax) * (cy - ay) - (cx - ax) * (by - ay);
+        double la = ((cx - bx) * (py - by) - (cy - by) * (px - bx)) / area * inverseZ[a];
+        double lb = ((ax - cx) * (py - cy) - (ay - cy) * (px - cx)) / area * inverseZ[b];
+        double lc = ((bx - ax) * (py - ay) - (by - ay) * (px - ax)) / area * inverseZ[c];
+        double sum = la + lb + lc;
+        la /= sum;
+        lb /= sum;
+        lc /= sum;
+        Material material = scene.materials[scene.triangleMesh[t]];
+        Lighting light = lighting;
+        double red = material.red * light.ambientRed, green = material.green * light.ambientGreen, blue = material.blue * light.ambientBlue;
+        if (light.pointLight) {
+            float[] p = scene.points, n = scene.normals;
+            double x = la * p[a * 3] + lb * p[b * 3] + lc * p[c * 3];
+            double y = la * p[a * 3 + 1] + lb * p[b * 3 + 1] + lc * p[c * 3 + 1];
+            double z = la * p[a * 3 + 2] + lb * p[b * 3 + 2] + lc * p[c * 3 + 2];
+            double nx = la * n[a * 3] + lb * n[b * 3] + lc * n[c * 3];
+            double ny = la * n[a * 3 + 1] + lb * n[b * 3 + 1] + lc * n[c * 3 + 1];
+            double nz = la * n[a * 3 + 2] + lb * n[b * 3 + 2] + lc * n[c * 3 + 2];
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            double lx = light.lightX - x, ly = light.lightY - y, lz = light.lightZ - z;
+            double lightLength = Math.sqrt(lx * lx + ly * ly + lz * lz);
+            if (length > 0 && lightLength > 0) {
+                nx /= length; ny /= length; nz /= length;
+                lx /= lightLength; ly /= lightLength; lz /= lightLength;
+                double vx = eyeX - x, vy = eyeY - y, vz = eyeZ - z;
+                double viewLength = Math.sqrt(vx * vx + vy * vy + vz * vz);
+                vx /= viewLength; vy /= viewLength; vz /= viewLength;
+                if (material.twoSided && nx * vx + ny * vy + nz * vz < 0) {
+                    nx = -nx; ny = -ny; nz = -nz;
+                }
+                double diffuse = nx * lx + ny * ly + nz * lz;
+                if (diffuse > 0) {
+                    red += material.red * light.lightRed * diffuse;
+                    green += material.green * light.lightGreen * diffuse;
+                    blue += material.blue * light.lightBlue * diffuse;
+                    if (material.specular > 0) {
+                        // Reflection of the light direction about the normal, against the view direction
+                        double rv = (2 * diffuse * nx - lx) * vx + (2 * diffuse * ny - ly) * vy + (2 * diffuse * nz - lz) * vz;
+                        if (rv > 0) {
+                            double highlight = material.specular * Math.pow(rv, material.power);
+                            red += light.lightRed * highlight;
+                            green += light.lightGreen * highlight;
+                            blue += light.lightBlue * highlight;
+                        }
+                    }
+                }
+            }
+        }
+        return 0xFF000000 | channel(red) << 16 | channel(green) << 8 | channel(blue);
+    }
+
+    private static int channel(double value) {
+        return value >= 1 ? 255 : value <= 0 ? 0 : (int) (value * 255 + 0.5);
+    }
+
+    // Box filter of the supersampled image into the output, rows in parallel
+    private void downsample(int[] pixels, int outWidth, int outHeight, int s) {
+        int[] source = supersampled;
+        int sourceWidth = outWidth * s, samples = s * s;
+        parallel(outHeight, y -> {
+            for (int x = 0; x < outWidth; x++) {
+                int r = 0, g = 0, b = 0;
+                for (int sy = 0; sy < s; sy++) {
+                    int row = (y * s + sy) * sourceWidth + x * s;
+                    for (int sx = 0; sx < s; sx++) {
+                        int argb = source[row + sx];
+                        r += argb >> 16 & 0xFF;
+                        g += argb >> 8 & 0xFF;
+                        b += argb & 0xFF;
+                    }
+                }
+                pixels[y * outWidth + x] = 0xFF000000 | (r + samples / 2) / samples << 16 | (g + samples / 2) / samples << 8 | (b + samples / 2) / samples;
+            }
+        });
+    }
+
+    /**
+     * Which way a closed mesh's winding faces, from the sign of its enclosed volume: +1 if
+     * (b - a) x (c - a) points outwards, -1 if inwards, 0 if the mesh encloses too little volume
+     * to tell (open or flat), in which case both sides are drawn.
+     */
+    public static int orientation(GeometryData geometry) {
+        float[] p = geometry.points();
+        int[] faces = geometry.faces();
+        double volume = 0;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int k = 0; k < p.length; k += 3) {
+            minX = Math.min(minX, p[k]); maxX = Math.max(maxX, p[k]);
+            minY = Math.min(minY, p[k + 1]); maxY = Math.max(maxY, p[k + 1]);
+            minZ = Math.min(minZ, p[k + 2]); maxZ = Math.max(maxZ, p[k + 2]);
+        }
+        double ox = (minX + maxX) / 2, oy = (minY + maxY) / 2, oz = (minZ + maxZ) / 2; // Better conditioned origin
+        for (int k = 0; k < faces.length; k += 9) {
+            int a = faces[k] * 3, b = faces[k + 3] * 3, c = faces[k + 6] * 3;
+            double ax = p[a] - ox, ay = p[a + 1] - oy, az = p[a + 2] - oz;
+            double bx = p[b] - ox, by = p[b + 1] - oy, bz = p[b + 2] - oz;
+            double cx = p[c] - ox, cy = p[c + 1] - oy, cz = p[c + 2] - oz;
+            volume += ax * (by * cz - bz * cy) - ay * (bx * cz - bz * cx) + az * (bx * cy - by * cx);
+        }
+        volume /= 6;
+        double boxVolume = (maxX - minX) * (maxY - minY) * (maxZ - minZ);
+        if (boxVolume <= 0 || Math.abs(volume) < 0.05 * boxVolume) return 0;
+        return volume > 0 ? 1 : -1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared helpers for the stand-alone benchmarks in this package.
+ * The benchmarks are plain main() programs and need no display. They live in the test sources
+ * so the application jar does not contain them: build them with {@code mvn test-compile} and run
+ * them with java -cp target/classes:target/test-classes:... com.furnitureapp.bench.X
+ */
+final class BenchSupport {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final Color[] PALETTE = {
+        new Color(0x4F81BD), new Color(0xC0504D), new Color(0x9BBB59),
+        new Color(0x8064A2), new Color(0x4BACC6), new Color(0xF79646)
+    };
+
+    private BenchSupport() {}
+
+    /** Runs headless and silences INFO logging from the UI classes. */
+    static void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Logger.getLogger("com.furnitureapp").setLevel(Level.WARNING);
+    }
+
+    /** A rectangular template item, as ModelHelper would produce for a model of this footprint. */
+    static FurnitureItem template(double width, double depth, Color color) {
+        return new FurnitureItem(new Rectangle2D.Double(-width / 2.0, -depth / 2.0, width, depth),
+                                 color, "bench/" + (int) width + "x" + (int) depth + ".obj", "bench", Math.max(width, depth));
+    }
+
+    /**
+     * Builds a scene of {@code count} items laid out on a jittered grid covering a square
+     * of {@code sideWorld} world pixels, using a few templates and colours.
+     */
+    static FurnitureScene gridScene(int count, double sideWorld, long seed) {
+        Random random = new Random(seed);
+        FurnitureItem[] templates = {
+            template(20, 20, PALETTE[0]), template(30, 15, PALETTE[1]), template(40, 25, PALETTE[2])
+        };
+        int perRow = (int) Math.ceil(Math.sqrt(count));
+        double spacing = sideWorld / perRow;
+        FurnitureScene scene = new FurnitureScene();
+        for (int i = 0; i < count; i++) {
+            FurnitureItem item = templates[i % templates.length].withNewId()
+                    .withColor(PALETTE[random.nextInt(PALETTE.length)])
+                    .setRotation(random.nextInt(4) * Math.PI / 2 + (random.nextDouble() - 0.5) * 0.2)
+                    .translateTo((i % perRow + 0.5) * spacing + random.nextGaussian() * spacing * 0.1,
+                                 (i / perRow + 0.5) * spacing + random.nextGaussian() * spacing * 0.1);
+            scene.add(item);
+        }
+        return scene;
+    }
+
+    /** Bytes allocated so far by the calling thread. */
+    static long allocatedBytes() {
+        return THREAD_MX.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static void report(String name, int ops, long nanos, long bytes) {
+        System.out.printf("%-42s %8.3f ms/op %12.1f B/op  (%d ops)%n",
+                          name, nanos / 1e6 / ops, (double) bytes / ops, ops);
+    }
+}
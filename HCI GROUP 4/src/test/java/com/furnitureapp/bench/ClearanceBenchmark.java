@@ -0,0 +1,80 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.ClearanceGrid;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.RoomShape;
+
+import java.util.Random;
+
+/**
+ * Cost of the clearance analysis on a large room: building the occupancy grid with its distance
+ * transform and reachability, then the incremental update after moving one item (what a drag
+ * frame costs), compared with rebuilding the grid from scratch.
+ * <p>
+ * Usage: ClearanceBenchmark [itemCount] [roomMeters] [cellMeters] [moves]
+ */
+public class ClearanceBenchmark {
+
+    private static final double PIXELS_PER_METER = 50;
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        double roomMeters = args.length > 1 ? Double.parseDouble(args[1]) : 40;
+        double cellMeters = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        int moves = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        double side = roomMeters * PIXELS_PER_METER;
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        RoomShape room = RoomShape.rectangle(side, side);
+        double[] doors = {side / 2, 0, 0, side / 2};
+
+        ClearanceGrid grid = null;
+        long buildNanos = 0;
+        for (int run = 0; run < 3; run++) { // Run 0 warms up
+            if (grid != null) grid.dispose();
+            long t0 = System.nanoTime();
+            grid = new ClearanceGrid(scene, room, cellMeters * PIXELS_PER_METER, 0.9 * PIXELS_PER_METER,
+                                     1.5 * PIXELS_PER_METER, 0.9 * PIXELS_PER_METER);
+            grid.setDoors(doors);
+            grid.update();
+            if (run > 0) buildNanos += System.nanoTime() - t0;
+        }
+        int cells = grid.getColumns() * grid.getRows();
+        System.out.printf("Scene: %d items, room %.0f x %.0f m, grid %dx%d (%d cells), %d threads available%n",
+                          scene.size(), roomMeters, roomMeters, grid.getColumns(), grid.getRows(), cells,
+                          Runtime.getRuntime().availableProcessors());
+        System.out.printf("  free %d, reachable %d, turning spots %d, too narrow %d%n", grid.freeCellCount(),
+                          grid.reachableCellCount(), grid.turningCellCount(), grid.narrowCellCount());
+        BenchSupport.report("full build (grid, EDT, BFS)", 2, buildNanos, 0);
+
+        // Nudge items by a few centimetres, one update per move as during a drag
+        Random random = new Random(7);
+        long windowCells = 0, updateNanos = 0, bytes = 0;
+        int reachabilityRuns = 0;
+        int[] region = new int[4];
+        for (int run = 0; run < 2; run++) {
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < moves; i++) {
+                int slot = random.nextInt(scene.slotCount());
+                scene.setTransform(slot, scene.txAt(slot) + random.nextGaussian() * 3, scene.tyAt(slot) + random.nextGaussian() * 3,
+                                   1, 1, random.nextDouble() * Math.PI);
+                grid.update();
+                if (run == 1) {
+                    windowCells += grid.lastUpdateCells();
+                    grid.changedRegion(region);
+                    if (region[2] - region[0] + 1 == grid.getColumns() && region[3] - region[1] + 1 == grid.getRows()) reachabilityRuns++;
+                }
+            }
+            if (run == 1) {
+                updateNanos = System.nanoTime() - t0;
+                bytes = BenchSupport.allocatedBytes() - bytes0;
+            }
+        }
+        BenchSupport.report("move one item + incremental update", moves, updateNanos, bytes);
+        System.out.printf("  average window %d cells (%.2f%% of the grid), whole grid refreshed on %d of %d moves%n",
+                          windowCells / moves, 100.0 * windowCells / moves / cells, reachabilityRuns, moves);
+        grid.dispose();
+    }
+}
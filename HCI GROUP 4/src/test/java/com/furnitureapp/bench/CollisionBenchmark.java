@@ -0,0 +1,72 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.CollisionEngine;
+import com.furnitureapp.model.FurnitureScene;
+
+/**
+ * Cost of keeping the collision state current while one item is dragged across a crowded scene.
+ * Compares the incremental engine (grid candidates + SAT) with testing the moving item against
+ * every other item, and checks that the incremental pair count matches a full rebuild.
+ * <p>
+ * Usage: CollisionBenchmark [itemCount] [steps]
+ */
+public class CollisionBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        // ~25 m x 25 m for 5k items: spacing ~18 px against items of 20-40 px, so many items overlap
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 1250, 42);
+        long t0 = System.nanoTime();
+        CollisionEngine engine = new CollisionEngine(scene);
+        BenchSupport.report("full build", 1, System.nanoTime() - t0, 0);
+        System.out.printf("Scene: %d items, %d overlapping pairs, %d items in collision%n",
+                          scene.size(), engine.pairCount(), engine.collidingSlotCount());
+
+        int slot = scene.slotCount() / 2;
+        double startX = scene.txAt(slot), startY = scene.tyAt(slot);
+
+        // --- Incremental: the scene notifies the engine, which re-tests only the moving slot ---
+        for (int run = 0; run < 2; run++) { // First run warms up
+            long bytes0 = BenchSupport.allocatedBytes();
+            t0 = System.nanoTime();
+            for (int i = 0; i < steps; i++) {
+                drag(scene, slot, startX, startY, i);
+            }
+            if (run > 0) BenchSupport.report("drag step (incremental)", steps, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        }
+        int incrementalPairs = engine.pairCount();
+        engine.rebuild();
+        if (engine.pairCount() != incrementalPairs) {
+            throw new IllegalStateException("Incremental pairs " + incrementalPairs + " != rebuilt " + engine.pairCount());
+        }
+        engine.dispose();
+
+        // --- Baseline: test the moving item against every other item on each step ---
+        double[] moving = new double[8];
+        double[] other = new double[8];
+        int bruteSteps = Math.max(1, steps / 20);
+        int hits = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < bruteSteps; i++) {
+            drag(scene, slot, startX, startY, i);
+            scene.corners(slot, moving);
+            for (int s = 0; s < scene.slotCount(); s++) {
+                if (s == slot || !scene.isLive(s)) continue;
+                scene.corners(s, other);
+                if (CollisionEngine.quadsOverlap(moving, other)) hits++;
+            }
+        }
+        BenchSupport.report("drag step (test against all)", bruteSteps, System.nanoTime() - t0, 0);
+        System.out.printf("Incremental pair count matches rebuild (%d); baseline hits %d%n", incrementalPairs, hits);
+    }
+
+    /** Moves the slot along a sweep through the crowded area, rotating it as it goes. */
+    private static void drag(FurnitureScene scene, int slot, double startX, double startY, int step) {
+        double t = (step % 2000) / 2000.0;
+        scene.setTransform(slot, startX + 300 * Math.sin(t * 2 * Math.PI), startY + 150 * Math.cos(t * 2 * Math.PI),
+                           scene.scaleXAt(slot), scene.scaleYAt(slot), t * Math.PI);
+    }
+}
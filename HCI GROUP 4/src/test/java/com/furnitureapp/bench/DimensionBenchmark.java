@@ -0,0 +1,75 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.CanvasMetrics;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cost of the live dimension lines: drags a selected item across a dense scene, painting every
+ * frame, with the dimension lines on and off. The nearest-wall and nearest-item search time per
+ * frame is read from the canvas metrics.
+ * <p>
+ * Usage: DimensionBenchmark [itemCount] [frames]
+ */
+public class DimensionBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        double side = Math.sqrt(itemCount) * 50; // ~1 m between item centres at 50 px/m
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(side / 50, side / 50);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        canvas.setSnappingEnabled(false);
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+        BufferedImage image = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        System.out.printf("Scene: %d items, canvas %dx%d%n", scene.size(), canvas.getWidth(), canvas.getHeight());
+
+        int slot = scene.slotCount() / 2 + (int) Math.sqrt(itemCount) / 2; // Near the middle
+        Point2D itemScreen = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+        int x = (int) Math.round(itemScreen.getX()), y = (int) Math.round(itemScreen.getY());
+        canvas.mousePressed(new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                           x, y, 1, false, MouseEvent.BUTTON1));
+        canvas.setMetricsEnabled(true);
+        long[] nanos = new long[2];
+        for (int round = 0; round < 4; round++) { // Round 0 warms up; on and off alternate
+            for (int variant = 0; variant < 2; variant++) {
+                canvas.setDimensionsVisible(variant == 1);
+                long t0 = System.nanoTime();
+                for (int i = 0; i < frames; i++) {
+                    int dx = (i % 100) < 50 ? i % 50 : 50 - i % 50; // Back and forth
+                    canvas.mouseDragged(new MouseEvent(canvas, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                                       x + dx, y + dx / 2, 1, false, MouseEvent.BUTTON1));
+                    canvas.paint(g);
+                }
+                if (round > 0) nanos[variant] += System.nanoTime() - t0;
+            }
+            if (round == 0) canvas.getMetrics().reset();
+        }
+        BenchSupport.report("drag frame, dimensions off", frames * 3, nanos[0], 0);
+        BenchSupport.report("drag frame, dimensions on", frames * 3, nanos[1], 0);
+        CanvasMetrics metrics = canvas.getMetrics();
+        CanvasMetrics.Metric metric = CanvasMetrics.Metric.DIMENSION_NANOS;
+        System.out.printf("  nearest walls + items search: n=%d p50 %.3f ms  p95 %.3f ms  p99 %.3f ms%n", metrics.count(metric),
+                          metrics.percentile(metric, 50) / 1e6, metrics.percentile(metric, 95) / 1e6, metrics.percentile(metric, 99) / 1e6);
+        g.dispose();
+    }
+}
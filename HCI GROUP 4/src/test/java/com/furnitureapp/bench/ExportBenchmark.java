@@ -0,0 +1,92 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.io.PlanExporter;
+import com.furnitureapp.model.FurnitureScene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Plan export on a large layout: A0 at 300 DPI as PNG (strip rendering, streamed encoder),
+ * then SVG and PDF. Output is counted and discarded. Reports time, output size and the peak
+ * heap seen during each export, then decodes a small PNG export to check the encoder.
+ * <p>
+ * Usage: ExportBenchmark [itemCount] [dpi]
+ */
+public class ExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        double dpi = args.length > 1 ? Double.parseDouble(args[1]) : 300;
+
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        PlanExporter exporter = new PlanExporter(scene, 100, 100, 50);
+        PlanExporter.Options options = new PlanExporter.Options();
+        options.dpi = dpi;
+        int[] size = PlanExporter.pngSize(options);
+        System.out.printf("Scene: %d items, A0 page, PNG %dx%d (%.0f MB as an uncompressed image)%n",
+                          scene.size(), size[0], size[1], size[0] * (double) size[1] * 4 / 1e6);
+
+        for (PlanExporter.Format format : PlanExporter.Format.values()) {
+            CountingSink out = new CountingSink();
+            System.gc();
+            resetPeakHeap();
+            long before = usedHeap();
+            long t0 = System.nanoTime();
+            exporter.export(format, out, options, null);
+            long nanos = System.nanoTime() - t0;
+            System.out.printf("%-4s %8.0f ms  %8.1f MB written  peak heap %6.1f MB (%.1f MB before)%n",
+                              format, nanos / 1e6, out.count / 1e6, peakHeap() / 1e6, before / 1e6);
+        }
+
+        // Round trip through ImageIO at a size it can decode in memory
+        PlanExporter.Options small = new PlanExporter.Options();
+        small.paperWidthMm = 210;
+        small.paperHeightMm = 297;
+        small.dpi = 96;
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        exporter.export(PlanExporter.Format.PNG, png, small, null);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        int[] expected = PlanExporter.pngSize(small);
+        System.out.printf("A4 96 DPI PNG decodes with ImageIO: %s (%dx%d, expected %dx%d)%n",
+                          decoded != null, decoded == null ? 0 : decoded.getWidth(), decoded == null ? 0 : decoded.getHeight(),
+                          expected[0], expected[1]);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /** Sum of the per-pool peaks: an upper bound on the heap actually in use at any one time. */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static final class CountingSink extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) { count++; }
+
+        @Override
+        public void write(byte[] b, int off, int len) { count += len; }
+    }
+}
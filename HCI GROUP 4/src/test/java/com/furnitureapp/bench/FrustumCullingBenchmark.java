@@ -0,0 +1,117 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.util.BoundingVolumeHierarchy;
+
+import java.util.Random;
+
+/**
+ * Frustum culling of 3D item bounds as the 3D view does it: the BVH query for a camera zoomed
+ * into one corner of a large layout, against testing every item's box; then the cost of moving
+ * items (incremental refit) and how often the degradation threshold forces a full rebuild.
+ * <p>
+ * Usage: FrustumCullingBenchmark [itemCount] [queries]
+ */
+public class FrustumCullingBenchmark {
+
+    private static final double ITEM_HEIGHT = 40; // World px
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        double side = Math.sqrt(itemCount) * 60;
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        BoundingVolumeHierarchy bvh = new BoundingVolumeHierarchy();
+        double[] box = new double[6];
+        int[] handles = new int[scene.slotCount()];
+        double[] boxes = new double[scene.slotCount() * 6];
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            itemBox(scene, slot, box);
+            System.arraycopy(box, 0, boxes, slot * 6, 6);
+            handles[slot] = bvh.insert(scene.idAt(slot), box[0], box[1], box[2], box[3], box[4], box[5]);
+        }
+        long t0 = System.nanoTime();
+        bvh.forEachInFrustum(new double[0], handle -> { }); // First query builds
+        BenchSupport.report("build (" + scene.size() + " items)", 1, System.nanoTime() - t0, 0);
+
+        // Camera above one corner, looking down into the room at 30 degrees, orbiting slowly
+        double[] corners = new double[24], planes = new double[24];
+        int[] counter = new int[1];
+        long bvhNanos = 0, linearNanos = 0, visibleTotal = 0;
+        for (int run = 0; run < 2; run++) { // Run 0 warms up
+            bvhNanos = linearNanos = visibleTotal = 0;
+            for (int q = 0; q < queries; q++) {
+                frustum(side * 0.1, side * 0.1, 2 * Math.PI * q / queries, side * 0.15, corners);
+                BoundingVolumeHierarchy.frustumPlanes(corners, planes);
+                counter[0] = 0;
+                long q0 = System.nanoTime();
+                bvh.forEachInFrustum(planes, handle -> counter[0]++);
+                long q1 = System.nanoTime();
+                int linear = 0;
+                for (int slot = 0; slot < scene.slotCount(); slot++) {
+                    if (scene.isLive(slot) && BoundingVolumeHierarchy.intersects(planes, boxes, slot * 6)) linear++;
+                }
+                long q2 = System.nanoTime();
+                bvhNanos += q1 - q0;
+                linearNanos += q2 - q1;
+                visibleTotal += counter[0];
+                if (linear != counter[0]) throw new IllegalStateException("BVH found " + counter[0] + " items, linear scan " + linear);
+            }
+        }
+        System.out.printf("  %.1f of %d items inside the frustum on average%n", (double) visibleTotal / queries, scene.size());
+        BenchSupport.report("frustum query, BVH", queries, bvhNanos, 0);
+        BenchSupport.report("frustum query, every item", queries, linearNanos, 0);
+
+        // Drag-like moves: a few px per step for a handful of items, then a query per frame
+        Random random = new Random(7);
+        int frames = 2_000, movedPerFrame = 10;
+        int builds0 = bvh.buildCount();
+        t0 = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            for (int i = 0; i < movedPerFrame; i++) {
+                int slot = (frame * 31 + i * 977) % scene.slotCount();
+                if (!scene.isLive(slot)) continue;
+                double dx = random.nextGaussian() * 4, dz = random.nextGaussian() * 4;
+                int b = slot * 6;
+                boxes[b] += dx; boxes[b + 3] += dx; boxes[b + 2] += dz; boxes[b + 5] += dz;
+                bvh.update(handles[slot], boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], boxes[b + 4], boxes[b + 5]);
+            }
+            bvh.forEachInFrustum(planes, handle -> { });
+        }
+        BenchSupport.report(movedPerFrame + " refits + query per frame", frames, System.nanoTime() - t0, 0);
+        System.out.printf("  %d full rebuilds in %d frames, degradation now %.3f%n", bvh.buildCount() - builds0, frames, bvh.degradation());
+    }
+
+    // Box of a scene item in the 3D view's item space: floor (x, z) with y up to -ITEM_HEIGHT
+    private static void itemBox(FurnitureScene scene, int slot, double[] out) {
+        double[] bounds = new double[4];
+        scene.bounds(slot, bounds);
+        out[0] = bounds[0];
+        out[1] = -ITEM_HEIGHT;
+        out[2] = bounds[1];
+        out[3] = bounds[2];
+        out[4] = 0;
+        out[5] = bounds[3];
+    }
+
+    // Frustum corners for an eye above (x, z) looking along yaw and 30 degrees down, 60 degree FOV
+    private static void frustum(double x, double z, double yaw, double far, double[] corners) {
+        double eyeY = -far * 0.4, pitch = Math.toRadians(30), tan = Math.tan(Math.toRadians(30)), aspect = 1.6;
+        double fx = Math.cos(yaw) * Math.cos(pitch), fy = Math.sin(pitch), fz = Math.sin(yaw) * Math.cos(pitch);
+        double rx = -Math.sin(yaw), rz = Math.cos(yaw);                          // Right, horizontal
+        double ux = fy * Math.cos(yaw), uy = -Math.cos(pitch), uz = fy * Math.sin(yaw); // Up (negative y is up)
+        for (int face = 0; face < 2; face++) {
+            double d = face == 0 ? 1 : far, h = d * tan, w = h * aspect;
+            for (int corner = 0; corner < 4; corner++) {
+                double sx = corner == 0 || corner == 3 ? -w : w, sy = corner < 2 ? -h : h;
+                int at = (face * 4 + corner) * 3;
+                corners[at] = x + fx * d + rx * sx + ux * sy;
+                corners[at + 1] = eyeY + fy * d + uy * sy;
+                corners[at + 2] = z + fz * d + rz * sx + uz * sy;
+            }
+        }
+    }
+}
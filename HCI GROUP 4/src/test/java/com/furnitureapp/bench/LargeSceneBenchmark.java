@@ -0,0 +1,94 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Paint and drag cost of DrawingCanvas on a 50k item scene (event-hall / warehouse scale).
+ * Reports time and bytes allocated per frame / per drag event on the benchmark thread;
+ * the allocation figure should stay flat as the run length grows.
+ * <p>
+ * Usage: LargeSceneBenchmark [itemCount] [frames]
+ */
+public class LargeSceneBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100); // 5000 x 5000 world px at the default 50 px/m
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        canvas.setScene(scene);
+        // Mirrors MainWorkspacePanel: write the update back into the scene and refresh the canvas
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+
+        BufferedImage image = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        System.out.printf("Scene: %d items, canvas %dx%d%n", scene.size(), canvas.getWidth(), canvas.getHeight());
+
+        // --- Paint ---
+        for (int i = 0; i < frames / 2; i++) canvas.paint(g); // Warm-up
+        for (int run = 1; run <= 2; run++) { // Two runs of different length: B/op should match
+            int n = frames * run;
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++) canvas.paint(g);
+            BenchSupport.report("paint (full view)", n, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        }
+
+        // --- Drag ---
+        int slot = scene.slotCount() / 2; // An item near the middle of the hall
+        Point2D itemScreen = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+        int x0 = (int) Math.round(itemScreen.getX());
+        int y0 = (int) Math.round(itemScreen.getY());
+        int steps = 2000;
+        MouseEvent[] drags = new MouseEvent[steps]; // Built up-front so event creation is not measured
+        for (int i = 0; i < steps; i++) {
+            int dx = (i % 200) < 100 ? i % 100 : 100 - i % 100; // Back and forth
+            drags[i] = new MouseEvent(canvas, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                      x0 + dx, y0, 1, false, MouseEvent.BUTTON1);
+        }
+        MouseEvent press = new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                          x0, y0, 1, false, MouseEvent.BUTTON1);
+        MouseEvent release = new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0, x0, y0, 1, false, MouseEvent.BUTTON1);
+
+        for (int run = 0; run < 2; run++) { // First run warms up
+            canvas.mousePressed(press);
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            for (MouseEvent e : drags) canvas.mouseDragged(e);
+            long nanos = System.nanoTime() - t0;
+            long bytes = BenchSupport.allocatedBytes() - bytes0;
+            canvas.mouseReleased(release);
+            if (run > 0) BenchSupport.report("drag event (no paint)", steps, nanos, bytes);
+        }
+
+        canvas.mousePressed(press);
+        long bytes0 = BenchSupport.allocatedBytes();
+        long t0 = System.nanoTime();
+        int dragFrames = Math.min(steps, frames * 2);
+        for (int i = 0; i < dragFrames; i++) {
+            canvas.mouseDragged(drags[i]);
+            canvas.paint(g);
+        }
+        BenchSupport.report("drag event + paint", dragFrames, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        canvas.mouseReleased(release);
+        g.dispose();
+    }
+}
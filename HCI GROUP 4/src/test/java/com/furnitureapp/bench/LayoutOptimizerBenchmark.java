@@ -0,0 +1,47 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.LayoutOptimizer;
+import com.furnitureapp.model.RoomShape;
+
+/**
+ * Annealing throughput of the layout optimizer against the number of items. The room is sized
+ * so the footprints cover about a quarter of the floor. Since a step only re-scores the moved
+ * items against their grid neighbours, the time per step should stay flat as the item count
+ * grows; the chain count is then raised to show how the independent chains scale.
+ * <p>
+ * Usage: LayoutOptimizerBenchmark [stepsPerChain]
+ */
+public class LayoutOptimizerBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        long steps = args.length > 0 ? Long.parseLong(args[0]) : 400_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int count : new int[]{50, 500, 5_000}) {
+            double side = Math.sqrt(count * 2400.0); // ~600 px2 of footprint per item, 25% of the floor
+            FurnitureScene scene = BenchSupport.gridScene(count, side, 42);
+            RoomShape room = RoomShape.rectangle(side, side);
+            System.out.printf("%d items, room %.0f px square%n", count, side);
+            for (int chains : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+                for (int run = 0; run < 2; run++) { // Run 0 warms up
+                    LayoutOptimizer.Options options = new LayoutOptimizer.Options();
+                    options.walkwayWidth = 10;
+                    options.wallClearance = 5;
+                    options.chains = chains;
+                    options.stepsPerChain = steps;
+                    options.timeLimitMillis = 0;
+                    options.seed = 7;
+                    LayoutOptimizer optimizer = new LayoutOptimizer(scene, room, null, options);
+                    long t0 = System.nanoTime();
+                    LayoutOptimizer.Result result = optimizer.run(null);
+                    long nanos = System.nanoTime() - t0;
+                    if (run == 0) continue;
+                    System.out.printf("  %d chain(s): %7.2f us/step per chain, %6.2f M steps/s total, cost %.1f, %d overlapping pairs, %d outside%n",
+                                      chains, nanos / 1e3 / steps, optimizer.totalSteps() / (nanos / 1e3),
+                                      result.getCost(), result.getOverlappingPairs(), result.getItemsOutside());
+                }
+            }
+        }
+    }
+}
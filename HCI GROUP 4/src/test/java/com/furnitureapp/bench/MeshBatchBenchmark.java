@@ -0,0 +1,185 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.ui.Furniture3DView;
+import com.furnitureapp.util.MeshBaker;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SubScene;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Static mesh batching in the 3D view. First the bake cost (headless): merging a full batch of
+ * items into one mesh on the worker, and rebaking every batch of the scene as after a scale
+ * change. Then, with the {@code fx} argument, the frame time of the rotating 3D preview with one
+ * node per item against merged batches; this opens a window, so it needs a display, and should
+ * be run with -Dprism.vsync=false -Djavafx.animation.fullspeed=true so frames are not capped.
+ * <p>
+ * Usage: MeshBatchBenchmark [itemCount] [trianglesPerItem] [fx]
+ */
+public class MeshBatchBenchmark {
+
+    private static final int BATCH_ITEMS = 64; // StaticMeshBatcher.MAX_BATCH_ITEMS
+
+    public static void main(String[] args) throws Exception {
+        boolean fx = args.length > 2 && args[2].equals("fx");
+        if (!fx) BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int triangles = args.length > 1 ? Integer.parseInt(args[1]) : 1_200;
+
+        GeometryData box = boxMesh(Math.max(1, (int) Math.round(Math.sqrt(triangles / 12.0))));
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, Math.sqrt(itemCount) * 100, 42);
+        System.out.printf("%d items, %d triangles each%n", itemCount, box.faces().length / 9);
+
+        // --- Bake cost ---
+        GeometryData[] parts = new GeometryData[itemCount];
+        double[] matrices = new double[itemCount * 12];
+        int index = 0;
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            double c = Math.cos(scene.rotationAt(slot)), s = Math.sin(scene.rotationAt(slot));
+            int m = index * 12;
+            matrices[m] = -c; matrices[m + 2] = s; matrices[m + 3] = scene.txAt(slot);
+            matrices[m + 5] = -1;
+            matrices[m + 8] = s; matrices[m + 10] = c; matrices[m + 11] = scene.tyAt(slot);
+            parts[index++] = box;
+        }
+        int batchItems = Math.min(BATCH_ITEMS, itemCount);
+        long nanos = 0, bytes = 0;
+        int runs = 50;
+        for (int run = 0; run < runs * 2; run++) { // First half warms up
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            MeshBaker.bake(parts, matrices, batchItems);
+            if (run >= runs) {
+                nanos += System.nanoTime() - t0;
+                bytes += BenchSupport.allocatedBytes() - bytes0;
+            }
+        }
+        BenchSupport.report("bake one batch (" + batchItems + " items)", runs, nanos, bytes);
+        GeometryData[] batchParts = new GeometryData[BATCH_ITEMS];
+        double[] batchMatrices = new double[BATCH_ITEMS * 12];
+        long t0 = System.nanoTime();
+        for (int first = 0; first < itemCount; first += BATCH_ITEMS) {
+            int count = Math.min(BATCH_ITEMS, itemCount - first);
+            System.arraycopy(parts, first, batchParts, 0, count);
+            System.arraycopy(matrices, first * 12, batchMatrices, 0, count * 12);
+            MeshBaker.bake(batchParts, batchMatrices, count);
+        }
+        BenchSupport.report("rebake all " + ((itemCount + BATCH_ITEMS - 1) / BATCH_ITEMS) + " batches", 1, System.nanoTime() - t0, 0);
+        if (!fx) return;
+
+        // --- Frame time, one node per item against batches ---
+        JFXPanel panel = new JFXPanel(); // Starts the toolkit
+        Furniture3DView[] view = new Furniture3DView[1];
+        onFxThread(() -> {
+            view[0] = new Furniture3DView();
+            view[0].setRoomDimensions(Math.sqrt(itemCount) * 2, Math.sqrt(itemCount) * 2, 2.5);
+            SubScene subScene = new SubScene(view[0].getMainSceneRoot(), 1280, 800, true, SceneAntialiasing.BALANCED);
+            subScene.setCamera(view[0].getMainCamera());
+            panel.setScene(new Scene(new Group(subScene)));
+            for (int slot = 0; slot < scene.slotCount(); slot++) {
+                if (scene.isLive(slot)) view[0].addOrUpdateItemNode(scene.getById(scene.idAt(slot)), box);
+            }
+            view[0].startRotationAnimation();
+        });
+        SwingUtilities.invokeAndWait(() -> {
+            JFrame frame = new JFrame("MeshBatchBenchmark");
+            frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            frame.add(panel);
+            frame.setSize(1280, 800);
+            frame.setVisible(true);
+        });
+        for (boolean batching : new boolean[]{false, true, false, true}) {
+            onFxThread(() -> view[0].setMeshBatching(batching));
+            Thread.sleep(1_000); // Bakes installed, pipeline warmed up
+            double frameMillis = meanFrameMillis(300);
+            System.out.printf("  %-22s %7.2f ms/frame  %6.1f fps%n", batching ? "merged batches" : "one node per item",
+                              frameMillis, 1000 / frameMillis);
+        }
+        onFxThread(() -> view[0].cleanup());
+        System.exit(0);
+    }
+
+    /** Mean interval between pulses over the given number of frames. */
+    private static double meanFrameMillis(int frames) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long[] first = {-1};
+        double[] result = new double[1];
+        onFxThread(() -> new AnimationTimer() {
+            private int seen;
+
+            @Override
+            public void handle(long now) {
+                if (first[0] < 0) first[0] = now;
+                if (++seen > frames) {
+                    result[0] = (now - first[0]) / 1e6 / frames;
+                    stop();
+                    done.countDown();
+                }
+            }
+        }.start());
+        done.await();
+        return result[0];
+    }
+
+    /** A unit box with each face split into divisions x divisions quads, in GeometryData face format. */
+    private static GeometryData boxMesh(int divisions) {
+        int perFace = (divisions + 1) * (divisions + 1);
+        float[] points = new float[6 * perFace * 3];
+        float[] normals = new float[points.length];
+        float[] texCoords = new float[6 * perFace * 2];
+        int[] faces = new int[6 * divisions * divisions * 2 * 9];
+        int p = 0, f = 0;
+        for (int face = 0; face < 6; face++) {
+            int axis = face / 2;
+            float sign = face % 2 == 0 ? -1 : 1;
+            int base = p;
+            for (int v = 0; v <= divisions; v++) {
+                for (int u = 0; u <= divisions; u++) {
+                    float[] xyz = new float[3];
+                    xyz[axis] = sign * 10;
+                    xyz[(axis + 1) % 3] = (u / (float) divisions - 0.5f) * 20;
+                    xyz[(axis + 2) % 3] = (v / (float) divisions - 0.5f) * 20;
+                    System.arraycopy(xyz, 0, points, p * 3, 3);
+                    normals[p * 3 + axis] = sign;
+                    texCoords[p * 2] = u / (float) divisions;
+                    texCoords[p * 2 + 1] = v / (float) divisions;
+                    p++;
+                }
+            }
+            for (int v = 0; v < divisions; v++) {
+                for (int u = 0; u < divisions; u++) {
+                    int a = base + v * (divisions + 1) + u, b = a + 1, c = a + divisions + 1, d = c + 1;
+                    for (int vertex : new int[]{a, b, d, a, d, c}) {
+                        faces[f++] = vertex;
+                        faces[f++] = vertex;
+                        faces[f++] = vertex;
+                    }
+                }
+            }
+        }
+        return new GeometryData(points, normals, texCoords, faces);
+    }
+
+    private static void onFxThread(Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
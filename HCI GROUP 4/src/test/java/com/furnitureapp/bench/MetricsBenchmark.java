@@ -0,0 +1,89 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.CanvasMetrics;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cost of the canvas frame metrics: paint with metrics disabled, enabled, and with the HUD
+ * shown (alternating runs so drift affects all three alike). Then drags an item with metrics
+ * on and prints what the metrics API reports.
+ * <p>
+ * Usage: MetricsBenchmark [itemCount] [frames]
+ */
+public class MetricsBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        canvas.setScene(scene);
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+        BufferedImage image = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        System.out.printf("Scene: %d items, canvas %dx%d%n", scene.size(), canvas.getWidth(), canvas.getHeight());
+
+        for (int i = 0; i < frames / 2; i++) canvas.paint(g); // Warm-up
+        long[] nanos = new long[3], bytes = new long[3];
+        for (int round = 0; round < 3; round++) {
+            for (int variant = 0; variant < 3; variant++) {
+                canvas.setMetricsEnabled(variant > 0);
+                canvas.setHudVisible(variant == 2);
+                long bytes0 = BenchSupport.allocatedBytes();
+                long t0 = System.nanoTime();
+                for (int i = 0; i < frames; i++) canvas.paint(g);
+                nanos[variant] += System.nanoTime() - t0;
+                bytes[variant] += BenchSupport.allocatedBytes() - bytes0;
+            }
+        }
+        String[] names = {"paint, metrics disabled", "paint, metrics enabled", "paint, metrics + HUD"};
+        for (int variant = 0; variant < 3; variant++) {
+            BenchSupport.report(names[variant], frames * 3, nanos[variant], bytes[variant]);
+        }
+
+        // Drag with paint, as in an interactive session
+        canvas.setHudVisible(false);
+        canvas.setMetricsEnabled(true);
+        int slot = scene.slotCount() / 2;
+        Point2D itemScreen = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+        int x0 = (int) Math.round(itemScreen.getX()), y0 = (int) Math.round(itemScreen.getY());
+        for (int press = 0; press < 20; press++) {
+            canvas.mousePressed(new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                               x0, y0, 1, false, MouseEvent.BUTTON1));
+            for (int i = 1; i <= 10; i++) {
+                canvas.mouseDragged(new MouseEvent(canvas, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                                   x0 + i, y0, 1, false, MouseEvent.BUTTON1));
+                canvas.paint(g);
+            }
+            canvas.mouseReleased(new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0, x0 + 10, y0, 1, false, MouseEvent.BUTTON1));
+            x0 += 10;
+        }
+        CanvasMetrics metrics = canvas.getMetrics();
+        System.out.println("Metrics API after the drags (window " + CanvasMetrics.WINDOW + " samples):");
+        for (CanvasMetrics.Metric metric : CanvasMetrics.Metric.values()) {
+            double unit = metric.isDuration() ? 1e6 : 1;
+            System.out.printf("  %-14s n=%-5d p50 %10.3f  p95 %10.3f  p99 %10.3f%s%n", metric.label(), metrics.count(metric),
+                              metrics.percentile(metric, 50) / unit, metrics.percentile(metric, 95) / unit,
+                              metrics.percentile(metric, 99) / unit, metric.isDuration() ? " ms" : "");
+        }
+        g.dispose();
+    }
+}
@@ -0,0 +1,91 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.MinimapPanel;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Minimap paint cost on a large plan: a full rasterization, a paint after one item moved
+ * (dirty-region update), and a paint after the canvas was panned (viewport only).
+ * Finally compares the incrementally maintained raster with a fresh full rasterization.
+ * <p>
+ * Usage: MinimapBenchmark [itemCount] [steps]
+ */
+public class MinimapBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        MinimapPanel minimap = new MinimapPanel(canvas);
+        minimap.setScene(scene);
+        minimap.setSize(260, 260);
+
+        BufferedImage incremental = new BufferedImage(minimap.getWidth(), minimap.getHeight(), BufferedImage.TYPE_INT_RGB);
+        BufferedImage full = new BufferedImage(minimap.getWidth(), minimap.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = incremental.createGraphics();
+        System.out.printf("Scene: %d items, minimap %dx%d%n", scene.size(), minimap.getWidth(), minimap.getHeight());
+
+        int fullRuns = 20;
+        for (int run = 0; run < 2; run++) { // First run warms up
+            long t0 = System.nanoTime();
+            for (int i = 0; i < fullRuns; i++) {
+                minimap.invalidateRaster();
+                minimap.paint(g);
+            }
+            if (run > 0) BenchSupport.report("full rasterization + paint", fullRuns, System.nanoTime() - t0, 0);
+        }
+
+        int slot = scene.slotCount() / 2;
+        double startX = scene.txAt(slot), startY = scene.tyAt(slot);
+        for (int run = 0; run < 2; run++) {
+            int fullBefore = minimap.getFullRasterCount();
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < steps; i++) {
+                double t = (i % 500) / 500.0;
+                scene.setTransform(slot, startX + 400 * Math.sin(t * 2 * Math.PI), startY + 200 * Math.cos(t * 2 * Math.PI),
+                                   scene.scaleXAt(slot), scene.scaleYAt(slot), t * Math.PI);
+                minimap.paint(g);
+            }
+            long nanos = System.nanoTime() - t0;
+            long bytes = BenchSupport.allocatedBytes() - bytes0;
+            if (run > 0) {
+                BenchSupport.report("item moved + paint (dirty regions)", steps, nanos, bytes);
+                System.out.printf("  full rasterizations during drag: %d%n", minimap.getFullRasterCount() - fullBefore);
+            }
+        }
+
+        for (int run = 0; run < 2; run++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < steps; i++) {
+                canvas.centerViewOn(1000 + i % 3000, 2500);
+                minimap.paint(g);
+            }
+            if (run > 0) BenchSupport.report("canvas panned + paint (viewport only)", steps, System.nanoTime() - t0, 0);
+        }
+        g.dispose();
+
+        // The incrementally updated raster must look like a fresh one
+        minimap.paint(incremental.createGraphics());
+        minimap.invalidateRaster();
+        minimap.paint(full.createGraphics());
+        int differing = 0;
+        for (int y = 0; y < full.getHeight(); y++) {
+            for (int x = 0; x < full.getWidth(); x++) {
+                if (incremental.getRGB(x, y) != full.getRGB(x, y)) differing++;
+            }
+        }
+        System.out.printf("Pixels differing from a full rasterization: %d of %d%n", differing, full.getWidth() * full.getHeight());
+    }
+}
@@ -0,0 +1,89 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Steady-state allocation of DrawingCanvas painting with a selected item, split into
+ * an empty room (strokes, selection outline and handles only, with and without its dimension lines)
+ * and a typical room-sized layout, plus the cost of a press on a selection handle (handle hit-test).
+ * Bytes per frame should be close to zero for the empty room and independent of the zoom level
+ * once the strokes for that zoom level are cached.
+ * <p>
+ * Usage: PaintAllocationBenchmark [itemCount] [frames]
+ */
+public class PaintAllocationBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        BufferedImage image = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+
+        // --- Selection only: one item, so the per-item fill cost does not hide the overlay cost ---
+        DrawingCanvas single = newCanvas(BenchSupport.gridScene(1, 500, 7));
+        single.setDimensionsVisible(false);
+        measurePaint("paint (1 item, selected, dimensions off)", single, g, frames);
+        single.setDimensionsVisible(true);
+        measurePaint("paint (1 item, selected, dimensions on)", single, g, frames);
+
+        // --- Typical room layout ---
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 500, 7);
+        DrawingCanvas canvas = newCanvas(scene);
+        measurePaint("paint (" + itemCount + " items, selected)", canvas, g, frames);
+
+        // --- Handle hit-test: press on the rotation handle of the selected item ---
+        int slot = scene.slotCount() - 1; // Selected by newCanvas
+        double[] bounds = new double[4];
+        scene.bounds(slot, bounds);
+        Point2D handle = canvas.getViewTransform().transform(new Point2D.Double(bounds[2], bounds[1] - 20), null);
+        MouseEvent press = new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                          (int) Math.round(handle.getX()), (int) Math.round(handle.getY()), 1, false, MouseEvent.BUTTON1);
+        MouseEvent release = new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0,
+                                            press.getX(), press.getY(), 1, false, MouseEvent.BUTTON1);
+        for (int i = 0; i < frames; i++) { canvas.mousePressed(press); canvas.mouseReleased(release); } // Warm-up
+        long bytes0 = BenchSupport.allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < frames; i++) { canvas.mousePressed(press); canvas.mouseReleased(release); }
+        BenchSupport.report("press+release on handle", frames, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        g.dispose();
+    }
+
+    private static DrawingCanvas newCanvas(FurnitureScene scene) {
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(10, 10); // 500 x 500 world px at the default 50 px/m
+        canvas.setSize(1200, 800);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+        // Select the last (topmost) item by clicking its centre
+        int slot = scene.slotCount() - 1;
+        Point2D centre = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+        int x = (int) Math.round(centre.getX()), y = (int) Math.round(centre.getY());
+        canvas.mousePressed(new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK, x, y, 1, false, MouseEvent.BUTTON1));
+        canvas.mouseReleased(new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0, x, y, 1, false, MouseEvent.BUTTON1));
+        return canvas;
+    }
+
+    private static void measurePaint(String name, DrawingCanvas canvas, Graphics2D g, int frames) {
+        for (int i = 0; i < frames / 4; i++) canvas.paint(g); // Warm-up (also caches the strokes)
+        long bytes0 = BenchSupport.allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < frames; i++) canvas.paint(g);
+        BenchSupport.report(name, frames, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+    }
+}
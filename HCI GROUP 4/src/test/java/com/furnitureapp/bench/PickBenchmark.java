@@ -0,0 +1,197 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.util.BoundingVolumeHierarchy;
+import com.furnitureapp.util.MeshBaker;
+import com.furnitureapp.util.MeshBvh;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ray picking in the 3D view as {@code Furniture3DView.pickItem} does it: a ray through the
+ * item BVH, then each candidate's model triangles through its {@link MeshBvh}. Every item
+ * uses the same high-polygon model. Reports the MeshBvh build time, the pick time, and a pass
+ * over every triangle of a single model for comparison (what a per-triangle pick costs for
+ * each mesh it tests). A sample of picks is checked against brute force on the baked meshes.
+ * <p>
+ * Usage: PickBenchmark [itemCount] [trianglesPerModel] [picks]
+ */
+public class PickBenchmark {
+
+    private static final double ITEM_SCALE = 2.0; // Model radius 10 -> 20 world px
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int triangles = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int picks = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        int rings = Math.max(4, (int) Math.round(Math.sqrt(triangles / 4.0)));
+        GeometryData model = bumpySphere(rings, rings * 2, 11);
+        System.out.printf("%d items, %d triangles per model%n", itemCount, model.faces().length / 9);
+        long t0 = System.nanoTime();
+        MeshBvh meshBvh = MeshBvh.build(model);
+        BenchSupport.report("MeshBvh build", 1, System.nanoTime() - t0, 0);
+
+        double side = Math.sqrt(itemCount) * 60;
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        double[] extents = new double[3];
+        MeshBaker.baseExtents(model, extents);
+        double[] matrices = new double[scene.slotCount() * 12];
+        BoundingVolumeHierarchy itemBvh = new BoundingVolumeHierarchy();
+        int[] slotByHandle = new int[scene.slotCount()];
+        for (int slot = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            int m = slot * 12;
+            double c = Math.cos(scene.rotationAt(slot)), s = Math.sin(scene.rotationAt(slot));
+            matrices[m] = -c * ITEM_SCALE; matrices[m + 2] = s * ITEM_SCALE; matrices[m + 3] = scene.txAt(slot);
+            matrices[m + 5] = -ITEM_SCALE;
+            matrices[m + 8] = s * ITEM_SCALE; matrices[m + 10] = c * ITEM_SCALE; matrices[m + 11] = scene.tyAt(slot);
+            double r = Math.hypot(extents[0], extents[2]) * ITEM_SCALE; // Any rotation fits
+            int handle = itemBvh.insert(scene.idAt(slot), scene.txAt(slot) - r, -extents[1] * ITEM_SCALE, scene.tyAt(slot) - r,
+                                        scene.txAt(slot) + r, 0, scene.tyAt(slot) + r);
+            slotByHandle[handle] = slot;
+        }
+
+        // Rays from an eye above the layout towards random floor points, like clicks at a 30-60 degree tilt
+        Random random = new Random(5);
+        double[] rays = new double[picks * 6];
+        for (int i = 0; i < picks; i++) {
+            double tx = random.nextDouble() * side, tz = random.nextDouble() * side;
+            double yaw = random.nextDouble() * 2 * Math.PI, pitch = Math.toRadians(30 + random.nextDouble() * 30);
+            double distance = 600;
+            rays[i * 6] = tx - Math.cos(yaw) * Math.cos(pitch) * distance;
+            rays[i * 6 + 1] = -Math.sin(pitch) * distance;
+            rays[i * 6 + 2] = tz - Math.sin(yaw) * Math.cos(pitch) * distance;
+            rays[i * 6 + 3] = (tx - rays[i * 6]) / distance;
+            rays[i * 6 + 4] = -rays[i * 6 + 1] / distance;
+            rays[i * 6 + 5] = (tz - rays[i * 6 + 2]) / distance;
+        }
+        long[] picked = new long[picks];
+        long[] times = new long[picks];
+        long nanos = 0;
+        int hits = 0;
+        for (int run = 0; run < 2; run++) { // Run 0 warms up
+            nanos = hits = 0;
+            for (int i = 0; i < picks; i++) {
+                double ox = rays[i * 6], oy = rays[i * 6 + 1], oz = rays[i * 6 + 2];
+                double dx = rays[i * 6 + 3], dy = rays[i * 6 + 4], dz = rays[i * 6 + 5];
+                long p0 = System.nanoTime();
+                int handle = itemBvh.raycast(ox, oy, oz, dx, dy, dz, 10_000,
+                        (h, boxDistance, tMax) -> meshBvh.raycast(matrices, slotByHandle[h] * 12, ox, oy, oz, dx, dy, dz, tMax));
+                long elapsed = System.nanoTime() - p0;
+                nanos += elapsed;
+                times[i] = elapsed;
+                picked[i] = handle < 0 ? -1 : itemBvh.idAt(handle);
+                if (handle >= 0) hits++;
+            }
+        }
+        System.out.printf("  %d of %d picks hit an item%n", hits, picks);
+        BenchSupport.report("pick, item BVH + MeshBvh", picks, nanos, 0);
+        Arrays.sort(times);
+        System.out.printf("  99th percentile %.3f ms, slowest %.3f ms%n", times[picks * 99 / 100] / 1e6, times[picks - 1] / 1e6);
+
+        // Every triangle of one model, in item space (per mesh cost of an exhaustive pick)
+        GeometryData baked = MeshBaker.bake(new GeometryData[]{model}, matrices, 1);
+        int runs = 20;
+        t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++) bruteForce(baked, rays, i * 6, Double.POSITIVE_INFINITY);
+        BenchSupport.report("every triangle of one model", runs, System.nanoTime() - t0, 0);
+
+        // Check a sample against brute force over the baked meshes of every item whose box the ray reaches
+        int checks = Math.min(20, picks), mismatches = 0;
+        double[] box = new double[6];
+        for (int i = 0; i < checks; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            long bestId = -1;
+            for (int h = 0; h < itemBvh.handleCount(); h++) {
+                if (!itemBvh.isLive(h)) continue;
+                itemBvh.bounds(h, box);
+                if (!reachesBox(rays, i * 6, box)) continue;
+                double[] matrix = new double[12];
+                System.arraycopy(matrices, slotByHandle[h] * 12, matrix, 0, 12);
+                double t = bruteForce(MeshBaker.bake(new GeometryData[]{model}, matrix, 1), rays, i * 6, best);
+                if (t < best) {
+                    best = t;
+                    bestId = itemBvh.idAt(h);
+                }
+            }
+            if (bestId != picked[i]) mismatches++;
+        }
+        System.out.printf("  %d of %d sampled picks differ from brute force%n", mismatches, checks);
+    }
+
+    // Nearest hit of a ray with any triangle of a geometry (double precision Moller-Trumbore)
+    private static double bruteForce(GeometryData geometry, double[] rays, int r, double tMax) {
+        float[] p = geometry.points();
+        int[] f = geometry.faces();
+        double ox = rays[r], oy = rays[r + 1], oz = rays[r + 2], dx = rays[r + 3], dy = rays[r + 4], dz = rays[r + 5];
+        double best = tMax;
+        for (int k = 0; k < f.length; k += 9) {
+            int a = f[k] * 3, b = f[k + 3] * 3, c = f[k + 6] * 3;
+            double e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+            double e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+            double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+            double det = e1x * px + e1y * py + e1z * pz;
+            if (Math.abs(det) < 1e-12) continue;
+            double sx = ox - p[a], sy = oy - p[a + 1], sz = oz - p[a + 2];
+            double u = (sx * px + sy * py + sz * pz) / det;
+            if (u < 0 || u > 1) continue;
+            double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+            double v = (dx * qx + dy * qy + dz * qz) / det;
+            if (v < 0 || u + v > 1) continue;
+            double t = (e2x * qx + e2y * qy + e2z * qz) / det;
+            if (t > 1e-12 && t < best) best = t;
+        }
+        return best;
+    }
+
+    private static boolean reachesBox(double[] rays, int r, double[] box) {
+        double near = 0, far = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double t1 = (box[axis] - rays[r + axis]) / rays[r + 3 + axis];
+            double t2 = (box[axis + 3] - rays[r + axis]) / rays[r + 3 + axis];
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        return near <= far;
+    }
+
+    // Sphere of radius ~10 with noisy radius, so rays hit at varied depths
+    private static GeometryData bumpySphere(int rings, int segments, long seed) {
+        Random random = new Random(seed);
+        int vertices = (rings + 1) * (segments + 1);
+        float[] points = new float[vertices * 3];
+        float[] normals = new float[vertices * 3];
+        float[] texCoords = new float[vertices * 2];
+        for (int ring = 0, p = 0; ring <= rings; ring++) {
+            double polar = Math.PI * ring / rings;
+            for (int segment = 0; segment <= segments; segment++, p++) {
+                double azimuth = 2 * Math.PI * segment / segments;
+                double nx = Math.sin(polar) * Math.cos(azimuth), ny = Math.cos(polar), nz = Math.sin(polar) * Math.sin(azimuth);
+                double radius = 10 * (1 + 0.05 * random.nextDouble());
+                points[p * 3] = (float) (nx * radius);
+                points[p * 3 + 1] = (float) (ny * radius);
+                points[p * 3 + 2] = (float) (nz * radius);
+                normals[p * 3] = (float) nx;
+                normals[p * 3 + 1] = (float) ny;
+                normals[p * 3 + 2] = (float) nz;
+            }
+        }
+        int[] faces = new int[rings * segments * 2 * 9];
+        int f = 0;
+        for (int ring = 0; ring < rings; ring++) {
+            for (int segment = 0; segment < segments; segment++) {
+                int a = ring * (segments + 1) + segment, b = a + 1, c = a + segments + 1, d = c + 1;
+                for (int v : new int[]{a, c, b, b, c, d}) {
+                    faces[f++] = v;
+                    faces[f++] = v;
+                    faces[f++] = v;
+                }
+            }
+        }
+        return new GeometryData(points, normals, texCoords, faces);
+    }
+}
@@ -0,0 +1,130 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.io.PreviewRenderer;
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.model.RoomShape;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Headless 3D preview rendering with {@link PreviewRenderer}: scene preparation, then images per
+ * second for one rendering thread and for one per core, turning the camera a little each image.
+ * Every item uses the same sphere model. The single and multi-threaded images of one view are
+ * compared, and the share of pixels showing the scene rather than the sky is printed. An output
+ * path writes one image for inspection.
+ * <p>
+ * Usage: PreviewRenderBenchmark [itemCount] [trianglesPerModel] [width] [height] [output.png]
+ */
+public class PreviewRenderBenchmark {
+
+    private static final double PIXELS_PER_METER = 50.0;
+    private static final int SKY = 0x87CEFA;
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int triangles = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1280;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 800;
+
+        int rings = Math.max(4, (int) Math.round(Math.sqrt(triangles / 4.0)));
+        GeometryData model = sphere(rings, rings * 2, 3);
+        double side = Math.sqrt(itemCount) * 60;
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        List<FurnitureItem> items = scene.asList();
+        Map<String, GeometryData> geometries = new HashMap<>();
+        for (FurnitureItem item : items) geometries.put(item.getModelFilename(), model);
+        RoomShape room = RoomShape.rectangle(side / PIXELS_PER_METER, side / PIXELS_PER_METER);
+
+        PreviewRenderer.Options options = new PreviewRenderer.Options();
+        options.width = width;
+        options.height = height;
+        int cores = Runtime.getRuntime().availableProcessors();
+        BufferedImage[] views = new BufferedImage[2];
+        int v = 0;
+        for (int threads : new int[]{1, cores}) {
+            try (PreviewRenderer renderer = new PreviewRenderer(threads)) {
+                long t0 = System.nanoTime();
+                PreviewRenderer.PreviewScene preview = renderer.prepare(room, 2.5, null, items, geometries, PIXELS_PER_METER);
+                if (v == 0) {
+                    System.out.printf("%d items, %d triangles, %dx%d at %dx%d supersampling, %d cores%n", itemCount,
+                                      preview.triangleCount(), width, height, options.supersample, options.supersample, cores);
+                    BenchSupport.report("prepare scene", 1, System.nanoTime() - t0, 0);
+                }
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                int images = 0;
+                long nanos = 0;
+                for (int run = 0; run < 2; run++) { // Run 0 warms up
+                    images = 0;
+                    t0 = System.nanoTime();
+                    while (System.nanoTime() - t0 < 3_000_000_000L) {
+                        options.yawDegrees = 30 + images * 7;
+                        renderer.render(preview, options, image);
+                        images++;
+                    }
+                    nanos = System.nanoTime() - t0;
+                }
+                BenchSupport.report("render, " + threads + " thread(s)", images, nanos, 0);
+                System.out.printf("  %.1f images/s%n", images / (nanos / 1e9));
+                options.yawDegrees = 30;
+                views[v++] = renderer.render(preview, options);
+            }
+        }
+
+        int differing = 0, scenePixels = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = views[0].getRGB(x, y) & 0xFFFFFF;
+                if (rgb != (views[1].getRGB(x, y) & 0xFFFFFF)) differing++;
+                if (rgb != SKY) scenePixels++;
+            }
+        }
+        System.out.printf("  %d pixels differ between 1 and %d threads, %.0f%% of the image shows the scene%n",
+                          differing, cores, 100.0 * scenePixels / (width * height));
+        if (args.length > 4) ImageIO.write(views[1], "png", new File(args[4]));
+    }
+
+    // Sphere of radius 10, slightly flattened, resting on y = 0 once MeshBaker moves its base
+    private static GeometryData sphere(int rings, int segments, long seed) {
+        Random random = new Random(seed);
+        int vertices = (rings + 1) * (segments + 1);
+        float[] points = new float[vertices * 3];
+        float[] normals = new float[vertices * 3];
+        float[] texCoords = new float[vertices * 2];
+        for (int ring = 0, p = 0; ring <= rings; ring++) {
+            double polar = Math.PI * ring / rings;
+            for (int segment = 0; segment <= segments; segment++, p++) {
+                double azimuth = 2 * Math.PI * segment / segments;
+                double nx = Math.sin(polar) * Math.cos(azimuth), ny = Math.cos(polar), nz = Math.sin(polar) * Math.sin(azimuth);
+                double radius = 10 * (1 + 0.02 * random.nextDouble());
+                points[p * 3] = (float) (nx * radius);
+                points[p * 3 + 1] = (float) (ny * radius * 0.8);
+                points[p * 3 + 2] = (float) (nz * radius);
+                normals[p * 3] = (float) nx;
+                normals[p * 3 + 1] = (float) ny;
+                normals[p * 3 + 2] = (float) nz;
+            }
+        }
+        int[] faces = new int[rings * segments * 2 * 9];
+        int f = 0;
+        for (int ring = 0; ring < rings; ring++) {
+            for (int segment = 0; segment < segments; segment++) {
+                int a = ring * (segments + 1) + segment, b = a + 1, c = a + segments + 1, d = c + 1;
+                for (int i : new int[]{a, c, b, b, c, d}) {
+                    faces[f++] = i;
+                    faces[f++] = i;
+                    faces[f++] = i;
+                }
+            }
+        }
+        return new GeometryData(points, normals, texCoords, faces);
+    }
+}
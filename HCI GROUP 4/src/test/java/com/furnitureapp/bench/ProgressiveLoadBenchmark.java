@@ -0,0 +1,174 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.ui.Furniture3DView;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SubScene;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Filling the 3D view with a large layout: every mesh built in one FX task, as the workspace
+ * refresh used to do (each item with its own copy of the model, so its own TriangleMesh), against
+ * {@code Furniture3DView.setItemsProgressively} (box proxies, then meshes streamed in under a
+ * per-pulse budget). Reports the longest gap between pulses while loading, which is how long the
+ * UI froze, and the time until every mesh is in. Opens a window, so it needs a display; run with
+ * -Dprism.vsync=false -Djavafx.animation.fullspeed=true so pulses are not capped.
+ * <p>
+ * Usage: ProgressiveLoadBenchmark [itemCount] [trianglesPerModel]
+ */
+public class ProgressiveLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        int triangles = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        int divisions = Math.max(1, (int) Math.round(Math.sqrt(triangles / 12.0)));
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, Math.sqrt(itemCount) * 100, 42);
+        List<FurnitureItem> items = scene.asList();
+        Map<String, GeometryData> models = new HashMap<>();
+        for (FurnitureItem item : items) models.computeIfAbsent(item.getModelFilename(), k -> boxMesh(divisions));
+        System.out.printf("%d items of %d models, %d triangles each%n",
+                          itemCount, models.size(), models.values().iterator().next().faces().length / 9);
+
+        JFXPanel panel = new JFXPanel(); // Starts the toolkit
+        Furniture3DView[] view = new Furniture3DView[1];
+        onFxThread(() -> {
+            view[0] = new Furniture3DView();
+            view[0].setRoomDimensions(Math.sqrt(itemCount) * 2, Math.sqrt(itemCount) * 2, 2.5);
+            SubScene subScene = new SubScene(view[0].getMainSceneRoot(), 1280, 800, true, SceneAntialiasing.BALANCED);
+            subScene.setCamera(view[0].getMainCamera());
+            panel.setScene(new Scene(new Group(subScene)));
+            view[0].startRotationAnimation();
+        });
+        SwingUtilities.invokeAndWait(() -> {
+            JFrame frame = new JFrame("ProgressiveLoadBenchmark");
+            frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            frame.add(panel);
+            frame.setSize(1280, 800);
+            frame.setVisible(true);
+        });
+        Thread.sleep(1_000);
+
+        for (int run = 0; run < 2; run++) { // Run 0 warms up
+            PulseWatch watch = new PulseWatch();
+            long start = System.nanoTime();
+            onFxThread(() -> {
+                view[0].clearAllItemNodes();
+                for (FurnitureItem item : items) {
+                    GeometryData model = models.get(item.getModelFilename());
+                    view[0].addOrUpdateItemNode(item, copy(model)); // A mesh per item, as before
+                }
+            });
+            long allAtOnce = System.nanoTime() - start;
+            Thread.sleep(500);
+            watch.stop();
+            if (run == 1) System.out.printf("  %-22s longest pulse gap %8.1f ms, all meshes in %8.1f ms%n",
+                                            "one FX task", watch.longestGapMillis(), allAtOnce / 1e6);
+
+            watch = new PulseWatch();
+            start = System.nanoTime();
+            onFxThread(() -> view[0].setItemsProgressively(items, models::get));
+            boolean[] streaming = {true};
+            while (streaming[0]) {
+                Thread.sleep(5);
+                onFxThread(() -> streaming[0] = view[0].isStreamingItems());
+            }
+            long progressive = System.nanoTime() - start;
+            watch.stop();
+            if (run == 1) System.out.printf("  %-22s longest pulse gap %8.1f ms, all meshes in %8.1f ms%n",
+                                            "progressive", watch.longestGapMillis(), progressive / 1e6);
+        }
+        onFxThread(() -> view[0].cleanup());
+        System.exit(0);
+    }
+
+    /** Longest interval between pulses while it runs. */
+    private static final class PulseWatch {
+        private final AnimationTimer timer;
+        private volatile long longest;
+        private long last = -1;
+
+        PulseWatch() throws InterruptedException {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    if (last >= 0) longest = Math.max(longest, now - last);
+                    last = now;
+                }
+            };
+            onFxThread(timer::start);
+        }
+
+        void stop() throws InterruptedException { onFxThread(timer::stop); }
+
+        double longestGapMillis() { return longest / 1e6; }
+    }
+
+    private static GeometryData copy(GeometryData g) {
+        return new GeometryData(g.points().clone(), g.normals().clone(), g.texCoords().clone(), g.faces().clone());
+    }
+
+    /** A unit box with each face split into divisions x divisions quads, in GeometryData face format. */
+    private static GeometryData boxMesh(int divisions) {
+        int perFace = (divisions + 1) * (divisions + 1);
+        float[] points = new float[6 * perFace * 3];
+        float[] normals = new float[points.length];
+        float[] texCoords = new float[6 * perFace * 2];
+        int[] faces = new int[6 * divisions * divisions * 2 * 9];
+        int p = 0, f = 0;
+        for (int face = 0; face < 6; face++) {
+            int axis = face / 2;
+            float sign = face % 2 == 0 ? -1 : 1;
+            int base = p;
+            for (int v = 0; v <= divisions; v++) {
+                for (int u = 0; u <= divisions; u++) {
+                    float[] xyz = new float[3];
+                    xyz[axis] = sign * 10;
+                    xyz[(axis + 1) % 3] = (u / (float) divisions - 0.5f) * 20;
+                    xyz[(axis + 2) % 3] = (v / (float) divisions - 0.5f) * 20;
+                    System.arraycopy(xyz, 0, points, p * 3, 3);
+                    normals[p * 3 + axis] = sign;
+                    texCoords[p * 2] = u / (float) divisions;
+                    texCoords[p * 2 + 1] = v / (float) divisions;
+                    p++;
+                }
+            }
+            for (int v = 0; v < divisions; v++) {
+                for (int u = 0; u < divisions; u++) {
+                    int a = base + v * (divisions + 1) + u, b = a + 1, c = a + divisions + 1, d = c + 1;
+                    for (int vertex : new int[]{a, b, d, a, d, c}) {
+                        faces[f++] = vertex;
+                        faces[f++] = vertex;
+                        faces[f++] = vertex;
+                    }
+                }
+            }
+        }
+        return new GeometryData(points, normals, texCoords, faces);
+    }
+
+    private static void onFxThread(Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
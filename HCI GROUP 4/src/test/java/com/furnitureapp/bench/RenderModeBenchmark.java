@@ -0,0 +1,67 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.DrawingCanvas.ItemRenderMode;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Compares per-item and colour-batched drawing of the furniture items in DrawingCanvas.
+ * Runs a spaced-out layout (one batch layer) and a dense one where items overlap
+ * (several layers), and reports how many pixels differ between the two modes.
+ * <p>
+ * Usage: RenderModeBenchmark [itemCount] [frames]
+ */
+public class RenderModeBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        // Spacing ~70 world px for 5k items: no overlaps. Dense: a quarter of the side, items overlap.
+        run("spaced", BenchSupport.gridScene(itemCount, 5000, 42), frames);
+        run("dense", BenchSupport.gridScene(itemCount, 1250, 42), frames);
+    }
+
+    private static void run(String name, FurnitureScene scene, int frames) {
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+
+        BufferedImage perItemImage = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        BufferedImage batchedImage = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        System.out.printf("%s: %d items%n", name, scene.size());
+        for (ItemRenderMode mode : new ItemRenderMode[]{ItemRenderMode.PER_ITEM, ItemRenderMode.COLOR_BATCHED}) {
+            canvas.setItemRenderMode(mode);
+            Graphics2D g = (mode == ItemRenderMode.PER_ITEM ? perItemImage : batchedImage).createGraphics();
+            for (int i = 0; i < frames / 4; i++) canvas.paint(g); // Warm-up
+            long bytes0 = BenchSupport.allocatedBytes();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < frames; i++) canvas.paint(g);
+            BenchSupport.report("  paint " + mode, frames, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+            g.dispose();
+        }
+
+        // Anti-aliased edges of merged paths can differ by a shade; count clearly different pixels only
+        int differing = 0;
+        for (int y = 0; y < perItemImage.getHeight(); y++) {
+            for (int x = 0; x < perItemImage.getWidth(); x++) {
+                if (channelDelta(perItemImage.getRGB(x, y), batchedImage.getRGB(x, y)) > 48) differing++;
+            }
+        }
+        System.out.printf("  pixels differing between modes: %d of %d%n", differing, perItemImage.getWidth() * perItemImage.getHeight());
+    }
+
+    private static int channelDelta(int a, int b) {
+        int max = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            max = Math.max(max, Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF)));
+        }
+        return max;
+    }
+}
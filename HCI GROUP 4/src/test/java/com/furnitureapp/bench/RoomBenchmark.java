@@ -0,0 +1,81 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.RoomShape;
+
+import java.awt.geom.Path2D;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cost of room containment queries against the number of room edges. The room is a 20 x 10 m
+ * floor whose north wall is a sawtooth with jittered tips, so both the number of slabs and the
+ * number of edges per slab grow with the edge count. Compares {@link RoomShape#contains} with a
+ * linear {@link Path2D#contains} and times {@link RoomShape#containsQuad} on item-sized quads,
+ * which is the per-item check made during a constrained drag.
+ * <p>
+ * Usage: RoomBenchmark [queries]
+ */
+public class RoomBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        for (int teeth : new int[]{2, 50, 500, 5_000}) {
+            RoomShape room = sawtoothRoom(teeth, new Random(teeth));
+            Path2D.Double path = room.toPath();
+            Random random = new Random(7);
+            double[] points = new double[queries * 2];
+            for (int i = 0; i < points.length; i += 2) {
+                points[i] = random.nextDouble() * 20;
+                points[i + 1] = random.nextDouble() * 10;
+            }
+            double[][] quads = new double[4096][];
+            for (int i = 0; i < quads.length; i++) {
+                double cx = random.nextDouble() * 20, cy = 1 + random.nextDouble() * 9, angle = random.nextDouble() * Math.PI;
+                double hw = 0.4, hd = 0.25, cos = Math.cos(angle), sin = Math.sin(angle);
+                quads[i] = new double[]{cx - hw * cos + hd * sin, cy - hw * sin - hd * cos, cx + hw * cos + hd * sin, cy + hw * sin - hd * cos,
+                                        cx + hw * cos - hd * sin, cy + hw * sin + hd * cos, cx - hw * cos - hd * sin, cy - hw * sin + hd * cos};
+            }
+            System.out.printf("Room with %d edges%n", room.edgeCount());
+
+            int sink = 0;
+            double[] scratch = new double[8];
+            for (int run = 0; run < 3; run++) { // Run 0 warms up
+                long t0 = System.nanoTime();
+                for (int i = 0; i < points.length; i += 2) if (room.contains(points[i], points[i + 1])) sink++;
+                long slabNanos = System.nanoTime() - t0;
+                int pathQueries = Math.max(1000, queries / Math.max(1, room.edgeCount() / 20)); // Keep the linear scan bounded
+                t0 = System.nanoTime();
+                for (int i = 0; i < pathQueries * 2; i += 2) if (path.contains(points[i], points[i + 1])) sink++;
+                long pathNanos = System.nanoTime() - t0;
+                t0 = System.nanoTime();
+                for (int i = 0; i < queries; i++) if (room.containsQuad(quads[i & (quads.length - 1)], scratch)) sink++;
+                long quadNanos = System.nanoTime() - t0;
+                if (run == 0) continue;
+                System.out.printf("  contains (slabs) %8.1f ns   Path2D.contains %10.1f ns   containsQuad %8.1f ns%n",
+                                  (double) slabNanos / queries, (double) pathNanos / pathQueries, (double) quadNanos / queries);
+            }
+            if (sink == 42) System.out.println(); // Keep the results alive
+        }
+    }
+
+    /** 20 x 10 m room whose north wall has the given number of teeth, tips jittered in y. */
+    private static RoomShape sawtoothRoom(int teeth, Random random) {
+        double width = 20, depth = 10, toothWidth = width / teeth;
+        double[] ring = new double[(2 * teeth + 3) * 2];
+        int k = 0;
+        ring[k++] = 0;
+        ring[k++] = depth;
+        for (int i = 0; i < teeth; i++) {
+            ring[k++] = i * toothWidth;
+            ring[k++] = 1.0;
+            ring[k++] = (i + 0.5) * toothWidth;
+            ring[k++] = random.nextDouble() * 0.9;
+        }
+        ring[k++] = width;
+        ring[k++] = 1.0;
+        ring[k++] = width;
+        ring[k] = depth;
+        return new RoomShape(List.of(ring));
+    }
+}
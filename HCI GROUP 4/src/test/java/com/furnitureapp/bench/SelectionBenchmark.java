@@ -0,0 +1,129 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.util.List;
+
+/**
+ * Rubber-band selection and group move on a large scene.
+ * Checks the spatial range query against a full scan, then reports the cost of one
+ * marquee drag step and of one group-move drag step (including the batched listener update).
+ * <p>
+ * Usage: SelectionBenchmark [itemCount] [steps]
+ */
+public class SelectionBenchmark {
+
+    private static int batchCalls = 0;
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        checkRangeQuery(scene);
+
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemsUpdated(List<FurnitureItem> updatedItems) {
+                batchCalls++;
+                for (FurnitureItem item : updatedItems) scene.replace(item);
+                canvas.sceneChanged();
+            }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+
+        // --- Marquee over a 10 m x 10 m block (~500 items at this density) ---
+        Point2D from = toScreen(canvas, emptyPointNear(scene, 2000, 2000)); // The band must start on bare floor
+        Point2D to = toScreen(canvas, 2500, 2500);
+        canvas.mousePressed(mouse(canvas, MouseEvent.MOUSE_PRESSED, from, 0));
+        long bytes0 = BenchSupport.allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 1; i <= steps; i++) {
+            double f = (double) i / steps; // Grow the band towards the final corner
+            canvas.mouseDragged(mouse(canvas, MouseEvent.MOUSE_DRAGGED,
+                    new Point2D.Double(from.getX() + (to.getX() - from.getX()) * f, from.getY() + (to.getY() - from.getY()) * f), 0));
+        }
+        BenchSupport.report("marquee drag step", steps, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        canvas.mouseReleased(mouse(canvas, MouseEvent.MOUSE_RELEASED, to, 0));
+        int selected = canvas.getSelectionSize();
+        System.out.printf("Selected %d items%n", selected);
+
+        // --- Group move: press on a selected item and drag the whole selection ---
+        FurnitureItem anchor = canvas.getSelectedItems().get(0);
+        Point2D press = toScreen(canvas, anchor.getTx(), anchor.getTy());
+        canvas.mousePressed(mouse(canvas, MouseEvent.MOUSE_PRESSED, press, 0));
+        batchCalls = 0;
+        bytes0 = BenchSupport.allocatedBytes();
+        t0 = System.nanoTime();
+        for (int i = 1; i <= steps; i++) {
+            canvas.mouseDragged(mouse(canvas, MouseEvent.MOUSE_DRAGGED, new Point2D.Double(press.getX() + i % 50, press.getY()), 0));
+        }
+        BenchSupport.report("group move step (" + selected + " items)", steps, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+        canvas.mouseReleased(mouse(canvas, MouseEvent.MOUSE_RELEASED, press, 0));
+        System.out.printf("Listener batches: %d for %d drag steps%n", batchCalls, steps);
+    }
+
+    /** Compares the grid query with a full scan for a set of rectangles. */
+    private static void checkRangeQuery(FurnitureScene scene) {
+        double[] b = new double[4];
+        int[] found = new int[1];
+        for (int q = 0; q < 50; q++) {
+            double minX = q * 97 % 4800, minY = q * 61 % 4800, maxX = minX + 50 + q * 7, maxY = minY + 30 + q * 5;
+            int expected = 0;
+            for (int slot = 0; slot < scene.slotCount(); slot++) {
+                if (!scene.isLive(slot)) continue;
+                scene.bounds(slot, b);
+                if (b[0] <= maxX && b[2] >= minX && b[1] <= maxY && b[3] >= minY) expected++;
+            }
+            found[0] = 0;
+            scene.forEachInBounds(minX, minY, maxX, maxY, slot -> found[0]++);
+            if (found[0] != expected) {
+                throw new IllegalStateException("Range query mismatch: " + found[0] + " vs " + expected);
+            }
+        }
+        long t0 = System.nanoTime();
+        for (int q = 0; q < 10_000; q++) {
+            double x = q * 37 % 4500, y = q * 53 % 4500;
+            scene.forEachInBounds(x, y, x + 500, y + 500, slot -> found[0]++);
+        }
+        BenchSupport.report("range query (10 m x 10 m)", 10_000, System.nanoTime() - t0, 0);
+    }
+
+    private static Point2D toScreen(DrawingCanvas canvas, double x, double y) {
+        return toScreen(canvas, new Point2D.Double(x, y));
+    }
+
+    private static Point2D toScreen(DrawingCanvas canvas, Point2D world) {
+        return canvas.getViewTransform().transform(world, null);
+    }
+
+    /** Finds a world point close to (x, y) that no item covers. */
+    private static Point2D emptyPointNear(FurnitureScene scene, double x, double y) {
+        for (double d = 0; d < 200; d += 2) {
+            boolean covered = false;
+            for (int slot = 0; slot < scene.slotCount() && !covered; slot++) {
+                covered = scene.isLive(slot) && scene.containsPoint(slot, x + d, y + d);
+            }
+            if (!covered) return new Point2D.Double(x + d, y + d);
+        }
+        throw new IllegalStateException("No empty floor near " + x + ", " + y);
+    }
+
+    private static MouseEvent mouse(DrawingCanvas canvas, int id, Point2D p, int modifiers) {
+        int mask = id == MouseEvent.MOUSE_RELEASED ? modifiers : modifiers | InputEvent.BUTTON1_DOWN_MASK;
+        return new MouseEvent(canvas, id, 0, mask, (int) Math.round(p.getX()), (int) Math.round(p.getY()), 1, false, MouseEvent.BUTTON1);
+    }
+}
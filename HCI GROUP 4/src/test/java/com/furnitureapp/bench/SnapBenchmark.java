@@ -0,0 +1,75 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.ItemUpdateListener;
+
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+
+/**
+ * Cost of snapping during a drag: the same sequence of drag events is replayed with snapping
+ * off and on, so the difference is the snap computation (neighbour query, edge and centre
+ * matching, grid fallback). Paint is not included.
+ * <p>
+ * Usage: SnapBenchmark [itemCount] [steps]
+ */
+public class SnapBenchmark {
+
+    public static void main(String[] args) {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        double side = Math.sqrt(itemCount) * 50; // ~1 m between item centres at 50 px/m
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, side, 42);
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(side / 50, side / 50);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        canvas.setItemUpdateListener(new ItemUpdateListener() {
+            @Override public void itemUpdated(FurnitureItem updatedItem) { scene.replace(updatedItem); canvas.sceneChanged(); }
+            @Override public void itemSelected(FurnitureItem selectedItem) { }
+            @Override public void itemDeselected() { }
+        });
+
+        // Find an item near the middle whose centre pixel hits it (small items can round off at low zoom)
+        int x0 = 0, y0 = 0;
+        for (int slot = scene.slotCount() / 2; slot < scene.slotCount(); slot++) {
+            Point2D itemScreen = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+            x0 = (int) Math.round(itemScreen.getX());
+            y0 = (int) Math.round(itemScreen.getY());
+            canvas.mousePressed(new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK, x0, y0, 1, false, MouseEvent.BUTTON1));
+            canvas.mouseReleased(new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0, x0, y0, 1, false, MouseEvent.BUTTON1));
+            if (canvas.getSelectionSize() == 1) break;
+        }
+        MouseEvent[] drags = new MouseEvent[steps];
+        for (int i = 0; i < steps; i++) {
+            // Back and forth across several neighbours, ending where it started so every run presses the same item
+            int d = i == steps - 1 ? 0 : (i % 400) < 200 ? i % 200 : 200 - i % 200;
+            drags[i] = new MouseEvent(canvas, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                      x0 + d, y0 + d / 3, 1, false, MouseEvent.BUTTON1);
+        }
+        MouseEvent press = new MouseEvent(canvas, MouseEvent.MOUSE_PRESSED, 0, InputEvent.BUTTON1_DOWN_MASK,
+                                          x0, y0, 1, false, MouseEvent.BUTTON1);
+        MouseEvent release = new MouseEvent(canvas, MouseEvent.MOUSE_RELEASED, 0, 0, x0, y0, 1, false, MouseEvent.BUTTON1);
+        System.out.printf("Scene: %d items, view scale %.2f%n", scene.size(), canvas.getViewTransform().getScaleX());
+
+        for (int run = 0; run < 3; run++) { // Run 0 warms up both paths
+            for (boolean snapping : new boolean[]{false, true}) {
+                canvas.setSnappingEnabled(snapping);
+                canvas.mousePressed(press);
+                long bytes0 = BenchSupport.allocatedBytes();
+                long t0 = System.nanoTime();
+                for (MouseEvent e : drags) canvas.mouseDragged(e);
+                long nanos = System.nanoTime() - t0;
+                long bytes = BenchSupport.allocatedBytes() - bytes0;
+                canvas.mouseReleased(release);
+                if (run > 0) BenchSupport.report("drag event, snapping " + (snapping ? "on" : "off"), steps, nanos, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.ui.DrawingCanvas;
+import com.furnitureapp.ui.DrawingCanvas.ItemRenderMode;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * EDT cost of painting DrawingCanvas in TILED mode compared with per-item drawing, on a plan
+ * far too large for per-item painting at 60 fps. Reports the first (cold) frame, the time
+ * until the background workers have filled the view, steady panning over cached tiles,
+ * panning into uncached areas (progressive refinement), and dragging a selected item.
+ * <p>
+ * Usage: TileBenchmark [itemCount] [frames]
+ */
+public class TileBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, 5000, 42);
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setRoomDimensions(100, 100);
+        canvas.setSize(1600, 1000);
+        canvas.centerViewOnRoom();
+        canvas.setScene(scene);
+        BufferedImage image = new BufferedImage(canvas.getWidth(), canvas.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        System.out.printf("Scene: %d items, view scale %.2f%n", scene.size(), canvas.getViewTransform().getScaleX());
+
+        for (int i = 0; i < 3; i++) canvas.paint(g); // Warm-up
+        long t0 = System.nanoTime();
+        int perItemFrames = Math.max(1, frames / 20);
+        for (int i = 0; i < perItemFrames; i++) canvas.paint(g);
+        BenchSupport.report("paint PER_ITEM (whole plan)", perItemFrames, System.nanoTime() - t0, 0);
+
+        canvas.setItemRenderMode(ItemRenderMode.TILED);
+        t0 = System.nanoTime();
+        canvas.paint(g);
+        BenchSupport.report("paint TILED, cold (requests tiles)", 1, System.nanoTime() - t0, 0);
+        long settleStart = System.nanoTime();
+        int settleFrames = settle(canvas, g);
+        System.out.printf("  view filled after %.1f ms (%d frames)%n", (System.nanoTime() - settleStart) / 1e6, settleFrames);
+
+        // Pan around the cached area, as a drag would
+        Point2D centre = new Point2D.Double(2500, 2500);
+        t0 = System.nanoTime();
+        long bytes0 = BenchSupport.allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            canvas.centerViewOn(centre.getX() + (i % 20) * 5, centre.getY());
+            canvas.paint(g);
+        }
+        BenchSupport.report("paint TILED, panning over ready tiles", frames, System.nanoTime() - t0, BenchSupport.allocatedBytes() - bytes0);
+
+        // Zoom in and sweep across: new tiles every few frames, coarser tiles shown meanwhile
+        zoomIn(canvas, 8);
+        long worst = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            canvas.centerViewOn(500 + i * 20, 500 + i * 10);
+            long f0 = System.nanoTime();
+            canvas.paint(g);
+            worst = Math.max(worst, System.nanoTime() - f0);
+        }
+        BenchSupport.report("paint TILED, panning into new tiles", frames, System.nanoTime() - t0, 0);
+        System.out.printf("  worst frame %.2f ms, tiles rendered so far %d%n", worst / 1e6, canvas.getTilesRendered());
+
+        // Drag a selected item: it is drawn live, so no tile is invalidated
+        settle(canvas, g);
+        int slot = scene.slotCount() / 2;
+        canvas.centerViewOn(scene.txAt(slot), scene.tyAt(slot));
+        settle(canvas, g);
+        Point2D press = canvas.getViewTransform().transform(new Point2D.Double(scene.txAt(slot), scene.tyAt(slot)), null);
+        canvas.setSnappingEnabled(false);
+        canvas.mousePressed(mouse(canvas, MouseEvent.MOUSE_PRESSED, press.getX(), press.getY()));
+        int rendered0 = canvas.getTilesRendered();
+        t0 = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            canvas.mouseDragged(mouse(canvas, MouseEvent.MOUSE_DRAGGED, press.getX() + i % 100, press.getY()));
+            canvas.paint(g);
+        }
+        BenchSupport.report("drag selected item + paint TILED", frames, System.nanoTime() - t0, 0);
+        canvas.mouseReleased(mouse(canvas, MouseEvent.MOUSE_RELEASED, press.getX(), press.getY()));
+        Thread.sleep(200);
+        System.out.printf("  tiles re-rendered during the drag: %d (selection %d item)%n",
+                          canvas.getTilesRendered() - rendered0, canvas.getSelectionSize());
+        g.dispose();
+    }
+
+    /** Paints until every visible tile is current; returns the number of frames painted. */
+    private static int settle(DrawingCanvas canvas, Graphics2D g) throws InterruptedException {
+        int count = 0;
+        do {
+            Thread.sleep(5);
+            canvas.paint(g);
+            count++;
+        } while (canvas.getTilesMissing() > 0 && count < 2000);
+        return count;
+    }
+
+    private static void zoomIn(DrawingCanvas canvas, int clicks) {
+        for (int i = 0; i < clicks; i++) {
+            canvas.mouseWheelMoved(new MouseWheelEvent(canvas, MouseEvent.MOUSE_WHEEL, 0, 0, 800, 500, 0, false,
+                                                       MouseWheelEvent.WHEEL_UNIT_SCROLL, 1, -1));
+        }
+    }
+
+    private static MouseEvent mouse(DrawingCanvas canvas, int id, double x, double y) {
+        int mask = id == MouseEvent.MOUSE_RELEASED ? 0 : InputEvent.BUTTON1_DOWN_MASK;
+        return new MouseEvent(canvas, id, 0, mask, (int) Math.round(x), (int) Math.round(y), 1, false, MouseEvent.BUTTON1);
+    }
+}
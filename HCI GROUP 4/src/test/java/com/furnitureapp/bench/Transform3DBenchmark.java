@@ -0,0 +1,121 @@
+package com.furnitureapp.bench;
+
+import com.furnitureapp.model.FurnitureItem;
+import com.furnitureapp.model.FurnitureScene;
+import com.furnitureapp.model.GeometryData;
+import com.furnitureapp.ui.Furniture3DView;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Per-update cost of moving animated items in the 3D view: every frame all items get a new
+ * position and rotation. Compares the former approach (clear the node's transform list and add
+ * five new transform objects) with the in-place Affine update, both applied directly on the FX
+ * thread, and then measures the coalesced path the workspace uses, where updates are queued from
+ * another thread and applied in one runLater.
+ * <p>
+ * Unlike the other benchmarks this one starts the JavaFX toolkit, so it needs the JavaFX runtime
+ * (and a display, or the Monocle headless platform).
+ * <p>
+ * Usage: Transform3DBenchmark [itemCount] [frames]
+ */
+public class Transform3DBenchmark {
+
+    private static final int POSES = 16; // Precomputed animation poses, so the loop only moves nodes
+    private static final double SCALE = 0.02 * 50; // Default 3D factor * pixels per metre
+
+    public static void main(String[] args) throws Exception {
+        BenchSupport.setUp();
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+
+        FurnitureScene scene = BenchSupport.gridScene(itemCount, Math.sqrt(itemCount) * 50, 42);
+        FurnitureItem[][] poses = new FurnitureItem[POSES][itemCount];
+        for (int slot = 0, i = 0; slot < scene.slotCount(); slot++) {
+            if (!scene.isLive(slot)) continue;
+            FurnitureItem item = scene.getById(scene.idAt(slot));
+            for (int p = 0; p < POSES; p++) {
+                double phase = 2 * Math.PI * p / POSES;
+                poses[p][i] = item.withTransform(item.getTx() + 10 * Math.cos(phase), item.getTy() + 10 * Math.sin(phase),
+                                                 item.getScaleX(), item.getScaleY(), item.getRotationRadians() + phase);
+            }
+            i++;
+        }
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        GeometryData triangle = new GeometryData(new float[]{0, 0, 0, 1, 0, 0, 0, 0, 1}, new float[]{0, 1, 0, 0, 1, 0, 0, 1, 0},
+                                                 new float[]{0, 0, 1, 0, 0, 1}, new int[]{0, 0, 0, 1, 1, 1, 2, 2, 2});
+        Furniture3DView view = new Furniture3DView();
+        Group[] legacyNodes = new Group[itemCount];
+        onFxThread(() -> {
+            for (int i = 0; i < itemCount; i++) {
+                view.addOrUpdateItemNode(poses[0][i], triangle);
+                legacyNodes[i] = new Group();
+            }
+        });
+        System.out.printf("%d animated items, %d frames per run%n", itemCount, frames);
+
+        long[] result = new long[2];
+        for (int round = 0; round < 3; round++) { // Round 0 warms up
+            onFxThread(() -> measure(frames, itemCount, result, (frame, i) -> applyLegacy(poses[frame % POSES][i], legacyNodes[i])));
+            if (round > 0) BenchSupport.report("5 new transforms per update (former)", frames * itemCount, result[0], result[1]);
+            onFxThread(() -> measure(frames, itemCount, result, (frame, i) -> view.updateItemTransforms(poses[frame % POSES][i])));
+            if (round > 0) BenchSupport.report("in-place Affine update", frames * itemCount, result[0], result[1]);
+
+            long t0 = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                for (int i = 0; i < itemCount; i++) view.queueItemTransform(poses[frame % POSES][i]);
+                onFxThread(() -> { }); // Runs after the flush: one pulse per frame
+            }
+            if (round > 0) BenchSupport.report("queued from another thread, per pulse", frames * itemCount, System.nanoTime() - t0, 0);
+        }
+        Platform.exit();
+    }
+
+    private interface Update {
+        void apply(int frame, int index);
+    }
+
+    /** Runs all frames of one variant on the FX thread; stores nanos and FX-thread bytes in result. */
+    private static void measure(int frames, int itemCount, long[] result, Update update) {
+        long bytes0 = BenchSupport.allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            for (int i = 0; i < itemCount; i++) update.apply(frame, i);
+        }
+        result[0] = System.nanoTime() - t0;
+        result[1] = BenchSupport.allocatedBytes() - bytes0;
+    }
+
+    /** The transform code the 3D view used before the single Affine. */
+    private static void applyLegacy(FurnitureItem item, Node node) {
+        node.getTransforms().clear();
+        node.getTransforms().addAll(
+            new Translate(item.getTx(), 0, item.getTy()),
+            new Rotate(Math.toDegrees(item.getRotationRadians()), Rotate.Y_AXIS),
+            new Rotate(180, Rotate.Y_AXIS),
+            new Rotate(180, Rotate.X_AXIS),
+            new Scale(item.getScaleX() * SCALE, item.getScaleY() * SCALE, item.getScaleX() * SCALE));
+    }
+
+    private static void onFxThread(Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}